@@ -0,0 +1,39 @@
+package io.github.imfangs.ai.deepresearch.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * Local corpus document
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CorpusDocument {
+
+    /**
+     * Document URL - Identifies the document; ingesting the same URL again replaces it
+     */
+    @NotBlank(message = "Document URL cannot be empty")
+    @JsonProperty("url")
+    private String url;
+
+    /**
+     * Title
+     */
+    @JsonProperty("title")
+    private String title;
+
+    /**
+     * Document text (HTML is reduced to its main text)
+     */
+    @NotBlank(message = "Document content cannot be empty")
+    @JsonProperty("content")
+    private String content;
+}
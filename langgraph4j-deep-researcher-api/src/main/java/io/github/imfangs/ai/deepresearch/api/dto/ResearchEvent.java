@@ -0,0 +1,90 @@
+package io.github.imfangs.ai.deepresearch.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Deep research event
+ *
+ * Structured progress event following the AG-UI event types: every graph node is reported as a step,
+ * and changes to the research state are sent as JSON Patch (RFC 6902) operations against a state that
+ * starts out empty for each subscriber
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ResearchEvent {
+
+    /**
+     * Event type
+     */
+    @JsonProperty("type")
+    private Type type;
+
+    /**
+     * Request ID
+     */
+    @JsonProperty("request_id")
+    private String requestId;
+
+    /**
+     * Graph node name (step events only)
+     */
+    @JsonProperty("step_name")
+    private String stepName;
+
+    /**
+     * State changes (STATE_DELTA only)
+     */
+    @JsonProperty("delta")
+    private List<PatchOperation> delta;
+
+    /**
+     * Final research response (RUN_FINISHED only)
+     */
+    @JsonProperty("response")
+    private ResearchResponse response;
+
+    /**
+     * Event time
+     */
+    @JsonProperty("timestamp")
+    private LocalDateTime timestamp;
+
+    /**
+     * Event type
+     */
+    public enum Type {
+        STEP_STARTED,
+        STEP_FINISHED,
+        STATE_DELTA,
+        RUN_FINISHED
+    }
+
+    /**
+     * JSON Patch operation
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PatchOperation {
+
+        @JsonProperty("op")
+        private String op;
+
+        @JsonProperty("path")
+        private String path;
+
+        @JsonProperty("value")
+        private Object value;
+    }
+}
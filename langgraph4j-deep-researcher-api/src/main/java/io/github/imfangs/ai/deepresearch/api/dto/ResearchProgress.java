@@ -0,0 +1,104 @@
+package io.github.imfangs.ai.deepresearch.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Deep research progress event
+ *
+ * Emitted after each executed graph node; the last event of a run carries the final response. Runs also emit
+ * an event when a node starts, which only feeds the step events and is not sent to progress subscribers.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ResearchProgress {
+
+    /**
+     * Request ID
+     */
+    @JsonProperty("request_id")
+    private String requestId;
+
+    /**
+     * Research topic
+     */
+    @JsonProperty("research_topic")
+    private String researchTopic;
+
+    /**
+     * Name of the node that just completed (or started)
+     */
+    @JsonProperty("node")
+    private String node;
+
+    /**
+     * Current research loop count
+     */
+    @JsonProperty("research_loop_count")
+    private Integer researchLoopCount;
+
+    /**
+     * Number of sources gathered so far
+     */
+    @JsonProperty("sources_count")
+    private Integer sourcesCount;
+
+    /**
+     * Research status
+     */
+    @JsonProperty("status")
+    private ResearchResponse.ResearchStatus status;
+
+    /**
+     * Whether this subscriber joined a run started by an identical request
+     */
+    @JsonProperty("coalesced")
+    private Boolean coalesced;
+
+    /**
+     * Final research response (only on the last event)
+     */
+    @JsonProperty("response")
+    private ResearchResponse response;
+
+    /**
+     * Event time
+     */
+    @JsonProperty("timestamp")
+    private LocalDateTime timestamp;
+
+    /**
+     * Start time of the node that just completed (not serialized)
+     */
+    @JsonIgnore
+    private LocalDateTime nodeStartTime;
+
+    /**
+     * Whether the node just started rather than completed (not serialized)
+     */
+    @JsonIgnore
+    private Boolean nodeStarted;
+
+    /**
+     * Running summary after the node (not serialized, used to derive state deltas)
+     */
+    @JsonIgnore
+    private String runningSummary;
+
+    /**
+     * Sources gathered so far (not serialized, used to derive state deltas)
+     */
+    @JsonIgnore
+    private List<String> sources;
+}
@@ -73,4 +73,39 @@ public class ResearchRequest {
      */
     @JsonProperty("user_id")
     private String userId;
+
+    /**
+     * Token budget - Maximum prompt and completion tokens the research run may consume (unlimited if not set)
+     */
+    @Min(value = 1000, message = "Token budget must be at least 1000")
+    @JsonProperty("token_budget")
+    private Integer tokenBudget;
+
+    /**
+     * Deadline - Milliseconds the research run may take, including the final report (unlimited if not set)
+     */
+    @Min(value = 1000, message = "Deadline must be at least 1000 milliseconds")
+    @JsonProperty("deadline_ms")
+    private Long deadlineMs;
+
+    /**
+     * Force refresh - Skip the report cache and run fresh research (false if not set)
+     */
+    @JsonProperty("force_refresh")
+    private Boolean forceRefresh;
+
+    /**
+     * Priority - Scheduling class of the research run (NORMAL if not set)
+     */
+    @JsonProperty("priority")
+    private Priority priority;
+
+    /**
+     * Research priority enumeration, highest first
+     */
+    public enum Priority {
+        HIGH,   // Interactive sessions
+        NORMAL, // Default
+        LOW     // Bulk and batch jobs
+    }
 }
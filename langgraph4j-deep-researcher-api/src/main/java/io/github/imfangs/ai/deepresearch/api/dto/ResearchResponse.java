@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Deep research response
@@ -15,7 +16,7 @@ import java.util.List;
  * @author imfangs
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class ResearchResponse {
@@ -50,6 +51,24 @@ public class ResearchResponse {
     @JsonProperty("sources_gathered")
     private List<String> sourcesGathered;
 
+    /**
+     * Prompt tokens consumed by the research run
+     */
+    @JsonProperty("prompt_tokens")
+    private Integer promptTokens;
+
+    /**
+     * Completion tokens consumed by the research run
+     */
+    @JsonProperty("completion_tokens")
+    private Integer completionTokens;
+
+    /**
+     * Total tokens consumed by the research run
+     */
+    @JsonProperty("total_tokens")
+    private Integer totalTokens;
+
     /**
      * Research start time
      */
@@ -86,6 +105,12 @@ public class ResearchResponse {
     @JsonProperty("status")
     private ResearchStatus status;
 
+    /**
+     * Run metadata, such as predicted and measured latencies
+     */
+    @JsonProperty("metadata")
+    private Map<String, Object> metadata;
+
     /**
      * Research status enumeration
      */
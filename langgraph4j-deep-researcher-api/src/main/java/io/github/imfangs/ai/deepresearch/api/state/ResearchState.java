@@ -6,8 +6,10 @@ import org.bsc.langgraph4j.state.AgentState;
 import org.bsc.langgraph4j.state.Channel;
 import org.bsc.langgraph4j.state.Channels;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -20,6 +22,14 @@ import java.util.Optional;
 @Slf4j
 public class ResearchState extends AgentState {
 
+    /**
+     * Defaults of request parameters left out of a request
+     */
+    public static final int DEFAULT_MAX_RESEARCH_LOOPS = 3;
+    public static final String DEFAULT_SEARCH_ENGINE = "tavily";
+    public static final int DEFAULT_MAX_SEARCH_RESULTS = 3;
+    public static final boolean DEFAULT_FETCH_FULL_PAGE = true;
+
     /**
      * State schema definition
      */
@@ -41,7 +51,23 @@ public class ResearchState extends AgentState {
         Map.entry("current_node_start_time", Channels.base(null, null)),
         Map.entry("error_message", Channels.base(null, null)),
         Map.entry("success", Channels.base(null, null)),
-        Map.entry("metadata", Channels.base(null, null))
+        Map.entry("metadata", Channels.base(null, null)),
+        Map.entry("prompt_tokens", Channels.base(null, null)),
+        Map.entry("completion_tokens", Channels.base(null, null)),
+        Map.entry("token_budget", Channels.base(null, null)),
+        Map.entry("loop_start_tokens", Channels.base(null, null)),
+        Map.entry("last_loop_tokens", Channels.base(null, null)),
+        Map.entry("finalize_reserve_tokens", Channels.base(null, null)),
+        Map.entry("url_novelty", Channels.base(null, null)),
+        Map.entry("summary_novelty", Channels.base(null, null)),
+        Map.entry("loop_novelty", Channels.base(null, null)),
+        Map.entry("knowledge_gaps", Channels.base(null, null)),
+        Map.entry("next_query", Channels.base(null, null)),
+        Map.entry("next_query_loop", Channels.base(null, null)),
+        Map.entry("deadline", Channels.base(null, null)),
+        Map.entry("finalize_reserve_ms", Channels.base(null, null)),
+        Map.entry("predicted_loop_ms", Channels.base(null, null)),
+        Map.entry("predicted_finalize_ms", Channels.base(null, null))
     );
 
     /**
@@ -111,28 +137,28 @@ public class ResearchState extends AgentState {
      * Get maximum research loop count
      */
     public Integer maxResearchLoops() {
-        return this.<Integer>value("max_research_loops").orElse(3);
+        return this.<Integer>value("max_research_loops").orElse(DEFAULT_MAX_RESEARCH_LOOPS);
     }
 
     /**
      * Whether to fetch full page content
      */
     public Boolean fetchFullPage() {
-        return this.<Boolean>value("fetch_full_page").orElse(true);
+        return this.<Boolean>value("fetch_full_page").orElse(DEFAULT_FETCH_FULL_PAGE);
     }
 
     /**
      * Get maximum search result count
      */
     public Integer maxSearchResults() {
-        return this.<Integer>value("max_search_results").orElse(3);
+        return this.<Integer>value("max_search_results").orElse(DEFAULT_MAX_SEARCH_RESULTS);
     }
 
     /**
      * Get search engine type
      */
     public String searchEngine() {
-        return this.<String>value("search_engine").orElse("tavily");
+        return this.<String>value("search_engine").orElse(DEFAULT_SEARCH_ENGINE);
     }
 
     /**
@@ -149,6 +175,20 @@ public class ResearchState extends AgentState {
         return this.value("user_id");
     }
 
+    /**
+     * Get deadline in epoch milliseconds (empty means no deadline)
+     */
+    public Optional<Long> deadline() {
+        return this.<Number>value("deadline").map(Number::longValue);
+    }
+
+    /**
+     * Get time kept free before the deadline for the final report (milliseconds)
+     */
+    public long finalizeReserveMillis() {
+        return this.<Number>value("finalize_reserve_ms").map(Number::longValue).orElse(0L);
+    }
+
     /**
      * Get start time
      */
@@ -185,6 +225,97 @@ public class ResearchState extends AgentState {
         return this.<Map<String, Object>>value("metadata").orElse(Map.of());
     }
 
+    /**
+     * Get prompt tokens consumed so far
+     */
+    public Integer promptTokens() {
+        return this.<Integer>value("prompt_tokens").orElse(0);
+    }
+
+    /**
+     * Get completion tokens consumed so far
+     */
+    public Integer completionTokens() {
+        return this.<Integer>value("completion_tokens").orElse(0);
+    }
+
+    /**
+     * Get total tokens consumed so far
+     */
+    public int totalTokens() {
+        return this.promptTokens() + this.completionTokens();
+    }
+
+    /**
+     * Get token budget (empty means unlimited)
+     */
+    public Optional<Integer> tokenBudget() {
+        return this.value("token_budget");
+    }
+
+    /**
+     * Get total tokens consumed when the current loop started
+     */
+    public Integer loopStartTokens() {
+        return this.<Integer>value("loop_start_tokens").orElse(0);
+    }
+
+    /**
+     * Get tokens consumed by the last completed loop
+     */
+    public Integer lastLoopTokens() {
+        return this.<Integer>value("last_loop_tokens").orElse(0);
+    }
+
+    /**
+     * Get tokens estimated for the final report call, reserved when projecting the token budget
+     */
+    public Integer finalizeReserveTokens() {
+        return this.<Integer>value("finalize_reserve_tokens").orElse(0);
+    }
+
+    /**
+     * Get share of new canonical URLs found by the last search
+     */
+    public Optional<Double> urlNovelty() {
+        return this.value("url_novelty");
+    }
+
+    /**
+     * Get share of new n-grams in the running summary after the last summarization
+     */
+    public Optional<Double> summaryNovelty() {
+        return this.value("summary_novelty");
+    }
+
+    /**
+     * Get combined marginal novelty of the last loop
+     */
+    public Optional<Double> loopNovelty() {
+        return this.value("loop_novelty");
+    }
+
+    /**
+     * Get knowledge gaps identified by the last reflection
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> knowledgeGaps() {
+        return this.<List<String>>value("knowledge_gaps").orElse(List.of());
+    }
+
+    /**
+     * Get the next loop's search query prepared during reflection of the current loop
+     *
+     * A query prepared in an earlier loop is stale and not returned
+     */
+    public Optional<String> nextQuery() {
+        Optional<Integer> preparedInLoop = this.value("next_query_loop");
+        if (preparedInLoop.isEmpty() || !preparedInLoop.get().equals(this.researchLoopCount())) {
+            return Optional.empty();
+        }
+        return this.value("next_query");
+    }
+
     // === Convenience methods: State operations ===
 
     /**
@@ -194,6 +325,120 @@ public class ResearchState extends AgentState {
         return this.researchLoopCount() >= this.maxResearchLoops();
     }
 
+    /**
+     * Check if the projected next loop and the final report would exceed the token budget
+     *
+     * The next loop is projected to cost at least as much as the last one, since prompts grow every loop,
+     * and the estimated tokens of the final report call are kept in reserve
+     */
+    public boolean wouldExceedTokenBudget() {
+        return this.tokenBudget()
+                .map(budget -> this.totalTokens() + this.lastLoopTokens() + this.finalizeReserveTokens() > budget)
+                .orElse(false);
+    }
+
+    /**
+     * Get time left before the deadline, zero once it has passed (empty means no deadline)
+     */
+    public Optional<Duration> remainingTime() {
+        return this.deadline()
+                .map(deadline -> Duration.ofMillis(Math.max(0, deadline - System.currentTimeMillis())));
+    }
+
+    /**
+     * Get time a research node may spend, keeping the finalize reserve free (empty means no deadline)
+     *
+     * A zero budget means the node should skip optional work so the final report can still be produced in time
+     */
+    public Optional<Duration> nodeTimeBudget() {
+        return this.remainingTime()
+                .map(remaining -> remaining.minusMillis(this.finalizeReserveMillis()))
+                .map(budget -> budget.isNegative() ? Duration.ZERO : budget);
+    }
+
+    /**
+     * Check if another loop would run into the finalize reserve
+     *
+     * The next loop is projected to take as long as the average loop so far
+     */
+    public boolean wouldMissDeadline() {
+        return this.nodeTimeBudget()
+                .map(budget -> budget.toMillis() < this.getTotalDuration() / Math.max(1, this.researchLoopCount()))
+                .orElse(false);
+    }
+
+    /**
+     * Get predicted time of the next research loop (milliseconds, empty until node latencies are known)
+     */
+    public Optional<Long> predictedLoopMillis() {
+        return this.<Number>value("predicted_loop_ms").map(Number::longValue);
+    }
+
+    /**
+     * Get predicted time of the final report (milliseconds, empty until node latencies are known)
+     */
+    public Optional<Long> predictedFinalizeMillis() {
+        return this.<Number>value("predicted_finalize_ms").map(Number::longValue);
+    }
+
+    /**
+     * Check if another loop and the final report are predicted to exceed the latency SLO
+     *
+     * @param latencySloMillis Target research time in milliseconds (0 or less means no target)
+     */
+    public boolean wouldMissLatencySlo(long latencySloMillis) {
+        if (latencySloMillis <= 0) {
+            return false;
+        }
+        return this.predictedLoopMillis()
+                .map(loop -> this.getTotalDuration() + loop + this.predictedFinalizeMillis().orElse(0L) > latencySloMillis)
+                .orElse(false);
+    }
+
+    /**
+     * Set the deadline of the run
+     *
+     * @param deadlineMillis Deadline in epoch milliseconds
+     * @param finalizeReserveMillis Time kept free before the deadline for the final report
+     */
+    public static Map<String, Object> deadline(long deadlineMillis, long finalizeReserveMillis) {
+        return Map.of(
+            "deadline", deadlineMillis,
+            "finalize_reserve_ms", finalizeReserveMillis
+        );
+    }
+
+    /**
+     * Record token usage of an LLM call
+     */
+    public Map<String, Object> addTokenUsage(int promptTokens, int completionTokens) {
+        return Map.of(
+            "prompt_tokens", this.promptTokens() + promptTokens,
+            "completion_tokens", this.completionTokens() + completionTokens
+        );
+    }
+
+    /**
+     * Close the token accounting of the current loop
+     */
+    public Map<String, Object> markLoopTokens() {
+        int total = this.totalTokens();
+        return Map.of(
+            "last_loop_tokens", total - this.loopStartTokens(),
+            "loop_start_tokens", total
+        );
+    }
+
+    /**
+     * Record the next loop's search query, prepared during the current loop
+     */
+    public Map<String, Object> setNextQuery(String query) {
+        return Map.of(
+            "next_query", query,
+            "next_query_loop", this.researchLoopCount()
+        );
+    }
+
     /**
      * Increment loop count
      */
@@ -271,19 +516,29 @@ public class ResearchState extends AgentState {
             Integer maxLoops,
             String searchEngine,
             Integer maxResults,
-            Boolean fetchFullPage) {
-        
-        return Map.of(
-            "research_topic", researchTopic,
-            "request_id", requestId,
-            "user_id", userId,
-            "max_research_loops", maxLoops != null ? maxLoops : 3,
-            "search_engine", searchEngine != null ? searchEngine : "tavily",
-            "max_search_results", maxResults != null ? maxResults : 3,
-            "fetch_full_page", fetchFullPage != null ? fetchFullPage : true,
-            "research_loop_count", 0,
-            "success", true,
-            "start_time", LocalDateTime.now()
-        );
+            Boolean fetchFullPage,
+            Integer tokenBudget) {
+
+        Map<String, Object> initialState = new HashMap<>();
+        initialState.put("research_topic", researchTopic);
+        initialState.put("request_id", requestId);
+        initialState.put("max_research_loops", maxLoops != null ? maxLoops : DEFAULT_MAX_RESEARCH_LOOPS);
+        initialState.put("search_engine", searchEngine != null ? searchEngine : DEFAULT_SEARCH_ENGINE);
+        initialState.put("max_search_results", maxResults != null ? maxResults : DEFAULT_MAX_SEARCH_RESULTS);
+        initialState.put("fetch_full_page", fetchFullPage != null ? fetchFullPage : DEFAULT_FETCH_FULL_PAGE);
+        initialState.put("research_loop_count", 0);
+        initialState.put("success", true);
+        initialState.put("start_time", LocalDateTime.now());
+        initialState.put("prompt_tokens", 0);
+        initialState.put("completion_tokens", 0);
+
+        // Optional values are left out of the state rather than stored as null
+        if (userId != null) {
+            initialState.put("user_id", userId);
+        }
+        if (tokenBudget != null) {
+            initialState.put("token_budget", tokenBudget);
+        }
+        return initialState;
     }
 }
\ No newline at end of file
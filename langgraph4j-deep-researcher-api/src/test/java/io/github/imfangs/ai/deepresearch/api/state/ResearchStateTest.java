@@ -0,0 +1,92 @@
+package io.github.imfangs.ai.deepresearch.api.state;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Research state test
+ */
+class ResearchStateTest {
+
+    @Test
+    void reservesFinalReportTokensInBudget() {
+        assertThat(new ResearchState(tokens(10000, 3000, 0)).wouldExceedTokenBudget()).isFalse();
+        assertThat(new ResearchState(tokens(10000, 3000, 2000)).wouldExceedTokenBudget()).isFalse();
+
+        // Another loop still fits, but not together with the final report call
+        assertThat(new ResearchState(tokens(10000, 3000, 2001)).wouldExceedTokenBudget()).isTrue();
+    }
+
+    @Test
+    void neverExceedsMissingBudget() {
+        Map<String, Object> data = tokens(10000, 3000, 2001);
+        data.remove("token_budget");
+
+        assertThat(new ResearchState(data).wouldExceedTokenBudget()).isFalse();
+    }
+
+    @Test
+    void budgetsNodeTimeUpToFinalizeReserve() {
+        assertThat(new ResearchState(new HashMap<>()).nodeTimeBudget()).isEmpty();
+
+        Map<String, Object> data = new HashMap<>(ResearchState.deadline(System.currentTimeMillis() + 10_000, 3_000));
+        assertThat(new ResearchState(data).nodeTimeBudget()).hasValueSatisfying(budget ->
+                assertThat(budget).isBetween(Duration.ofMillis(6_000), Duration.ofMillis(7_000)));
+
+        // Inside the reserve the budget is zero, never negative
+        data.putAll(ResearchState.deadline(System.currentTimeMillis() + 2_000, 3_000));
+        assertThat(new ResearchState(data).nodeTimeBudget()).hasValue(Duration.ZERO);
+    }
+
+    @Test
+    void missesDeadlineWhenAverageLoopExceedsBudget() {
+        // Two loops in 4 seconds: 2 seconds per loop
+        Map<String, Object> data = new HashMap<>();
+        data.put("start_time", LocalDateTime.now().minusSeconds(4));
+        data.put("research_loop_count", 2);
+        assertThat(new ResearchState(data).wouldMissDeadline()).isFalse();
+
+        data.putAll(ResearchState.deadline(System.currentTimeMillis() + 8_000, 5_000));
+        assertThat(new ResearchState(data).wouldMissDeadline()).isFalse();
+
+        data.putAll(ResearchState.deadline(System.currentTimeMillis() + 6_000, 5_000));
+        assertThat(new ResearchState(data).wouldMissDeadline()).isTrue();
+    }
+
+    @Test
+    void missesLatencySloWhenLoopAndReportArePredictedBeyondIt() {
+        // 4 seconds elapsed
+        Map<String, Object> data = new HashMap<>();
+        data.put("start_time", LocalDateTime.now().minusSeconds(4));
+        assertThat(new ResearchState(data).wouldMissLatencySlo(5_000)).isFalse();
+
+        data.put("predicted_loop_ms", 3_000L);
+        data.put("predicted_finalize_ms", 2_000L);
+        assertThat(new ResearchState(data).wouldMissLatencySlo(0)).isFalse();
+        assertThat(new ResearchState(data).wouldMissLatencySlo(10_000)).isFalse();
+        assertThat(new ResearchState(data).wouldMissLatencySlo(8_000)).isTrue();
+
+        // Without a report prediction only the loop counts
+        data.remove("predicted_finalize_ms");
+        assertThat(new ResearchState(data).wouldMissLatencySlo(8_000)).isFalse();
+    }
+
+    /**
+     * State after a loop, with a budget of 15000 tokens
+     */
+    private static Map<String, Object> tokens(int used, int lastLoop, int finalizeReserve) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("prompt_tokens", used - 1000);
+        data.put("completion_tokens", 1000);
+        data.put("last_loop_tokens", lastLoop);
+        data.put("finalize_reserve_tokens", finalizeReserve);
+        data.put("token_budget", 15000);
+        return data;
+    }
+}
@@ -1,11 +1,14 @@
 package io.github.imfangs.ai.deepresearch.config;
 
 import dev.langchain4j.model.chat.ChatModel;
+import io.github.imfangs.ai.deepresearch.config.http.LimitedHttpClientBuilder;
 import dev.langchain4j.model.openai.OpenAiChatModel;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 /**
  * LangChain4j related Bean configuration
  */
@@ -19,9 +22,11 @@ public class ChatModelConfig {
      * Provide ChatModel Bean for injection by various nodes
      */
     @Bean
-    public ChatModel chatModel() {
+    public ChatModel chatModel(LimitedHttpClientBuilder researchHttpClientBuilder) {
         ResearchModelConfig cfg = researchConfig.getModel();
         return OpenAiChatModel.builder()
+                .httpClientBuilder(researchHttpClientBuilder)
+                .timeout(Duration.ofSeconds(researchConfig.getHttp().getRequestTimeoutSeconds()))
                 .modelName(cfg.getModelName())
                 .apiKey(cfg.getApiKey())
                 .baseUrl(cfg.getApiUrl())
@@ -0,0 +1,60 @@
+package io.github.imfangs.ai.deepresearch.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+
+/**
+ * Full-page fetch configuration
+ */
+@Data
+public class FetchConfig {
+
+    /**
+     * Whether to fetch pages whose search result carries no raw content
+     */
+    private Boolean enabled = true;
+
+    /**
+     * Maximum concurrent page fetches
+     */
+    @Min(value = 1, message = "Concurrent fetches must be at least 1")
+    private Integer maxConcurrentFetches = 16;
+
+    /**
+     * Maximum concurrent page fetches per host
+     */
+    @Min(value = 1, message = "Concurrent fetches per host must be at least 1")
+    private Integer maxConcurrentFetchesPerHost = 2;
+
+    /**
+     * Page fetch timeout, including the body read (seconds)
+     */
+    @Min(value = 1, message = "Fetch timeout must be at least 1 second")
+    @Max(value = 120, message = "Fetch timeout cannot exceed 120 seconds")
+    private Integer timeoutSeconds = 15;
+
+    /**
+     * Maximum page body size read (bytes); longer bodies are truncated
+     */
+    @Min(value = 1024, message = "Maximum body size must be at least 1024 bytes")
+    private Integer maxBodyBytes = 2 * 1024 * 1024;
+
+    /**
+     * User agent sent with page requests
+     */
+    private String userAgent = "langgraph4j-deep-researcher/1.0";
+
+    /**
+     * Maximum redirects followed per page; every target is checked like the requested URL
+     */
+    @Min(value = 0, message = "Maximum redirects cannot be negative")
+    @Max(value = 10, message = "Maximum redirects cannot exceed 10")
+    private Integer maxRedirects = 5;
+
+    /**
+     * Whether pages may be fetched from loopback, private, link-local and other non-public addresses.
+     * Page URLs come from search results, so this should only be enabled on isolated networks.
+     */
+    private Boolean allowPrivateAddresses = false;
+}
@@ -1,5 +1,7 @@
 package io.github.imfangs.ai.deepresearch.config;
 
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import lombok.Data;
@@ -40,9 +42,67 @@ public class FlowConfig {
     private Integer maxTokensPerSource = 1000;
 
     /**
-     * Character to token conversion ratio
+     * Marginal novelty below which research ends early
      */
-    @Min(value = 2, message = "Character to token conversion ratio must be at least 2")
-    @Max(value = 10, message = "Character to token conversion ratio cannot exceed 10")
-    private Integer charsPerToken = 4;
-}
\ No newline at end of file
+    @DecimalMin(value = "0.0", message = "Novelty threshold cannot be less than 0")
+    @DecimalMax(value = "1.0", message = "Novelty threshold cannot be greater than 1")
+    private Double noveltyThreshold = 0.2;
+
+    /**
+     * Whether reflection and next-query planning are fused into one structured-output LLM call
+     */
+    private Boolean fusedReflection = true;
+
+    /**
+     * Whether reflection generates the next loop's search query concurrently, discarded if research ends
+     * (only used when reflection is not fused)
+     */
+    private Boolean pipelinedReflection = false;
+
+    /**
+     * Token budget of the search result context packed into the summarizer prompt
+     */
+    @Min(value = 500, message = "Summarizer context tokens must be at least 500")
+    @Max(value = 32000, message = "Summarizer context tokens cannot exceed 32000")
+    private Integer summarizerContextTokens = 6000;
+
+    /**
+     * Token budget of the source passages packed into the finalizer prompt
+     */
+    @Min(value = 0, message = "Finalizer context tokens cannot be negative")
+    @Max(value = 32000, message = "Finalizer context tokens cannot exceed 32000")
+    private Integer finalizerContextTokens = 3000;
+
+    /**
+     * Passages retrieved from the run's passage index before packing a prompt context
+     */
+    @Min(value = 1, message = "Retrieved passage count must be at least 1")
+    @Max(value = 200, message = "Retrieved passage count cannot exceed 200")
+    private Integer retrievalTopK = 24;
+
+    /**
+     * Maximum tokens of the running summary included in prompts
+     */
+    @Min(value = 200, message = "Maximum summary tokens must be at least 200")
+    @Max(value = 16000, message = "Maximum summary tokens cannot exceed 16000")
+    private Integer maxSummaryTokens = 4000;
+
+    /**
+     * Time kept free before a request deadline for the final report (milliseconds)
+     */
+    @Min(value = 0, message = "Finalize reserve cannot be negative")
+    private Long finalizeReserveMs = 30000L;
+
+    /**
+     * Target research time (milliseconds); the router only starts another loop if it is predicted to fit (0 = no target)
+     */
+    @Min(value = 0, message = "Latency SLO cannot be negative")
+    private Long latencySloMs = 0L;
+
+    /**
+     * Weight of the newest sample in the moving averages of node latencies
+     */
+    @DecimalMin(value = "0.01", message = "Latency smoothing must be at least 0.01")
+    @DecimalMax(value = "1.0", message = "Latency smoothing cannot be greater than 1")
+    private Double latencySmoothing = 0.2;
+}
@@ -0,0 +1,37 @@
+package io.github.imfangs.ai.deepresearch.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+
+/**
+ * Shared HTTP client configuration
+ */
+@Data
+public class HttpClientConfig {
+
+    /**
+     * Connect timeout (seconds)
+     */
+    @Min(value = 1, message = "Connect timeout must be at least 1 second")
+    @Max(value = 120, message = "Connect timeout cannot exceed 120 seconds")
+    private Integer connectTimeoutSeconds = 10;
+
+    /**
+     * Default request timeout (seconds)
+     */
+    @Min(value = 1, message = "Request timeout must be at least 1 second")
+    @Max(value = 600, message = "Request timeout cannot exceed 600 seconds")
+    private Integer requestTimeoutSeconds = 120;
+
+    /**
+     * Whether to negotiate HTTP/2 (multiplexes concurrent requests over one connection per host)
+     */
+    private Boolean http2 = true;
+
+    /**
+     * Maximum concurrent requests per host
+     */
+    @Min(value = 1, message = "Concurrent requests per host must be at least 1")
+    private Integer maxConcurrentRequestsPerHost = 16;
+}
@@ -0,0 +1,62 @@
+package io.github.imfangs.ai.deepresearch.config;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+/**
+ * Page knowledge cache configuration
+ */
+@Data
+public class KnowledgeConfig {
+
+    /**
+     * Whether to keep gathered pages and serve searches from them when they cover the query
+     */
+    private Boolean enabled = false;
+
+    /**
+     * Directory holding the persisted pages
+     */
+    @NotBlank(message = "Knowledge cache directory cannot be empty")
+    private String directory = "./data/knowledge";
+
+    /**
+     * Maximum pages kept; the oldest pages are evicted first
+     */
+    @Min(value = 1, message = "Maximum pages must be at least 1")
+    private Integer maxPages = 5000;
+
+    /**
+     * Age after which a page is no longer served (hours)
+     */
+    @Min(value = 1, message = "Maximum page age must be at least 1 hour")
+    private Integer maxAgeHours = 168;
+
+    /**
+     * Maximum characters of page content kept per page
+     */
+    @Min(value = 1000, message = "Maximum content length must be at least 1000 characters")
+    private Integer maxContentChars = 16000;
+
+    /**
+     * Share of query terms a page must contain to cover the query
+     */
+    @DecimalMin(value = "0.0", message = "Minimum term coverage cannot be less than 0")
+    @DecimalMax(value = "1.0", message = "Minimum term coverage cannot be greater than 1")
+    private Double minTermCoverage = 0.6;
+
+    /**
+     * Whether pages are also matched by embedding similarity with the local embedding model
+     */
+    private Boolean vectorSearch = true;
+
+    /**
+     * Cosine similarity a page must reach to cover the query when vector search is enabled
+     */
+    @DecimalMin(value = "-1.0", message = "Minimum similarity cannot be less than -1")
+    @DecimalMax(value = "1.0", message = "Minimum similarity cannot be greater than 1")
+    private Double minSimilarity = 0.5;
+}
@@ -0,0 +1,59 @@
+package io.github.imfangs.ai.deepresearch.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Local corpus (Lucene) search configuration
+ */
+@Data
+public class LuceneConfig {
+
+    /**
+     * Whether the local corpus search engine is available
+     */
+    private Boolean enabled = false;
+
+    /**
+     * Directory of the on-disk Lucene index
+     */
+    @NotBlank(message = "Lucene index directory cannot be empty")
+    private String indexDirectory = "./data/lucene-index";
+
+    /**
+     * Directory of documents ingested on startup (empty to skip)
+     */
+    private String documentsDirectory = "";
+
+    /**
+     * File extensions ingested from the documents directory
+     */
+    @NotEmpty(message = "Ingested file extensions cannot be empty")
+    private List<String> fileExtensions = List.of("txt", "md", "html", "htm");
+
+    /**
+     * Largest document file ingested (bytes)
+     */
+    @Min(value = 1024, message = "Maximum document size must be at least 1024 bytes")
+    private Long maxDocumentBytes = 10L * 1024 * 1024;
+
+    /**
+     * Characters of the best matching passage returned as the result content
+     */
+    @Min(value = 50, message = "Snippet length must be at least 50 characters")
+    private Integer snippetChars = 400;
+
+    /**
+     * Whether documents can be added, removed and reindexed over the REST API
+     */
+    private Boolean writeEnabled = false;
+
+    /**
+     * Bearer token required for corpus changes over the REST API (empty to require none)
+     */
+    private String writeToken = "";
+}
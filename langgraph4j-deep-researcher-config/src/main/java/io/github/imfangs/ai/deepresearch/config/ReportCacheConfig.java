@@ -0,0 +1,34 @@
+package io.github.imfangs.ai.deepresearch.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+
+/**
+ * Final report cache configuration
+ */
+@Data
+public class ReportCacheConfig {
+
+    /**
+     * Whether final responses of completed runs are served to identical later requests
+     */
+    private Boolean enabled = true;
+
+    /**
+     * Seconds a cached report is served as fresh
+     */
+    @Min(value = 1, message = "Report cache TTL must be at least 1 second")
+    private Long ttlSeconds = 3600L;
+
+    /**
+     * Seconds after the TTL during which a stale report is still served while it is refreshed in the background
+     */
+    @Min(value = 0, message = "Report cache stale window cannot be negative")
+    private Long staleSeconds = 86400L;
+
+    /**
+     * Maximum cached reports; the oldest are evicted first
+     */
+    @Min(value = 1, message = "Report cache size must be at least 1")
+    private Integer maxEntries = 256;
+}
@@ -0,0 +1,51 @@
+package io.github.imfangs.ai.deepresearch.config;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+
+/**
+ * Search result rerank configuration
+ */
+@Data
+public class RerankConfig {
+
+    /**
+     * Whether to rerank search results by embedding similarity to the research topic and query
+     */
+    private Boolean enabled = false;
+
+    /**
+     * Cosine similarity below which results are dropped
+     */
+    @DecimalMin(value = "-1.0", message = "Minimum similarity cannot be less than -1")
+    @DecimalMax(value = "1.0", message = "Minimum similarity cannot be greater than 1")
+    private Double minSimilarity = 0.3;
+
+    /**
+     * Results kept per search even when below the minimum similarity
+     */
+    @Min(value = 0, message = "Minimum kept results cannot be negative")
+    private Integer minResults = 1;
+
+    /**
+     * Texts embedded per model call
+     */
+    @Min(value = 1, message = "Batch size must be at least 1")
+    @Max(value = 256, message = "Batch size cannot exceed 256")
+    private Integer batchSize = 32;
+
+    /**
+     * Embeddings cached by content hash
+     */
+    @Min(value = 0, message = "Cache size cannot be negative")
+    private Integer cacheSize = 4096;
+
+    /**
+     * Characters of a result embedded (the model reads at most 256 tokens)
+     */
+    @Min(value = 100, message = "Maximum text length must be at least 100 characters")
+    private Integer maxTextChars = 1000;
+}
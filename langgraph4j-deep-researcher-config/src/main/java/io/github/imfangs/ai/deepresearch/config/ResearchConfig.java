@@ -36,5 +36,35 @@ public class ResearchConfig {
     @Valid
     private FlowConfig flow = new FlowConfig();
 
+    /**
+     * Research scheduler configuration
+     */
+    @Valid
+    private SchedulerConfig scheduler = new SchedulerConfig();
+
+    /**
+     * Progress streaming configuration
+     */
+    @Valid
+    private StreamingConfig streaming = new StreamingConfig();
+
+    /**
+     * Final report cache configuration
+     */
+    @Valid
+    private ReportCacheConfig reportCache = new ReportCacheConfig();
+
+    /**
+     * Shared HTTP client configuration
+     */
+    @Valid
+    private HttpClientConfig http = new HttpClientConfig();
+
+    /**
+     * Page knowledge cache configuration
+     */
+    @Valid
+    private KnowledgeConfig knowledge = new KnowledgeConfig();
+
 
 }
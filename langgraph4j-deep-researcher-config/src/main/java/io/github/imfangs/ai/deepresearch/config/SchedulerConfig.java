@@ -0,0 +1,56 @@
+package io.github.imfangs.ai.deepresearch.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Research scheduler configuration
+ */
+@Data
+public class SchedulerConfig {
+
+    /**
+     * Maximum research runs executing concurrently across all users
+     */
+    @Min(value = 1, message = "Maximum concurrent runs must be at least 1")
+    private Integer maxConcurrentRuns = 8;
+
+    /**
+     * Maximum research runs executing concurrently per user
+     */
+    @Min(value = 1, message = "Maximum concurrent runs per user must be at least 1")
+    private Integer maxConcurrentRunsPerUser = 2;
+
+    /**
+     * Requests each user may submit per minute (token bucket refill rate)
+     */
+    @Min(value = 1, message = "Requests per minute must be at least 1")
+    private Integer requestsPerMinute = 30;
+
+    /**
+     * Requests each user may submit in a burst (token bucket capacity)
+     */
+    @Min(value = 1, message = "Request burst must be at least 1")
+    private Integer requestBurst = 10;
+
+    /**
+     * Seconds after which the token bucket of an idle user is dropped once it has refilled
+     */
+    @Min(value = 1, message = "Idle bucket TTL must be at least 1 second")
+    private Long idleBucketTtlSeconds = 600L;
+
+    /**
+     * Priority class of AG-UI sessions (HIGH, NORMAL or LOW)
+     */
+    @Pattern(regexp = "HIGH|NORMAL|LOW", message = "AG-UI priority must be HIGH, NORMAL or LOW")
+    private String aguiPriority = "HIGH";
+
+    /**
+     * Fair-share weights by user ID; users not listed have weight 1
+     */
+    private Map<String, Integer> userWeights = new HashMap<>();
+}
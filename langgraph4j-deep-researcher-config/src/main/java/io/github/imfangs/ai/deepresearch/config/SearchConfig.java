@@ -25,6 +25,24 @@ public class SearchConfig {
     @Valid
     private TavilyConfig tavily = new TavilyConfig();
 
+    /**
+     * Full-page fetch configuration
+     */
+    @Valid
+    private FetchConfig fetch = new FetchConfig();
+
+    /**
+     * Search result rerank configuration
+     */
+    @Valid
+    private RerankConfig rerank = new RerankConfig();
+
+    /**
+     * Local corpus (Lucene) search configuration
+     */
+    @Valid
+    private LuceneConfig lucene = new LuceneConfig();
+
     // Getter method
     public TavilyConfig getTavily() {
         return tavily;
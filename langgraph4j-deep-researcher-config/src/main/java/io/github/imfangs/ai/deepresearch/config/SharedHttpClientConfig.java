@@ -0,0 +1,82 @@
+package io.github.imfangs.ai.deepresearch.config;
+
+import io.github.imfangs.ai.deepresearch.config.http.HostConcurrencyLimiter;
+import io.github.imfangs.ai.deepresearch.config.http.LimitedHttpClientBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Shared HTTP client Bean configuration
+ *
+ * One pooled JDK HTTP client serves the model and search provider clients, so connections, TLS sessions
+ * and HTTP/2 streams are reused across research runs. The JDK connection pool is configured JVM-wide by
+ * the jdk.httpclient.keepalive.timeout and jdk.httpclient.connectionPoolSize system properties, which
+ * must be given at launch (-D) since they are read once; they are logged here but never set.
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+public class SharedHttpClientConfig {
+
+    private final ResearchConfig researchConfig;
+
+    /**
+     * Provide the shared JDK HTTP client
+     */
+    @Bean
+    @Primary
+    public HttpClient researchHttpClient() {
+        HttpClientConfig cfg = researchConfig.getHttp();
+
+        log.info("🌐 Building shared HTTP client, HTTP/2: {}, keep-alive: {}s, pool size: {}, per-host limit: {}",
+                cfg.getHttp2(), System.getProperty("jdk.httpclient.keepalive.timeout", "JDK default"),
+                System.getProperty("jdk.httpclient.connectionPoolSize", "JDK default"),
+                cfg.getMaxConcurrentRequestsPerHost());
+
+        return HttpClient.newBuilder()
+                .version(Boolean.TRUE.equals(cfg.getHttp2()) ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(cfg.getConnectTimeoutSeconds()))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /**
+     * Provide the JDK HTTP client for page fetches
+     *
+     * Page URLs come from search results, so the page fetcher follows redirects itself and checks each
+     * target address; this client never follows them.
+     */
+    @Bean
+    public HttpClient pageFetchHttpClient() {
+        HttpClientConfig cfg = researchConfig.getHttp();
+        return HttpClient.newBuilder()
+                .version(Boolean.TRUE.equals(cfg.getHttp2()) ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(cfg.getConnectTimeoutSeconds()))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    /**
+     * Provide the per-host concurrency limiter of the shared HTTP client
+     */
+    @Bean
+    public HostConcurrencyLimiter hostConcurrencyLimiter(MeterRegistry meterRegistry) {
+        return new HostConcurrencyLimiter(researchConfig.getHttp().getMaxConcurrentRequestsPerHost(), meterRegistry);
+    }
+
+    /**
+     * Provide the LangChain4j HTTP client builder over the shared HTTP client
+     */
+    @Bean
+    public LimitedHttpClientBuilder researchHttpClientBuilder(HttpClient researchHttpClient,
+                                                              HostConcurrencyLimiter hostConcurrencyLimiter) {
+        return new LimitedHttpClientBuilder(researchHttpClient, hostConcurrencyLimiter);
+    }
+}
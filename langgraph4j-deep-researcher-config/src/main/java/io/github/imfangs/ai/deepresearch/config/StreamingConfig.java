@@ -0,0 +1,18 @@
+package io.github.imfangs.ai.deepresearch.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+
+/**
+ * Progress streaming configuration
+ */
+@Data
+public class StreamingConfig {
+
+    /**
+     * Progress events buffered per streaming subscriber; when a slow client falls behind,
+     * the oldest buffered events are superseded by newer ones
+     */
+    @Min(value = 1, message = "Subscriber buffer size must be at least 1")
+    private Integer subscriberBufferSize = 16;
+}
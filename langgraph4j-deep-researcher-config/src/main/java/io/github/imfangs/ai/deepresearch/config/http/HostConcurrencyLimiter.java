@@ -0,0 +1,110 @@
+package io.github.imfangs.ai.deepresearch.config.http;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Per-host concurrency limiter
+ *
+ * Bounds concurrent requests per host over the shared HTTP client and exports per-host in-flight,
+ * waiting and permit wait time metrics
+ */
+public class HostConcurrencyLimiter {
+
+    private final int maxConcurrentRequestsPerHost;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, HostPermits> hosts = new ConcurrentHashMap<>();
+
+    public HostConcurrencyLimiter(int maxConcurrentRequestsPerHost, MeterRegistry meterRegistry) {
+        this.maxConcurrentRequestsPerHost = maxConcurrentRequestsPerHost;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Wait for a request permit for the host of a URI
+     *
+     * @param uri Request URI
+     * @return Permit to close when the request completes
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public Permit acquire(URI uri) throws InterruptedException {
+        HostPermits permits = hosts.computeIfAbsent(hostOf(uri), HostPermits::new);
+        long startNanos = System.nanoTime();
+        if (!permits.semaphore.tryAcquire()) {
+            permits.semaphore.acquire();
+        }
+        permits.waitTimer.record(Duration.ofNanos(System.nanoTime() - startNanos));
+        return new Permit(permits.semaphore);
+    }
+
+    /**
+     * Record a completed request
+     *
+     * @param uri Request URI
+     * @param durationNanos Request duration in nanoseconds
+     * @param outcome Request outcome (status code or error type)
+     */
+    public void recordRequest(URI uri, long durationNanos, String outcome) {
+        Timer.builder("research.http.requests")
+                .description("HTTP requests over the shared client")
+                .tag("host", hostOf(uri))
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(Duration.ofNanos(durationNanos));
+    }
+
+    private static String hostOf(URI uri) {
+        String host = uri.getHost() != null ? uri.getHost().toLowerCase(Locale.ROOT) : "unknown";
+        return uri.getPort() != -1 ? host + ":" + uri.getPort() : host;
+    }
+
+    /**
+     * Request permit
+     */
+    public static final class Permit implements AutoCloseable {
+
+        private final Semaphore semaphore;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Semaphore semaphore) {
+            this.semaphore = semaphore;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                semaphore.release();
+            }
+        }
+    }
+
+    private final class HostPermits {
+        private final Semaphore semaphore = new Semaphore(maxConcurrentRequestsPerHost, true);
+        private final Timer waitTimer;
+
+        private HostPermits(String host) {
+            this.waitTimer = Timer.builder("research.http.permit.wait")
+                    .description("Time requests wait for a per-host concurrency permit")
+                    .tag("host", host)
+                    .register(meterRegistry);
+            Gauge.builder("research.http.in.flight", semaphore,
+                            permits -> maxConcurrentRequestsPerHost - permits.availablePermits())
+                    .description("Requests in flight per host")
+                    .tag("host", host)
+                    .register(meterRegistry);
+            Gauge.builder("research.http.waiting", semaphore, Semaphore::getQueueLength)
+                    .description("Requests waiting for a per-host concurrency permit")
+                    .tag("host", host)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.imfangs.ai.deepresearch.config.http;
+
+import dev.langchain4j.exception.HttpException;
+import dev.langchain4j.http.client.HttpClient;
+import dev.langchain4j.http.client.HttpRequest;
+import dev.langchain4j.http.client.SuccessfulHttpResponse;
+import dev.langchain4j.http.client.sse.ServerSentEventListener;
+import dev.langchain4j.http.client.sse.ServerSentEventParser;
+
+import java.net.URI;
+
+/**
+ * LangChain4j HTTP client limited per host
+ *
+ * Delegates to a LangChain4j client over the shared JDK HTTP client, holding a per-host permit
+ * for the duration of each synchronous request
+ */
+public class LimitedHttpClient implements HttpClient {
+
+    private final HttpClient delegate;
+    private final HostConcurrencyLimiter limiter;
+
+    public LimitedHttpClient(HttpClient delegate, HostConcurrencyLimiter limiter) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public SuccessfulHttpResponse execute(HttpRequest request) throws HttpException, RuntimeException {
+        URI uri = URI.create(request.url());
+        long startNanos = System.nanoTime();
+        String outcome = "error";
+        try (HostConcurrencyLimiter.Permit permit = limiter.acquire(uri)) {
+            SuccessfulHttpResponse response = delegate.execute(request);
+            outcome = String.valueOf(response.statusCode());
+            return response;
+        } catch (HttpException e) {
+            outcome = String.valueOf(e.statusCode());
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for HTTP permit: " + uri.getHost(), e);
+        } finally {
+            limiter.recordRequest(uri, System.nanoTime() - startNanos, outcome);
+        }
+    }
+
+    /**
+     * Streaming requests are passed through: their permit could only be released from listener callbacks
+     */
+    @Override
+    public void execute(HttpRequest request, ServerSentEventParser parser, ServerSentEventListener listener) {
+        delegate.execute(request, parser, listener);
+    }
+}
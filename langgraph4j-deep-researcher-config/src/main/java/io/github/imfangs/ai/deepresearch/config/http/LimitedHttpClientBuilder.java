@@ -0,0 +1,131 @@
+package io.github.imfangs.ai.deepresearch.config.http;
+
+import dev.langchain4j.http.client.HttpClient;
+import dev.langchain4j.http.client.HttpClientBuilder;
+import dev.langchain4j.http.client.jdk.JdkHttpClient;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * LangChain4j HTTP client builder over the shared JDK HTTP client
+ *
+ * Every client built here reuses the same JDK client, so model clients share its connection pool,
+ * TLS sessions and HTTP/2 connections. Connect timeouts are fixed by the shared client; read timeouts
+ * apply per request.
+ */
+public class LimitedHttpClientBuilder implements HttpClientBuilder {
+
+    private final java.net.http.HttpClient sharedClient;
+    private final HostConcurrencyLimiter limiter;
+    private Duration connectTimeout;
+    private Duration readTimeout;
+
+    public LimitedHttpClientBuilder(java.net.http.HttpClient sharedClient, HostConcurrencyLimiter limiter) {
+        this.sharedClient = sharedClient;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public Duration connectTimeout() {
+        return connectTimeout;
+    }
+
+    @Override
+    public HttpClientBuilder connectTimeout(Duration timeout) {
+        this.connectTimeout = timeout;
+        return this;
+    }
+
+    @Override
+    public Duration readTimeout() {
+        return readTimeout;
+    }
+
+    @Override
+    public HttpClientBuilder readTimeout(Duration timeout) {
+        this.readTimeout = timeout;
+        return this;
+    }
+
+    @Override
+    public HttpClient build() {
+        HttpClient delegate = JdkHttpClient.builder()
+                .httpClientBuilder(new SharedClientBuilder(sharedClient))
+                .readTimeout(readTimeout)
+                .build();
+        return new LimitedHttpClient(delegate, limiter);
+    }
+
+    /**
+     * JDK client builder handing out the shared client; settings are fixed when the shared client is created
+     */
+    private static final class SharedClientBuilder implements java.net.http.HttpClient.Builder {
+
+        private final java.net.http.HttpClient client;
+
+        private SharedClientBuilder(java.net.http.HttpClient client) {
+            this.client = client;
+        }
+
+        @Override
+        public java.net.http.HttpClient.Builder cookieHandler(CookieHandler cookieHandler) {
+            return this;
+        }
+
+        @Override
+        public java.net.http.HttpClient.Builder connectTimeout(Duration duration) {
+            return this;
+        }
+
+        @Override
+        public java.net.http.HttpClient.Builder sslContext(SSLContext sslContext) {
+            return this;
+        }
+
+        @Override
+        public java.net.http.HttpClient.Builder sslParameters(SSLParameters sslParameters) {
+            return this;
+        }
+
+        @Override
+        public java.net.http.HttpClient.Builder executor(Executor executor) {
+            return this;
+        }
+
+        @Override
+        public java.net.http.HttpClient.Builder followRedirects(java.net.http.HttpClient.Redirect policy) {
+            return this;
+        }
+
+        @Override
+        public java.net.http.HttpClient.Builder version(java.net.http.HttpClient.Version version) {
+            return this;
+        }
+
+        @Override
+        public java.net.http.HttpClient.Builder priority(int priority) {
+            return this;
+        }
+
+        @Override
+        public java.net.http.HttpClient.Builder proxy(ProxySelector proxySelector) {
+            return this;
+        }
+
+        @Override
+        public java.net.http.HttpClient.Builder authenticator(Authenticator authenticator) {
+            return this;
+        }
+
+        @Override
+        public java.net.http.HttpClient build() {
+            return client;
+        }
+    }
+}
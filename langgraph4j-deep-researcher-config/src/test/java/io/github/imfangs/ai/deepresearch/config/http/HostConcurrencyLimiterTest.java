@@ -0,0 +1,85 @@
+package io.github.imfangs.ai.deepresearch.config.http;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Host concurrency limiter test
+ */
+class HostConcurrencyLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HostConcurrencyLimiter limiter = new HostConcurrencyLimiter(2, meterRegistry);
+
+    @Test
+    void boundsRequestsPerHost() throws Exception {
+        URI uri = URI.create("https://api.example.com/v1/chat");
+        HostConcurrencyLimiter.Permit first = limiter.acquire(uri);
+        HostConcurrencyLimiter.Permit second = limiter.acquire(uri);
+        assertThat(inFlight("api.example.com")).isEqualTo(2);
+
+        CompletableFuture<HostConcurrencyLimiter.Permit> third = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.acquire(uri);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        waitUntilWaiting("api.example.com", 1);
+        assertThat(third).isNotDone();
+
+        // Closing twice releases one permit only
+        first.close();
+        first.close();
+        try (HostConcurrencyLimiter.Permit permit = third.get(5, TimeUnit.SECONDS)) {
+            assertThat(inFlight("api.example.com")).isEqualTo(2);
+        }
+        second.close();
+
+        assertThat(inFlight("api.example.com")).isZero();
+        assertThat(meterRegistry.get("research.http.permit.wait").tag("host", "api.example.com").timer().count())
+                .isEqualTo(3);
+    }
+
+    @Test
+    void keepsHostsApart() throws Exception {
+        try (HostConcurrencyLimiter.Permit a = limiter.acquire(URI.create("https://A.example.com/x"));
+             HostConcurrencyLimiter.Permit b = limiter.acquire(URI.create("https://a.example.com/y"));
+             HostConcurrencyLimiter.Permit c = limiter.acquire(URI.create("http://localhost:8080/z"))) {
+            assertThat(inFlight("a.example.com")).isEqualTo(2);
+            assertThat(inFlight("localhost:8080")).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void recordsRequestsByOutcome() {
+        URI uri = URI.create("https://api.example.com/search");
+        limiter.recordRequest(uri, TimeUnit.MILLISECONDS.toNanos(20), "200");
+        limiter.recordRequest(uri, TimeUnit.MILLISECONDS.toNanos(40), "200");
+        limiter.recordRequest(uri, TimeUnit.MILLISECONDS.toNanos(10), "error");
+
+        assertThat(meterRegistry.get("research.http.requests")
+                .tag("host", "api.example.com").tag("outcome", "200").timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("research.http.requests")
+                .tag("host", "api.example.com").tag("outcome", "error").timer().count()).isEqualTo(1);
+    }
+
+    private double inFlight(String host) {
+        return meterRegistry.get("research.http.in.flight").tag("host", host).gauge().value();
+    }
+
+    private void waitUntilWaiting(String host, int waiting) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("research.http.waiting").tag("host", host).gauge().value() < waiting
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(meterRegistry.get("research.http.waiting").tag("host", host).gauge().value()).isEqualTo(waiting);
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.imfangs.ai.deepresearch.config.http;
+
+import dev.langchain4j.exception.HttpException;
+import dev.langchain4j.http.client.HttpClient;
+import dev.langchain4j.http.client.HttpMethod;
+import dev.langchain4j.http.client.HttpRequest;
+import dev.langchain4j.http.client.SuccessfulHttpResponse;
+import dev.langchain4j.http.client.sse.ServerSentEventListener;
+import dev.langchain4j.http.client.sse.ServerSentEventParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Limited HTTP client test
+ */
+class LimitedHttpClientTest {
+
+    private static final HttpRequest REQUEST = HttpRequest.builder()
+            .method(HttpMethod.POST)
+            .url("https://api.example.com/v1/chat/completions")
+            .body("{}")
+            .build();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HostConcurrencyLimiter limiter = new HostConcurrencyLimiter(1, meterRegistry);
+    private final AtomicInteger inFlightDuringCall = new AtomicInteger(-1);
+
+    @Test
+    void holdsPermitDuringRequest() {
+        LimitedHttpClient client = new LimitedHttpClient(delegate(() -> {
+            inFlightDuringCall.set((int) inFlight());
+            return SuccessfulHttpResponse.builder().statusCode(200).body("ok").build();
+        }), limiter);
+
+        assertThat(client.execute(REQUEST).body()).isEqualTo("ok");
+
+        assertThat(inFlightDuringCall.get()).isEqualTo(1);
+        assertThat(inFlight()).isZero();
+        assertThat(requests("200")).isEqualTo(1);
+    }
+
+    @Test
+    void releasesPermitAndRecordsFailures() {
+        LimitedHttpClient rejected = new LimitedHttpClient(delegate(() -> {
+            throw new HttpException(429, "Too Many Requests");
+        }), limiter);
+        LimitedHttpClient broken = new LimitedHttpClient(delegate(() -> {
+            throw new IllegalStateException("connection reset");
+        }), limiter);
+
+        assertThatThrownBy(() -> rejected.execute(REQUEST)).isInstanceOf(HttpException.class);
+        assertThatThrownBy(() -> broken.execute(REQUEST)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(inFlight()).isZero();
+        assertThat(requests("429")).isEqualTo(1);
+        assertThat(requests("error")).isEqualTo(1);
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("research.http.in.flight").tag("host", "api.example.com").gauge().value();
+    }
+
+    private long requests(String outcome) {
+        return meterRegistry.get("research.http.requests")
+                .tag("host", "api.example.com").tag("outcome", outcome).timer().count();
+    }
+
+    private static HttpClient delegate(Response response) {
+        return new HttpClient() {
+            @Override
+            public SuccessfulHttpResponse execute(HttpRequest request) {
+                return response.get();
+            }
+
+            @Override
+            public void execute(HttpRequest request, ServerSentEventParser parser, ServerSentEventListener listener) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private interface Response {
+        SuccessfulHttpResponse get();
+    }
+}
@@ -1,11 +1,17 @@
 package io.github.imfangs.ai.deepresearch.core.agui;
 
+import io.github.imfangs.ai.deepresearch.api.dto.ResearchRequest.Priority;
 import io.github.imfangs.ai.deepresearch.api.dto.SearchResult;
 import io.github.imfangs.ai.deepresearch.api.state.ResearchState;
+import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
 import io.github.imfangs.ai.deepresearch.core.graph.ResearchGraphBuilder;
+import io.github.imfangs.ai.deepresearch.core.scheduler.CallCancellation;
+import io.github.imfangs.ai.deepresearch.core.scheduler.ResearchScheduler;
+import org.bsc.langgraph4j.CompiledGraph;
 import org.bsc.langgraph4j.GraphStateException;
 import org.bsc.langgraph4j.NodeOutput;
 import org.bsc.langgraph4j.action.InterruptionMetadata;
+import org.bsc.langgraph4j.action.NodeAction;
 import org.bsc.langgraph4j.agui.AGUILangGraphAgent;
 import org.bsc.langgraph4j.agui.AGUIMessage;
 import org.bsc.langgraph4j.agui.AGUIType;
@@ -15,30 +21,151 @@ import org.springframework.stereotype.Component;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 
 import static java.lang.String.format;
 
+/**
+ * AG-UI deep research agent
+ *
+ * Shared by all AG-UI sessions: the compiled graph is built once and reused, and the search results
+ * already reported to a session are tracked per thread id, so concurrent sessions do not affect each other.
+ * Tracking ends when the run completes or a node fails; runs abandoned otherwise are dropped once idle,
+ * and the number of tracked runs is bounded.
+ *
+ * The AG-UI library drives the graph itself, so sessions are scheduled per node: each node waits for an
+ * execution slot of the research scheduler (HIGH priority by default) and gives it back when it returns.
+ * Only the first node of a session is charged to the user's fair share. Holding the slot only while a
+ * node runs means a session abandoned by its client never keeps a slot. AG-UI requests carry no user, so
+ * each conversation thread is scheduled and rate limited as its own user.
+ *
+ * Each run has its own call cancellation scope, cancelled when the run is cancelled or superseded by a new
+ * run on its thread: its in-flight model, search and page fetch calls are aborted and its next node ends
+ * the run.
+ */
 @Component("AGUIAgent")
 public class AGUIDeepResearchAgent extends AGUILangGraphAgent {
-    //private final ResearchConfig researchConfig;
+
+    /**
+     * Graph iteration limit of a run
+     */
+    private static final int MAX_ITERATIONS = 50;
+
+    /**
+     * First node of a research run
+     */
+    private static final String FIRST_NODE = "generate_query";
+
+    /**
+     * Time without node output after which the progress of a run is dropped
+     */
+    static final long IDLE_RUN_TTL_NANOS = TimeUnit.MINUTES.toNanos(30);
+
+    /**
+     * Maximum runs with tracked progress; beyond it the least recently active ones are dropped
+     */
+    static final int MAX_TRACKED_RUNS = 1024;
+
+    /**
+     * Interval between sweeps for idle runs
+     */
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
     private final ResearchGraphBuilder graphBuilder;
+    private final ResearchScheduler researchScheduler;
+    private final Priority priority;
 
-    protected AGUIDeepResearchAgent( ResearchGraphBuilder graphBuilder) {
-        // this.researchConfig = researchConfig;
+    /**
+     * Reporting progress of the running sessions, keyed by thread id
+     */
+    private final Map<String, RunProgress> runProgress = new ConcurrentHashMap<>();
+
+    private final LongSupplier nanoClock;
+    private final AtomicLong lastSweep;
+
+    private volatile CompiledGraph<ResearchState> compiledGraph;
+
+    protected AGUIDeepResearchAgent(ResearchGraphBuilder graphBuilder, ResearchScheduler researchScheduler,
+                                    ResearchConfig researchConfig) {
+        this(graphBuilder, researchScheduler, researchConfig, System::nanoTime);
+    }
+
+    AGUIDeepResearchAgent(ResearchGraphBuilder graphBuilder, ResearchScheduler researchScheduler,
+                          ResearchConfig researchConfig, LongSupplier nanoClock) {
         this.graphBuilder = graphBuilder;
+        this.researchScheduler = researchScheduler;
+        this.priority = Priority.valueOf(researchConfig.getScheduler().getAguiPriority());
+        this.nanoClock = nanoClock;
+        this.lastSweep = new AtomicLong(nanoClock.getAsLong());
     }
 
     @Override
     protected GraphData buildStateGraph() throws GraphStateException {
+        return new GraphData(compiledGraph());
+    }
 
-        var researchGraph = graphBuilder.createResearchGraph();
-
-        var compiledGraph = researchGraph.compile();
+    /**
+     * Compile the research graph on first use
+     */
+    private CompiledGraph<ResearchState> compiledGraph() throws GraphStateException {
+        var graph = compiledGraph;
+        if (graph == null) {
+            synchronized (this) {
+                graph = compiledGraph;
+                if (graph == null) {
+                    graph = graphBuilder.createResearchGraph(this::scheduled).compile();
+                    graph.setMaxIterations(MAX_ITERATIONS);
+                    compiledGraph = graph;
+                }
+            }
+        }
+        return graph;
+    }
 
-        compiledGraph.setMaxIterations(50);
+    /**
+     * Run a node while holding an execution slot of the research scheduler; a failing node ends the run,
+     * so its progress is dropped
+     */
+    NodeAction<ResearchState> scheduled(String name, NodeAction<ResearchState> node) {
+        return state -> {
+            String userId = state.userId().orElse(null);
+            String threadId = state.requestId().orElse("");
+            RunProgress progress = runProgress.get(threadId);
+            if (progress != null && progress.calls.isCancelled()) {
+                runProgress.remove(threadId, progress);
+                throw new CancellationException("Research run cancelled: " + threadId);
+            }
+            boolean runStart = FIRST_NODE.equals(name) && state.researchLoopCount() == 0;
+            try (ResearchScheduler.Permit permit = runStart
+                    ? researchScheduler.acquire(userId, priority)
+                    : researchScheduler.resume(userId, priority)) {
+                return progress != null ? progress.calls.within(() -> node.apply(state)) : node.apply(state);
+            } catch (Exception e) {
+                runProgress.remove(threadId);
+                throw e;
+            }
+        };
+    }
 
-        return new GraphData(researchGraph.compile());
+    /**
+     * Cancel the run on a thread, such as when its client disconnected: its in-flight calls are aborted
+     * and its next node ends the run
+     *
+     * @param threadId Thread id of the run
+     * @return Whether a run was tracked on the thread
+     */
+    public boolean cancelRun(String threadId) {
+        RunProgress progress = runProgress.get(threadId);
+        if (progress == null) {
+            return false;
+        }
+        progress.calls.cancel();
+        return true;
     }
 
     @Override
@@ -48,71 +175,144 @@ public class AGUIDeepResearchAgent extends AGUILangGraphAgent {
                 .map(AGUIMessage.TextMessage::content)
                 .orElseThrow( () -> new IllegalStateException("last user message not found"));
 
-        var userId = "test";
+        return startRun(runAgentInput.threadId(), researchTopic);
+    }
+
+    /**
+     * Admit a new run on a thread and build its initial state
+     */
+    Map<String, Object> startRun(String threadId, String researchTopic) {
+        var userId = sessionUserId(threadId);
         var maxResearchLoops = 3;
         var searchEngine = "tavily";
         var maxSearchResults = 3;
         var fetchFullPage = true;
+        Integer tokenBudget = null;
+
+        // Same rate limit as the research API
+        researchScheduler.admit(userId);
+
+        // A new run on the thread reports its search results from scratch and supersedes the previous one
+        long now = nanoClock.getAsLong();
+        RunProgress previous = runProgress.put(threadId, new RunProgress(now));
+        if (previous != null) {
+            previous.calls.cancel();
+        }
+        sweepIdleRuns(now);
 
         return graphBuilder.createInitialState(
                 researchTopic,
-                runAgentInput.threadId(),
+                threadId,
                 userId,
                 maxResearchLoops,
                 searchEngine,
                 maxSearchResults,
-                fetchFullPage
+                fetchFullPage,
+                tokenBudget
         );
     }
 
+    /**
+     * User a session is scheduled and rate limited as: its conversation thread, so sessions get their own
+     * token bucket and run cap instead of all sharing one
+     */
+    static String sessionUserId(String threadId) {
+        return "agui:" + threadId;
+    }
+
     @Override
     protected <State extends AgentState> List<Approval> onInterruption(AGUIType.RunAgentInput runAgentInput, InterruptionMetadata<State> interruptionMetadata) {
         throw new UnsupportedOperationException("Not supported yet.");
     }
 
-    Set<String> searchResultCache = new HashSet<>();
-
     @Override
     protected Optional<String> nodeOutputToText(NodeOutput<? extends AgentState> nodeOutput) {
         if( nodeOutput.isSTART() ) {
             return Optional.empty();
         }
-        if( nodeOutput.isEND() ) {
-            searchResultCache.clear();
-            if( nodeOutput.state() instanceof ResearchState state ) {
-                return state.runningSummary();
-            }
+        if( !(nodeOutput.state() instanceof ResearchState state) ) {
             return Optional.empty();
         }
-        if( nodeOutput.state() instanceof ResearchState state ) {
-
-            if( state.detailedSearchResults().isEmpty() ) {
-                return Optional.empty();
-            }
+        var threadId = state.requestId().orElse("");
+        if( nodeOutput.isEND() ) {
+            runProgress.remove(threadId);
+            return state.runningSummary();
+        }
 
-            var cacheDiffs = state.detailedSearchResults().stream()
-                                    .map(SearchResult::getUrl)
-                                    .filter(url -> !searchResultCache.contains(url))
-                                    .toList()
-                                    ;
-            if(cacheDiffs.isEmpty()) {
-                return Optional.empty();
-            }
+        long now = nanoClock.getAsLong();
+        var progress = runProgress.computeIfAbsent(threadId, id -> new RunProgress(now));
+        progress.lastActive = now;
+        sweepIdleRuns(now);
+        var newResults = progress.newResults(state.detailedSearchResults());
+        if( newResults.isEmpty() ) {
+            return Optional.empty();
+        }
 
-            var result =  state.detailedSearchResults().stream()
-                    .filter( r -> !searchResultCache.contains(r.getUrl()) )
-                    .map( detail -> {
+        var result = newResults.stream()
+                .map( detail -> {
                     var decodedUrl = URLDecoder.decode(detail.getUrl(), StandardCharsets.UTF_8);
                     return format( "* %s - %s", detail.getTitle(), decodedUrl );
                 })
                 .collect(Collectors.joining("\n"));
 
-            searchResultCache.addAll(cacheDiffs);
+        return Optional.of( format( "*Searching in* ....\n%s",result) );
+    }
+
+    /**
+     * Drop the progress of idle runs, at most once per sweep interval unless too many runs are tracked
+     */
+    private void sweepIdleRuns(long now) {
+        long last = lastSweep.get();
+        boolean overLimit = runProgress.size() > MAX_TRACKED_RUNS;
+        if (!overLimit && (now - last < SWEEP_INTERVAL_NANOS || !lastSweep.compareAndSet(last, now))) {
+            return;
+        }
+        runProgress.values().removeIf(progress -> now - progress.lastActive > IDLE_RUN_TTL_NANOS);
+        if (runProgress.size() > MAX_TRACKED_RUNS) {
+            runProgress.entrySet().stream()
+                    .sorted(Comparator.comparingLong(entry -> entry.getValue().lastActive))
+                    .limit(runProgress.size() - MAX_TRACKED_RUNS)
+                    .toList()
+                    .forEach(oldest -> runProgress.remove(oldest.getKey(), oldest.getValue()));
+        }
+    }
+
+    /**
+     * Number of sessions with reporting progress
+     */
+    int activeRuns() {
+        return runProgress.size();
+    }
+
+    /**
+     * Search results already reported to a session, and the cancellation scope of its run
+     *
+     * Detailed search results only grow during a run, so each node output is scanned from the position
+     * reached by the previous one
+     */
+    private static final class RunProgress {
 
-            return Optional.of( format( "*Searching in* ....\n%s",result) );
+        private final CallCancellation calls = new CallCancellation();
+        private final Set<String> reportedUrls = new HashSet<>();
+        private int scanned;
+        private volatile long lastActive;
 
+        RunProgress(long now) {
+            this.lastActive = now;
         }
 
-        return Optional.empty();
+        synchronized List<SearchResult> newResults(List<SearchResult> results) {
+            if (results.size() < scanned) {
+                scanned = 0;
+            }
+            var newResults = new ArrayList<SearchResult>();
+            for (var detail : results.subList(scanned, results.size())) {
+                if (detail.getUrl() != null && reportedUrls.add(detail.getUrl())) {
+                    newResults.add(detail);
+                }
+            }
+            scanned = results.size();
+            return newResults;
+        }
     }
 }
@@ -0,0 +1,136 @@
+package io.github.imfangs.ai.deepresearch.core.controller;
+
+import io.github.imfangs.ai.deepresearch.api.dto.ApiResponse;
+import io.github.imfangs.ai.deepresearch.api.dto.CorpusDocument;
+import io.github.imfangs.ai.deepresearch.config.LuceneConfig;
+import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
+import io.github.imfangs.ai.deepresearch.tools.search.impl.LuceneSearchEngine;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Local corpus controller
+ *
+ * Provides REST API interfaces for ingesting documents into the local corpus searched by the "lucene" engine.
+ * Changes to the corpus are refused unless enabled by configuration, and need the configured bearer token
+ * when one is set.
+ */
+@Slf4j
+@Validated
+@RestController
+@RequestMapping("/api/v1/corpus")
+public class CorpusController {
+
+    private final LuceneSearchEngine luceneSearchEngine;
+    private final LuceneConfig luceneConfig;
+
+    @Autowired
+    public CorpusController(LuceneSearchEngine luceneSearchEngine, ResearchConfig researchConfig) {
+        this.luceneSearchEngine = luceneSearchEngine;
+        this.luceneConfig = researchConfig.getSearch().getLucene();
+    }
+
+    /**
+     * Add or replace documents
+     *
+     * @param documents Documents, identified by URL
+     * @return Number of documents indexed
+     */
+    @PostMapping("/documents")
+    public ResponseEntity<ApiResponse<Integer>> ingest(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @Valid @RequestBody List<@Valid CorpusDocument> documents) {
+        ResponseEntity<ApiResponse<Integer>> refused = refuseWrite(authorization);
+        if (refused != null) {
+            return refused;
+        }
+        log.info("Received {} corpus documents", documents.size());
+        return ResponseEntity.ok(ApiResponse.success(luceneSearchEngine.ingest(documents)));
+    }
+
+    /**
+     * Remove a document
+     *
+     * @param url Document URL
+     * @return Empty response
+     */
+    @DeleteMapping("/documents")
+    public ResponseEntity<ApiResponse<Void>> delete(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestParam("url") String url) {
+        ResponseEntity<ApiResponse<Void>> refused = refuseWrite(authorization);
+        if (refused != null) {
+            return refused;
+        }
+        luceneSearchEngine.delete(url);
+        return ResponseEntity.ok(ApiResponse.success(null));
+    }
+
+    /**
+     * Re-ingest changed files from the configured documents directory
+     *
+     * @return Number of files indexed
+     */
+    @PostMapping("/reindex")
+    public ResponseEntity<ApiResponse<Integer>> reindex(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        ResponseEntity<ApiResponse<Integer>> refused = refuseWrite(authorization);
+        if (refused != null) {
+            return refused;
+        }
+        return ResponseEntity.ok(ApiResponse.success(luceneSearchEngine.reindex()));
+    }
+
+    /**
+     * Number of documents in the corpus
+     *
+     * @return Document count
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<ApiResponse<Integer>> stats() {
+        return ResponseEntity.ok(ApiResponse.success(luceneSearchEngine.size()));
+    }
+
+    /**
+     * Handle invalid documents in an ingestion request
+     */
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<ApiResponse<Void>> invalidDocuments(ConstraintViolationException e) {
+        return error(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+
+    /**
+     * Response refusing a corpus change, or null if the change is allowed
+     */
+    private <T> ResponseEntity<ApiResponse<T>> refuseWrite(String authorization) {
+        if (!luceneSearchEngine.isAvailable()) {
+            return error(HttpStatus.SERVICE_UNAVAILABLE, "Local corpus search is not enabled");
+        }
+        if (!Boolean.TRUE.equals(luceneConfig.getWriteEnabled())) {
+            return error(HttpStatus.FORBIDDEN, "Corpus changes over the API are disabled");
+        }
+        String token = luceneConfig.getWriteToken();
+        if (StringUtils.hasText(token) && (authorization == null || !MessageDigest.isEqual(
+                ("Bearer " + token).getBytes(StandardCharsets.UTF_8), authorization.getBytes(StandardCharsets.UTF_8)))) {
+            log.warn("Rejected corpus change with missing or invalid token");
+            return error(HttpStatus.UNAUTHORIZED, "Invalid corpus write token");
+        }
+        return null;
+    }
+
+    private static <T> ResponseEntity<ApiResponse<T>> error(HttpStatus status, String message) {
+        return ResponseEntity.status(status).body(ApiResponse.error(status.value(), message));
+    }
+}
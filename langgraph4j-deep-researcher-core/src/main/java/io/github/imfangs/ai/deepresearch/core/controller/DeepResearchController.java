@@ -1,14 +1,26 @@
 package io.github.imfangs.ai.deepresearch.core.controller;
 
 import io.github.imfangs.ai.deepresearch.api.dto.ApiResponse;
+import io.github.imfangs.ai.deepresearch.api.dto.ResearchEvent;
+import io.github.imfangs.ai.deepresearch.api.dto.ResearchProgress;
 import io.github.imfangs.ai.deepresearch.api.dto.ResearchRequest;
 import io.github.imfangs.ai.deepresearch.api.dto.ResearchResponse;
+import io.github.imfangs.ai.deepresearch.core.scheduler.RateLimitExceededException;
 import io.github.imfangs.ai.deepresearch.core.service.DeepResearchService;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
 
 
 /**
@@ -34,33 +46,67 @@ public class DeepResearchController {
     /**
      * Execute deep research
      * 
+     * If the client disconnects before the research completes, the request is detached from its run,
+     * and the run is cancelled once no client is waiting for it.
+     * 
      * @param request Research request
      * @return Research response
      */
     @PostMapping("/execute")
-    public ResponseEntity<ApiResponse<ResearchResponse>> executeResearch(
+    public Mono<ResponseEntity<ApiResponse<ResearchResponse>>> executeResearch(
             @Valid @RequestBody ResearchRequest request) {
         
         log.info("Received deep research request, topic: {}, user ID: {}", 
                 request.getResearchTopic(), request.getUserId());
         
-        try {
-            ResearchResponse response = deepResearchService.executeResearch(request);
-            
-            if (response.getSuccess()) {
-                return ResponseEntity.ok(ApiResponse.success(response, "Research execution successful"));
-            } else {
-                return ResponseEntity.ok(ApiResponse.error(
-                        500, 
-                        response.getErrorMessage(), 
-                        response.getRequestId()));
-            }
-            
-        } catch (Exception e) {
-            log.error("Deep research execution exception", e);
-            return ResponseEntity.internalServerError()
-                    .body(ApiResponse.error(500, "Internal system error: " + e.getMessage()));
-        }
+        return deepResearchService.submitResearch(request)
+                .map(response -> {
+                    if (response.getSuccess()) {
+                        return ResponseEntity.ok(ApiResponse.success(response, "Research execution successful"));
+                    } else {
+                        return ResponseEntity.ok(ApiResponse.<ResearchResponse>error(
+                                500, 
+                                response.getErrorMessage(), 
+                                response.getRequestId()));
+                    }
+                })
+                .onErrorResume(e -> !(e instanceof RateLimitExceededException), e -> {
+                    log.error("Deep research execution exception", e);
+                    return Mono.just(ResponseEntity.internalServerError()
+                            .body(ApiResponse.<ResearchResponse>error(500, "Internal system error: " + e.getMessage())));
+                });
+    }
+
+    /**
+     * Execute deep research and stream progress as server-sent events
+     * 
+     * Closing the stream detaches the request from its run, as for {@link #executeResearch}.
+     * 
+     * @param request Research request
+     * @return Progress events, the last one carrying the research response
+     */
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ResearchProgress> streamResearch(@Valid @RequestBody ResearchRequest request) {
+        
+        log.info("Received streaming deep research request, topic: {}, user ID: {}", 
+                request.getResearchTopic(), request.getUserId());
+        
+        return deepResearchService.streamResearch(request);
+    }
+
+    /**
+     * Execute deep research and stream step and state delta events as server-sent events
+     * 
+     * @param request Research request
+     * @return STEP_STARTED, STATE_DELTA and STEP_FINISHED events per graph node, then RUN_FINISHED
+     */
+    @PostMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ResearchEvent> streamResearchEvents(@Valid @RequestBody ResearchRequest request) {
+        
+        log.info("Received research event stream request, topic: {}, user ID: {}", 
+                request.getResearchTopic(), request.getUserId());
+        
+        return deepResearchService.streamResearchEvents(request);
     }
 
     /**
@@ -73,4 +119,23 @@ public class DeepResearchController {
         return ResponseEntity.ok(ApiResponse.success("OK", "Deep research service running normally"));
     }
 
-}
\ No newline at end of file
+    /**
+     * Rate limit exceeded handler
+     * 
+     * Event stream endpoints cannot produce a JSON body, so they get the status and header only.
+     * 
+     * @param e Rate limit exception
+     * @param exchange Rejected exchange
+     * @return 429 response with Retry-After header
+     */
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<ApiResponse<Void>> rateLimitExceeded(RateLimitExceededException e, ServerWebExchange exchange) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, e.getRetryAfter().toSeconds())));
+        Set<MediaType> producible = exchange.getAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE);
+        if (producible != null && producible.contains(MediaType.TEXT_EVENT_STREAM)) {
+            return response.build();
+        }
+        return response.body(ApiResponse.error(HttpStatus.TOO_MANY_REQUESTS.value(), e.getMessage()));
+    }
+}
@@ -2,22 +2,26 @@ package io.github.imfangs.ai.deepresearch.core.graph;
 
 import io.github.imfangs.ai.deepresearch.api.state.ResearchState;
 import io.github.imfangs.ai.deepresearch.api.state.ResearchStateSerializer;
+import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
 import org.bsc.langgraph4j.langchain4j.serializer.jackson.LC4jJacksonStateSerializer;
 import io.github.imfangs.ai.deepresearch.core.nodes.QueryGeneratorNode;
 import io.github.imfangs.ai.deepresearch.core.nodes.WebSearchNode;
 import io.github.imfangs.ai.deepresearch.core.nodes.SummarizerNode;
 import io.github.imfangs.ai.deepresearch.core.nodes.ReflectionNode;
+import io.github.imfangs.ai.deepresearch.core.nodes.ReflectAndPlanNode;
 import io.github.imfangs.ai.deepresearch.core.nodes.FinalizerNode;
 import io.github.imfangs.ai.deepresearch.core.nodes.RouterNode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.bsc.langgraph4j.GraphStateException;
 import org.bsc.langgraph4j.StateGraph;
+import org.bsc.langgraph4j.action.NodeAction;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import org.springframework.stereotype.Component;
 
 import java.util.Map;
+import java.util.function.BiFunction;
 
 import static org.bsc.langgraph4j.StateGraph.END;
 import static org.bsc.langgraph4j.StateGraph.START;
@@ -38,8 +42,10 @@ public class ResearchGraphBuilder {
     private final WebSearchNode webSearchNode;
     private final SummarizerNode summarizerNode;
     private final ReflectionNode reflectionNode;
+    private final ReflectAndPlanNode reflectAndPlanNode;
     private final FinalizerNode finalizerNode;
     private final RouterNode routerNode;
+    private final ResearchConfig researchConfig;
 
     /**
      * Create research state graph
@@ -48,11 +54,22 @@ public class ResearchGraphBuilder {
      * 1. Generate search query (generate_query)
      * 2. Execute web search (web_search)
      * 3. Summarize search results (summarize)
-     * 4. Reflect and analyze (reflect)
+     * 4. Reflect and analyze (reflect) - with fused reflection this also plans the next query
      * 5. Routing decision (route) - continue research or end
      * 6. Finalize summary (finalize)
      */
     public StateGraph<ResearchState> createResearchGraph() throws GraphStateException {
+        return createResearchGraph((name, node) -> node);
+    }
+
+    /**
+     * Create research state graph with decorated nodes
+     *
+     * @param nodeDecorator Wraps each node action, given the node name
+     */
+    public StateGraph<ResearchState> createResearchGraph(
+            BiFunction<String, NodeAction<ResearchState>, NodeAction<ResearchState>> nodeDecorator)
+            throws GraphStateException {
         log.info("Creating deep research state graph...");
 
         var serializer = new LC4jJacksonStateSerializer<ResearchState>(ResearchState::new);
@@ -60,14 +77,18 @@ public class ResearchGraphBuilder {
         serializer.objectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
 
 //        StateGraph<ResearchState> workflow = new StateGraph<>(ResearchState.SCHEMA, serializer)
+        NodeAction<ResearchState> reflectNode = Boolean.TRUE.equals(researchConfig.getFlow().getFusedReflection())
+            ? reflectAndPlanNode
+            : reflectionNode;
+
         StateGraph<ResearchState> workflow = new StateGraph<>(ResearchState.SCHEMA, new ResearchStateSerializer())
             // Add research nodes
-            .addNode("generate_query", node_async(queryGeneratorNode))
-            .addNode("web_search", node_async(webSearchNode))
-            .addNode("summarize", node_async(summarizerNode))
-            .addNode("reflect", node_async(reflectionNode))
-            .addNode("route", node_async(routerNode))
-            .addNode("finalize", node_async(finalizerNode))
+            .addNode("generate_query", node_async(nodeDecorator.apply("generate_query", queryGeneratorNode)))
+            .addNode("web_search", node_async(nodeDecorator.apply("web_search", webSearchNode)))
+            .addNode("summarize", node_async(nodeDecorator.apply("summarize", summarizerNode)))
+            .addNode("reflect", node_async(nodeDecorator.apply("reflect", reflectNode)))
+            .addNode("route", node_async(nodeDecorator.apply("route", routerNode)))
+            .addNode("finalize", node_async(nodeDecorator.apply("finalize", finalizerNode)))
 
             // Set entry point: start with query generation
             .addEdge(START, "generate_query")
@@ -81,39 +102,22 @@ public class ResearchGraphBuilder {
             // Conditional routing edges: continue or end based on routing decision
             .addConditionalEdges(
                 "route",
-                // Routing condition function: check if research should continue
+                // Routing condition function: follow the decision of the router node, so the routing
+                // decision recorded in the metadata is the path the graph takes
                 edge_async(state -> {
                     // Convert AgentState to ResearchState to access convenience methods
                     ResearchState researchState = new ResearchState(state.data());
-                    
-                    // Check if maximum loop count is reached
-                    if (researchState.hasReachedMaxLoops()) {
-                        log.info("Reached maximum research loop count {}, ending research", researchState.maxResearchLoops());
-                        return "finalize";
-                    }
-
-                    // Check if there are any errors
-                    if (!researchState.success()) {
-                        log.warn("Error occurred during research: {}, ending research", researchState.errorMessage().orElse("Unknown error"));
-                        return "finalize";
-                    }
-
-                    // Check if sufficient information is available (simple judgment based on summary length)
-                    String summary = researchState.runningSummary().orElse("");
-                    if (summary.length() > 1000 && researchState.researchLoopCount() >= 2) {
-                        log.info("Sufficient information collected, loop count: {}, summary length: {}", researchState.researchLoopCount(), summary.length());
-                        return "finalize";
-                    }
-
-                    // Continue research
-                                            log.info("Continuing research, current loop count: {}/{}", researchState.researchLoopCount(), researchState.maxResearchLoops());
-                    return "continue";
+                    String route = RouterNode.routeOf(researchState);
+                    log.info("Routing to {}: {}, loop count: {}/{}", route,
+                        researchState.metadata().getOrDefault("routing_decision", "no routing decision"),
+                        researchState.researchLoopCount(), researchState.maxResearchLoops());
+                    return route;
                 }),
 
                 // Route mapping
                 Map.of(
-                    "continue", "generate_query",  // Continue research: back to query generation
-                    "finalize", "finalize"         // End research: enter finalization
+                    RouterNode.CONTINUE, "generate_query",  // Continue research: back to query generation
+                    RouterNode.FINALIZE, "finalize"         // End research: enter finalization
                 )
             )
 
@@ -134,7 +138,8 @@ public class ResearchGraphBuilder {
             Integer maxResearchLoops,
             String searchEngine,
             Integer maxSearchResults,
-            Boolean fetchFullPage) {
+            Boolean fetchFullPage,
+            Integer tokenBudget) {
 
         return ResearchState.createInitialState(
             researchTopic,
@@ -143,7 +148,8 @@ public class ResearchGraphBuilder {
             maxResearchLoops,
             searchEngine,
             maxSearchResults,
-            fetchFullPage
+            fetchFullPage,
+            tokenBudget
         );
     }
 }
@@ -0,0 +1,150 @@
+package io.github.imfangs.ai.deepresearch.core.latency;
+
+import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
+import io.github.imfangs.ai.deepresearch.core.scheduler.ResearchScheduler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Node latency tracker
+ *
+ * Keeps exponentially weighted moving averages of graph node latencies per node and chat model, together with
+ * the number of running research runs when each sample was taken. Runs share the model provider and search
+ * APIs, so predictions scale the average by the current load relative to the load it was measured under.
+ */
+@Component
+public class NodeLatencyTracker {
+
+    /**
+     * Nodes executed in every research loop
+     */
+    public static final List<String> LOOP_NODES = List.of("generate_query", "web_search", "summarize", "reflect", "route");
+
+    /**
+     * Node producing the final report
+     */
+    public static final String FINALIZE_NODE = "finalize";
+
+    /**
+     * Bounds of the load factor applied to predictions
+     */
+    private static final double MIN_LOAD_FACTOR = 0.5;
+    private static final double MAX_LOAD_FACTOR = 2.0;
+
+    private final String model;
+    private final double smoothing;
+    private final IntSupplier load;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<Key, Estimate> estimates = new ConcurrentHashMap<>();
+
+    @Autowired
+    public NodeLatencyTracker(ResearchConfig researchConfig, ResearchScheduler researchScheduler,
+                              MeterRegistry meterRegistry) {
+        this(researchConfig.getModel().getModelName(), researchConfig.getFlow().getLatencySmoothing(),
+                researchScheduler::runningCount, meterRegistry);
+    }
+
+    NodeLatencyTracker(String model, double smoothing, IntSupplier load, MeterRegistry meterRegistry) {
+        this.model = model;
+        this.smoothing = smoothing;
+        this.load = load;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Chat model the estimates are kept for
+     */
+    public String model() {
+        return model;
+    }
+
+    /**
+     * Record the execution time of a node
+     *
+     * @param node Graph node name
+     * @param millis Execution time in milliseconds
+     */
+    public void record(String node, long millis) {
+        estimates.computeIfAbsent(new Key(node, model), key -> new Estimate())
+                .update(millis, currentLoad(), smoothing);
+        Timer.builder("research.node.latency")
+                .description("Execution time of research graph nodes")
+                .tag("node", node)
+                .tag("model", model)
+                .register(meterRegistry)
+                .record(millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Predict the execution time of a node under the current load
+     *
+     * @param node Graph node name
+     * @return Predicted milliseconds, empty if the node has not been measured yet
+     */
+    public OptionalLong predict(String node) {
+        Estimate estimate = estimates.get(new Key(node, model));
+        return estimate != null ? OptionalLong.of(estimate.predict(currentLoad())) : OptionalLong.empty();
+    }
+
+    /**
+     * Predict the time of one research loop under the current load
+     *
+     * @return Predicted milliseconds, empty until every loop node has been measured
+     */
+    public OptionalLong predictLoop() {
+        long total = 0;
+        for (String node : LOOP_NODES) {
+            OptionalLong predicted = predict(node);
+            if (predicted.isEmpty()) {
+                return OptionalLong.empty();
+            }
+            total += predicted.getAsLong();
+        }
+        return OptionalLong.of(total);
+    }
+
+    /**
+     * Running runs, counting at least the caller's own run
+     */
+    private int currentLoad() {
+        return Math.max(1, load.getAsInt());
+    }
+
+    private record Key(String node, String model) {
+    }
+
+    /**
+     * Moving averages of the latency of a node and the load it was measured under
+     */
+    private static final class Estimate {
+
+        private double latency;
+        private double load;
+        private boolean initialized;
+
+        synchronized void update(long millis, int currentLoad, double smoothing) {
+            if (!initialized) {
+                latency = millis;
+                load = currentLoad;
+                initialized = true;
+                return;
+            }
+            latency += smoothing * (millis - latency);
+            load += smoothing * (currentLoad - load);
+        }
+
+        synchronized long predict(int currentLoad) {
+            double loadFactor = Math.min(MAX_LOAD_FACTOR, Math.max(MIN_LOAD_FACTOR, currentLoad / load));
+            return Math.round(latency * loadFactor);
+        }
+    }
+}
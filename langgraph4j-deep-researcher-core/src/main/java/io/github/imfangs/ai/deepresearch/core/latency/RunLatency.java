@@ -0,0 +1,99 @@
+package io.github.imfangs.ai.deepresearch.core.latency;
+
+import io.github.imfangs.ai.deepresearch.api.state.ResearchState;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * Run latency
+ *
+ * Follows the node outputs of one research run: feeds node execution times to the latency tracker and pairs
+ * the loop and report times predicted by the router with the measured ones for the response metadata.
+ * Not thread-safe; used by the thread executing the run.
+ */
+public class RunLatency {
+
+    private final NodeLatencyTracker tracker;
+    private final long latencySloMillis;
+    private final List<Map<String, Object>> loops = new ArrayList<>();
+
+    private Long predictedLoop;
+    private Long predictedFinalize;
+    private Long actualFinalize;
+    private long loopStart;
+    private long lastOutput;
+
+    /**
+     * @param tracker Shared node latency tracker
+     * @param latencySloMillis Target research time in milliseconds (0 means no target)
+     */
+    public RunLatency(NodeLatencyTracker tracker, long latencySloMillis) {
+        this.tracker = tracker;
+        this.latencySloMillis = latencySloMillis;
+        OptionalLong firstLoop = tracker.predictLoop();
+        this.predictedLoop = firstLoop.isPresent() ? firstLoop.getAsLong() : null;
+        this.loopStart = System.currentTimeMillis();
+        this.lastOutput = loopStart;
+    }
+
+    /**
+     * Record a node output of the run
+     *
+     * @param node Graph node name
+     * @param state State after the node
+     */
+    public void nodeCompleted(String node, ResearchState state) {
+        long now = System.currentTimeMillis();
+
+        // Nodes failing early may not mark their start, leaving the previous node's start in state
+        state.currentNodeStartTime()
+            .map(start -> start.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli())
+            .filter(start -> start >= lastOutput)
+            .ifPresent(start -> tracker.record(node, now - start));
+
+        if ("route".equals(node)) {
+            Map<String, Object> loop = new LinkedHashMap<>();
+            loop.put("loop", state.researchLoopCount());
+            if (predictedLoop != null) {
+                loop.put("predicted_ms", predictedLoop);
+            }
+            loop.put("actual_ms", now - loopStart);
+            loops.add(loop);
+
+            // Predictions made by the router for the next loop and the report
+            predictedLoop = state.predictedLoopMillis().orElse(null);
+            predictedFinalize = state.predictedFinalizeMillis().orElse(null);
+            loopStart = now;
+        } else if (NodeLatencyTracker.FINALIZE_NODE.equals(node)) {
+            actualFinalize = now - loopStart;
+        }
+        lastOutput = now;
+    }
+
+    /**
+     * Predicted and measured times of the run
+     */
+    public Map<String, Object> toMetadata() {
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("model", tracker.model());
+        if (latencySloMillis > 0) {
+            latency.put("latency_slo_ms", latencySloMillis);
+        }
+        latency.put("loops", loops);
+
+        Map<String, Object> finalize = new LinkedHashMap<>();
+        if (predictedFinalize != null) {
+            finalize.put("predicted_ms", predictedFinalize);
+        }
+        if (actualFinalize != null) {
+            finalize.put("actual_ms", actualFinalize);
+        }
+        latency.put("finalize", finalize);
+        return latency;
+    }
+}
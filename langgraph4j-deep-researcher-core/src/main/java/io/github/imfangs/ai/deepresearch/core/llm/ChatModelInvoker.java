@@ -0,0 +1,114 @@
+package io.github.imfangs.ai.deepresearch.core.llm;
+
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.openai.OpenAiTokenUsage;
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Chat model invoker
+ *
+ * Single entry point for LLM calls made by research nodes, reporting the token usage of every call,
+ * including prompt tokens the provider served from its prompt cache. Calls with a time budget, and calls
+ * made by a node of a research run, run on the shared {@link LlmCallExecutor}; the call thread is interrupted
+ * when the budget runs out or the run is cancelled, which aborts the HTTP exchange.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class ChatModelInvoker {
+
+    private final ChatModel chatModel;
+    private final MeterRegistry meterRegistry;
+    private final LlmCallExecutor llmCallExecutor;
+
+    /**
+     * Send an assembled prompt to the chat model within a time budget
+     *
+     * @param prompt System and user message of a research task
+     * @param timeout Time budget of the call, empty for none
+     * @return Response text and token usage
+     * @throws ChatTimeoutException if the call does not complete within the budget
+     * @throws java.util.concurrent.CancellationException if the research run making the call was cancelled
+     */
+    public ChatResult chat(PromptAssembler.Prompt prompt, Optional<Duration> timeout) {
+        try {
+            return llmCallExecutor.call(() -> chat(prompt), timeout);
+        } catch (TimeoutException e) {
+            Counter.builder("research.llm.timeouts")
+                    .description("LLM calls abandoned because the research deadline budget ran out")
+                    .tag("task", prompt.task().id())
+                    .register(meterRegistry)
+                    .increment();
+            throw new ChatTimeoutException(prompt.task(), timeout.get());
+        }
+    }
+
+    /**
+     * Send an assembled prompt to the chat model
+     *
+     * @param prompt System and user message of a research task
+     * @return Response text and token usage
+     */
+    public ChatResult chat(PromptAssembler.Prompt prompt) {
+        ChatResponse response = chatModel.chat(
+                SystemMessage.from(prompt.systemMessage()), UserMessage.from(prompt.userMessage()));
+
+        TokenUsage tokenUsage = response.tokenUsage();
+        int promptTokens = tokenUsage != null && tokenUsage.inputTokenCount() != null ? tokenUsage.inputTokenCount() : 0;
+        int completionTokens = tokenUsage != null && tokenUsage.outputTokenCount() != null ? tokenUsage.outputTokenCount() : 0;
+        int cachedPromptTokens = cachedPromptTokens(tokenUsage);
+
+        String task = prompt.task().id();
+        count("research.llm.prompt.tokens", "Prompt tokens sent to the chat model", task, promptTokens);
+        count("research.llm.prompt.cached.tokens", "Prompt tokens served from the provider prompt cache", task, cachedPromptTokens);
+        count("research.llm.completion.tokens", "Completion tokens generated by the chat model", task, completionTokens);
+
+        log.debug("LLM call completed, task: {}, prompt tokens: {} ({} cached), completion tokens: {}",
+                task, promptTokens, cachedPromptTokens, completionTokens);
+
+        return new ChatResult(response.aiMessage().text(), promptTokens, completionTokens, cachedPromptTokens);
+    }
+
+    /**
+     * Prompt tokens the provider reports as read from its prompt cache
+     */
+    private static int cachedPromptTokens(TokenUsage tokenUsage) {
+        if (tokenUsage instanceof OpenAiTokenUsage openAiTokenUsage
+                && openAiTokenUsage.inputTokensDetails() != null
+                && openAiTokenUsage.inputTokensDetails().cachedTokens() != null) {
+            return openAiTokenUsage.inputTokensDetails().cachedTokens();
+        }
+        return 0;
+    }
+
+    private void count(String name, String description, String task, int tokens) {
+        Counter.builder(name)
+                .description(description)
+                .tag("task", task)
+                .register(meterRegistry)
+                .increment(tokens);
+    }
+
+    /**
+     * LLM call result
+     *
+     * @param text Response text
+     * @param promptTokens Prompt tokens reported by the provider
+     * @param completionTokens Completion tokens reported by the provider
+     * @param cachedPromptTokens Prompt tokens served from the provider prompt cache
+     */
+    public record ChatResult(String text, int promptTokens, int completionTokens, int cachedPromptTokens) {
+    }
+}
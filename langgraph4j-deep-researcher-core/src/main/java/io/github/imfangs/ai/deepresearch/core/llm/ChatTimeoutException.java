@@ -0,0 +1,30 @@
+package io.github.imfangs.ai.deepresearch.core.llm;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Chat timeout exception
+ *
+ * Thrown when an LLM call does not complete within the time budget left before the research deadline
+ */
+@Getter
+public class ChatTimeoutException extends RuntimeException {
+
+    /**
+     * Research task of the call
+     */
+    private final PromptAssembler.Task task;
+
+    /**
+     * Time budget of the call
+     */
+    private final Duration timeout;
+
+    public ChatTimeoutException(PromptAssembler.Task task, Duration timeout) {
+        super("LLM call for " + task.id() + " did not complete within " + timeout.toMillis() + "ms");
+        this.task = task;
+        this.timeout = timeout;
+    }
+}
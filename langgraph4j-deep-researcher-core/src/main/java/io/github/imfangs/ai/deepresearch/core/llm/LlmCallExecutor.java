@@ -0,0 +1,145 @@
+package io.github.imfangs.ai.deepresearch.core.llm;
+
+import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
+import io.github.imfangs.ai.deepresearch.core.scheduler.CallCancellation;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * LLM call executor
+ *
+ * Bounded thread pool shared by the calls research nodes make off their own thread: LLM calls with a
+ * time budget or made within a run's cancellation scope, pipelined query generation, and web searches.
+ * A run has at most three such calls at once, so the pool holds three threads per concurrent run allowed
+ * by the scheduler and queues as many calls again. Calls beyond that are rejected, and callers fall back
+ * to running them on their own thread.
+ */
+@Slf4j
+@Component
+public class LlmCallExecutor {
+
+    /**
+     * Calls a research run can have on the pool at once: the reflection call, the pipelined next-loop
+     * query generation and its own LLM call
+     */
+    static final int CALLS_PER_RUN = 3;
+
+    private final ThreadPoolExecutor executor;
+
+    @Autowired
+    public LlmCallExecutor(ResearchConfig researchConfig) {
+        this(CALLS_PER_RUN * researchConfig.getScheduler().getMaxConcurrentRuns());
+    }
+
+    /**
+     * @param threads Maximum threads, also the number of calls that can wait for one
+     */
+    public LlmCallExecutor(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(threads), runnable -> {
+                    Thread thread = new CallThread(runnable, "llm-call-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+        log.info("LLM call executor created, threads: {}", threads);
+    }
+
+    /**
+     * Run a call on the pool
+     *
+     * @param call LLM call
+     * @return Future of the call result
+     * @throws RejectedExecutionException if the pool and its queue are full
+     */
+    public <T> Future<T> submit(Callable<T> call) {
+        return executor.submit(call);
+    }
+
+    /**
+     * Run a call on the pool and wait for it, within a time budget and the cancellation scope of the current thread
+     *
+     * Without a budget or a scope, or when the pool is full, the call runs on the current thread instead,
+     * bounded only by the timeouts of its own client. Calls made on a pool thread, such as pipelined query
+     * generation, also run there: whoever submitted the pool task bounds and cancels it.
+     *
+     * @param call Outbound call
+     * @param timeout Time budget of the call, empty for none
+     * @return Call result
+     * @throws TimeoutException if the call does not complete within the budget; it is cancelled
+     * @throws java.util.concurrent.CancellationException if the run making the call was cancelled
+     */
+    public <T> T call(Callable<T> call, Optional<Duration> timeout) throws TimeoutException {
+        Optional<CallCancellation> cancellation = CallCancellation.current();
+        if ((timeout.isEmpty() && cancellation.isEmpty()) || Thread.currentThread() instanceof CallThread) {
+            return callHere(call);
+        }
+        Future<T> future;
+        try {
+            future = executor.submit(call);
+        } catch (RejectedExecutionException e) {
+            log.debug("LLM call executor is saturated, calling on the current thread");
+            return callHere(call);
+        }
+        cancellation.ifPresent(scope -> scope.register(future));
+        try {
+            return timeout.isPresent()
+                    ? future.get(timeout.get().toMillis(), TimeUnit.MILLISECONDS)
+                    : future.get();
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw e;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a call", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            cancellation.ifPresent(scope -> scope.unregister(future));
+        }
+    }
+
+    private static <T> T callHere(Callable<T> call) {
+        try {
+            return call.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Thread of the pool
+     */
+    private static final class CallThread extends Thread {
+
+        CallThread(Runnable runnable, String name) {
+            super(runnable, name);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package io.github.imfangs.ai.deepresearch.core.llm;
+
+import io.github.imfangs.ai.deepresearch.config.PromptTemplates;
+import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
+import io.github.imfangs.ai.deepresearch.tools.token.TokenizerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Prompt assembler
+ *
+ * Lays out prompts so LLM providers can serve their common prefix from the prompt cache. The system message
+ * of a call holds the instructions of its task only and is byte-identical across the calls and runs of the
+ * task. The user message starts with the research context shared by the tasks of a run (date, topic and
+ * running summary), followed by the task-specific content.
+ */
+@RequiredArgsConstructor
+@Component
+public class PromptAssembler {
+
+    private final PromptTemplates promptTemplates;
+    private final TokenizerService tokenizerService;
+    private final ResearchConfig researchConfig;
+
+    /**
+     * Research task of an LLM call
+     */
+    public enum Task {
+        QUERY_GENERATION("query_generation"),
+        SUMMARIZATION("summarization"),
+        REFLECTION("reflection"),
+        REFLECTION_PLANNING("reflection_planning"),
+        FINALIZATION("finalization");
+
+        private final String id;
+
+        Task(String id) {
+            this.id = id;
+        }
+
+        /**
+         * Task identifier, used in the prompt and as a metric tag
+         */
+        public String id() {
+            return id;
+        }
+    }
+
+    /**
+     * Build the research context opening every user message of a run
+     *
+     * @param researchTopic Research topic
+     * @param runningSummary Running summary, empty before the first summarization
+     * @return Context text, identical for all tasks given the same summary
+     */
+    public String context(String researchTopic, String runningSummary) {
+        return contextOf(researchTopic, truncateSummary(runningSummary));
+    }
+
+    /**
+     * Build the research context from a summary already cut by {@link #truncateSummary}
+     *
+     * @param researchTopic Research topic
+     * @param truncatedSummary Running summary within the summary token limit
+     * @return Context text, identical to {@link #context} for the untruncated summary
+     */
+    public String contextOf(String researchTopic, String truncatedSummary) {
+        StringBuilder context = new StringBuilder();
+        context.append("Current date: ").append(promptTemplates.getCurrentDate());
+        context.append("\nResearch topic: ").append(researchTopic);
+        if (truncatedSummary != null && !truncatedSummary.isEmpty()) {
+            context.append("\n\nCurrent research summary:\n").append(truncatedSummary);
+        }
+        return context.toString();
+    }
+
+    /**
+     * Running summary as included in the research context, cut to the summary token limit
+     *
+     * @param runningSummary Running summary
+     * @return Summary within the limit
+     */
+    public String truncateSummary(String runningSummary) {
+        return tokenizerService.truncate(runningSummary, researchConfig.getFlow().getMaxSummaryTokens());
+    }
+
+    /**
+     * Assemble the prompt of a task
+     *
+     * @param task Research task
+     * @param userMessage User message, starting with the research {@link #context}
+     * @return Prompt with the system message of the task
+     */
+    public Prompt assemble(Task task, String userMessage) {
+        return new Prompt(task, systemMessage(task), userMessage);
+    }
+
+    /**
+     * System message of a task: its configured instructions
+     */
+    String systemMessage(Task task) {
+        return switch (task) {
+            case QUERY_GENERATION -> promptTemplates.getQueryGenerator();
+            case SUMMARIZATION -> promptTemplates.getSummarizer();
+            case REFLECTION -> promptTemplates.getReflector();
+            case REFLECTION_PLANNING -> promptTemplates.getReflectionPlanner();
+            case FINALIZATION -> promptTemplates.getFinalizer();
+        };
+    }
+
+    /**
+     * Assembled prompt
+     *
+     * @param task Research task
+     * @param systemMessage System message, identical for every call of the task
+     * @param userMessage User message
+     */
+    public record Prompt(Task task, String systemMessage, String userMessage) {
+    }
+}
@@ -1,18 +1,26 @@
 package io.github.imfangs.ai.deepresearch.core.nodes;
 
 import io.github.imfangs.ai.deepresearch.api.state.ResearchState;
-import io.github.imfangs.ai.deepresearch.config.PromptTemplates;
+import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
+import io.github.imfangs.ai.deepresearch.config.FlowConfig;
+import io.github.imfangs.ai.deepresearch.core.llm.ChatModelInvoker;
+import io.github.imfangs.ai.deepresearch.core.llm.ChatTimeoutException;
+import io.github.imfangs.ai.deepresearch.core.llm.PromptAssembler;
+import io.github.imfangs.ai.deepresearch.tools.context.PassageRetriever;
+import io.github.imfangs.ai.deepresearch.tools.token.TokenizerService;
 import dev.langchain4j.data.message.SystemMessage;
 import dev.langchain4j.data.message.UserMessage;
-import dev.langchain4j.model.chat.ChatModel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.bsc.langgraph4j.action.NodeAction;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Finalizer node
@@ -26,7 +34,11 @@ import java.util.Map;
 @Component
 public class FinalizerNode implements NodeAction<ResearchState> {
 
-    private final ChatModel chatModel;
+    private final ChatModelInvoker chatModelInvoker;
+    private final TokenizerService tokenizerService;
+    private final ResearchConfig researchConfig;
+    private final PassageRetriever passageRetriever;
+    private final PromptAssembler promptAssembler;
 
     @Override
     public Map<String, Object> apply(ResearchState state) {
@@ -42,14 +54,19 @@ public class FinalizerNode implements NodeAction<ResearchState> {
                 String currentSummary = state.runningSummary().orElse("No research summary generated");
 
                 // Build prompt
-                String systemPrompt = PromptTemplates.FINALIZATION_SYSTEM;
                 String userMessage = buildUserMessage(researchTopic, currentSummary, state);
+                // The passage index is no longer needed once the final prompt is built
+                state.requestId().ifPresent(passageRetriever::release);
 
-                log.debug("Finalization system prompt: {}", systemPrompt);
-                log.debug("Finalization user message length: {} characters", userMessage.length());
+                log.debug("Finalization user message length: {} tokens", tokenizerService.countTokens(userMessage));
 
-                // Call LLM to generate final report
-                String finalSummary = chatModel.chat(userMessage);
+                // Call LLM to generate final report, falling back to the running summary past the deadline
+                Optional<ChatModelInvoker.ChatResult> response = generateReport(userMessage, state.remainingTime());
+                String finalSummary = response.map(ChatModelInvoker.ChatResult::text).orElse(currentSummary);
+                Map<String, Object> tokenUsage = response
+                    .map(result -> state.addTokenUsage(result.promptTokens(), result.completionTokens()))
+                    .orElseGet(() -> state.addTokenUsage(0, 0));
+                int totalTokens = (Integer) tokenUsage.get("prompt_tokens") + (Integer) tokenUsage.get("completion_tokens");
 
                 log.info("Final research report generation completed, length: {} characters", finalSummary.length());
 
@@ -59,23 +76,24 @@ public class FinalizerNode implements NodeAction<ResearchState> {
                 int totalLoops = state.researchLoopCount();
                 int totalSources = state.sourcesGathered().size();
 
-                log.info("Research completion statistics - Loop count: {}, Source count: {}, Total duration: {}ms", 
-                    totalLoops, totalSources, totalDuration);
+                log.info("Research completion statistics - Loop count: {}, Source count: {}, Total duration: {}ms, Total tokens: {}", 
+                    totalLoops, totalSources, totalDuration, totalTokens);
 
                 // Return final state updates
-                return Map.of(
-                    "running_summary", finalSummary,
-                    "success", true,
-                    "metadata", Map.of(
-                        "final_report_generated", true,
-                        "completion_timestamp", System.currentTimeMillis(),
-                        "total_duration_ms", totalDuration,
-                        "total_loops_completed", totalLoops,
-                        "total_sources_gathered", totalSources,
-                        "final_summary_length", finalSummary.length()
-                    ),
-                    "current_node_start_time", nodeStart.get("current_node_start_time")
-                );
+                Map<String, Object> updates = new HashMap<>(tokenUsage);
+                updates.put("running_summary", finalSummary);
+                updates.put("success", true);
+                updates.put("metadata", Map.of(
+                    "final_report_generated", response.isPresent(),
+                    "completion_timestamp", System.currentTimeMillis(),
+                    "total_duration_ms", totalDuration,
+                    "total_loops_completed", totalLoops,
+                    "total_sources_gathered", totalSources,
+                    "final_summary_length", finalSummary.length(),
+                    "total_tokens", totalTokens
+                ));
+                updates.put("current_node_start_time", nodeStart.get("current_node_start_time"));
+                return updates;
 
             } catch (Exception e) {
                 log.error("Finalization processing failed", e);
@@ -83,15 +101,34 @@ public class FinalizerNode implements NodeAction<ResearchState> {
             }
     }
 
+    /**
+     * Generate the final report within the time left before the deadline
+     *
+     * @return Report, or empty when the deadline leaves no time for it
+     */
+    private Optional<ChatModelInvoker.ChatResult> generateReport(String userMessage, Optional<Duration> remainingTime) {
+        if (remainingTime.filter(Duration::isZero).isPresent()) {
+            log.warn("Deadline has passed, using the running summary as the final report");
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(chatModelInvoker.chat(
+                promptAssembler.assemble(PromptAssembler.Task.FINALIZATION, userMessage), remainingTime));
+        } catch (ChatTimeoutException e) {
+            log.warn("{}, using the running summary as the final report", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
     /**
      * Build user message
      */
     private String buildUserMessage(String researchTopic, String currentSummary, ResearchState state) {
-        StringBuilder userMessage = new StringBuilder();
-        
+        // Shared research context, including the current summary
+        StringBuilder userMessage = new StringBuilder(promptAssembler.context(researchTopic, currentSummary));
+
         // Basic information
-        userMessage.append("Research topic: ").append(researchTopic);
-        userMessage.append("\nCompleted loop count: ").append(state.researchLoopCount());
+        userMessage.append("\n\nCompleted loop count: ").append(state.researchLoopCount());
         userMessage.append("\nCollected source count: ").append(state.sourcesGathered().size());
         
         // Execution statistics
@@ -100,8 +137,23 @@ public class FinalizerNode implements NodeAction<ResearchState> {
             userMessage.append("\nTotal execution time: ").append(formatDuration(duration));
         }
 
-        // Current summary
-        userMessage.append("\n\nResearch summary:\n").append(currentSummary);
+        FlowConfig flowConfig = researchConfig.getFlow();
+        String summary = tokenizerService.truncate(currentSummary, flowConfig.getMaxSummaryTokens());
+
+        // Source passages on the topic and remaining knowledge gaps that the summary does not already cover
+        String requestId = state.requestId().orElse(null);
+        if (requestId != null && flowConfig.getFinalizerContextTokens() > 0) {
+            passageRetriever.index(requestId, state.detailedSearchResults());
+            StringBuilder query = new StringBuilder(researchTopic);
+            state.knowledgeGaps().forEach(gap -> query.append(' ').append(gap));
+            userMessage.append("\n\nSupporting evidence from sources:\n").append(passageRetriever.retrieve(
+                requestId,
+                query.toString(),
+                summary,
+                flowConfig.getRetrievalTopK(),
+                flowConfig.getFinalizerContextTokens(),
+                flowConfig.getMaxTokensPerSource()));
+        }
 
         // Source information list
         List<String> sources = state.sourcesGathered();
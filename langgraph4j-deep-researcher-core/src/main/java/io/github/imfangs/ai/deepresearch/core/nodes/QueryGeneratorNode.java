@@ -1,16 +1,21 @@
 package io.github.imfangs.ai.deepresearch.core.nodes;
 
 import io.github.imfangs.ai.deepresearch.api.state.ResearchState;
-import io.github.imfangs.ai.deepresearch.config.PromptTemplates;
+import io.github.imfangs.ai.deepresearch.core.llm.ChatModelInvoker;
+import io.github.imfangs.ai.deepresearch.core.llm.ChatTimeoutException;
+import io.github.imfangs.ai.deepresearch.core.llm.PromptAssembler;
+import io.github.imfangs.ai.deepresearch.tools.token.TokenizerService;
 import dev.langchain4j.data.message.SystemMessage;
 import dev.langchain4j.data.message.UserMessage;
-import dev.langchain4j.model.chat.ChatModel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.bsc.langgraph4j.action.NodeAction;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Query generator node
@@ -24,7 +29,9 @@ import java.util.Map;
 @Component
 public class QueryGeneratorNode implements NodeAction<ResearchState> {
 
-    private final ChatModel chatModel;
+    private final ChatModelInvoker chatModelInvoker;
+    private final TokenizerService tokenizerService;
+    private final PromptAssembler promptAssembler;
 
     @Override
     public Map<String, Object> apply(ResearchState state) {
@@ -34,28 +41,23 @@ public class QueryGeneratorNode implements NodeAction<ResearchState> {
             // Mark node start
             Map<String, Object> nodeStart = state.markNodeStart();
 
-            String researchTopic = state.researchTopic()
-                .orElseThrow(() -> new IllegalStateException("Missing research topic"));
-
-            // Build prompt
-            String systemPrompt = PromptTemplates.QUERY_GENERATION_SYSTEM;
-            String userMessage = buildUserMessage(state, researchTopic);
-
-            log.debug("System prompt: {}", systemPrompt);
-            log.debug("User message: {}", userMessage);
-
-            // Call LLM to generate query
-            String response = chatModel.chat(userMessage);
+            // Use the query prepared while reflecting on the previous loop, if any
+            Optional<String> nextQuery = state.nextQuery();
+            if (nextQuery.isPresent()) {
+                log.info("Using search query prepared during reflection: {}", nextQuery.get());
+                return Map.of(
+                    "search_query", nextQuery.get(),
+                    "current_node_start_time", nodeStart.get("current_node_start_time")
+                );
+            }
 
-            // Clean response, extract actual search query
-            String searchQuery = cleanResponse(response);
-            log.info("Generated search query: {}", searchQuery);
+            GeneratedQuery generated = generate(state);
 
             // Return state updates
-            return Map.of(
-                "search_query", searchQuery,
-                "current_node_start_time", nodeStart.get("current_node_start_time")
-            );
+            Map<String, Object> updates = new HashMap<>(state.addTokenUsage(generated.promptTokens(), generated.completionTokens()));
+            updates.put("search_query", generated.query());
+            updates.put("current_node_start_time", nodeStart.get("current_node_start_time"));
+            return updates;
 
         } catch (Exception e) {
             log.error("Query generation failed", e);
@@ -63,20 +65,54 @@ public class QueryGeneratorNode implements NodeAction<ResearchState> {
         }
     }
 
+    /**
+     * Generate the search query for the current state with one LLM call
+     *
+     * Falls back to the research topic when the deadline leaves no time for the call.
+     *
+     * @param state Research state
+     * @return Search query and token usage of the call
+     */
+    public GeneratedQuery generate(ResearchState state) {
+        String researchTopic = state.researchTopic()
+            .orElseThrow(() -> new IllegalStateException("Missing research topic"));
+
+        Optional<Duration> timeBudget = state.nodeTimeBudget();
+        if (timeBudget.filter(Duration::isZero).isPresent()) {
+            log.warn("No time left before the deadline, searching for the research topic");
+            return new GeneratedQuery(researchTopic, 0, 0);
+        }
+
+        // Build prompt
+        String userMessage = buildUserMessage(state, researchTopic);
+
+        log.debug("User message ({} tokens): {}", tokenizerService.countTokens(userMessage), userMessage);
+
+        // Call LLM to generate query
+        ChatModelInvoker.ChatResult response;
+        try {
+            response = chatModelInvoker.chat(
+                promptAssembler.assemble(PromptAssembler.Task.QUERY_GENERATION, userMessage), timeBudget);
+        } catch (ChatTimeoutException e) {
+            log.warn("{}, searching for the research topic", e.getMessage());
+            return new GeneratedQuery(researchTopic, 0, 0);
+        }
+
+        // Clean response, extract actual search query
+        String searchQuery = cleanResponse(response.text());
+        log.info("Generated search query: {}", searchQuery);
+        return new GeneratedQuery(searchQuery, response.promptTokens(), response.completionTokens());
+    }
+
     /**
      * Build user message
      */
     private String buildUserMessage(ResearchState state, String researchTopic) {
-        StringBuilder userMessage = new StringBuilder();
-        userMessage.append("Research topic: ").append(researchTopic);
+        // If it's a subsequent loop, the shared research context includes the previous summary
+        String previousSummary = state.researchLoopCount() > 0 ? state.runningSummary().orElse("") : "";
+        StringBuilder userMessage = new StringBuilder(promptAssembler.context(researchTopic, previousSummary));
 
-        // If it's a subsequent loop, include previous summary
         if (state.researchLoopCount() > 0) {
-            String previousSummary = state.runningSummary().orElse("");
-            if (!previousSummary.isEmpty()) {
-                userMessage.append("\n\nCurrent research progress:\n").append(previousSummary);
-            }
-
             userMessage.append("\n\nPlease generate a new search query based on existing information to conduct in-depth research or supplement missing information.");
         } else {
             userMessage.append("\n\nThis is the first search, please generate a comprehensive search query to start the research.");
@@ -110,4 +146,14 @@ public class QueryGeneratorNode implements NodeAction<ResearchState> {
 
         return query;
     }
+
+    /**
+     * Generated search query
+     *
+     * @param query Search query
+     * @param promptTokens Prompt tokens of the LLM call
+     * @param completionTokens Completion tokens of the LLM call
+     */
+    public record GeneratedQuery(String query, int promptTokens, int completionTokens) {
+    }
 }
@@ -0,0 +1,198 @@
+package io.github.imfangs.ai.deepresearch.core.nodes;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.imfangs.ai.deepresearch.api.state.ResearchState;
+import io.github.imfangs.ai.deepresearch.core.llm.ChatModelInvoker;
+import io.github.imfangs.ai.deepresearch.core.llm.ChatTimeoutException;
+import io.github.imfangs.ai.deepresearch.core.llm.PromptAssembler;
+import io.github.imfangs.ai.deepresearch.tools.token.TokenizerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bsc.langgraph4j.action.NodeAction;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Reflect and plan node
+ *
+ * Analyzes the current summary and plans the next searches in one structured-output LLM call: whether more
+ * research is needed, the knowledge gaps and follow-up queries. The first new follow-up query becomes the
+ * next loop's search query, so query generation needs no LLM call of its own. If the response is not valid
+ * JSON it is read as a free-text reflection and the next loop generates its query as usual. A verdict that
+ * no more research is needed plans no query, and the router ends research on it.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class ReflectAndPlanNode implements NodeAction<ResearchState> {
+
+    /**
+     * Follow-up queries kept from a reflection
+     */
+    private static final int MAX_FOLLOW_UP_QUERIES = 3;
+
+    private final ChatModelInvoker chatModelInvoker;
+    private final TokenizerService tokenizerService;
+    private final PromptAssembler promptAssembler;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public Map<String, Object> apply(ResearchState state) {
+        try {
+            log.info("🤔 Starting reflection and search planning");
+
+            // Mark node start
+            Map<String, Object> nodeStart = state.markNodeStart();
+
+            String researchTopic = state.researchTopic()
+                .orElseThrow(() -> new IllegalStateException("Missing research topic"));
+
+            String currentSummary = state.runningSummary().orElse("");
+            if (currentSummary.isEmpty()) {
+                log.warn("No summary available for reflection");
+                return Map.of(
+                    "current_node_start_time", nodeStart.get("current_node_start_time")
+                );
+            }
+
+            Optional<Duration> timeBudget = state.nodeTimeBudget();
+            if (timeBudget.filter(Duration::isZero).isPresent()) {
+                return ReflectionNode.skipReflection("No time left before the deadline", nodeStart);
+            }
+
+            String userMessage = buildUserMessage(researchTopic, currentSummary, state);
+            log.debug("Reflection user message length: {} tokens", tokenizerService.countTokens(userMessage));
+
+            // One call returns the verdict, the gaps and the next queries
+            ChatModelInvoker.ChatResult response;
+            try {
+                response = chatModelInvoker.chat(
+                    promptAssembler.assemble(PromptAssembler.Task.REFLECTION_PLANNING, userMessage), timeBudget);
+            } catch (ChatTimeoutException e) {
+                return ReflectionNode.skipReflection(e.getMessage(), nodeStart);
+            }
+            String reflectionResult = response.text();
+            log.debug("Reflection result: {}", reflectionResult);
+
+            ReflectionPlan plan = parsePlan(reflectionResult).orElseGet(() -> {
+                log.warn("Reflection did not return a JSON plan, reading it as free text");
+                return new ReflectionPlan(
+                    ReflectionNode.analyzeReflectionResult(reflectionResult),
+                    ReflectionNode.extractKnowledgeGaps(reflectionResult),
+                    List.of());
+            });
+
+            log.info("Reflection conclusion: {}, knowledge gaps: {}, follow-up queries: {}",
+                plan.needMoreResearch() ? "Need more research" : "Information is relatively complete",
+                plan.knowledgeGaps(), plan.followUpQueries());
+
+            // Return state updates
+            Map<String, Object> updates = new HashMap<>(state.addTokenUsage(response.promptTokens(), response.completionTokens()));
+            nextQuery(state, plan).ifPresent(query -> updates.putAll(state.setNextQuery(query)));
+
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put("last_reflection", reflectionResult);
+            metadata.put("need_more_research", plan.needMoreResearch());
+            metadata.put("follow_up_queries", plan.followUpQueries());
+            metadata.put("reflection_timestamp", System.currentTimeMillis());
+            updates.put("metadata", metadata);
+            updates.put("knowledge_gaps", plan.knowledgeGaps());
+            updates.put("current_node_start_time", nodeStart.get("current_node_start_time"));
+            return updates;
+
+        } catch (Exception e) {
+            log.error("Reflection analysis failed", e);
+            return state.setError("Reflection analysis failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Build user message
+     */
+    private String buildUserMessage(String researchTopic, String currentSummary, ResearchState state) {
+        StringBuilder userMessage = new StringBuilder(promptAssembler.context(researchTopic, currentSummary));
+        userMessage.append("\n\nCurrent loop count: ").append(state.researchLoopCount());
+        userMessage.append("/").append(state.maxResearchLoops());
+
+        state.searchQuery().ifPresent(query -> userMessage.append("\n\nLast search query: ").append(query));
+
+        userMessage.append("\n\nNumber of collected source information: ").append(state.sourcesGathered().size());
+
+        userMessage.append("\n\nPlease assess the completeness of the current summary, identify knowledge gaps and plan the next search queries.");
+
+        return userMessage.toString();
+    }
+
+    /**
+     * Parse the JSON plan, tolerating code fences and text around the object
+     */
+    Optional<ReflectionPlan> parsePlan(String response) {
+        if (response == null) {
+            return Optional.empty();
+        }
+        int start = response.indexOf('{');
+        int end = response.lastIndexOf('}');
+        if (start < 0 || end <= start) {
+            return Optional.empty();
+        }
+        try {
+            JsonNode root = objectMapper.readTree(response.substring(start, end + 1));
+            if (!root.isObject()) {
+                return Optional.empty();
+            }
+            JsonNode needMore = root.path("need_more_research");
+            return Optional.of(new ReflectionPlan(
+                needMore.isBoolean() ? needMore.booleanValue() : !"false".equalsIgnoreCase(needMore.asText("true")),
+                textList(root.path("knowledge_gaps"), ReflectionNode.MAX_KNOWLEDGE_GAPS),
+                textList(root.path("follow_up_queries"), MAX_FOLLOW_UP_QUERIES)));
+        } catch (Exception e) {
+            log.debug("Reflection plan is not valid JSON: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private static List<String> textList(JsonNode array, int limit) {
+        List<String> values = new ArrayList<>();
+        for (JsonNode item : array) {
+            String value = item.asText("").trim();
+            if (!value.isEmpty()) {
+                values.add(value);
+            }
+            if (values.size() == limit) {
+                break;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * First follow-up query that differs from the last search, if another loop is possible
+     */
+    private Optional<String> nextQuery(ResearchState state, ReflectionPlan plan) {
+        if (!plan.needMoreResearch() || state.hasReachedMaxLoops()) {
+            return Optional.empty();
+        }
+        String lastQuery = state.searchQuery().orElse("").trim().toLowerCase(Locale.ROOT);
+        return plan.followUpQueries().stream()
+            .filter(query -> !query.toLowerCase(Locale.ROOT).equals(lastQuery))
+            .findFirst();
+    }
+
+    /**
+     * Structured reflection result
+     *
+     * @param needMoreResearch Whether more research is needed
+     * @param knowledgeGaps Identified knowledge gaps
+     * @param followUpQueries Search queries to fill the gaps, most important first
+     */
+    record ReflectionPlan(boolean needMoreResearch, List<String> knowledgeGaps, List<String> followUpQueries) {
+    }
+}
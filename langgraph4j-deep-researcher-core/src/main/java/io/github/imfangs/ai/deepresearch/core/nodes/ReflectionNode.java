@@ -1,16 +1,31 @@
 package io.github.imfangs.ai.deepresearch.core.nodes;
 
 import io.github.imfangs.ai.deepresearch.api.state.ResearchState;
-import io.github.imfangs.ai.deepresearch.config.PromptTemplates;
+import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
+import io.github.imfangs.ai.deepresearch.core.llm.ChatModelInvoker;
+import io.github.imfangs.ai.deepresearch.core.llm.ChatTimeoutException;
+import io.github.imfangs.ai.deepresearch.core.llm.LlmCallExecutor;
+import io.github.imfangs.ai.deepresearch.core.llm.PromptAssembler;
+import io.github.imfangs.ai.deepresearch.core.scheduler.CallCancellation;
+import io.github.imfangs.ai.deepresearch.tools.token.TokenizerService;
 import dev.langchain4j.data.message.SystemMessage;
 import dev.langchain4j.data.message.UserMessage;
-import dev.langchain4j.model.chat.ChatModel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.bsc.langgraph4j.action.NodeAction;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Reflection node
@@ -24,7 +39,26 @@ import java.util.Map;
 @Component
 public class ReflectionNode implements NodeAction<ResearchState> {
 
-    private final ChatModel chatModel;
+    /**
+     * Bulleted or numbered line of the reflection
+     */
+    private static final Pattern LIST_ITEM = Pattern.compile("^\\s*(?:[-*•]|\\d+[.)、])\\s+(.+)$");
+
+    /**
+     * Knowledge gaps kept from a reflection
+     */
+    static final int MAX_KNOWLEDGE_GAPS = 5;
+
+    private final ChatModelInvoker chatModelInvoker;
+    private final TokenizerService tokenizerService;
+    private final ResearchConfig researchConfig;
+    private final QueryGeneratorNode queryGeneratorNode;
+    private final PromptAssembler promptAssembler;
+
+    /**
+     * Runs next-loop query generation alongside the reflection call in pipelined mode
+     */
+    private final LlmCallExecutor llmCallExecutor;
 
     @Override
     public Map<String, Object> apply(ResearchState state) {
@@ -45,50 +79,142 @@ public class ReflectionNode implements NodeAction<ResearchState> {
                 );
             }
 
+            Optional<Duration> timeBudget = state.nodeTimeBudget();
+            if (timeBudget.filter(Duration::isZero).isPresent()) {
+                return skipReflection("No time left before the deadline", nodeStart);
+            }
+
             // Build prompt
-            String systemPrompt = PromptTemplates.REFLECTION_SYSTEM;
             String userMessage = buildUserMessage(researchTopic, currentSummary, state);
 
-            log.debug("Reflection system prompt: {}", systemPrompt);
-            log.debug("Reflection user message length: {} characters", userMessage.length());
+            log.debug("Reflection user message length: {} tokens", tokenizerService.countTokens(userMessage));
+
+            // In pipelined mode the next loop's query is generated from the same summary while reflecting
+            Future<QueryGeneratorNode.GeneratedQuery> nextQuery = startNextQuery(state);
+            try {
+                return reflect(state, userMessage, timeBudget, nextQuery, nodeStart);
+            } finally {
+                // A query still in flight when reflection ends early is not needed any more
+                discardNextQuery(nextQuery);
+            }
+
+        } catch (Exception e) {
+            log.error("Reflection analysis failed", e);
+            return state.setError("Reflection analysis failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reflect on the summary, collecting the next loop's query once reflection is done
+     */
+    private Map<String, Object> reflect(ResearchState state, String userMessage, Optional<Duration> timeBudget,
+                                        Future<QueryGeneratorNode.GeneratedQuery> nextQuery,
+                                        Map<String, Object> nodeStart) {
+        // Call LLM for reflection analysis
+        ChatModelInvoker.ChatResult response;
+        try {
+            response = chatModelInvoker.chat(
+                promptAssembler.assemble(PromptAssembler.Task.REFLECTION, userMessage), timeBudget);
+        } catch (ChatTimeoutException e) {
+            return skipReflection(e.getMessage(), nodeStart);
+        }
+        String reflectionResult = response.text();
 
-            // Call LLM for reflection analysis
-            String reflectionResult = chatModel.chat(userMessage);
+        log.info("Reflection analysis completed, result length: {} characters", reflectionResult.length());
+        log.debug("Reflection result: {}", reflectionResult);
 
-            log.info("Reflection analysis completed, result length: {} characters", reflectionResult.length());
-            log.debug("Reflection result: {}", reflectionResult);
+        // Analyze reflection result, decide if more research is needed
+        boolean needMoreResearch = analyzeReflectionResult(reflectionResult);
+        
+        log.info("Reflection conclusion: {}", needMoreResearch ? "Need more research" : "Information is relatively complete");
 
-            // Analyze reflection result, decide if more research is needed
-            boolean needMoreResearch = analyzeReflectionResult(reflectionResult);
-            
-            log.info("Reflection conclusion: {}", needMoreResearch ? "Need more research" : "Information is relatively complete");
+        List<String> knowledgeGaps = extractKnowledgeGaps(reflectionResult);
+        log.info("Knowledge gaps identified: {}", knowledgeGaps);
 
-            // Return state updates (reflection results can be stored in metadata)
-            return Map.of(
-                "metadata", Map.of(
-                    "last_reflection", reflectionResult,
-                    "need_more_research", needMoreResearch,
-                    "reflection_timestamp", System.currentTimeMillis()
-                ),
-                "current_node_start_time", nodeStart.get("current_node_start_time")
-            );
+        // Return state updates (reflection results can be stored in metadata)
+        int promptTokens = response.promptTokens();
+        int completionTokens = response.completionTokens();
+        Map<String, Object> updates = new HashMap<>();
+        QueryGeneratorNode.GeneratedQuery preparedQuery = awaitNextQuery(nextQuery, state.nodeTimeBudget());
+        if (preparedQuery != null) {
+            // Counted even if the router ends research and the query is never used
+            promptTokens += preparedQuery.promptTokens();
+            completionTokens += preparedQuery.completionTokens();
+            updates.putAll(state.setNextQuery(preparedQuery.query()));
+        }
+        updates.putAll(state.addTokenUsage(promptTokens, completionTokens));
+        updates.put("metadata", Map.of(
+            "last_reflection", reflectionResult,
+            "need_more_research", needMoreResearch,
+            "reflection_timestamp", System.currentTimeMillis()
+        ));
+        updates.put("knowledge_gaps", knowledgeGaps);
+        updates.put("current_node_start_time", nodeStart.get("current_node_start_time"));
+        return updates;
+    }
 
+    /**
+     * Start generating the next loop's search query, unless pipelining is off, no further loop is possible
+     * or the LLM call executor is saturated
+     *
+     * The query is generated on a pool thread, which makes its LLM call itself; the call is registered with
+     * the run's cancellation scope so a disconnect aborts it, and bounded by the wait in {@link #awaitNextQuery}.
+     */
+    Future<QueryGeneratorNode.GeneratedQuery> startNextQuery(ResearchState state) {
+        if (!Boolean.TRUE.equals(researchConfig.getFlow().getPipelinedReflection()) || state.hasReachedMaxLoops()) {
+            return null;
+        }
+        Future<QueryGeneratorNode.GeneratedQuery> nextQuery;
+        try {
+            nextQuery = llmCallExecutor.submit(() -> queryGeneratorNode.generate(state));
+        } catch (RejectedExecutionException e) {
+            log.warn("LLM call executor saturated, the next loop will generate its own query");
+            return null;
+        }
+        CallCancellation.current().ifPresent(scope -> scope.register(nextQuery));
+        return nextQuery;
+    }
+
+    /**
+     * Wait for the next loop's search query within the time budget, leaving it to the query generator node
+     * if generation failed or did not finish in time
+     */
+    private QueryGeneratorNode.GeneratedQuery awaitNextQuery(Future<QueryGeneratorNode.GeneratedQuery> nextQuery,
+                                                             Optional<Duration> timeBudget) {
+        if (nextQuery == null) {
+            return null;
+        }
+        try {
+            return timeBudget.isPresent()
+                ? nextQuery.get(timeBudget.get().toMillis(), TimeUnit.MILLISECONDS)
+                : nextQuery.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
         } catch (Exception e) {
-            log.error("Reflection analysis failed", e);
-            return state.setError("Reflection analysis failed: " + e.getMessage());
+            log.warn("Pipelined query generation failed, the next loop will generate its own query: {}", e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Cancel the next loop's query generation if it is still running, aborting its LLM call
+     */
+    private static void discardNextQuery(Future<QueryGeneratorNode.GeneratedQuery> nextQuery) {
+        if (nextQuery == null) {
+            return;
         }
+        nextQuery.cancel(true);
+        CallCancellation.current().ifPresent(scope -> scope.unregister(nextQuery));
     }
 
     /**
      * Build user message
      */
     private String buildUserMessage(String researchTopic, String currentSummary, ResearchState state) {
-        StringBuilder userMessage = new StringBuilder();
-        userMessage.append("Research topic: ").append(researchTopic);
+        StringBuilder userMessage = new StringBuilder(promptAssembler.context(researchTopic, currentSummary));
         userMessage.append("\n\nCurrent loop count: ").append(state.researchLoopCount());
         userMessage.append("/").append(state.maxResearchLoops());
-        
-        userMessage.append("\n\nCurrent research summary:\n").append(currentSummary);
 
         // Add count of collected source information
         int sourcesCount = state.sourcesGathered().size();
@@ -99,10 +225,49 @@ public class ReflectionNode implements NodeAction<ResearchState> {
         return userMessage.toString();
     }
 
+    /**
+     * Skip reflection when the deadline leaves no time for it, recording that no more research is needed;
+     * the router follows that verdict and ends research
+     */
+    static Map<String, Object> skipReflection(String reason, Map<String, Object> nodeStart) {
+        log.warn("{}, skipping reflection and ending research", reason);
+        return Map.of(
+            "metadata", Map.of(
+                "need_more_research", false,
+                "reflection_timestamp", System.currentTimeMillis()
+            ),
+            "current_node_start_time", nodeStart.get("current_node_start_time")
+        );
+    }
+
+    /**
+     * Extract knowledge gaps from the bulleted lines of the reflection
+     */
+    static List<String> extractKnowledgeGaps(String reflectionResult) {
+        List<String> knowledgeGaps = new ArrayList<>();
+        if (reflectionResult == null) {
+            return knowledgeGaps;
+        }
+        for (String line : reflectionResult.split("\\r?\\n")) {
+            Matcher matcher = LIST_ITEM.matcher(line);
+            if (!matcher.matches()) {
+                continue;
+            }
+            String gap = matcher.group(1).replace("**", "").trim();
+            if (!gap.isEmpty()) {
+                knowledgeGaps.add(gap);
+            }
+            if (knowledgeGaps.size() == MAX_KNOWLEDGE_GAPS) {
+                break;
+            }
+        }
+        return knowledgeGaps;
+    }
+
     /**
      * Analyze reflection result, determine if more research is needed
      */
-    private boolean analyzeReflectionResult(String reflectionResult) {
+    static boolean analyzeReflectionResult(String reflectionResult) {
         if (reflectionResult == null || reflectionResult.trim().isEmpty()) {
             return false;
         }
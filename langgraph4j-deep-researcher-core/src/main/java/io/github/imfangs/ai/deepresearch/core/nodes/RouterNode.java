@@ -1,10 +1,16 @@
 package io.github.imfangs.ai.deepresearch.core.nodes;
 
 import io.github.imfangs.ai.deepresearch.api.state.ResearchState;
+import io.github.imfangs.ai.deepresearch.config.FlowConfig;
+import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
+import io.github.imfangs.ai.deepresearch.core.latency.NodeLatencyTracker;
+import io.github.imfangs.ai.deepresearch.tools.token.TokenizerService;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.bsc.langgraph4j.action.NodeAction;
 import org.springframework.stereotype.Component;
 
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -15,9 +21,28 @@ import java.util.Map;
  * @author imfangs
  */
 @Slf4j
+@RequiredArgsConstructor
 @Component
 public class RouterNode implements NodeAction<ResearchState> {
 
+    /**
+     * Weights of the loop novelty signals: new canonical URLs and new summary n-grams
+     *
+     * The reflection verdict is checked on its own, so it must not lift the novelty above the threshold
+     */
+    private static final double URL_NOVELTY_WEIGHT = 0.4;
+    private static final double SUMMARY_NOVELTY_WEIGHT = 0.6;
+
+    /**
+     * Routes of the conditional edge leaving the router
+     */
+    public static final String CONTINUE = "continue";
+    public static final String FINALIZE = "finalize";
+
+    private final ResearchConfig researchConfig;
+    private final NodeLatencyTracker latencyTracker;
+    private final TokenizerService tokenizerService;
+
     @Override
     public Map<String, Object> apply(ResearchState state) {
             try {
@@ -29,18 +54,46 @@ public class RouterNode implements NodeAction<ResearchState> {
                 // Routing decision logic is implemented in conditional edges in ResearchGraphBuilder
                 // This node is mainly used to record decision process and update state
 
-                String decision = makeRoutingDecision(state);
-                log.info("Routing decision: {}", decision);
+                // Close token accounting of the loop so the routing edge can project the next one
+                Map<String, Object> loopUpdates = new HashMap<>(state.markLoopTokens());
+                loopUpdates.put("finalize_reserve_tokens", estimateFinalizeTokens(state));
+
+                // Combine the loop novelty signals so the routing edge can stop once a loop adds little
+                Boolean needMoreResearch = (Boolean) state.metadata().get("need_more_research");
+                double loopNovelty = calculateLoopNovelty(state);
+                loopUpdates.put("loop_novelty", loopNovelty);
+
+                // Predict the next loop and the report from measured node latencies under the current load
+                latencyTracker.predictLoop().ifPresent(millis -> loopUpdates.put("predicted_loop_ms", millis));
+                latencyTracker.predict(NodeLatencyTracker.FINALIZE_NODE)
+                    .ifPresent(millis -> loopUpdates.put("predicted_finalize_ms", millis));
+
+                ResearchState routedState = new ResearchState(mergeState(state, loopUpdates));
+
+                RoutingDecision decision = makeRoutingDecision(routedState);
+                log.info("Routing decision: {}, loop novelty: {}", decision.reason(), String.format("%.2f", loopNovelty));
 
                 // Return state updates
-                return Map.of(
-                    "metadata", Map.of(
-                        "routing_decision", decision,
-                        "routing_timestamp", System.currentTimeMillis(),
-                        "loop_count_at_decision", state.researchLoopCount()
-                    ),
-                    "current_node_start_time", nodeStart.get("current_node_start_time")
-                );
+                Map<String, Object> metadata = new HashMap<>();
+                metadata.put("routing_decision", decision.reason());
+                metadata.put("route", decision.route());
+                metadata.put("routing_timestamp", System.currentTimeMillis());
+                metadata.put("loop_count_at_decision", state.researchLoopCount());
+                metadata.put("tokens_at_decision", state.totalTokens());
+                metadata.put("last_loop_tokens", routedState.lastLoopTokens());
+                metadata.put("finalize_reserve_tokens", routedState.finalizeReserveTokens());
+                metadata.put("loop_novelty", loopNovelty);
+                metadata.put("url_novelty", state.urlNovelty().orElse(1.0));
+                metadata.put("summary_novelty", state.summaryNovelty().orElse(1.0));
+                metadata.put("need_more_research", needMoreResearch == null || needMoreResearch);
+                metadata.put("novelty_threshold", researchConfig.getFlow().getNoveltyThreshold());
+                routedState.remainingTime().ifPresent(remaining -> metadata.put("remaining_time_ms", remaining.toMillis()));
+                routedState.predictedLoopMillis().ifPresent(millis -> metadata.put("predicted_loop_ms", millis));
+
+                Map<String, Object> updates = new HashMap<>(loopUpdates);
+                updates.put("metadata", metadata);
+                updates.put("current_node_start_time", nodeStart.get("current_node_start_time"));
+                return updates;
 
             } catch (Exception e) {
                 log.error("Routing decision failed", e);
@@ -48,25 +101,56 @@ public class RouterNode implements NodeAction<ResearchState> {
             }
     }
 
+    /**
+     * Route decided by the router node, followed by the routing edge
+     *
+     * A state without a decision, such as one left by a failed router, ends research
+     */
+    public static String routeOf(ResearchState state) {
+        return CONTINUE.equals(state.metadata().get("route")) ? CONTINUE : FINALIZE;
+    }
+
     /**
      * Routing decision logic
      */
-    private String makeRoutingDecision(ResearchState state) {
+    private RoutingDecision makeRoutingDecision(ResearchState state) {
         // Check if maximum loop count is reached
         if (state.hasReachedMaxLoops()) {
-            return "Reached maximum loop count, ending research";
+            return RoutingDecision.end("Reached maximum loop count, ending research");
         }
 
         // Check if there are any errors
         if (!state.success()) {
-            return "Error detected, ending research";
+            return RoutingDecision.end("Error detected, ending research");
+        }
+
+        // Check token budget
+        if (state.wouldExceedTokenBudget()) {
+            return RoutingDecision.end("Next loop would exceed token budget, ending research");
+        }
+
+        // Check deadline, keeping the finalize reserve free for the report
+        if (state.wouldMissDeadline()) {
+            return RoutingDecision.end("Next loop would run into the time reserved for the final report, ending research");
+        }
+
+        // Check latency SLO against the predicted next loop and report
+        if (state.wouldMissLatencySlo(researchConfig.getFlow().getLatencySloMs())) {
+            return RoutingDecision.end("Next loop is predicted to exceed the latency SLO, ending research");
+        }
+
+        // Check marginal novelty of the last loop
+        double noveltyThreshold = researchConfig.getFlow().getNoveltyThreshold();
+        if (state.loopNovelty().map(novelty -> novelty < noveltyThreshold).orElse(false)) {
+            return RoutingDecision.end(String.format("Marginal novelty %.2f below threshold %.2f, ending research",
+                state.loopNovelty().get(), noveltyThreshold));
         }
 
         // Check reflection results
         Map<String, Object> metadata = state.metadata();
         Boolean needMoreResearch = (Boolean) metadata.get("need_more_research");
         if (needMoreResearch != null && !needMoreResearch) {
-            return "Reflection indicates sufficient information, ending research";
+            return RoutingDecision.end("Reflection indicates sufficient information, ending research");
         }
 
         // Check information volume (based on summary length and loop count)
@@ -74,13 +158,59 @@ public class RouterNode implements NodeAction<ResearchState> {
         int loopCount = state.researchLoopCount();
         
         if (summary.length() > 1500 && loopCount >= 2) {
-            return "Sufficient information collected, ending research";
+            return RoutingDecision.end("Sufficient information collected, ending research");
         }
 
         if (loopCount >= 1 && summary.length() > 2000) {
-            return "Information volume is sufficient, ending research";
+            return RoutingDecision.end("Information volume is sufficient, ending research");
+        }
+
+        return RoutingDecision.proceed("Continue research to obtain more information");
+    }
+
+    /**
+     * Estimate the tokens of the final report call
+     *
+     * The prompt holds the running summary and the source passages, and the report is expected to be about
+     * as long as the summary, at most the model's completion limit
+     */
+    int estimateFinalizeTokens(ResearchState state) {
+        FlowConfig flowConfig = researchConfig.getFlow();
+        int summaryTokens = Math.min(tokenizerService.countTokens(state.runningSummary().orElse("")),
+            flowConfig.getMaxSummaryTokens());
+        int reportTokens = Math.min(summaryTokens, researchConfig.getModel().getMaxTokens());
+        return summaryTokens + flowConfig.getFinalizerContextTokens() + reportTokens;
+    }
+
+    /**
+     * Calculate the marginal novelty of the last loop from new URLs and new summary n-grams
+     */
+    private double calculateLoopNovelty(ResearchState state) {
+        double urlNovelty = state.urlNovelty().orElse(1.0);
+        double summaryNovelty = state.summaryNovelty().orElse(1.0);
+        return URL_NOVELTY_WEIGHT * urlNovelty + SUMMARY_NOVELTY_WEIGHT * summaryNovelty;
+    }
+
+    /**
+     * Merge state updates into a copy of the current state data
+     */
+    private Map<String, Object> mergeState(ResearchState state, Map<String, Object> updates) {
+        Map<String, Object> merged = new HashMap<>(state.data());
+        merged.putAll(updates);
+        return merged;
+    }
+
+    /**
+     * Route chosen by the router and the reason recorded with it
+     */
+    private record RoutingDecision(String route, String reason) {
+
+        static RoutingDecision end(String reason) {
+            return new RoutingDecision(FINALIZE, reason);
         }
 
-        return "Continue research to obtain more information";
+        static RoutingDecision proceed(String reason) {
+            return new RoutingDecision(CONTINUE, reason);
+        }
     }
 }
@@ -1,17 +1,27 @@
 package io.github.imfangs.ai.deepresearch.core.nodes;
 
 import io.github.imfangs.ai.deepresearch.api.state.ResearchState;
-import io.github.imfangs.ai.deepresearch.config.PromptTemplates;
+import io.github.imfangs.ai.deepresearch.config.FlowConfig;
+import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
+import io.github.imfangs.ai.deepresearch.core.llm.ChatModelInvoker;
+import io.github.imfangs.ai.deepresearch.core.llm.ChatTimeoutException;
+import io.github.imfangs.ai.deepresearch.core.llm.PromptAssembler;
+import io.github.imfangs.ai.deepresearch.tools.context.ContextPacker;
+import io.github.imfangs.ai.deepresearch.tools.context.PassageRetriever;
+import io.github.imfangs.ai.deepresearch.tools.context.TextShingles;
+import io.github.imfangs.ai.deepresearch.tools.token.TokenizerService;
 import dev.langchain4j.data.message.SystemMessage;
 import dev.langchain4j.data.message.UserMessage;
-import dev.langchain4j.model.chat.ChatModel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.bsc.langgraph4j.action.NodeAction;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Summarizer node
@@ -25,7 +35,12 @@ import java.util.Map;
 @Component
 public class SummarizerNode implements NodeAction<ResearchState> {
 
-    private final ChatModel chatModel;
+    private final ChatModelInvoker chatModelInvoker;
+    private final ContextPacker contextPacker;
+    private final PassageRetriever passageRetriever;
+    private final TokenizerService tokenizerService;
+    private final ResearchConfig researchConfig;
+    private final PromptAssembler promptAssembler;
 
     @Override
     public Map<String, Object> apply(ResearchState state) {
@@ -46,15 +61,27 @@ public class SummarizerNode implements NodeAction<ResearchState> {
             String researchTopic = state.researchTopic()
                 .orElseThrow(() -> new IllegalStateException("Missing research topic"));
 
+            Optional<Duration> timeBudget = state.nodeTimeBudget();
+            if (timeBudget.filter(Duration::isZero).isPresent()) {
+                log.warn("No time left before the deadline, keeping the current summary");
+                return keepSummary(state, searchResults, nodeStart);
+            }
+
             // Build prompt
-            String systemPrompt = PromptTemplates.SUMMARIZATION_SYSTEM;
-            String userMessage = buildUserMessage(state, researchTopic, searchResults);
+            String userMessage = buildUserMessage(state, researchTopic);
 
-            log.debug("Summarization system prompt: {}", systemPrompt);
-            log.debug("Summarization user message length: {} characters", userMessage.length());
+            log.debug("Summarization user message length: {} tokens", tokenizerService.countTokens(userMessage));
 
             // Call LLM to generate summary
-            String newSummary = chatModel.chat(userMessage);
+            ChatModelInvoker.ChatResult response;
+            try {
+                response = chatModelInvoker.chat(
+                    promptAssembler.assemble(PromptAssembler.Task.SUMMARIZATION, userMessage), timeBudget);
+            } catch (ChatTimeoutException e) {
+                log.warn("{}, keeping the current summary", e.getMessage());
+                return keepSummary(state, searchResults, nodeStart);
+            }
+            String newSummary = response.text();
 
             // Increment loop count
             Integer newLoopCount = state.researchLoopCount() + 1;
@@ -65,13 +92,20 @@ public class SummarizerNode implements NodeAction<ResearchState> {
             // Add source information to collection list
             List<String> newSources = extractSources(searchResults);
 
+            // Share of summary n-grams that were not in the previous summary
+            double summaryNovelty = TextShingles.novelty(
+                TextShingles.shingles(newSummary, 3),
+                TextShingles.shingles(state.runningSummary().orElse(""), 3));
+            log.info("Summary novelty: {}", String.format("%.2f", summaryNovelty));
+
             // Return state updates
-            return Map.of(
-                "running_summary", newSummary,
-                "research_loop_count", newLoopCount,
-                "sources_gathered", newSources,
-                "current_node_start_time", nodeStart.get("current_node_start_time")
-            );
+            Map<String, Object> updates = new HashMap<>(state.addTokenUsage(response.promptTokens(), response.completionTokens()));
+            updates.put("running_summary", newSummary);
+            updates.put("research_loop_count", newLoopCount);
+            updates.put("sources_gathered", newSources);
+            updates.put("summary_novelty", summaryNovelty);
+            updates.put("current_node_start_time", nodeStart.get("current_node_start_time"));
+            return updates;
 
         } catch (Exception e) {
             log.error("Summary generation failed", e);
@@ -80,29 +114,63 @@ public class SummarizerNode implements NodeAction<ResearchState> {
     }
 
     /**
-     * Build user message
+     * Close the loop without updating the summary; the final report still draws on the gathered sources
      */
-    private String buildUserMessage(ResearchState state, String researchTopic, List<String> searchResults) {
-        StringBuilder userMessage = new StringBuilder();
-        userMessage.append("Research topic: ").append(researchTopic);
-
-        // If there is a previous summary, include it
-        String previousSummary = state.runningSummary().orElse("");
-        if (!previousSummary.isEmpty()) {
-            userMessage.append("\n\nPrevious research summary:\n").append(previousSummary);
-        }
+    private Map<String, Object> keepSummary(ResearchState state, List<String> searchResults, Map<String, Object> nodeStart) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("research_loop_count", state.researchLoopCount() + 1);
+        updates.put("sources_gathered", extractSources(searchResults));
+        updates.put("summary_novelty", 0.0);
+        updates.put("current_node_start_time", nodeStart.get("current_node_start_time"));
+        return updates;
+    }
 
-        // Add new search results
-        userMessage.append("\n\nLatest search results:\n");
-        for (int i = 0; i < searchResults.size(); i++) {
-            userMessage.append(i + 1).append(". ").append(searchResults.get(i)).append("\n");
+    /**
+     * Build user message
+     */
+    private String buildUserMessage(ResearchState state, String researchTopic) {
+        // The shared research context includes the previous summary, if any
+        FlowConfig flowConfig = researchConfig.getFlow();
+        String previousSummary = promptAssembler.truncateSummary(state.runningSummary().orElse(""));
+        StringBuilder userMessage = new StringBuilder(promptAssembler.contextOf(researchTopic, previousSummary));
+
+        // Add the passages gathered so far that best match the current query and knowledge gaps,
+        // packed by relevance and novelty against the previous summary into a fixed token budget
+        userMessage.append("\n\nRelevant search results:\n");
+        Optional<String> requestId = state.requestId();
+        if (requestId.isPresent()) {
+            passageRetriever.index(requestId.get(), state.detailedSearchResults());
+            userMessage.append(passageRetriever.retrieve(
+                requestId.get(),
+                retrievalQuery(state, researchTopic),
+                previousSummary,
+                flowConfig.getRetrievalTopK(),
+                flowConfig.getSummarizerContextTokens(),
+                flowConfig.getMaxTokensPerSource())).append("\n");
+        } else {
+            userMessage.append(contextPacker.pack(
+                state.detailedSearchResults(),
+                previousSummary,
+                flowConfig.getSummarizerContextTokens(),
+                flowConfig.getMaxTokensPerSource())).append("\n");
         }
 
-        userMessage.append("\nPlease combine the previous summary and new search results to generate a more comprehensive and accurate research summary.");
+        userMessage.append("\nPlease combine the current research summary and new search results to generate a more comprehensive and accurate research summary.");
 
         return userMessage.toString();
     }
 
+    /**
+     * Build the passage retrieval query from the current search query and open knowledge gaps
+     */
+    private String retrievalQuery(ResearchState state, String researchTopic) {
+        StringBuilder query = new StringBuilder(state.searchQuery().orElse(researchTopic));
+        for (String gap : state.knowledgeGaps()) {
+            query.append(' ').append(gap);
+        }
+        return query.toString();
+    }
+
     /**
      * Extract source information from search results
      */
@@ -2,15 +2,30 @@ package io.github.imfangs.ai.deepresearch.core.nodes;
 
 import io.github.imfangs.ai.deepresearch.api.dto.SearchResult;
 import io.github.imfangs.ai.deepresearch.api.state.ResearchState;
+import io.github.imfangs.ai.deepresearch.core.llm.LlmCallExecutor;
+import io.github.imfangs.ai.deepresearch.core.scheduler.CallCancellation;
+import io.github.imfangs.ai.deepresearch.tools.extract.HtmlTextExtractor;
+import io.github.imfangs.ai.deepresearch.tools.fetch.FetchedPage;
+import io.github.imfangs.ai.deepresearch.tools.fetch.PageFetcher;
+import io.github.imfangs.ai.deepresearch.tools.knowledge.PageKnowledgeStore;
+import io.github.imfangs.ai.deepresearch.tools.rerank.EmbeddingReranker;
 import io.github.imfangs.ai.deepresearch.tools.search.SearchEngineManager;
+import io.github.imfangs.ai.deepresearch.tools.search.UrlCanonicalizer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.bsc.langgraph4j.action.NodeAction;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
 /**
  * Web search node
@@ -25,6 +40,10 @@ import java.util.Map;
 public class WebSearchNode implements NodeAction<ResearchState> {
 
     private final SearchEngineManager searchEngineManager;
+    private final PageFetcher pageFetcher;
+    private final EmbeddingReranker embeddingReranker;
+    private final PageKnowledgeStore knowledgeStore;
+    private final LlmCallExecutor llmCallExecutor;
 
     @Override
     public Map<String, Object> apply(ResearchState state) {
@@ -41,14 +60,22 @@ public class WebSearchNode implements NodeAction<ResearchState> {
                 Integer maxResults = state.maxSearchResults();
                 Boolean fetchFullPage = state.fetchFullPage();
 
-                log.info("Using search engine: {}, query: {}, max results: {}, fetch full page: {}", 
-                    searchEngine, searchQuery, maxResults, fetchFullPage);
+                // Close to the deadline, search for fewer results and skip full pages
+                Optional<Duration> timeBudget = state.nodeTimeBudget();
+                if (timeBudget.filter(budget -> budget.toMillis() < state.finalizeReserveMillis()).isPresent()) {
+                    maxResults = Math.max(1, maxResults / 2);
+                    fetchFullPage = false;
+                    log.info("Deadline is close ({}ms left for research), reducing search effort", timeBudget.get().toMillis());
+                }
 
-                // Execute search
-                List<SearchResult> searchResults = searchEngineManager.search(
+                log.info("Using search engine: {}, query: {}, max results: {}, fetch full page: {}", 
                     searchEngine, searchQuery, maxResults, fetchFullPage);
 
-                log.info("Search completed, obtained {} results", searchResults.size());
+                // Serve the query from stored pages when they cover it, otherwise search the web
+                int resultLimit = maxResults;
+                Boolean fullPage = fetchFullPage;
+                List<SearchResult> searchResults = lookupKnowledge(state, searchQuery, resultLimit, fullPage)
+                    .orElseGet(() -> searchWeb(state, searchEngine, searchQuery, resultLimit, fullPage, timeBudget));
 
                 // Process search results
                 List<String> webResults = new ArrayList<>();
@@ -66,10 +93,14 @@ public class WebSearchNode implements NodeAction<ResearchState> {
                     log.debug("Search result: {}", simpleResult);
                 }
 
+                double urlNovelty = calculateUrlNovelty(state, detailedResults);
+                log.info("Search URL novelty: {}", String.format("%.2f", urlNovelty));
+
                 // Return state updates
                 return Map.of(
                     "web_search_results", webResults,
                     "detailed_search_results", detailedResults,
+                    "url_novelty", urlNovelty,
                     "current_node_start_time", nodeStart.get("current_node_start_time")
                 );
 
@@ -78,4 +109,125 @@ public class WebSearchNode implements NodeAction<ResearchState> {
                 return state.setError("Web search failed: " + e.getMessage());
             }
     }
+
+    /**
+     * Look up stored pages covering the query, excluding pages the run already gathered
+     */
+    private Optional<List<SearchResult>> lookupKnowledge(ResearchState state, String searchQuery,
+                                                         Integer maxResults, Boolean fetchFullPage) {
+        if (!knowledgeStore.isEnabled()) {
+            return Optional.empty();
+        }
+        List<String> gatheredUrls = state.detailedSearchResults().stream()
+            .map(SearchResult::getUrl)
+            .toList();
+        return knowledgeStore.lookup(searchQuery, maxResults, gatheredUrls, Boolean.TRUE.equals(fetchFullPage));
+    }
+
+    /**
+     * Search the web, fetch and clean page content, rerank, and store the pages for later lookups
+     *
+     * The search call is bounded by the node's time budget; a search that does not complete in time yields no results.
+     */
+    List<SearchResult> searchWeb(ResearchState state, String searchEngine, String searchQuery,
+                                 Integer maxResults, Boolean fetchFullPage, Optional<Duration> timeBudget) {
+        List<SearchResult> searchResults;
+        try {
+            searchResults = llmCallExecutor.call(
+                () -> searchEngineManager.search(searchEngine, searchQuery, maxResults, fetchFullPage), timeBudget);
+        } catch (TimeoutException e) {
+            log.warn("Search did not complete within {}ms, continuing without new results", timeBudget.get().toMillis());
+            return List.of();
+        }
+
+        log.info("Search completed, obtained {} results", searchResults.size());
+
+        // Page fetches get what is left of the budget after the search
+        if (Boolean.TRUE.equals(fetchFullPage)) {
+            fetchMissingPages(searchResults, state.nodeTimeBudget());
+        }
+        extractPageText(searchResults);
+
+        // Rerank by similarity to the research topic before results enter state and reach the summarizer
+        if (embeddingReranker.isEnabled()) {
+            String researchTopic = state.researchTopic().orElse("");
+            searchResults = embeddingReranker.rerank(researchTopic + "\n" + searchQuery, searchResults);
+        }
+
+        if (knowledgeStore.isEnabled()) {
+            knowledgeStore.store(searchResults);
+        }
+        return searchResults;
+    }
+
+    /**
+     * Fetch full pages for results the search engine returned without raw content
+     *
+     * Each fetch is registered with the run's cancellation scope, so cancelling the run aborts the
+     * fetches still in flight and the node goes on with the pages already in.
+     */
+    private void fetchMissingPages(List<SearchResult> results, Optional<Duration> timeBudget) {
+        if (!pageFetcher.isEnabled()) {
+            return;
+        }
+        List<String> urls = results.stream()
+            .filter(result -> !StringUtils.hasText(result.getRawContent()) && StringUtils.hasText(result.getUrl()))
+            .map(SearchResult::getUrl)
+            .toList();
+        if (urls.isEmpty()) {
+            return;
+        }
+
+        Optional<CallCancellation> cancellation = CallCancellation.current();
+        List<Future<?>> fetches = new ArrayList<>();
+        Map<String, FetchedPage> pages;
+        try {
+            pages = pageFetcher.fetchAll(urls, timeBudget.orElse(null), fetch -> {
+                fetches.add(fetch);
+                cancellation.ifPresent(scope -> scope.register(fetch));
+            });
+        } finally {
+            cancellation.ifPresent(scope -> fetches.forEach(scope::unregister));
+        }
+        for (SearchResult result : results) {
+            FetchedPage page = pages.get(result.getUrl());
+            if (page != null && !StringUtils.hasText(result.getRawContent())) {
+                result.setRawContent(page.text());
+            }
+        }
+    }
+
+    /**
+     * Replace raw HTML returned by search engines with its main text before it enters state
+     */
+    private void extractPageText(List<SearchResult> results) {
+        for (SearchResult result : results) {
+            String rawContent = result.getRawContent();
+            if (HtmlTextExtractor.looksLikeHtml(rawContent)) {
+                String text = HtmlTextExtractor.extract(rawContent);
+                log.debug("Extracted {} of {} chars from {}", text.length(), rawContent.length(), result.getUrl());
+                result.setRawContent(text);
+            }
+        }
+    }
+
+    /**
+     * Calculate the share of distinct canonical result URLs not seen in previous loops
+     */
+    private double calculateUrlNovelty(ResearchState state, List<SearchResult> results) {
+        Set<String> urls = results.stream()
+            .map(result -> UrlCanonicalizer.canonicalize(result.getUrl()))
+            .collect(Collectors.toSet());
+        if (urls.isEmpty()) {
+            return 0.0;
+        }
+        Set<String> seenUrls = state.detailedSearchResults().stream()
+            .map(result -> UrlCanonicalizer.canonicalize(result.getUrl()))
+            .collect(Collectors.toSet());
+
+        long newUrls = urls.stream()
+            .filter(url -> !seenUrls.contains(url))
+            .count();
+        return (double) newUrls / urls.size();
+    }
 }
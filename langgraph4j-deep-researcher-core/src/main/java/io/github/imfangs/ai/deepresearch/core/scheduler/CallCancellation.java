@@ -0,0 +1,87 @@
+package io.github.imfangs.ai.deepresearch.core.scheduler;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+/**
+ * Cancellation of the outbound calls of a research run
+ *
+ * Nodes of a run execute within its scope; model and search calls made there run on call threads and register
+ * their futures while in flight. Cancelling the run cancels those futures, interrupting the call threads and
+ * aborting their HTTP exchanges. The thread executing the graph is never interrupted, since it may be using
+ * shared resources such as index writers; it sees the cancelled call fail and stops before the next node.
+ */
+public class CallCancellation {
+
+    private static final ThreadLocal<CallCancellation> CURRENT = new ThreadLocal<>();
+
+    private final Set<Future<?>> inFlightCalls = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled;
+
+    /**
+     * Cancellation scope of the node executing on the current thread
+     *
+     * @return Scope, empty outside of a research run
+     */
+    public static Optional<CallCancellation> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    /**
+     * Execute an action within this scope on the current thread
+     *
+     * @param action Action, typically a graph node
+     * @return Result of the action
+     * @throws Exception if the action fails
+     */
+    public <T> T within(Callable<T> action) throws Exception {
+        CallCancellation outer = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return action.call();
+        } finally {
+            if (outer == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(outer);
+            }
+        }
+    }
+
+    /**
+     * Register an in-flight call, cancelling it right away if the scope was already cancelled
+     *
+     * @param call Future of the call, unregistered by the caller once it completes
+     */
+    public void register(Future<?> call) {
+        inFlightCalls.add(call);
+        if (cancelled) {
+            call.cancel(true);
+        }
+    }
+
+    /**
+     * Unregister a completed call
+     */
+    public void unregister(Future<?> call) {
+        inFlightCalls.remove(call);
+    }
+
+    /**
+     * Cancel all in-flight calls and those registered later
+     */
+    public void cancel() {
+        cancelled = true;
+        inFlightCalls.forEach(call -> call.cancel(true));
+    }
+
+    /**
+     * Whether the scope was cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,30 @@
+package io.github.imfangs.ai.deepresearch.core.scheduler;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Rate limit exceeded exception
+ *
+ * Thrown when a user submits research requests faster than the configured rate
+ */
+@Getter
+public class RateLimitExceededException extends RuntimeException {
+
+    /**
+     * User whose rate limit was exceeded
+     */
+    private final String userId;
+
+    /**
+     * Time until the next request will be admitted
+     */
+    private final Duration retryAfter;
+
+    public RateLimitExceededException(String userId, Duration retryAfter) {
+        super("Rate limit exceeded for user " + userId + ", retry after " + Math.max(1, retryAfter.toSeconds()) + "s");
+        this.userId = userId;
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,473 @@
+package io.github.imfangs.ai.deepresearch.core.scheduler;
+
+import io.github.imfangs.ai.deepresearch.api.dto.ResearchRequest.Priority;
+import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
+import io.github.imfangs.ai.deepresearch.config.SchedulerConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Research scheduler
+ *
+ * Admits research requests through a per-user token bucket and hands out execution slots by priority class,
+ * then by weighted fair queuing within a class (start-time fair queuing with unit cost per run), so a user
+ * submitting a large batch cannot starve others. Per-user concurrency caps bound how many slots a single user
+ * may hold. Running research passes a checkpoint between graph nodes, where it is parked (its slot handed to a
+ * waiting higher-priority run) and resumed once a slot is free again. A run is charged its fair share once;
+ * resuming it does not charge the user again. Token buckets of users idle past the
+ * configured TTL are dropped once refilled, since a full bucket is the same as a new one.
+ */
+@Slf4j
+@Component
+public class ResearchScheduler {
+
+    /**
+     * User key for requests without user ID
+     */
+    static final String ANONYMOUS_USER = "anonymous";
+
+    private final SchedulerConfig config;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier nanoClock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, UserQueue> users = new HashMap<>();
+    private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastBucketSweep = new AtomicLong();
+    private double virtualTime;
+    private long arrivals;
+    private volatile int running;
+    private volatile int queued;
+
+    @Autowired
+    public ResearchScheduler(ResearchConfig researchConfig, MeterRegistry meterRegistry) {
+        this(researchConfig.getScheduler(), meterRegistry, System::nanoTime);
+    }
+
+    ResearchScheduler(SchedulerConfig config, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        this.nanoClock = nanoClock;
+        this.lastBucketSweep.set(nanoClock.getAsLong());
+
+        Gauge.builder("research.scheduler.running", this, scheduler -> scheduler.running)
+                .description("Research runs holding an execution slot")
+                .register(meterRegistry);
+        Gauge.builder("research.scheduler.queued", this, scheduler -> scheduler.queued)
+                .description("Research runs waiting for an execution slot")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Number of research runs holding an execution slot
+     */
+    public int runningCount() {
+        return running;
+    }
+
+    /**
+     * Admit a request against the user's rate limit
+     *
+     * @param userId User ID (may be null)
+     * @throws RateLimitExceededException if the user's token bucket is empty
+     */
+    public void admit(String userId) {
+        String user = userKey(userId);
+        long now = nanoClock.getAsLong();
+        sweepIdleBuckets(now);
+
+        // Consumed inside compute, so a concurrent sweep cannot drop the bucket between lookup and consumption
+        long[] waitNanos = new long[1];
+        buckets.compute(user, (key, bucket) -> {
+            TokenBucket current = bucket != null ? bucket : new TokenBucket(now);
+            waitNanos[0] = current.tryConsume(now);
+            return current;
+        });
+        if (waitNanos[0] > 0) {
+            // Not tagged by user, which would create a meter per user ID
+            Counter.builder("research.scheduler.rejected")
+                    .description("Research requests rejected by rate limiting")
+                    .register(meterRegistry)
+                    .increment();
+            log.warn("🚦 Rate limit exceeded, user: {}", user);
+            throw new RateLimitExceededException(user, Duration.ofNanos(waitNanos[0]));
+        }
+    }
+
+    /**
+     * Number of users with a token bucket
+     */
+    int bucketCount() {
+        return buckets.size();
+    }
+
+    /**
+     * Drop token buckets idle past the TTL that have refilled, at most once per TTL
+     */
+    private void sweepIdleBuckets(long now) {
+        long ttl = Duration.ofSeconds(config.getIdleBucketTtlSeconds()).toNanos();
+        long last = lastBucketSweep.get();
+        if (now - last < ttl || !lastBucketSweep.compareAndSet(last, now)) {
+            return;
+        }
+        for (String user : buckets.keySet()) {
+            buckets.computeIfPresent(user, (key, bucket) -> bucket.isIdle(now, ttl) ? null : bucket);
+        }
+    }
+
+    /**
+     * Wait for an execution slot
+     *
+     * @param userId User ID (may be null)
+     * @param priority Priority class of the run
+     * @return Permit to close when the run completes
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public Permit acquire(String userId, Priority priority) throws InterruptedException {
+        return acquire(userId, priority, true);
+    }
+
+    /**
+     * Wait for an execution slot to continue a run that already acquired one before, without charging the
+     * user's fair share again
+     *
+     * @param userId User ID (may be null)
+     * @param priority Priority class of the run
+     * @return Permit to close when the run gives up the slot
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public Permit resume(String userId, Priority priority) throws InterruptedException {
+        return acquire(userId, priority, false);
+    }
+
+    private Permit acquire(String userId, Priority priority, boolean charge) throws InterruptedException {
+        String user = userKey(userId);
+        long enqueuedAt = nanoClock.getAsLong();
+
+        Waiter waiter;
+        lock.lock();
+        try {
+            waiter = enqueue(user, priority, charge);
+        } finally {
+            lock.unlock();
+        }
+        await(waiter, user);
+
+        long queueNanos = nanoClock.getAsLong() - enqueuedAt;
+        Timer.builder("research.scheduler.queue.time")
+                .description("Time research runs wait for an execution slot")
+                .tag("priority", priority.name())
+                .register(meterRegistry)
+                .record(Duration.ofNanos(queueNanos));
+        if (queueNanos > Duration.ofSeconds(1).toNanos()) {
+            log.info("⏳ Research run of user {} waited {}ms for an execution slot", user, queueNanos / 1_000_000);
+        }
+        return new Permit(user);
+    }
+
+    /**
+     * Node boundary checkpoint
+     *
+     * Parks the run if a higher-priority run is waiting for the slot it holds, and returns once the run
+     * has been granted a slot again. Returns immediately otherwise.
+     *
+     * @param permit Permit held by the run
+     * @param priority Current priority class of the run
+     * @throws InterruptedException if interrupted while parked (the permit no longer holds a slot)
+     */
+    public void checkpoint(Permit permit, Priority priority) throws InterruptedException {
+        long parkedAt = nanoClock.getAsLong();
+
+        Waiter waiter;
+        lock.lock();
+        try {
+            if (!hasPreemptingWaiter(permit.user, priority)) {
+                return;
+            }
+            UserQueue queue = users.get(permit.user);
+            queue.running--;
+            running--;
+            // The run was charged when it was first granted a slot
+            waiter = enqueue(permit.user, priority, false);
+        } finally {
+            lock.unlock();
+        }
+
+        log.info("⏸️ Parking {} priority research run of user {} for higher-priority work", priority, permit.user);
+        try {
+            await(waiter, permit.user);
+        } catch (InterruptedException e) {
+            // The slot was given up when parking, so there is nothing left to release
+            permit.released.set(true);
+            throw e;
+        }
+
+        Timer.builder("research.scheduler.parked.time")
+                .description("Time research runs stay parked at node boundaries")
+                .tag("priority", priority.name())
+                .register(meterRegistry)
+                .record(Duration.ofNanos(nanoClock.getAsLong() - parkedAt));
+        log.info("▶️ Resuming {} priority research run of user {}", priority, permit.user);
+    }
+
+    /**
+     * Whether a higher-priority waiter could take over a slot of the given user (caller holds the lock)
+     */
+    private boolean hasPreemptingWaiter(String user, Priority priority) {
+        for (UserQueue queue : users.values()) {
+            boolean eligible = queue.running < config.getMaxConcurrentRunsPerUser() || queue.user.equals(user);
+            if (!eligible) {
+                continue;
+            }
+            for (Priority waiting : Priority.values()) {
+                if (waiting.compareTo(priority) >= 0) {
+                    break;
+                }
+                if (!queue.waiters(waiting).isEmpty()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Queue a waiter and dispatch free slots (caller holds the lock)
+     *
+     * @param charge Whether granting the slot charges the user's fair share (false for resumed runs)
+     */
+    private Waiter enqueue(String user, Priority priority, boolean charge) {
+        UserQueue queue = users.computeIfAbsent(user, UserQueue::new);
+        Waiter waiter = new Waiter(priority, arrivals++, charge);
+        queue.waiters(priority).addLast(waiter);
+        queued++;
+        dispatch();
+        return waiter;
+    }
+
+    /**
+     * Wait until a waiter is granted a slot, withdrawing it if interrupted
+     */
+    private void await(Waiter waiter, String user) throws InterruptedException {
+        try {
+            waiter.latch.await();
+        } catch (InterruptedException e) {
+            boolean granted;
+            lock.lock();
+            try {
+                granted = waiter.granted;
+                if (!granted) {
+                    UserQueue queue = users.get(user);
+                    queue.waiters(waiter.priority).remove(waiter);
+                    queued--;
+                    removeIfIdle(queue);
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (granted) {
+                release(user);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Hand free slots to the highest priority class, and within it to the eligible user with the smallest
+     * virtual start time (caller holds the lock)
+     */
+    private void dispatch() {
+        while (running < config.getMaxConcurrentRuns()) {
+            UserQueue next = null;
+            Waiter nextWaiter = null;
+            double nextStart = 0.0;
+            for (Priority priority : Priority.values()) {
+                for (UserQueue queue : users.values()) {
+                    Waiter head = queue.waiters(priority).peekFirst();
+                    if (head == null || queue.running >= config.getMaxConcurrentRunsPerUser()) {
+                        continue;
+                    }
+                    double start = Math.max(virtualTime, queue.lastFinish);
+                    if (next == null || start < nextStart || (start == nextStart && head.sequence < nextWaiter.sequence)) {
+                        next = queue;
+                        nextWaiter = head;
+                        nextStart = start;
+                    }
+                }
+                if (next != null) {
+                    break;
+                }
+            }
+            if (next == null) {
+                return;
+            }
+
+            Waiter waiter = next.waiters(nextWaiter.priority).pollFirst();
+            if (waiter.charge) {
+                virtualTime = nextStart;
+                next.lastFinish = nextStart + 1.0 / weight(next.user);
+            }
+            next.running++;
+            running++;
+            queued--;
+            waiter.granted = true;
+            waiter.latch.countDown();
+        }
+    }
+
+    private void release(String user) {
+        lock.lock();
+        try {
+            UserQueue queue = users.get(user);
+            queue.running--;
+            running--;
+            removeIfIdle(queue);
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forget idle users that hold no fair-share debt (caller holds the lock)
+     */
+    private void removeIfIdle(UserQueue queue) {
+        if (queue.running == 0 && !queue.hasWaiters() && queue.lastFinish <= virtualTime) {
+            users.remove(queue.user);
+        }
+    }
+
+    /**
+     * Virtual finish time of a user's last charged run, NaN if the user is not tracked
+     */
+    double virtualFinish(String user) {
+        lock.lock();
+        try {
+            UserQueue queue = users.get(user);
+            return queue != null ? queue.lastFinish : Double.NaN;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int weight(String user) {
+        Integer weight = config.getUserWeights().get(user);
+        return weight != null && weight > 0 ? weight : 1;
+    }
+
+    private static String userKey(String userId) {
+        return userId == null || userId.isBlank() ? ANONYMOUS_USER : userId;
+    }
+
+    /**
+     * Execution slot held by a running research
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final String user;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(String user) {
+            this.user = user;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                release(user);
+            }
+        }
+    }
+
+    /**
+     * Scheduling state of one user (guarded by the scheduler lock)
+     */
+    private static final class UserQueue {
+        private final String user;
+        private final Map<Priority, Deque<Waiter>> waiters = new EnumMap<>(Priority.class);
+        private int running;
+        private double lastFinish;
+
+        private UserQueue(String user) {
+            this.user = user;
+        }
+
+        private Deque<Waiter> waiters(Priority priority) {
+            return waiters.computeIfAbsent(priority, key -> new ArrayDeque<>());
+        }
+
+        private boolean hasWaiters() {
+            return waiters.values().stream().anyMatch(deque -> !deque.isEmpty());
+        }
+    }
+
+    private static final class Waiter {
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private final Priority priority;
+        private final long sequence;
+        private final boolean charge;
+        private boolean granted;
+
+        private Waiter(Priority priority, long sequence, boolean charge) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.charge = charge;
+        }
+    }
+
+    /**
+     * Per-user token bucket
+     */
+    private final class TokenBucket {
+        private final double capacity = config.getRequestBurst();
+        private final double tokensPerNano = config.getRequestsPerMinute() / (double) Duration.ofMinutes(1).toNanos();
+        private double tokens = capacity;
+        private long refilledAt;
+
+        private TokenBucket(long now) {
+            this.refilledAt = now;
+        }
+
+        /**
+         * Take one token
+         *
+         * @return 0 if a token was taken, otherwise nanoseconds until one is available
+         */
+        private synchronized long tryConsume(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            if (tokens >= 1.0) {
+                tokens -= 1.0;
+                return 0;
+            }
+            return (long) Math.ceil((1.0 - tokens) / tokensPerNano);
+        }
+
+        /**
+         * Whether the bucket was last used more than the TTL ago and has refilled to capacity
+         */
+        private synchronized boolean isIdle(long now, long ttlNanos) {
+            long idle = now - refilledAt;
+            return idle > ttlNanos && tokens + idle * tokensPerNano >= capacity;
+        }
+    }
+}
@@ -1,26 +1,44 @@
 package io.github.imfangs.ai.deepresearch.core.service;
 
+import io.github.imfangs.ai.deepresearch.api.dto.ResearchEvent;
+import io.github.imfangs.ai.deepresearch.api.dto.ResearchProgress;
 import io.github.imfangs.ai.deepresearch.api.dto.ResearchRequest;
 import io.github.imfangs.ai.deepresearch.api.dto.ResearchResponse;
 import io.github.imfangs.ai.deepresearch.api.state.ResearchState;
-import io.github.imfangs.ai.deepresearch.config.ResearchModelConfig;
+import io.github.imfangs.ai.deepresearch.config.FlowConfig;
 import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
+import io.github.imfangs.ai.deepresearch.config.StreamingConfig;
 import io.github.imfangs.ai.deepresearch.core.graph.ResearchGraphBuilder;
-import dev.langchain4j.model.chat.ChatModel;
-import dev.langchain4j.model.openai.OpenAiChatModel;
+import io.github.imfangs.ai.deepresearch.core.latency.NodeLatencyTracker;
+import io.github.imfangs.ai.deepresearch.core.latency.RunLatency;
+import io.github.imfangs.ai.deepresearch.core.scheduler.ResearchScheduler;
+import io.github.imfangs.ai.deepresearch.tools.context.PassageRetriever;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.bsc.langgraph4j.CompileConfig;
 import org.bsc.langgraph4j.CompiledGraph;
 import org.bsc.langgraph4j.GraphStateException;
 import org.bsc.langgraph4j.RunnableConfig;
-import org.bsc.langgraph4j.checkpoint.MemorySaver;
+import org.bsc.langgraph4j.action.NodeAction;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
 
 /**
  * Deep research service
@@ -31,45 +49,367 @@ import java.util.UUID;
 @Service
 public class DeepResearchService {
 
-    private final ResearchConfig researchConfig;
     private final ResearchGraphBuilder graphBuilder;
+    private final ResearchScheduler researchScheduler;
+    private final PassageRetriever passageRetriever;
+    private final NodeLatencyTracker latencyTracker;
+    private final FlowConfig flowConfig;
+    private final StreamingConfig streamingConfig;
+    private final MeterRegistry meterRegistry;
+    private final Counter cancelledRuns;
+    private final ReportCache reportCache;
+
+    /**
+     * Compiled research graph shared by all runs
+     */
+    private volatile CompiledGraph<ResearchState> compiledGraph;
+
+    /**
+     * Runs in flight, keyed by normalized topic and parameters
+     */
+    private final ConcurrentMap<String, ResearchRun> inFlightRuns = new ConcurrentHashMap<>();
+
+    /**
+     * Runs executing the research graph, keyed by request ID
+     */
+    private final ConcurrentMap<String, ResearchRun> executingRuns = new ConcurrentHashMap<>();
 
     @Autowired
-    public DeepResearchService(ResearchConfig researchConfig, ResearchGraphBuilder graphBuilder) {
-        this.researchConfig = researchConfig;
+    public DeepResearchService(ResearchGraphBuilder graphBuilder, ResearchScheduler researchScheduler,
+                               PassageRetriever passageRetriever, NodeLatencyTracker latencyTracker,
+                               ResearchConfig researchConfig, MeterRegistry meterRegistry) {
+        this(graphBuilder, researchScheduler, passageRetriever, latencyTracker, researchConfig, meterRegistry,
+                System::nanoTime);
+    }
+
+    DeepResearchService(ResearchGraphBuilder graphBuilder, ResearchScheduler researchScheduler,
+                        PassageRetriever passageRetriever, NodeLatencyTracker latencyTracker,
+                        ResearchConfig researchConfig, MeterRegistry meterRegistry, LongSupplier nanoClock) {
         this.graphBuilder = graphBuilder;
+        this.researchScheduler = researchScheduler;
+        this.passageRetriever = passageRetriever;
+        this.latencyTracker = latencyTracker;
+        this.flowConfig = researchConfig.getFlow();
+        this.streamingConfig = researchConfig.getStreaming();
+        this.meterRegistry = meterRegistry;
+        this.cancelledRuns = Counter.builder("research.runs.cancelled")
+                .description("Research runs cancelled because all their clients disconnected")
+                .register(meterRegistry);
+        this.reportCache = new ReportCache(researchConfig.getReportCache(), nanoClock);
+        Gauge.builder("research.report.cache.size", reportCache, ReportCache::size)
+                .description("Final reports held by the report cache")
+                .register(meterRegistry);
     }
 
     /**
      * Execute deep research
      * 
+     * Identical requests submitted while a run is in flight join that run instead of starting their own.
+     * New runs wait for an execution slot granted by the fair scheduler, blocking the calling thread, so this
+     * must not be called from a non-blocking (event loop) thread; use {@link #submitResearch} there.
+     * 
      * @param request Research request
      * @return Research response
+     * @throws io.github.imfangs.ai.deepresearch.core.scheduler.RateLimitExceededException if the user exceeds the rate limit
+     * @throws IllegalStateException if called from a non-blocking thread
      */
     public ResearchResponse executeResearch(ResearchRequest request) {
+        if (Schedulers.isInNonBlockingThread()) {
+            throw new IllegalStateException("executeResearch blocks until the research completes; "
+                    + "use submitResearch on non-blocking threads");
+        }
         // Generate request ID (if not provided)
         String requestId = request.getRequestId() != null ? 
                 request.getRequestId() : UUID.randomUUID().toString();
 
-        log.info("🚀 Starting deep research execution, request ID: {}, research topic: {}", requestId, request.getResearchTopic());
+        // Cached reports cost no research, so they are served without counting against the rate limit
+        Optional<ResearchResponse> cached = cachedResponse(request, requestId);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        researchScheduler.admit(request.getUserId());
+
+        ResearchRun run = new ResearchRun(ResearchRun.keyOf(request), requestId, request.getResearchTopic(), priorityOf(request));
+        ResearchRun existing = join(run);
+        if (existing != null) {
+            log.info("🔗 Joining in-flight research run {}, request ID: {}", existing.getRequestId(), requestId);
+            return forSubscriber(existing.response().join(), requestId);
+        }
+
+        execute(run, request);
+        return run.response().join();
+    }
+
+    /**
+     * Execute deep research without blocking the caller
+     * 
+     * Same as {@link #executeResearch}, except that the run executes in the background and cancelling the
+     * returned Mono (for example when the client disconnects) detaches the request from the run.
+     * 
+     * @param request Research request
+     * @return Research response, signalling a
+     *         {@link io.github.imfangs.ai.deepresearch.core.scheduler.RateLimitExceededException} if the user exceeds the rate limit
+     */
+    public Mono<ResearchResponse> submitResearch(ResearchRequest request) {
+        return Mono.defer(() -> {
+            String requestId = request.getRequestId() != null ?
+                    request.getRequestId() : UUID.randomUUID().toString();
+
+            Optional<ResearchResponse> cached = cachedResponse(request, requestId);
+            if (cached.isPresent()) {
+                return Mono.just(cached.get());
+            }
+            researchScheduler.admit(request.getUserId());
+
+            ResearchRun run = new ResearchRun(ResearchRun.keyOf(request), requestId, request.getResearchTopic(),
+                    priorityOf(request));
+            ResearchRun existing = join(run);
+            if (existing != null) {
+                log.info("🔗 Joining in-flight research run {}, request ID: {}", existing.getRequestId(), requestId);
+                // A copy, so cancelling this subscriber does not cancel the response shared with the others
+                return Mono.fromFuture(existing.response().copy())
+                        .map(response -> forSubscriber(response, requestId))
+                        .doOnCancel(existing::detach);
+            }
+
+            Schedulers.boundedElastic().schedule(() -> execute(run, request));
+            return Mono.fromFuture(run.response().copy()).doOnCancel(run::detach);
+        });
+    }
+
+    /**
+     * Execute deep research and stream its progress
+     * 
+     * The run executes in the background; identical requests share the progress stream of the run in flight,
+     * starting with its latest event. The last event carries the final response.
+     * 
+     * @param request Research request
+     * @return Progress events, signalling a
+     *         {@link io.github.imfangs.ai.deepresearch.core.scheduler.RateLimitExceededException} if the user exceeds the rate limit
+     */
+    public Flux<ResearchProgress> streamResearch(ResearchRequest request) {
+        // Node start events only feed the step events of streamResearchEvents
+        return buffered(subscribe(request).filter(event -> !Boolean.TRUE.equals(event.getNodeStarted())), "progress");
+    }
+
+    /**
+     * Execute deep research and stream AG-UI style step and state delta events
+     *
+     * Shares runs with {@link #streamResearch}; each subscriber derives its own deltas, starting from an empty state.
+     *
+     * @param request Research request
+     * @return Research events, the last one carrying the research response, signalling a
+     *         {@link io.github.imfangs.ai.deepresearch.core.scheduler.RateLimitExceededException} if the user exceeds the rate limit
+     */
+    public Flux<ResearchEvent> streamResearchEvents(ResearchRequest request) {
+        return Flux.defer(() -> {
+            ResearchEventMapper mapper = new ResearchEventMapper();
+            // Map one progress event at a time, so events still waiting in the buffer can be coalesced
+            return buffered(subscribe(request), "events").concatMapIterable(mapper::map, 1);
+        });
+    }
+
+    /**
+     * Bound the events buffered for one subscriber
+     *
+     * Progress events are snapshots of the run, each superseding the previous one, so when a slow client
+     * falls behind the oldest buffered events are discarded. The final event is always the newest and is
+     * never discarded; state deltas derived after coalescing cover the changes of the discarded events.
+     */
+    Flux<ResearchProgress> buffered(Flux<ResearchProgress> progress, String stream) {
+        Counter coalescedEvents = Counter.builder("research.stream.events.coalesced")
+                .description("Progress events superseded by newer ones while a slow subscriber fell behind")
+                .tag("stream", stream)
+                .register(meterRegistry);
+        return progress.onBackpressureBuffer(streamingConfig.getSubscriberBufferSize(),
+                superseded -> coalescedEvents.increment(), BufferOverflowStrategy.DROP_OLDEST);
+    }
+
+    /**
+     * Subscribe to the run of a request: serve its cached report, or admit it and join an identical run in
+     * flight or start a new one
+     */
+    private Flux<ResearchProgress> subscribe(ResearchRequest request) {
+        return Flux.defer(() -> {
+            String requestId = request.getRequestId() != null ?
+                    request.getRequestId() : UUID.randomUUID().toString();
+
+            Optional<ResearchResponse> cached = cachedResponse(request, requestId);
+            if (cached.isPresent()) {
+                return Flux.just(ResearchRun.finalEvent(request.getResearchTopic(), cached.get()));
+            }
+            researchScheduler.admit(request.getUserId());
+
+            ResearchRun run = new ResearchRun(ResearchRun.keyOf(request), requestId, request.getResearchTopic(),
+                    priorityOf(request));
+            ResearchRun existing = join(run);
+            if (existing != null) {
+                log.info("🔗 Streaming in-flight research run {}, request ID: {}", existing.getRequestId(), requestId);
+                return existing.progress()
+                        .map(event -> forSubscriber(event, requestId))
+                        .doOnCancel(existing::detach);
+            }
 
+            Schedulers.boundedElastic().schedule(() -> execute(run, request));
+            return run.progress().doOnCancel(run::detach);
+        });
+    }
+
+    /**
+     * Serve a request from the report cache, refreshing a stale report in the background
+     *
+     * @return Cached response relabelled for the request, empty on a cache miss or when the request forces a refresh
+     */
+    private Optional<ResearchResponse> cachedResponse(ResearchRequest request, String requestId) {
+        if (!reportCache.isEnabled() || Boolean.TRUE.equals(request.getForceRefresh())) {
+            return Optional.empty();
+        }
+        String key = ResearchRun.keyOf(request);
+        Optional<ReportCache.Lookup> lookup = reportCache.get(key);
+        countCacheRequest(lookup.map(hit -> hit.stale() ? "stale" : "hit").orElse("miss"));
+        if (lookup.isEmpty()) {
+            return Optional.empty();
+        }
+
+        ReportCache.Lookup hit = lookup.get();
+        if (hit.stale()) {
+            refresh(request, key);
+        }
+        log.info("📦 Serving {} cached report of run {}, age: {}s, request ID: {}", hit.stale() ? "stale" : "fresh",
+                hit.response().getRequestId(), hit.age().toSeconds(), requestId);
+
+        Map<String, Object> metadata = new HashMap<>(
+                hit.response().getMetadata() != null ? hit.response().getMetadata() : Map.of());
+        metadata.put("cache", Map.of(
+                "status", hit.stale() ? "STALE" : "HIT",
+                "age_ms", hit.age().toMillis(),
+                "source_request_id", hit.response().getRequestId()));
+        return Optional.of(hit.response().toBuilder()
+                .requestId(requestId)
+                .metadata(metadata)
+                .build());
+    }
+
+    /**
+     * Refresh a cached report in the background, unless an identical run is already in flight
+     *
+     * The refresh holds its own subscription and never detaches, so the run completes and updates the cache
+     * even when all of its clients disconnect.
+     */
+    private void refresh(ResearchRequest request, String key) {
+        ResearchRun run = new ResearchRun(key, UUID.randomUUID().toString(), request.getResearchTopic(),
+                ResearchRequest.Priority.LOW);
+        ResearchRun existing = join(run);
+        if (existing != null) {
+            log.debug("Cached report is already being refreshed by run {}", existing.getRequestId());
+            return;
+        }
+        log.info("🔄 Refreshing stale cached report, request ID: {}", run.getRequestId());
+        Schedulers.boundedElastic().schedule(() -> execute(run, request));
+    }
+
+    private void countCacheRequest(String result) {
+        Counter.builder("research.report.cache.requests")
+                .description("Research requests looked up in the report cache")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Run in flight for a request, if any
+     */
+    Optional<ResearchRun> inFlightRun(ResearchRequest request) {
+        return Optional.ofNullable(inFlightRuns.get(ResearchRun.keyOf(request)));
+    }
+
+    /**
+     * Attach a request to the identical run in flight, or register its new run
+     *
+     * @param run New run of the request
+     * @return The run in flight that the request joined, or null if the new run was registered and must be executed
+     */
+    private ResearchRun join(ResearchRun run) {
+        while (true) {
+            ResearchRun existing = inFlightRuns.putIfAbsent(run.getKey(), run);
+            if (existing == null || existing.attach(run.getPriority())) {
+                return existing;
+            }
+            // Cancelled runs are winding down; start a new one instead
+            inFlightRuns.remove(run.getKey(), existing);
+        }
+    }
+
+    /**
+     * Execute a run and publish its response to all subscribers
+     */
+    private void execute(ResearchRun run, ResearchRequest request) {
         LocalDateTime startTime = LocalDateTime.now();
-        
+        ResearchResponse response = null;
+        try (ResearchScheduler.Permit permit = acquire(run, request.getUserId())) {
+            response = runGraph(run, request, permit, startTime);
+        } catch (InterruptedException e) {
+            if (run.isCancelled()) {
+                response = buildCancelledResponse(request, run.getRequestId(), null, startTime);
+            } else {
+                Thread.currentThread().interrupt();
+                response = buildErrorResponse(request, run.getRequestId(), "Research interrupted while queued", startTime);
+            }
+        } finally {
+            inFlightRuns.remove(run.getKey(), run);
+            passageRetriever.release(run.getRequestId());
+            if (response == null) {
+                response = buildErrorResponse(request, run.getRequestId(), "Research execution aborted", startTime);
+            }
+            if (run.subscriberCount() > 1) {
+                log.info("🔗 Research run {} served {} identical requests", run.getRequestId(), run.subscriberCount());
+            }
+            if (reportCache.isEnabled() && isCacheable(response)) {
+                reportCache.put(run.getKey(), response);
+            }
+            run.complete(response);
+        }
+    }
+
+    /**
+     * Whether a response may be cached: degraded reports would be served to requests that had the time and
+     * budget for a full one
+     */
+    private static boolean isCacheable(ResearchResponse response) {
+        return response.getStatus() == ResearchResponse.ResearchStatus.COMPLETED
+                && response.getMetadata() != null
+                && Boolean.FALSE.equals(response.getMetadata().get("degraded"));
+    }
+
+    /**
+     * Wait for an execution slot for a run; cancelling the run interrupts the wait
+     */
+    private ResearchScheduler.Permit acquire(ResearchRun run, String userId) throws InterruptedException {
+        run.startWaiting();
         try {
-            // Build ChatModel
-            ChatModel chatModel = buildChatModel();
+            return researchScheduler.acquire(userId, run.getPriority());
+        } finally {
+            run.stopWaiting();
+        }
+    }
+
+    /**
+     * Run the research graph for a run
+     * 
+     * The graph stream is lazy: the next node only executes when it is pulled, so a run parked at the
+     * scheduler checkpoint between two nodes keeps its state in the suspended stream and resumes from there.
+     * Cancellation is checked between nodes; a node of a cancelled run fails fast as its calls are aborted.
+     */
+    private ResearchResponse runGraph(ResearchRun run, ResearchRequest request, ResearchScheduler.Permit permit,
+                                      LocalDateTime startTime) {
+        String requestId = run.getRequestId();
+        ResearchState finalState = null;
 
-            // Build research graph
-            log.info("📊 Building research state graph...");
-            var researchGraph = graphBuilder.createResearchGraph();
+        log.info("🚀 Starting deep research execution, request ID: {}, research topic: {}", requestId, request.getResearchTopic());
 
-            // Compile graph
-            log.info("⚙️ Compiling research graph...");
-            CompileConfig compileConfig = CompileConfig.builder()
-                .checkpointSaver(new MemorySaver())
-                .build();
-            
-            CompiledGraph<ResearchState> compiledGraph = researchGraph.compile(compileConfig);
+        try {
+            // Get shared compiled research graph
+            CompiledGraph<ResearchState> compiledGraph = getCompiledGraph();
 
             // Create initial state
             Map<String, Object> initialState = graphBuilder.createInitialState(
@@ -79,9 +419,17 @@ public class DeepResearchService {
                 request.getMaxResearchLoops(),
                 request.getSearchEngine(),
                 request.getMaxSearchResults(),
-                request.getFetchFullPage()
+                request.getFetchFullPage(),
+                request.getTokenBudget()
             );
 
+            // The deadline counts from the start of the run, so time spent waiting for a permit counts against it
+            if (request.getDeadlineMs() != null) {
+                long startMillis = startTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                initialState.putAll(ResearchState.deadline(startMillis + request.getDeadlineMs(),
+                    flowConfig.getFinalizeReserveMs()));
+            }
+
             // Create run configuration
             RunnableConfig runnableConfig = RunnableConfig.builder()
                 .threadId(requestId)
@@ -90,12 +438,19 @@ public class DeepResearchService {
             log.info("🎯 Starting research graph execution, initial state: {}", initialState.keySet());
 
             // Execute research graph
-            ResearchState finalState = null;
             int nodeCount = 0;
+            boolean cutShort = false;
+            RunLatency latency = new RunLatency(latencyTracker, flowConfig.getLatencySloMs());
+            executingRuns.put(requestId, run);
+            if (run.isCancelled()) {
+                return buildCancelledResponse(request, requestId, null, startTime);
+            }
             
             for (var nodeOutput : compiledGraph.stream(initialState, runnableConfig)) {
                 nodeCount++;
                 finalState = nodeOutput.state();
+                latency.nodeCompleted(nodeOutput.node(), finalState);
+                cutShort |= cutShort(nodeOutput.node(), finalState);
                 
                 String currentTopic = finalState.researchTopic().orElse("Unknown");
                 int currentLoop = finalState.researchLoopCount();
@@ -103,6 +458,24 @@ public class DeepResearchService {
                 
                 log.info("📋 Node[{}] execution completed - Topic: {}, Loop: {}, Status: {}", 
                     nodeCount, currentTopic, currentLoop, isSuccess ? "Normal" : "Abnormal");
+
+                run.emit(ResearchProgress.builder()
+                    .requestId(requestId)
+                    .researchTopic(request.getResearchTopic())
+                    .node(nodeOutput.node())
+                    .researchLoopCount(currentLoop)
+                    .sourcesCount(finalState.sourcesGathered().size())
+                    .status(ResearchResponse.ResearchStatus.IN_PROGRESS)
+                    .timestamp(LocalDateTime.now())
+                    .nodeStartTime(finalState.currentNodeStartTime().orElse(null))
+                    .runningSummary(finalState.runningSummary().orElse(null))
+                    .sources(finalState.sourcesGathered())
+                    .build());
+
+                // Nobody is waiting for the result any more: keep what was gathered and start no further node
+                if (run.isCancelled()) {
+                    return buildCancelledResponse(request, requestId, finalState, startTime);
+                }
                 
                 // If error occurs, exit early
                 if (!isSuccess) {
@@ -116,6 +489,17 @@ public class DeepResearchService {
                     log.warn("⚠️ Too many node executions, forcing exit");
                     break;
                 }
+
+                // Give the slot to higher-priority work before pulling the next node
+                run.startWaiting();
+                try {
+                    researchScheduler.checkpoint(permit, run.getPriority());
+                } finally {
+                    run.stopWaiting();
+                }
+                if (run.isCancelled()) {
+                    return buildCancelledResponse(request, requestId, finalState, startTime);
+                }
             }
 
             if (finalState == null) {
@@ -124,34 +508,117 @@ public class DeepResearchService {
 
             log.info("✅ Research graph execution completed, executed {} nodes", nodeCount);
 
-            return buildSuccessResponse(request, requestId, finalState, startTime);
+            return buildSuccessResponse(request, requestId, finalState, startTime, latency, cutShort);
 
+        } catch (InterruptedException e) {
+            if (run.isCancelled()) {
+                return buildCancelledResponse(request, requestId, finalState, startTime);
+            }
+            Thread.currentThread().interrupt();
+            log.warn("⚠️ Research interrupted while parked, request ID: {}", requestId);
+            return buildErrorResponse(request, requestId, "Research interrupted", startTime);
         } catch (GraphStateException e) {
             log.error("❌ Graph state exception, request ID: " + requestId, e);
             return buildErrorResponse(request, requestId, "Graph state exception: " + e.getMessage(), startTime);
         } catch (Exception e) {
+            if (run.isCancelled()) {
+                return buildCancelledResponse(request, requestId, finalState, startTime);
+            }
             log.error("❌ Deep research execution failed, request ID: " + requestId, e);
             return buildErrorResponse(request, requestId, "Research execution failed: " + e.getMessage(), startTime);
+        } finally {
+            executingRuns.remove(requestId, run);
+        }
+    }
+
+    /**
+     * Whether a node left the run short of a full report: a research node ran out of time before the finalize
+     * reserve, so nodes fell back to cheaper results, or the router ended research for the deadline or token budget
+     * before the configured loops were done
+     */
+    private static boolean cutShort(String node, ResearchState state) {
+        if (NodeLatencyTracker.FINALIZE_NODE.equals(node)) {
+            return false;
+        }
+        if (state.nodeTimeBudget().filter(java.time.Duration::isZero).isPresent()) {
+            return true;
         }
+        return "route".equals(node) && !state.hasReachedMaxLoops()
+                && (state.wouldExceedTokenBudget() || state.wouldMissDeadline());
+    }
+
+    /**
+     * Get the compiled research graph, compiling it on first use
+     *
+     * Runs only differ by initial state and thread ID, so one compiled graph serves all concurrent runs.
+     * No checkpoint saver is configured: checkpoints were never read back, and a saver shared across runs
+     * would retain the history of every run for the lifetime of the service. The partial results of a
+     * cancelled run are kept in its CANCELLED response instead.
+     */
+    private CompiledGraph<ResearchState> getCompiledGraph() throws GraphStateException {
+        CompiledGraph<ResearchState> graph = compiledGraph;
+        if (graph == null) {
+            synchronized (this) {
+                graph = compiledGraph;
+                if (graph == null) {
+                    log.info("📊 Building research state graph...");
+                    var researchGraph = graphBuilder.createResearchGraph(this::withinRun);
+
+                    log.info("⚙️ Compiling research graph...");
+                    graph = researchGraph.compile(CompileConfig.builder().build());
+                    compiledGraph = graph;
+                }
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Publish the start of a node to the progress subscribers of its run, then run it within the run's
+     * cancellation scope
+     */
+    private NodeAction<ResearchState> withinRun(String name, NodeAction<ResearchState> node) {
+        return state -> {
+            ResearchRun run = state.requestId().map(executingRuns::get).orElse(null);
+            if (run != null) {
+                run.emit(ResearchProgress.builder()
+                        .requestId(run.getRequestId())
+                        .researchTopic(run.getResearchTopic())
+                        .node(name)
+                        .nodeStarted(true)
+                        .researchLoopCount(state.researchLoopCount())
+                        .sourcesCount(state.sourcesGathered().size())
+                        .status(ResearchResponse.ResearchStatus.IN_PROGRESS)
+                        .timestamp(LocalDateTime.now())
+                        .build());
+                return run.calls().within(() -> node.apply(state));
+            }
+            return node.apply(state);
+        };
     }
 
     /**
-     * Build ChatModel
+     * Priority class of a request
      */
-    private ChatModel buildChatModel() {
-        ResearchModelConfig researchModelConfig = researchConfig.getModel();
+    private static ResearchRequest.Priority priorityOf(ResearchRequest request) {
+        return request.getPriority() != null ? request.getPriority() : ResearchRequest.Priority.NORMAL;
+    }
 
-        log.info("🤖 Building ChatModel, model: {}, temperature: {}, max tokens: {}", 
-                researchModelConfig.getModelName(), researchModelConfig.getTemperature(), researchModelConfig.getMaxTokens());
+    /**
+     * Relabel a shared response for a subscriber that joined the run
+     */
+    private ResearchResponse forSubscriber(ResearchResponse response, String requestId) {
+        return response.toBuilder().requestId(requestId).build();
+    }
 
-        return OpenAiChatModel.builder()
-                .modelName(researchModelConfig.getModelName())
-                .apiKey(researchModelConfig.getApiKey())
-                .baseUrl(researchModelConfig.getApiUrl())
-                .temperature(researchModelConfig.getTemperature())
-                .maxTokens(researchModelConfig.getMaxTokens())
-                .logRequests(researchModelConfig.getLogRequests())
-                .logResponses(researchModelConfig.getLogResponses())
+    /**
+     * Relabel a shared progress event for a subscriber that joined the run
+     */
+    private ResearchProgress forSubscriber(ResearchProgress event, String requestId) {
+        return event.toBuilder()
+                .requestId(requestId)
+                .coalesced(true)
+                .response(event.getResponse() != null ? forSubscriber(event.getResponse(), requestId) : null)
                 .build();
     }
 
@@ -162,7 +629,9 @@ public class DeepResearchService {
             ResearchRequest request, 
             String requestId, 
             ResearchState finalState, 
-            LocalDateTime startTime) {
+            LocalDateTime startTime,
+            RunLatency latency,
+            boolean cutShort) {
 
         LocalDateTime endTime = LocalDateTime.now();
         long durationMs = java.time.Duration.between(startTime, endTime).toMillis();
@@ -172,8 +641,8 @@ public class DeepResearchService {
         Integer actualLoops = finalState.researchLoopCount();
         Boolean success = finalState.success();
 
-        log.info("📈 Research completion statistics - Loops: {}, Sources: {}, Duration: {}ms, Success: {}", 
-            actualLoops, sourcesGathered.size(), durationMs, success);
+        log.info("📈 Research completion statistics - Loops: {}, Sources: {}, Duration: {}ms, Tokens: {}, Success: {}", 
+            actualLoops, sourcesGathered.size(), durationMs, finalState.totalTokens(), success);
 
         return ResearchResponse.builder()
                 .requestId(requestId)
@@ -181,12 +650,46 @@ public class DeepResearchService {
                 .finalSummary(finalSummary)
                 .actualLoops(actualLoops)
                 .sourcesGathered(sourcesGathered)
+                .promptTokens(finalState.promptTokens())
+                .completionTokens(finalState.completionTokens())
+                .totalTokens(finalState.totalTokens())
                 .startTime(startTime)
                 .endTime(endTime)
                 .durationMs(durationMs)
                 .success(success)
                 .status(success ? ResearchResponse.ResearchStatus.COMPLETED : ResearchResponse.ResearchStatus.FAILED)
                 .errorMessage(finalState.errorMessage().orElse(null))
+                .metadata(Map.of(
+                        "latency", latency.toMetadata(),
+                        "degraded", cutShort || !Boolean.TRUE.equals(finalState.metadata().get("final_report_generated"))))
+                .build();
+    }
+
+    /**
+     * Build the response of a cancelled run, keeping the results gathered before cancellation
+     */
+    private ResearchResponse buildCancelledResponse(
+            ResearchRequest request,
+            String requestId,
+            ResearchState partialState,
+            LocalDateTime startTime) {
+
+        cancelledRuns.increment();
+        log.info("🛑 Research cancelled after all clients disconnected, request ID: {}", requestId);
+
+        ResearchResponse response = buildErrorResponse(request, requestId,
+                "Research cancelled: all clients disconnected", startTime);
+        if (partialState == null) {
+            return response.toBuilder().status(ResearchResponse.ResearchStatus.CANCELLED).build();
+        }
+        return response.toBuilder()
+                .status(ResearchResponse.ResearchStatus.CANCELLED)
+                .finalSummary(partialState.runningSummary().orElse(null))
+                .actualLoops(partialState.researchLoopCount())
+                .sourcesGathered(partialState.sourcesGathered())
+                .promptTokens(partialState.promptTokens())
+                .completionTokens(partialState.completionTokens())
+                .totalTokens(partialState.totalTokens())
                 .build();
     }
 
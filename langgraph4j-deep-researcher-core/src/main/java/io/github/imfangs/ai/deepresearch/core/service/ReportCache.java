@@ -0,0 +1,92 @@
+package io.github.imfangs.ai.deepresearch.core.service;
+
+import io.github.imfangs.ai.deepresearch.api.dto.ResearchResponse;
+import io.github.imfangs.ai.deepresearch.config.ReportCacheConfig;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Final report cache
+ *
+ * Holds the responses of completed runs under the same key as in-flight runs ({@link ResearchRun#keyOf}).
+ * A report is fresh for the TTL; during the stale window after it, it is still served while the caller
+ * refreshes it in the background. Beyond the maximum entry count the oldest reports are evicted.
+ */
+public class ReportCache {
+
+    private final ReportCacheConfig config;
+    private final LongSupplier nanoClock;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public ReportCache(ReportCacheConfig config, LongSupplier nanoClock) {
+        this.config = config;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Whether reports are cached
+     */
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(config.getEnabled());
+    }
+
+    /**
+     * Look up the report of a request key
+     *
+     * @param key Request key
+     * @return Cached report, empty if there is none or it is past the stale window
+     */
+    public Optional<Lookup> get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        Duration age = Duration.ofNanos(nanoClock.getAsLong() - entry.storedAt());
+        Duration ttl = Duration.ofSeconds(config.getTtlSeconds());
+        if (age.compareTo(ttl.plusSeconds(config.getStaleSeconds())) > 0) {
+            entries.remove(key, entry);
+            return Optional.empty();
+        }
+        return Optional.of(new Lookup(entry.response(), age, age.compareTo(ttl) > 0));
+    }
+
+    /**
+     * Store the report of a request key, replacing an older one
+     *
+     * @param key Request key
+     * @param response Response of a completed run
+     */
+    public void put(String key, ResearchResponse response) {
+        entries.put(key, new Entry(response, nanoClock.getAsLong()));
+        while (entries.size() > config.getMaxEntries()) {
+            entries.entrySet().stream()
+                    .min(Comparator.comparingLong(candidate -> candidate.getValue().storedAt()))
+                    .ifPresent(oldest -> entries.remove(oldest.getKey(), oldest.getValue()));
+        }
+    }
+
+    /**
+     * Number of cached reports
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Cached report
+     *
+     * @param response Response of the run that produced the report
+     * @param age Time since the report was stored
+     * @param stale Whether the report is past its TTL and should be refreshed
+     */
+    public record Lookup(ResearchResponse response, Duration age, boolean stale) {
+    }
+
+    private record Entry(ResearchResponse response, long storedAt) {
+    }
+}
@@ -0,0 +1,116 @@
+package io.github.imfangs.ai.deepresearch.core.service;
+
+import io.github.imfangs.ai.deepresearch.api.dto.ResearchEvent;
+import io.github.imfangs.ai.deepresearch.api.dto.ResearchEvent.PatchOperation;
+import io.github.imfangs.ai.deepresearch.api.dto.ResearchProgress;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Research event mapper
+ *
+ * Turns the progress events of a run into step and state delta events for one subscriber. The mapper
+ * remembers the state already sent to its subscriber, so each delta only holds what changed since the
+ * previous event: new sources are appended one by one, and the loop count and summary are only sent when
+ * they change. A subscriber joining a run late starts from an empty state and first receives the full state.
+ * Not thread-safe; create one per subscription.
+ */
+public class ResearchEventMapper {
+
+    static final String LOOP_COUNT_PATH = "/research_loop_count";
+    static final String SOURCES_PATH = "/sources";
+    static final String SUMMARY_PATH = "/running_summary";
+
+    private Integer sentLoopCount;
+    private String sentSummary;
+    private int sentSources = -1;
+    private String startedStep;
+
+    /**
+     * Map a progress event to the events sent to the subscriber
+     *
+     * @param progress Progress event of the run
+     * @return Step started event of a starting node; state delta (if anything changed) and step finished events
+     *         of a completed node, preceded by its step started event if not sent yet; or the run finished event
+     */
+    public List<ResearchEvent> map(ResearchProgress progress) {
+        if (progress.getResponse() != null) {
+            return List.of(ResearchEvent.builder()
+                    .type(ResearchEvent.Type.RUN_FINISHED)
+                    .requestId(progress.getRequestId())
+                    .response(progress.getResponse())
+                    .timestamp(progress.getTimestamp())
+                    .build());
+        }
+
+        if (Boolean.TRUE.equals(progress.getNodeStarted())) {
+            startedStep = progress.getNode();
+            return List.of(step(ResearchEvent.Type.STEP_STARTED, progress, progress.getTimestamp()));
+        }
+
+        List<ResearchEvent> events = new ArrayList<>(3);
+        if (!Objects.equals(startedStep, progress.getNode())) {
+            events.add(step(ResearchEvent.Type.STEP_STARTED, progress,
+                    progress.getNodeStartTime() != null ? progress.getNodeStartTime() : progress.getTimestamp()));
+        }
+        startedStep = null;
+
+        List<PatchOperation> delta = delta(progress);
+        if (!delta.isEmpty()) {
+            events.add(ResearchEvent.builder()
+                    .type(ResearchEvent.Type.STATE_DELTA)
+                    .requestId(progress.getRequestId())
+                    .delta(delta)
+                    .timestamp(progress.getTimestamp())
+                    .build());
+        }
+
+        events.add(step(ResearchEvent.Type.STEP_FINISHED, progress, progress.getTimestamp()));
+        return events;
+    }
+
+    /**
+     * State changes since the previous event sent to the subscriber
+     */
+    private List<PatchOperation> delta(ResearchProgress progress) {
+        List<PatchOperation> delta = new ArrayList<>();
+
+        Integer loopCount = progress.getResearchLoopCount();
+        if (loopCount != null && !loopCount.equals(sentLoopCount)) {
+            delta.add(new PatchOperation(sentLoopCount == null ? "add" : "replace", LOOP_COUNT_PATH, loopCount));
+            sentLoopCount = loopCount;
+        }
+
+        // Sources only grow during a run, so only the new tail is sent
+        List<String> sources = progress.getSources();
+        if (sources != null) {
+            if (sentSources < 0 || sources.size() < sentSources) {
+                delta.add(new PatchOperation(sentSources < 0 ? "add" : "replace", SOURCES_PATH, List.copyOf(sources)));
+            } else {
+                for (String source : sources.subList(sentSources, sources.size())) {
+                    delta.add(new PatchOperation("add", SOURCES_PATH + "/-", source));
+                }
+            }
+            sentSources = sources.size();
+        }
+
+        String summary = progress.getRunningSummary();
+        if (summary != null && !Objects.equals(summary, sentSummary)) {
+            delta.add(new PatchOperation(sentSummary == null ? "add" : "replace", SUMMARY_PATH, summary));
+            sentSummary = summary;
+        }
+        return delta;
+    }
+
+    private static ResearchEvent step(ResearchEvent.Type type, ResearchProgress progress, LocalDateTime timestamp) {
+        return ResearchEvent.builder()
+                .type(type)
+                .requestId(progress.getRequestId())
+                .stepName(progress.getNode())
+                .timestamp(timestamp)
+                .build();
+    }
+}
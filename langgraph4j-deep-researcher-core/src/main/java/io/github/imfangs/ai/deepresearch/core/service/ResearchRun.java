@@ -0,0 +1,224 @@
+package io.github.imfangs.ai.deepresearch.core.service;
+
+import io.github.imfangs.ai.deepresearch.api.dto.ResearchProgress;
+import io.github.imfangs.ai.deepresearch.api.dto.ResearchRequest;
+import io.github.imfangs.ai.deepresearch.api.dto.ResearchResponse;
+import io.github.imfangs.ai.deepresearch.api.state.ResearchState;
+import io.github.imfangs.ai.deepresearch.core.scheduler.CallCancellation;
+import lombok.Getter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-flight research run
+ *
+ * One graph execution shared by every identical request submitted while it is running. Subscribers
+ * attach to its progress stream (late subscribers first receive the latest event) and its final response.
+ * When every subscriber has disconnected the run is cancelled: its in-flight model and search calls are
+ * aborted and no further graph node is started. Cancellation is cooperative; the thread executing the run
+ * is only interrupted while it waits for an execution slot, never while it runs a node.
+ */
+public class ResearchRun {
+
+    /**
+     * Coalescing key of the run
+     */
+    @Getter
+    private final String key;
+
+    /**
+     * Request ID of the request that started the run
+     */
+    @Getter
+    private final String requestId;
+
+    /**
+     * Research topic as submitted by the request that started the run
+     */
+    @Getter
+    private final String researchTopic;
+
+    /**
+     * Highest priority class among the requests served by the run
+     */
+    @Getter
+    private volatile ResearchRequest.Priority priority;
+
+    private final CompletableFuture<ResearchResponse> response = new CompletableFuture<>();
+    private final Sinks.Many<ResearchProgress> progress = Sinks.many().replay().latest();
+    private final AtomicInteger subscribers = new AtomicInteger(1);
+    private final AtomicInteger connectedSubscribers = new AtomicInteger(1);
+    private final CallCancellation calls = new CallCancellation();
+    private volatile boolean cancelled;
+    private Thread waitingThread;
+
+    ResearchRun(String key, String requestId, String researchTopic, ResearchRequest.Priority priority) {
+        this.key = key;
+        this.requestId = requestId;
+        this.researchTopic = researchTopic;
+        this.priority = priority;
+    }
+
+    /**
+     * Build the coalescing key of a request
+     *
+     * Requests match when their normalized topic and all parameters affecting the research result are equal;
+     * request ID, user ID, priority and force refresh do not take part. Omitted parameters are resolved to
+     * the defaults the run would use, so they match explicitly given defaults.
+     *
+     * @param request Research request
+     * @return Coalescing key
+     */
+    public static String keyOf(ResearchRequest request) {
+        String topic = Normalizer.normalize(request.getResearchTopic() == null ? "" : request.getResearchTopic(),
+                Normalizer.Form.NFKC);
+        topic = topic.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        return String.join("|",
+                topic,
+                String.valueOf(Objects.requireNonNullElse(request.getMaxResearchLoops(),
+                        ResearchState.DEFAULT_MAX_RESEARCH_LOOPS)),
+                Objects.requireNonNullElse(request.getSearchEngine(), ResearchState.DEFAULT_SEARCH_ENGINE)
+                        .toLowerCase(Locale.ROOT),
+                String.valueOf(Objects.requireNonNullElse(request.getMaxSearchResults(),
+                        ResearchState.DEFAULT_MAX_SEARCH_RESULTS)),
+                String.valueOf(Objects.requireNonNullElse(request.getFetchFullPage(),
+                        ResearchState.DEFAULT_FETCH_FULL_PAGE)),
+                String.valueOf(request.getTokenBudget()),
+                String.valueOf(request.getDeadlineMs()));
+    }
+
+    /**
+     * Register an additional subscriber of an already running run, raising the run to its priority
+     *
+     * @return Whether the subscriber was attached; a cancelled run accepts no new subscribers
+     */
+    synchronized boolean attach(ResearchRequest.Priority subscriberPriority) {
+        if (cancelled) {
+            return false;
+        }
+        subscribers.incrementAndGet();
+        connectedSubscribers.incrementAndGet();
+        if (subscriberPriority.compareTo(priority) < 0) {
+            priority = subscriberPriority;
+        }
+        return true;
+    }
+
+    /**
+     * Unregister a subscriber whose client disconnected, cancelling the run when it was the last one
+     */
+    void detach() {
+        if (connectedSubscribers.decrementAndGet() == 0) {
+            cancel();
+        }
+    }
+
+    /**
+     * Cancel the run, aborting its in-flight calls and interrupting its wait for an execution slot
+     */
+    synchronized void cancel() {
+        if (cancelled || response.isDone()) {
+            return;
+        }
+        cancelled = true;
+        calls.cancel();
+        if (waitingThread != null) {
+            waitingThread.interrupt();
+        }
+    }
+
+    /**
+     * Whether the run was cancelled because all its clients disconnected
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Cancellation scope of the run's graph nodes
+     */
+    CallCancellation calls() {
+        return calls;
+    }
+
+    /**
+     * Register the current thread as waiting for an execution slot, so that cancellation interrupts the wait
+     */
+    synchronized void startWaiting() {
+        waitingThread = Thread.currentThread();
+        if (cancelled) {
+            waitingThread.interrupt();
+        }
+    }
+
+    /**
+     * Unregister the waiting thread, clearing an interrupt left by cancellation before it runs a node
+     */
+    synchronized void stopWaiting() {
+        waitingThread = null;
+        if (cancelled) {
+            Thread.interrupted();
+        }
+    }
+
+    /**
+     * Number of requests served by this run
+     */
+    public int subscriberCount() {
+        return subscribers.get();
+    }
+
+    /**
+     * Final response of the run
+     */
+    public CompletableFuture<ResearchResponse> response() {
+        return response;
+    }
+
+    /**
+     * Progress events of the run, completing after the final event
+     */
+    public Flux<ResearchProgress> progress() {
+        return progress.asFlux();
+    }
+
+    /**
+     * Publish a progress event (called from the single thread executing the run)
+     *
+     * The sink replays the latest event and never overflows; slow subscribers coalesce events in their own buffer.
+     */
+    void emit(ResearchProgress event) {
+        progress.tryEmitNext(event);
+    }
+
+    /**
+     * Publish the final response to all subscribers
+     */
+    void complete(ResearchResponse result) {
+        progress.tryEmitNext(finalEvent(researchTopic, result));
+        progress.tryEmitComplete();
+        response.complete(result);
+    }
+
+    /**
+     * Build the final progress event carrying a response
+     */
+    static ResearchProgress finalEvent(String researchTopic, ResearchResponse result) {
+        return ResearchProgress.builder()
+                .requestId(result.getRequestId())
+                .researchTopic(researchTopic)
+                .researchLoopCount(result.getActualLoops())
+                .sourcesCount(result.getSourcesGathered() != null ? result.getSourcesGathered().size() : 0)
+                .status(result.getStatus())
+                .response(result)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+}
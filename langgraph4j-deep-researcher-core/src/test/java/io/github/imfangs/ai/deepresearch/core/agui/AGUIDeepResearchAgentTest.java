@@ -0,0 +1,228 @@
+package io.github.imfangs.ai.deepresearch.core.agui;
+
+import io.github.imfangs.ai.deepresearch.api.dto.SearchResult;
+import io.github.imfangs.ai.deepresearch.api.state.ResearchState;
+import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
+import io.github.imfangs.ai.deepresearch.core.graph.ResearchGraphBuilder;
+import io.github.imfangs.ai.deepresearch.core.scheduler.CallCancellation;
+import io.github.imfangs.ai.deepresearch.core.scheduler.RateLimitExceededException;
+import io.github.imfangs.ai.deepresearch.core.scheduler.ResearchScheduler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bsc.langgraph4j.NodeOutput;
+import org.bsc.langgraph4j.StateGraph;
+import org.bsc.langgraph4j.action.NodeAction;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * AG-UI deep research agent test
+ */
+class AGUIDeepResearchAgentTest {
+
+    private final ResearchConfig researchConfig = new ResearchConfig();
+    private final ResearchScheduler researchScheduler = new ResearchScheduler(researchConfig, new SimpleMeterRegistry());
+    private final AtomicLong clock = new AtomicLong();
+    private final AGUIDeepResearchAgent agent = new AGUIDeepResearchAgent(null, researchScheduler, researchConfig,
+            clock::get);
+
+    @Test
+    void holdsSchedulerSlotWhileNodeRuns() throws Exception {
+        List<Integer> runningDuringNode = new ArrayList<>();
+        NodeAction<ResearchState> node = state -> {
+            runningDuringNode.add(researchScheduler.runningCount());
+            return Map.of();
+        };
+
+        agent.scheduled("generate_query", node).apply(state("tom", 0));
+        agent.scheduled("web_search", node).apply(state("tom", 0));
+        agent.scheduled("generate_query", node).apply(state("tom", 1));
+
+        assertThat(runningDuringNode).containsExactly(1, 1, 1);
+        assertThat(researchScheduler.runningCount()).isZero();
+    }
+
+    @Test
+    void rateLimitsEachSessionSeparately() {
+        researchConfig.getScheduler().setRequestBurst(1);
+        researchConfig.getScheduler().setRequestsPerMinute(1);
+        AGUIDeepResearchAgent sessions = new AGUIDeepResearchAgent(
+                new ResearchGraphBuilder(null, null, null, null, null, null, null, researchConfig),
+                new ResearchScheduler(researchConfig, new SimpleMeterRegistry()), researchConfig, clock::get);
+
+        assertThat(sessions.startRun("thread-1", "topic")).containsEntry("user_id", "agui:thread-1");
+        // The first session spent its only token, which leaves the second session's bucket untouched
+        assertThat(sessions.startRun("thread-2", "topic")).containsEntry("user_id", "agui:thread-2");
+        assertThatThrownBy(() -> sessions.startRun("thread-1", "topic"))
+                .isInstanceOf(RateLimitExceededException.class);
+    }
+
+    @Test
+    void cancellingRunAbortsItsCallsAndEndsItAtTheNextNode() throws Exception {
+        agent.nodeOutputToText(output("web_search", "thread-1", List.of()));
+        CompletableFuture<String> call = new CompletableFuture<>();
+        NodeAction<ResearchState> searching = state -> {
+            CallCancellation.current().orElseThrow().register(call);
+            // The client goes away while the call is in flight
+            assertThat(agent.cancelRun("thread-1")).isTrue();
+            return Map.of();
+        };
+
+        agent.scheduled("web_search", searching).apply(runState("thread-1"));
+
+        assertThat(call).isCancelled();
+        assertThatThrownBy(() -> agent.scheduled("summarize", state -> Map.of()).apply(runState("thread-1")))
+                .isInstanceOf(CancellationException.class);
+        assertThat(agent.activeRuns()).isZero();
+        assertThat(researchScheduler.runningCount()).isZero();
+    }
+
+    @Test
+    void newRunOnThreadCancelsPreviousOne() throws Exception {
+        AGUIDeepResearchAgent sessions = new AGUIDeepResearchAgent(
+                new ResearchGraphBuilder(null, null, null, null, null, null, null, researchConfig),
+                researchScheduler, researchConfig, clock::get);
+        sessions.startRun("thread-1", "topic");
+        CompletableFuture<String> call = new CompletableFuture<>();
+        sessions.scheduled("generate_query", state -> {
+            CallCancellation.current().orElseThrow().register(call);
+            return Map.of();
+        }).apply(runState("thread-1"));
+
+        sessions.startRun("thread-1", "another topic");
+
+        assertThat(call).isCancelled();
+    }
+
+    @Test
+    void reportsOnlyNewSearchResults() {
+        List<SearchResult> results = new ArrayList<>(List.of(result("https://a.example/1"), result("https://a.example/2")));
+
+        assertThat(agent.nodeOutputToText(output("web_search", "thread-1", results)))
+                .hasValueSatisfying(text -> assertThat(text).contains("https://a.example/1", "https://a.example/2"));
+        assertThat(agent.nodeOutputToText(output("summarize", "thread-1", results))).isEmpty();
+
+        results.add(result("https://a.example/1"));
+        results.add(result("https://a.example/3"));
+        assertThat(agent.nodeOutputToText(output("web_search", "thread-1", results)))
+                .hasValueSatisfying(text -> assertThat(text)
+                        .contains("https://a.example/3")
+                        .doesNotContain("https://a.example/1", "https://a.example/2"));
+
+        assertThat(agent.nodeOutputToText(output(StateGraph.END, "thread-1", results))).hasValue("summary");
+        assertThat(agent.activeRuns()).isZero();
+    }
+
+    @Test
+    void keepsConcurrentSessionsApart() throws Exception {
+        int sessions = 8;
+        int loops = 20;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(sessions);
+        try {
+            List<Future<List<String>>> reports = new ArrayList<>();
+            for (int i = 0; i < sessions; i++) {
+                String threadId = "thread-" + i;
+                reports.add(executor.submit(() -> {
+                    start.await();
+                    List<String> reported = new ArrayList<>();
+                    List<SearchResult> results = new ArrayList<>();
+                    for (int loop = 0; loop < loops; loop++) {
+                        // Every session finds the same URLs, which must still be reported to each of them
+                        results.add(result("https://shared.example/" + loop));
+                        agent.nodeOutputToText(output("web_search", threadId, results)).ifPresent(reported::add);
+                    }
+                    agent.nodeOutputToText(output(StateGraph.END, threadId, results));
+                    return reported;
+                }));
+            }
+            start.countDown();
+
+            for (Future<List<String>> report : reports) {
+                List<String> reported = report.get(10, TimeUnit.SECONDS);
+                assertThat(reported).hasSize(loops);
+                for (int loop = 0; loop < loops; loop++) {
+                    assertThat(reported.get(loop)).contains("https://shared.example/" + loop);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(agent.activeRuns()).isZero();
+    }
+
+    @Test
+    void dropsProgressOfFailedRun() {
+        agent.nodeOutputToText(output("web_search", "thread-1", List.of(result("https://a.example/1"))));
+        assertThat(agent.activeRuns()).isEqualTo(1);
+
+        NodeAction<ResearchState> failing = state -> {
+            throw new IllegalStateException("search failed");
+        };
+        assertThatThrownBy(() -> agent.scheduled("web_search", failing).apply(new ResearchState(Map.of(
+                "user_id", "tom", "request_id", "thread-1", "research_loop_count", 0))))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(agent.activeRuns()).isZero();
+        assertThat(researchScheduler.runningCount()).isZero();
+    }
+
+    @Test
+    void dropsAbandonedRuns() {
+        agent.nodeOutputToText(output("web_search", "abandoned", List.of(result("https://a.example/1"))));
+        clock.addAndGet(AGUIDeepResearchAgent.IDLE_RUN_TTL_NANOS / 2);
+        agent.nodeOutputToText(output("web_search", "active", List.of(result("https://a.example/1"))));
+        assertThat(agent.activeRuns()).isEqualTo(2);
+
+        clock.addAndGet(AGUIDeepResearchAgent.IDLE_RUN_TTL_NANOS / 2 + 1);
+        agent.nodeOutputToText(output("web_search", "active", List.of(result("https://a.example/2"))));
+
+        assertThat(agent.activeRuns()).isEqualTo(1);
+    }
+
+    @Test
+    void boundsTrackedRuns() {
+        for (int i = 0; i < AGUIDeepResearchAgent.MAX_TRACKED_RUNS + 10; i++) {
+            clock.incrementAndGet();
+            agent.nodeOutputToText(output("web_search", "thread-" + i, List.of(result("https://a.example/1"))));
+        }
+
+        assertThat(agent.activeRuns()).isEqualTo(AGUIDeepResearchAgent.MAX_TRACKED_RUNS);
+        // The most recent run is still tracked, so its results are not reported again
+        int last = AGUIDeepResearchAgent.MAX_TRACKED_RUNS + 9;
+        assertThat(agent.nodeOutputToText(output("summarize", "thread-" + last, List.of(result("https://a.example/1")))))
+                .isEmpty();
+    }
+
+    private static ResearchState runState(String threadId) {
+        return new ResearchState(Map.of("user_id", "tom", "request_id", threadId, "research_loop_count", 0));
+    }
+
+    private static ResearchState state(String userId, int loopCount) {
+        return new ResearchState(Map.of("user_id", userId, "research_loop_count", loopCount));
+    }
+
+    private static NodeOutput<ResearchState> output(String node, String threadId, List<SearchResult> results) {
+        return NodeOutput.of(node, new ResearchState(Map.of(
+                "request_id", threadId,
+                "running_summary", "summary",
+                "detailed_search_results", List.copyOf(results))));
+    }
+
+    private static SearchResult result(String url) {
+        return SearchResult.builder().title("Title").url(url).build();
+    }
+}
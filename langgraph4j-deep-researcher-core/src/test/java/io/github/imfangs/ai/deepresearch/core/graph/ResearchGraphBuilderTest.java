@@ -0,0 +1,141 @@
+package io.github.imfangs.ai.deepresearch.core.graph;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.imfangs.ai.deepresearch.api.state.ResearchState;
+import io.github.imfangs.ai.deepresearch.config.PromptTemplates;
+import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
+import io.github.imfangs.ai.deepresearch.core.latency.NodeLatencyTracker;
+import io.github.imfangs.ai.deepresearch.core.llm.ChatModelInvoker;
+import io.github.imfangs.ai.deepresearch.core.llm.ChatTimeoutException;
+import io.github.imfangs.ai.deepresearch.core.llm.PromptAssembler;
+import io.github.imfangs.ai.deepresearch.core.nodes.ReflectAndPlanNode;
+import io.github.imfangs.ai.deepresearch.core.nodes.ReflectionNode;
+import io.github.imfangs.ai.deepresearch.core.nodes.RouterNode;
+import io.github.imfangs.ai.deepresearch.core.scheduler.ResearchScheduler;
+import io.github.imfangs.ai.deepresearch.tools.token.TokenizerService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bsc.langgraph4j.CompileConfig;
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.action.NodeAction;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Research graph builder test
+ */
+class ResearchGraphBuilderTest {
+
+    private final ResearchConfig researchConfig = new ResearchConfig();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RouterNode routerNode = new RouterNode(researchConfig,
+            new NodeLatencyTracker(researchConfig, new ResearchScheduler(researchConfig, meterRegistry), meterRegistry),
+            new TokenizerService("gpt-4o-mini"));
+
+    @Test
+    void finalizesWhenReflectionFindsEnough() throws Exception {
+        List<String> executed = run(state -> Map.of("metadata", Map.of("need_more_research", false)));
+
+        assertThat(executed).containsExactly("generate_query", "web_search", "summarize", "reflect", "route", "finalize");
+    }
+
+    @Test
+    void continuesWhileReflectionNeedsMoreResearch() throws Exception {
+        List<String> executed = run(state -> Map.of("metadata", Map.of("need_more_research", true)));
+
+        // Three loops, the initial state's maximum
+        assertThat(executed).filteredOn("generate_query"::equals).hasSize(3);
+        assertThat(executed).endsWith("route", "finalize");
+    }
+
+    @Test
+    void finalizesOnStructuredPlanWithoutGeneratingAnotherQuery() throws Exception {
+        researchConfig.getFlow().setFusedReflection(true);
+        TokenizerService tokenizerService = new TokenizerService("gpt-4o-mini");
+        AtomicInteger planCalls = new AtomicInteger();
+        ChatModelInvoker planner = new ChatModelInvoker(null, null, null) {
+            @Override
+            public ChatResult chat(PromptAssembler.Prompt prompt, Optional<Duration> timeout) {
+                planCalls.incrementAndGet();
+                return new ChatResult(
+                        "{\"need_more_research\": false, \"knowledge_gaps\": [], \"follow_up_queries\": [\"unused query\"]}",
+                        10, 5, 0);
+            }
+        };
+        ReflectAndPlanNode reflectAndPlanNode = new ReflectAndPlanNode(planner, tokenizerService,
+                new PromptAssembler(new PromptTemplates(), tokenizerService, researchConfig), new ObjectMapper());
+
+        List<String> executed = run(new ResearchGraphBuilder(null, null, null, null, reflectAndPlanNode, null,
+                routerNode, researchConfig), Map.of());
+
+        assertThat(executed).containsExactly("generate_query", "web_search", "summarize", "reflect", "route", "finalize");
+        assertThat(planCalls).hasValue(1);
+    }
+
+    @Test
+    void finalizesWhenReflectionIsSkippedForTheDeadline() throws Exception {
+        researchConfig.getFlow().setFusedReflection(false);
+        TokenizerService tokenizerService = new TokenizerService("gpt-4o-mini");
+        ChatModelInvoker outOfTime = new ChatModelInvoker(null, null, null) {
+            @Override
+            public ChatResult chat(PromptAssembler.Prompt prompt, Optional<Duration> timeout) {
+                throw new ChatTimeoutException(PromptAssembler.Task.REFLECTION, Duration.ofMillis(100));
+            }
+        };
+        ReflectionNode reflectionNode = new ReflectionNode(outOfTime, tokenizerService, researchConfig, null,
+                new PromptAssembler(new PromptTemplates(), tokenizerService, researchConfig), null);
+
+        List<String> executed = run(new ResearchGraphBuilder(null, null, null, reflectionNode, null, null,
+                routerNode, researchConfig), Map.of());
+
+        // Neither the loop limit nor the budget is reached, so only the skipped reflection ends research
+        assertThat(executed).containsExactly("generate_query", "web_search", "summarize", "reflect", "route", "finalize");
+    }
+
+    /**
+     * Run the graph with stub research nodes and the given reflection, recording the executed nodes
+     */
+    private List<String> run(NodeAction<ResearchState> reflect) throws Exception {
+        return run(new ResearchGraphBuilder(null, null, null, null, null, null, routerNode, researchConfig),
+                Map.of("reflect", reflect));
+    }
+
+    /**
+     * Run the graph of a builder with nodes replaced by stubs, recording the executed nodes
+     *
+     * Query generation and search add nothing, summarization completes a loop with a short summary and
+     * finalization ends the run
+     */
+    private static List<String> run(ResearchGraphBuilder builder, Map<String, NodeAction<ResearchState>> nodes)
+            throws Exception {
+        Map<String, NodeAction<ResearchState>> stubs = new HashMap<>();
+        stubs.put("generate_query", state -> Map.of());
+        stubs.put("web_search", state -> Map.of());
+        stubs.put("summarize", state -> Map.of(
+                "research_loop_count", state.researchLoopCount() + 1,
+                "running_summary", "Solid electrolytes replace liquid ones."));
+        stubs.put("finalize", state -> Map.of("success", true));
+        stubs.putAll(nodes);
+
+        List<String> executed = new CopyOnWriteArrayList<>();
+        var graph = builder.createResearchGraph((name, node) -> state -> {
+            executed.add(name);
+            return stubs.getOrDefault(name, node).apply(state);
+        }).compile(CompileConfig.builder().build());
+
+        Map<String, Object> initialState = ResearchState.createInitialState(
+                "solid-state batteries", "request-1", null, 3, null, null, null, null);
+        for (var output : graph.stream(initialState, RunnableConfig.builder().build())) {
+            assertThat(output.state().success()).isTrue();
+        }
+        return executed;
+    }
+}
@@ -0,0 +1,56 @@
+package io.github.imfangs.ai.deepresearch.core.latency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Node latency tracker test
+ */
+class NodeLatencyTrackerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger load = new AtomicInteger(1);
+    private final NodeLatencyTracker tracker = new NodeLatencyTracker("model", 0.5, load::get, meterRegistry);
+
+    @Test
+    void smoothesLatencySamples() {
+        assertThat(tracker.predict("summarize")).isEmpty();
+
+        tracker.record("summarize", 1000);
+        assertThat(tracker.predict("summarize")).hasValue(1000);
+
+        tracker.record("summarize", 2000);
+        assertThat(tracker.predict("summarize")).hasValue(1500);
+        assertThat(meterRegistry.get("research.node.latency").tag("node", "summarize").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void predictsLoopOnceEveryLoopNodeWasMeasured() {
+        for (String node : NodeLatencyTracker.LOOP_NODES.subList(1, NodeLatencyTracker.LOOP_NODES.size())) {
+            tracker.record(node, 100);
+        }
+        assertThat(tracker.predictLoop()).isEmpty();
+
+        tracker.record("generate_query", 100);
+        assertThat(tracker.predictLoop()).hasValue(500);
+    }
+
+    @Test
+    void scalesPredictionWithLoad() {
+        load.set(2);
+        tracker.record("web_search", 1000);
+
+        load.set(4);
+        assertThat(tracker.predict("web_search")).hasValue(2000);
+
+        // The load factor is bounded
+        load.set(100);
+        assertThat(tracker.predict("web_search")).hasValue(2000);
+        load.set(0);
+        assertThat(tracker.predict("web_search")).hasValue(500);
+    }
+}
@@ -0,0 +1,78 @@
+package io.github.imfangs.ai.deepresearch.core.latency;
+
+import io.github.imfangs.ai.deepresearch.api.state.ResearchState;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Run latency test
+ */
+class RunLatencyTest {
+
+    private final NodeLatencyTracker tracker = new NodeLatencyTracker("model", 0.5, () -> 1, new SimpleMeterRegistry());
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void pairsPredictedAndActualTimes() {
+        for (String node : NodeLatencyTracker.LOOP_NODES) {
+            tracker.record(node, 100);
+        }
+        RunLatency latency = new RunLatency(tracker, 60_000);
+
+        // First loop, predicted from the tracker when the run starts; the router predicts the next loop and the report
+        completeLoop(latency, state(1, 700L, 300L));
+        // Second loop, predicted by the router at the end of the first
+        completeLoop(latency, state(2, 900L, 400L));
+        latency.nodeCompleted(NodeLatencyTracker.FINALIZE_NODE, state(2, null, null));
+
+        Map<String, Object> metadata = latency.toMetadata();
+
+        assertThat(metadata).containsEntry("model", "model").containsEntry("latency_slo_ms", 60_000L);
+        List<Map<String, Object>> loops = (List<Map<String, Object>>) metadata.get("loops");
+        assertThat(loops).hasSize(2);
+        assertThat(loops.get(0)).containsEntry("loop", 1).containsEntry("predicted_ms", 500L).containsKey("actual_ms");
+        assertThat(loops.get(1)).containsEntry("loop", 2).containsEntry("predicted_ms", 700L).containsKey("actual_ms");
+        Map<String, Object> finalize = (Map<String, Object>) metadata.get("finalize");
+        assertThat(finalize).containsEntry("predicted_ms", 400L).containsKey("actual_ms");
+    }
+
+    @Test
+    void leavesOutUnknownPredictionsAndSlo() {
+        RunLatency latency = new RunLatency(tracker, 0);
+        completeLoop(latency, state(1, null, null));
+
+        Map<String, Object> metadata = latency.toMetadata();
+
+        assertThat(metadata).doesNotContainKey("latency_slo_ms");
+        assertThat((List<?>) metadata.get("loops")).singleElement()
+                .satisfies(loop -> assertThat((Map<?, ?>) loop).doesNotContainKey("predicted_ms").containsKey("actual_ms"));
+        assertThat((Map<?, ?>) metadata.get("finalize")).isEmpty();
+    }
+
+    private static void completeLoop(RunLatency latency, ResearchState routed) {
+        for (String node : NodeLatencyTracker.LOOP_NODES) {
+            latency.nodeCompleted(node, routed);
+        }
+    }
+
+    /**
+     * State after a node, without node start time so the run records no new samples
+     */
+    private static ResearchState state(int loop, Long predictedLoop, Long predictedFinalize) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("research_loop_count", loop);
+        if (predictedLoop != null) {
+            data.put("predicted_loop_ms", predictedLoop);
+        }
+        if (predictedFinalize != null) {
+            data.put("predicted_finalize_ms", predictedFinalize);
+        }
+        return new ResearchState(data);
+    }
+}
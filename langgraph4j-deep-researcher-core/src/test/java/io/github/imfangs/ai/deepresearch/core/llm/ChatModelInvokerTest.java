@@ -0,0 +1,85 @@
+package io.github.imfangs.ai.deepresearch.core.llm;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Chat model invoker test
+ */
+class ChatModelInvokerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LlmCallExecutor llmCallExecutor = new LlmCallExecutor(2);
+    private final CountDownLatch aborted = new CountDownLatch(1);
+    private final PromptAssembler.Prompt prompt =
+            new PromptAssembler.Prompt(PromptAssembler.Task.SUMMARIZATION, "system", "user");
+
+    @AfterEach
+    void shutdown() {
+        llmCallExecutor.shutdown();
+    }
+
+    @Test
+    void abortsCallThatExceedsItsBudget() throws Exception {
+        ChatModelInvoker invoker = new ChatModelInvoker(new ChatModel() {
+            @Override
+            public ChatResponse chat(ChatMessage... messages) {
+                try {
+                    // Stands in for a model HTTP call that outlives the budget
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+                } catch (InterruptedException e) {
+                    aborted.countDown();
+                }
+                return response("late");
+            }
+        }, meterRegistry, llmCallExecutor);
+
+        assertThatThrownBy(() -> invoker.chat(prompt, Optional.of(Duration.ofMillis(100))))
+                .isInstanceOfSatisfying(ChatTimeoutException.class, e -> {
+                    assertThat(e.getTask()).isEqualTo(PromptAssembler.Task.SUMMARIZATION);
+                    assertThat(e.getTimeout()).isEqualTo(Duration.ofMillis(100));
+                });
+
+        assertThat(aborted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(meterRegistry.get("research.llm.timeouts").tag("task", "summarization").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void returnsResponseWithinBudget() {
+        ChatModelInvoker invoker = new ChatModelInvoker(new ChatModel() {
+            @Override
+            public ChatResponse chat(ChatMessage... messages) {
+                return response("Summary");
+            }
+        }, meterRegistry, llmCallExecutor);
+
+        ChatModelInvoker.ChatResult result = invoker.chat(prompt, Optional.of(Duration.ofSeconds(5)));
+
+        assertThat(result.text()).isEqualTo("Summary");
+        assertThat(result.promptTokens()).isEqualTo(10);
+        assertThat(result.completionTokens()).isEqualTo(5);
+        assertThat(meterRegistry.find("research.llm.timeouts").counter()).isNull();
+    }
+
+    private static ChatResponse response(String text) {
+        return ChatResponse.builder()
+                .aiMessage(AiMessage.from(text))
+                .tokenUsage(new TokenUsage(10, 5))
+                .build();
+    }
+}
@@ -0,0 +1,61 @@
+package io.github.imfangs.ai.deepresearch.core.llm;
+
+import io.github.imfangs.ai.deepresearch.config.PromptTemplates;
+import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
+import io.github.imfangs.ai.deepresearch.tools.token.TokenizerService;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prompt assembler test
+ */
+class PromptAssemblerTest {
+
+    private final ResearchConfig researchConfig = new ResearchConfig();
+    private final PromptAssembler promptAssembler = new PromptAssembler(new PromptTemplates(),
+            new TokenizerService("gpt-4o-mini"), researchConfig);
+
+    @Test
+    void sendsStableInstructionsOfTheTask() {
+        Map<PromptAssembler.Task, String> instructions = Map.of(
+                PromptAssembler.Task.QUERY_GENERATION, PromptTemplates.QUERY_GENERATION_SYSTEM,
+                PromptAssembler.Task.SUMMARIZATION, PromptTemplates.SUMMARIZATION_SYSTEM,
+                PromptAssembler.Task.REFLECTION, PromptTemplates.REFLECTION_SYSTEM,
+                PromptAssembler.Task.REFLECTION_PLANNING, PromptTemplates.REFLECTION_PLANNING_SYSTEM,
+                PromptAssembler.Task.FINALIZATION, PromptTemplates.FINALIZATION_SYSTEM);
+
+        for (PromptAssembler.Task task : PromptAssembler.Task.values()) {
+            PromptAssembler.Prompt first = promptAssembler.assemble(task, "first request");
+            PromptAssembler.Prompt second = promptAssembler.assemble(task, "second request");
+
+            assertThat(first.systemMessage()).isEqualTo(instructions.get(task)).isEqualTo(second.systemMessage());
+        }
+    }
+
+    @Test
+    void opensEveryTaskWithTheSameContext() {
+        String context = promptAssembler.context("solid-state batteries", "Solid electrolytes replace liquid ones.");
+
+        for (PromptAssembler.Task task : PromptAssembler.Task.values()) {
+            PromptAssembler.Prompt prompt = promptAssembler.assemble(task, context + "\n\nContent of " + task.id());
+
+            assertThat(prompt.userMessage()).startsWith(context + "\n\n");
+        }
+        assertThat(context).contains("Research topic: solid-state batteries", "Solid electrolytes replace liquid ones.");
+    }
+
+    @Test
+    void truncatesSummaryOnce() {
+        researchConfig.getFlow().setMaxSummaryTokens(5);
+        String summary = "Solid-state batteries use solid electrolytes instead of flammable liquid ones.";
+
+        String truncated = promptAssembler.truncateSummary(summary);
+
+        assertThat(truncated).isNotEqualTo(summary);
+        assertThat(summary).startsWith(truncated);
+        assertThat(promptAssembler.contextOf("topic", truncated)).isEqualTo(promptAssembler.context("topic", summary));
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.imfangs.ai.deepresearch.core.nodes;
+
+import io.github.imfangs.ai.deepresearch.api.state.ResearchState;
+import io.github.imfangs.ai.deepresearch.config.PromptTemplates;
+import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
+import io.github.imfangs.ai.deepresearch.core.llm.ChatModelInvoker;
+import io.github.imfangs.ai.deepresearch.core.llm.ChatTimeoutException;
+import io.github.imfangs.ai.deepresearch.core.llm.PromptAssembler;
+import io.github.imfangs.ai.deepresearch.tools.context.PassageRetriever;
+import io.github.imfangs.ai.deepresearch.tools.token.TokenizerService;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Finalizer node test
+ */
+class FinalizerNodeTest {
+
+    private final ResearchConfig researchConfig = new ResearchConfig();
+    private final TokenizerService tokenizerService = new TokenizerService("gpt-4o-mini");
+
+    @Test
+    void reportsRunningSummaryWhenReportTimesOut() {
+        researchConfig.getFlow().setFinalizerContextTokens(0);
+        ChatModelInvoker chatModelInvoker = new ChatModelInvoker(null, null, null) {
+            @Override
+            public ChatResult chat(PromptAssembler.Prompt prompt, Optional<Duration> timeout) {
+                throw new ChatTimeoutException(prompt.task(), timeout.orElseThrow());
+            }
+        };
+        FinalizerNode node = new FinalizerNode(chatModelInvoker, tokenizerService, researchConfig,
+                new PassageRetriever(null), new PromptAssembler(new PromptTemplates(), tokenizerService, researchConfig));
+
+        Map<String, Object> data = new HashMap<>(ResearchState.createInitialState(
+                "solid-state batteries", "request-1", null, 3, null, null, null, null));
+        data.put("running_summary", "Solid electrolytes replace liquid ones.");
+        data.putAll(ResearchState.deadline(System.currentTimeMillis() + 60_000, 5_000));
+
+        Map<String, Object> updates = node.apply(new ResearchState(data));
+
+        assertThat(updates).containsEntry("running_summary", "Solid electrolytes replace liquid ones.")
+                .containsEntry("success", true);
+        assertThat((Map<?, ?>) updates.get("metadata")).containsEntry("final_report_generated", false);
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.imfangs.ai.deepresearch.core.nodes;
+
+import io.github.imfangs.ai.deepresearch.api.state.ResearchState;
+import io.github.imfangs.ai.deepresearch.config.PromptTemplates;
+import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
+import io.github.imfangs.ai.deepresearch.core.llm.ChatModelInvoker;
+import io.github.imfangs.ai.deepresearch.core.llm.ChatTimeoutException;
+import io.github.imfangs.ai.deepresearch.core.llm.PromptAssembler;
+import io.github.imfangs.ai.deepresearch.tools.token.TokenizerService;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query generator node test
+ */
+class QueryGeneratorNodeTest {
+
+    private final TokenizerService tokenizerService = new TokenizerService("gpt-4o-mini");
+    private final PromptAssembler promptAssembler = new PromptAssembler(new PromptTemplates(), tokenizerService,
+            new ResearchConfig());
+    private final AtomicInteger calls = new AtomicInteger();
+
+    /**
+     * Model call that always runs out of its budget
+     */
+    private final ChatModelInvoker chatModelInvoker = new ChatModelInvoker(null, null, null) {
+        @Override
+        public ChatResult chat(PromptAssembler.Prompt prompt, Optional<Duration> timeout) {
+            calls.incrementAndGet();
+            throw new ChatTimeoutException(prompt.task(), timeout.orElseThrow());
+        }
+    };
+    private final QueryGeneratorNode node = new QueryGeneratorNode(chatModelInvoker, tokenizerService, promptAssembler);
+
+    @Test
+    void searchesTopicWhenCallTimesOut() {
+        QueryGeneratorNode.GeneratedQuery query = node.generate(state(60_000));
+
+        assertThat(calls).hasValue(1);
+        assertThat(query.query()).isEqualTo("solid-state batteries");
+        assertThat(query.promptTokens()).isZero();
+    }
+
+    @Test
+    void searchesTopicWithoutCallInsideFinalizeReserve() {
+        QueryGeneratorNode.GeneratedQuery query = node.generate(state(1_000));
+
+        assertThat(calls).hasValue(0);
+        assertThat(query.query()).isEqualTo("solid-state batteries");
+    }
+
+    /**
+     * State with a deadline the given time away and a finalize reserve of 5 seconds
+     */
+    private static ResearchState state(long deadlineInMillis) {
+        Map<String, Object> data = new HashMap<>(ResearchState.createInitialState(
+                "solid-state batteries", "request-1", null, 3, null, null, null, null));
+        data.putAll(ResearchState.deadline(System.currentTimeMillis() + deadlineInMillis, 5_000));
+        return new ResearchState(data);
+    }
+}
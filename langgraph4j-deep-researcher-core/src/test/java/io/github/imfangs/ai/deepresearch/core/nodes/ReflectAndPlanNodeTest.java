@@ -0,0 +1,46 @@
+package io.github.imfangs.ai.deepresearch.core.nodes;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reflect and plan node test
+ */
+class ReflectAndPlanNodeTest {
+
+    private final ReflectAndPlanNode node = new ReflectAndPlanNode(null, null, null, new ObjectMapper());
+
+    @Test
+    void parsesFencedJsonPlan() {
+        String response = """
+                ```json
+                {"need_more_research": true,
+                 "knowledge_gaps": ["Cycle life data", " "],
+                 "follow_up_queries": ["solid-state battery cycle life 2025", "sulfide electrolyte stability",
+                                       "anode-free cells", "dendrite suppression"]}
+                ```""";
+
+        ReflectAndPlanNode.ReflectionPlan plan = node.parsePlan(response).orElseThrow();
+
+        assertThat(plan.needMoreResearch()).isTrue();
+        assertThat(plan.knowledgeGaps()).containsExactly("Cycle life data");
+        assertThat(plan.followUpQueries()).hasSize(3).startsWith("solid-state battery cycle life 2025");
+    }
+
+    @Test
+    void readsStringVerdictAndMissingFields() {
+        ReflectAndPlanNode.ReflectionPlan plan = node.parsePlan("{\"need_more_research\": \"false\"}").orElseThrow();
+
+        assertThat(plan.needMoreResearch()).isFalse();
+        assertThat(plan.knowledgeGaps()).isEmpty();
+        assertThat(plan.followUpQueries()).isEmpty();
+    }
+
+    @Test
+    void rejectsFreeText() {
+        assertThat(node.parsePlan("The summary is missing cost data.\n- Cost per kWh")).isEmpty();
+        assertThat(node.parsePlan("{not json}")).isEmpty();
+    }
+}
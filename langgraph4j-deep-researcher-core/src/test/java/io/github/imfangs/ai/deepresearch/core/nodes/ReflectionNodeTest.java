@@ -0,0 +1,145 @@
+package io.github.imfangs.ai.deepresearch.core.nodes;
+
+import io.github.imfangs.ai.deepresearch.api.state.ResearchState;
+import io.github.imfangs.ai.deepresearch.config.PromptTemplates;
+import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
+import io.github.imfangs.ai.deepresearch.core.llm.ChatModelInvoker;
+import io.github.imfangs.ai.deepresearch.core.llm.ChatTimeoutException;
+import io.github.imfangs.ai.deepresearch.core.llm.LlmCallExecutor;
+import io.github.imfangs.ai.deepresearch.core.llm.PromptAssembler;
+import io.github.imfangs.ai.deepresearch.core.scheduler.CallCancellation;
+import io.github.imfangs.ai.deepresearch.tools.token.TokenizerService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reflection node test
+ */
+class ReflectionNodeTest {
+
+    private final ResearchConfig researchConfig = new ResearchConfig();
+    private final LlmCallExecutor llmCallExecutor = new LlmCallExecutor(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final QueryGeneratorNode queryGeneratorNode = new QueryGeneratorNode(null, null, null) {
+        @Override
+        public GeneratedQuery generate(ResearchState state) {
+            return new GeneratedQuery("solid-state battery cycle life", 10, 5);
+        }
+    };
+    private final ReflectionNode node = new ReflectionNode(null, null, researchConfig, queryGeneratorNode, null,
+            llmCallExecutor);
+
+    /**
+     * Query generator whose LLM call runs until it is aborted
+     */
+    private final CountDownLatch generating = new CountDownLatch(1);
+    private final CountDownLatch aborted = new CountDownLatch(1);
+    private final QueryGeneratorNode slowQueryGenerator = new QueryGeneratorNode(null, null, null) {
+        @Override
+        public GeneratedQuery generate(ResearchState state) {
+            generating.countDown();
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                aborted.countDown();
+            }
+            return new GeneratedQuery("late query", 10, 5);
+        }
+    };
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        llmCallExecutor.shutdown();
+    }
+
+    @Test
+    void generatesNextQueryOnSharedExecutor() throws Exception {
+        researchConfig.getFlow().setPipelinedReflection(true);
+
+        QueryGeneratorNode.GeneratedQuery query = node.startNextQuery(state(1)).get(5, TimeUnit.SECONDS);
+
+        assertThat(query.query()).isEqualTo("solid-state battery cycle life");
+    }
+
+    @Test
+    void skipsPipeliningWhenExecutorIsSaturated() {
+        researchConfig.getFlow().setPipelinedReflection(true);
+        // One call running and one queued fill a single-thread executor
+        llmCallExecutor.submit(() -> release.await(30, TimeUnit.SECONDS));
+        llmCallExecutor.submit(() -> release.await(30, TimeUnit.SECONDS));
+
+        assertThat(node.startNextQuery(state(1))).isNull();
+    }
+
+    @Test
+    void skipsPipeliningWithoutAnotherLoop() {
+        researchConfig.getFlow().setPipelinedReflection(true);
+        assertThat(node.startNextQuery(state(3))).isNull();
+
+        researchConfig.getFlow().setPipelinedReflection(false);
+        assertThat(node.startNextQuery(state(1))).isNull();
+    }
+
+    @Test
+    void abortsPipelinedQueryWhenReflectionTimesOut() throws Exception {
+        researchConfig.getFlow().setPipelinedReflection(true);
+        TokenizerService tokenizerService = new TokenizerService("gpt-4o-mini");
+        ChatModelInvoker timingOut = new ChatModelInvoker(null, null, null) {
+            @Override
+            public ChatResult chat(PromptAssembler.Prompt prompt, Optional<Duration> timeout) {
+                try {
+                    // The pipelined query is in flight when reflection runs out of time
+                    assertThat(generating.await(5, TimeUnit.SECONDS)).isTrue();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                throw new ChatTimeoutException(prompt.task(), timeout.orElseThrow());
+            }
+        };
+        ReflectionNode reflecting = new ReflectionNode(timingOut, tokenizerService, researchConfig, slowQueryGenerator,
+                new PromptAssembler(new PromptTemplates(), tokenizerService, researchConfig), llmCallExecutor);
+        Map<String, Object> data = new HashMap<>(state(1).data());
+        data.putAll(ResearchState.deadline(System.currentTimeMillis() + 60_000, 5_000));
+
+        Map<String, Object> updates = reflecting.apply(new ResearchState(data));
+
+        assertThat((Map<?, ?>) updates.get("metadata")).containsEntry("need_more_research", false);
+        assertThat(updates).doesNotContainKey("next_query");
+        assertThat(aborted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void cancellingRunAbortsPipelinedQuery() throws Exception {
+        researchConfig.getFlow().setPipelinedReflection(true);
+        ReflectionNode reflecting = new ReflectionNode(null, null, researchConfig, slowQueryGenerator, null,
+                llmCallExecutor);
+        CallCancellation run = new CallCancellation();
+
+        Future<QueryGeneratorNode.GeneratedQuery> nextQuery = run.within(() -> reflecting.startNextQuery(state(1)));
+        assertThat(generating.await(5, TimeUnit.SECONDS)).isTrue();
+        run.cancel();
+
+        assertThat(aborted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(nextQuery.isCancelled()).isTrue();
+    }
+
+    private static ResearchState state(int loopCount) {
+        Map<String, Object> data = new HashMap<>(ResearchState.createInitialState(
+                "solid-state batteries", "request-1", null, 3, null, null, null, null));
+        data.put("research_loop_count", loopCount);
+        data.put("running_summary", "Solid-state batteries use solid electrolytes.");
+        return new ResearchState(data);
+    }
+}
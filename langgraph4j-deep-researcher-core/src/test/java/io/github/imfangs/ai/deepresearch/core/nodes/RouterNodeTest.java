@@ -0,0 +1,85 @@
+package io.github.imfangs.ai.deepresearch.core.nodes;
+
+import io.github.imfangs.ai.deepresearch.api.state.ResearchState;
+import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
+import io.github.imfangs.ai.deepresearch.core.latency.NodeLatencyTracker;
+import io.github.imfangs.ai.deepresearch.core.scheduler.ResearchScheduler;
+import io.github.imfangs.ai.deepresearch.tools.token.TokenizerService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Router node test
+ */
+class RouterNodeTest {
+
+    private final ResearchConfig researchConfig = new ResearchConfig();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final NodeLatencyTracker latencyTracker = new NodeLatencyTracker(researchConfig,
+            new ResearchScheduler(researchConfig, meterRegistry), meterRegistry);
+    private final RouterNode node = new RouterNode(researchConfig, latencyTracker, new TokenizerService("gpt-4o-mini"));
+
+    @Test
+    void endsLowNoveltyLoopDespiteReflectionVerdict() {
+        Map<String, Object> updates = node.apply(state(0.05, 0.1, true));
+
+        assertThat((Double) updates.get("loop_novelty")).isLessThan(0.2);
+        assertThat(decision(updates)).startsWith("Marginal novelty");
+    }
+
+    @Test
+    void continuesNovelLoop() {
+        Map<String, Object> updates = node.apply(state(0.5, 0.4, true));
+
+        assertThat((Double) updates.get("loop_novelty")).isCloseTo(0.44, within(1e-9));
+        assertThat(decision(updates)).startsWith("Continue research");
+        assertThat(RouterNode.routeOf(new ResearchState(updates))).isEqualTo(RouterNode.CONTINUE);
+    }
+
+    @Test
+    void endsWhenReflectionFindsEnough() {
+        Map<String, Object> updates = node.apply(state(0.5, 0.4, false));
+
+        assertThat(decision(updates)).startsWith("Reflection indicates");
+        assertThat(RouterNode.routeOf(new ResearchState(updates))).isEqualTo(RouterNode.FINALIZE);
+    }
+
+    @Test
+    void endsLoopPredictedToMissLatencySlo() {
+        for (String loopNode : NodeLatencyTracker.LOOP_NODES) {
+            latencyTracker.record(loopNode, 1_000);
+        }
+        latencyTracker.record(NodeLatencyTracker.FINALIZE_NODE, 1_000);
+
+        // Another 5 second loop and a 1 second report fit a minute, but not 5 seconds
+        researchConfig.getFlow().setLatencySloMs(60_000L);
+        Map<String, Object> continued = node.apply(state(0.5, 0.4, true));
+        assertThat(continued).containsEntry("predicted_loop_ms", 5_000L).containsEntry("predicted_finalize_ms", 1_000L);
+        assertThat(decision(continued)).startsWith("Continue research");
+
+        researchConfig.getFlow().setLatencySloMs(5_000L);
+        assertThat(decision(node.apply(state(0.5, 0.4, true)))).startsWith("Next loop is predicted to exceed the latency SLO");
+    }
+
+    private static ResearchState state(double urlNovelty, double summaryNovelty, boolean needMoreResearch) {
+        Map<String, Object> data = new HashMap<>(ResearchState.createInitialState(
+                "solid-state batteries", "request-1", null, 3, null, null, null, null));
+        data.put("research_loop_count", 1);
+        data.put("running_summary", "Solid-state batteries use solid electrolytes.");
+        data.put("url_novelty", urlNovelty);
+        data.put("summary_novelty", summaryNovelty);
+        data.put("metadata", Map.of("need_more_research", needMoreResearch));
+        return new ResearchState(data);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String decision(Map<String, Object> updates) {
+        return (String) ((Map<String, Object>) updates.get("metadata")).get("routing_decision");
+    }
+}
@@ -0,0 +1,45 @@
+package io.github.imfangs.ai.deepresearch.core.nodes;
+
+import io.github.imfangs.ai.deepresearch.api.state.ResearchState;
+import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
+import io.github.imfangs.ai.deepresearch.core.llm.ChatModelInvoker;
+import io.github.imfangs.ai.deepresearch.core.llm.PromptAssembler;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Summarizer node test
+ */
+class SummarizerNodeTest {
+
+    private final ChatModelInvoker chatModelInvoker = new ChatModelInvoker(null, null, null) {
+        @Override
+        public ChatResult chat(PromptAssembler.Prompt prompt, Optional<Duration> timeout) {
+            throw new AssertionError("No time is left for the summarization call");
+        }
+    };
+    private final SummarizerNode node = new SummarizerNode(chatModelInvoker, null, null, null, new ResearchConfig(), null);
+
+    @Test
+    void keepsSummaryInsideFinalizeReserve() {
+        Map<String, Object> data = new HashMap<>(ResearchState.createInitialState(
+                "solid-state batteries", "request-1", null, 3, null, null, null, null));
+        data.put("running_summary", "Solid electrolytes replace liquid ones.");
+        data.put("web_search_results", List.of("[Battery news] https://a.example - Cycle life doubled"));
+        data.putAll(ResearchState.deadline(System.currentTimeMillis() + 1_000, 5_000));
+
+        Map<String, Object> updates = node.apply(new ResearchState(data));
+
+        assertThat(updates).doesNotContainKeys("running_summary", "error_message");
+        assertThat(updates).containsEntry("research_loop_count", 1)
+                .containsEntry("summary_novelty", 0.0)
+                .containsEntry("sources_gathered", List.of("https://a.example"));
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.imfangs.ai.deepresearch.core.nodes;
+
+import io.github.imfangs.ai.deepresearch.api.dto.SearchResult;
+import io.github.imfangs.ai.deepresearch.api.state.ResearchState;
+import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
+import io.github.imfangs.ai.deepresearch.core.llm.LlmCallExecutor;
+import io.github.imfangs.ai.deepresearch.tools.search.SearchEngineManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Web search node test
+ */
+class WebSearchNodeTest {
+
+    private final LlmCallExecutor llmCallExecutor = new LlmCallExecutor(1);
+    private final CountDownLatch aborted = new CountDownLatch(1);
+
+    /**
+     * Search engine that does not answer within any budget
+     */
+    private final SearchEngineManager searchEngineManager = new SearchEngineManager(new ResearchConfig(), null, List.of()) {
+        @Override
+        public List<SearchResult> search(String engineName, String query, int maxResults, boolean fetchFullPage) {
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                aborted.countDown();
+            }
+            return List.of(SearchResult.builder().url("https://late.example").build());
+        }
+    };
+    private final WebSearchNode node = new WebSearchNode(searchEngineManager, null, null, null, llmCallExecutor);
+
+    @AfterEach
+    void shutdown() {
+        llmCallExecutor.shutdown();
+    }
+
+    @Test
+    void continuesWithoutResultsWhenSearchExceedsBudget() throws Exception {
+        ResearchState state = new ResearchState(ResearchState.createInitialState(
+                "solid-state batteries", "request-1", null, 3, null, null, null, null));
+
+        List<SearchResult> results = node.searchWeb(state, "tavily", "solid-state batteries", 3, false,
+                Optional.of(Duration.ofMillis(100)));
+
+        assertThat(results).isEmpty();
+        assertThat(aborted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+}
@@ -0,0 +1,178 @@
+package io.github.imfangs.ai.deepresearch.core.scheduler;
+
+import io.github.imfangs.ai.deepresearch.api.dto.ResearchRequest.Priority;
+import io.github.imfangs.ai.deepresearch.config.SchedulerConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Research scheduler test
+ */
+class ResearchSchedulerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void interleavesUsersInsteadOfServingBacklogFirst() throws Exception {
+        SchedulerConfig config = new SchedulerConfig();
+        config.setMaxConcurrentRuns(1);
+        config.setMaxConcurrentRunsPerUser(1);
+        ResearchScheduler scheduler = new ResearchScheduler(config, meterRegistry, System::nanoTime);
+
+        List<String> grantOrder = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ResearchScheduler.Permit running = scheduler.acquire("batch-user", Priority.NORMAL);
+
+            List<Future<?>> runs = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                runs.add(executor.submit(() -> run(scheduler, "batch-user", Priority.NORMAL, grantOrder)));
+            }
+            awaitQueued(3);
+            runs.add(executor.submit(() -> run(scheduler, "interactive-user", Priority.NORMAL, grantOrder)));
+            awaitQueued(4);
+
+            running.close();
+            for (Future<?> run : runs) {
+                run.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // The interactive user is served before the rest of the backlog
+        assertThat(grantOrder).containsExactly("interactive-user", "batch-user", "batch-user", "batch-user");
+        assertThat(meterRegistry.get("research.scheduler.queue.time").tag("priority", "NORMAL").timer().count())
+                .isEqualTo(5);
+        assertThat(meterRegistry.get("research.scheduler.running").gauge().value()).isZero();
+    }
+
+    @Test
+    void parksLowPriorityRunAtCheckpointForHighPriorityWork() throws Exception {
+        SchedulerConfig config = new SchedulerConfig();
+        config.setMaxConcurrentRuns(1);
+        ResearchScheduler scheduler = new ResearchScheduler(config, meterRegistry, System::nanoTime);
+
+        List<String> grantOrder = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            ResearchScheduler.Permit batch = scheduler.acquire("batch", Priority.LOW);
+            // Nothing is waiting, so the checkpoint does not park
+            scheduler.checkpoint(batch, Priority.LOW);
+
+            Future<?> interactive = executor.submit(() -> run(scheduler, "tom", Priority.HIGH, grantOrder));
+            awaitQueued(1);
+
+            Future<?> resumed = executor.submit(() -> {
+                scheduler.checkpoint(batch, Priority.LOW);
+                grantOrder.add("batch");
+                batch.close();
+                return null;
+            });
+            interactive.get(5, TimeUnit.SECONDS);
+            resumed.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(grantOrder).containsExactly("tom", "batch");
+        assertThat(meterRegistry.get("research.scheduler.parked.time").tag("priority", "LOW").timer().count())
+                .isEqualTo(1);
+        // Resuming does not charge the batch user a second run
+        assertThat(scheduler.virtualFinish("batch")).isEqualTo(1.0);
+        assertThat(meterRegistry.get("research.scheduler.running").gauge().value()).isZero();
+    }
+
+    @Test
+    void resumedSlotsAreNotCharged() throws Exception {
+        ResearchScheduler scheduler = new ResearchScheduler(new SchedulerConfig(), meterRegistry, System::nanoTime);
+
+        scheduler.acquire("tom", Priority.HIGH).close();
+        for (int i = 0; i < 3; i++) {
+            scheduler.resume("tom", Priority.HIGH).close();
+        }
+
+        assertThat(scheduler.virtualFinish("tom")).isEqualTo(1.0);
+        assertThat(meterRegistry.get("research.scheduler.running").gauge().value()).isZero();
+    }
+
+    @Test
+    void rejectsRequestsBeyondTokenBucket() {
+        SchedulerConfig config = new SchedulerConfig();
+        config.setRequestBurst(2);
+        config.setRequestsPerMinute(60);
+        ResearchScheduler scheduler = new ResearchScheduler(config, meterRegistry, clock::get);
+
+        scheduler.admit("tom");
+        scheduler.admit("tom");
+        assertThatThrownBy(() -> scheduler.admit("tom"))
+                .isInstanceOf(RateLimitExceededException.class)
+                .satisfies(e -> assertThat(((RateLimitExceededException) e).getRetryAfter())
+                        .isBetween(Duration.ofMillis(999), Duration.ofMillis(1001)));
+
+        // Other users have their own bucket
+        scheduler.admit("jerry");
+
+        clock.addAndGet(Duration.ofMillis(1100).toNanos());
+        scheduler.admit("tom");
+        assertThat(meterRegistry.get("research.scheduler.rejected").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("research.scheduler.rejected").counter().getId().getTag("user")).isNull();
+    }
+
+    @Test
+    void dropsRefilledBucketsOfIdleUsers() {
+        SchedulerConfig config = new SchedulerConfig();
+        config.setRequestBurst(2);
+        config.setRequestsPerMinute(60);
+        config.setIdleBucketTtlSeconds(60L);
+        ResearchScheduler scheduler = new ResearchScheduler(config, meterRegistry, clock::get);
+
+        scheduler.admit("tom");
+        scheduler.admit("jerry");
+        assertThat(scheduler.bucketCount()).isEqualTo(2);
+
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+        scheduler.admit("jerry");
+        scheduler.admit("jerry");
+
+        // Tom has been idle past the TTL and refilled; Jerry used his bucket within the TTL
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+        scheduler.admit("spike");
+        assertThat(scheduler.bucketCount()).isEqualTo(2);
+
+        // Jerry's bucket is only dropped once idle past the TTL as well
+        clock.addAndGet(Duration.ofSeconds(61).toNanos());
+        scheduler.admit("spike");
+        assertThat(scheduler.bucketCount()).isEqualTo(1);
+    }
+
+    private static void run(ResearchScheduler scheduler, String user, Priority priority, List<String> grantOrder) {
+        try (ResearchScheduler.Permit permit = scheduler.acquire(user, priority)) {
+            grantOrder.add(user);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void awaitQueued(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("research.scheduler.queued").gauge().value() < expected) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+}
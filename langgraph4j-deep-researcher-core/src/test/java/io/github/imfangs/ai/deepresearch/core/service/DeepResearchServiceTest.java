@@ -0,0 +1,278 @@
+package io.github.imfangs.ai.deepresearch.core.service;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import io.github.imfangs.ai.deepresearch.api.dto.ResearchProgress;
+import io.github.imfangs.ai.deepresearch.api.dto.ResearchRequest;
+import io.github.imfangs.ai.deepresearch.api.dto.ResearchResponse;
+import io.github.imfangs.ai.deepresearch.api.state.ResearchState;
+import io.github.imfangs.ai.deepresearch.api.state.ResearchStateSerializer;
+import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
+import io.github.imfangs.ai.deepresearch.core.graph.ResearchGraphBuilder;
+import io.github.imfangs.ai.deepresearch.core.latency.NodeLatencyTracker;
+import io.github.imfangs.ai.deepresearch.core.llm.ChatModelInvoker;
+import io.github.imfangs.ai.deepresearch.core.llm.LlmCallExecutor;
+import io.github.imfangs.ai.deepresearch.core.llm.PromptAssembler;
+import io.github.imfangs.ai.deepresearch.core.scheduler.RateLimitExceededException;
+import io.github.imfangs.ai.deepresearch.core.scheduler.ResearchScheduler;
+import io.github.imfangs.ai.deepresearch.tools.context.PassageRetriever;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bsc.langgraph4j.GraphStateException;
+import org.bsc.langgraph4j.StateGraph;
+import org.bsc.langgraph4j.action.NodeAction;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.bsc.langgraph4j.StateGraph.END;
+import static org.bsc.langgraph4j.StateGraph.START;
+import static org.bsc.langgraph4j.action.AsyncNodeAction.node_async;
+
+/**
+ * Deep research service test
+ */
+class DeepResearchServiceTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final ResearchConfig researchConfig = new ResearchConfig();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ResearchScheduler researchScheduler;
+
+    @Test
+    void refusesBlockingExecutionOnNonBlockingThreads() {
+        DeepResearchService service = service();
+
+        Mono<?> blocking = Mono.fromCallable(() -> service.executeResearch(request("topic")))
+                .subscribeOn(Schedulers.parallel());
+
+        StepVerifier.create(blocking).expectError(IllegalStateException.class).verify();
+    }
+
+    @Test
+    void signalsRateLimitOnSubscription() {
+        researchConfig.getScheduler().setRequestBurst(1);
+        DeepResearchService service = service();
+        // Consume the only token
+        researchScheduler.admit("tom");
+
+        // Admission happens when the stream is subscribed, not when it is assembled
+        Flux<ResearchProgress> rejected = service.streamResearch(request("topic"));
+
+        StepVerifier.create(rejected).expectError(RateLimitExceededException.class).verify();
+    }
+
+    @Test
+    void coalescesEventsForSlowSubscriberAndKeepsFinalEvent() {
+        researchConfig.getStreaming().setSubscriberBufferSize(4);
+        DeepResearchService service = service();
+        ResearchRun run = new ResearchRun("topic", "request-1", "topic", ResearchRequest.Priority.NORMAL);
+
+        // The subscriber requests nothing until the run has finished
+        StepVerifier.create(service.buffered(run.progress(), "progress"), 0)
+                .then(() -> {
+                    for (int loop = 0; loop < 10; loop++) {
+                        run.emit(ResearchProgress.builder().requestId("request-1").node("web_search")
+                                .researchLoopCount(loop).build());
+                    }
+                    run.complete(ResearchResponse.builder().requestId("request-1")
+                            .status(ResearchResponse.ResearchStatus.COMPLETED).sourcesGathered(List.of()).build());
+                })
+                .thenRequest(Long.MAX_VALUE)
+                .assertNext(event -> assertThat(event.getResearchLoopCount()).isEqualTo(7))
+                .expectNextCount(2)
+                .assertNext(event -> assertThat(event.getResponse().getStatus())
+                        .isEqualTo(ResearchResponse.ResearchStatus.COMPLETED))
+                .verifyComplete();
+
+        assertThat(meterRegistry.get("research.stream.events.coalesced").tag("stream", "progress").counter().count())
+                .isEqualTo(7);
+    }
+
+    @Test
+    void cancelsRunWhenStreamDisconnectsAndKeepsPartialResults() throws Exception {
+        AtomicReference<ResearchRun> run = new AtomicReference<>();
+        CountDownLatch chatting = new CountDownLatch(1);
+        AtomicBoolean graphThreadInterrupted = new AtomicBoolean();
+        LlmCallExecutor llmCallExecutor = new LlmCallExecutor(2);
+        ChatModelInvoker chatModelInvoker = new ChatModelInvoker(new ChatModel() {
+            @Override
+            public ChatResponse chat(ChatMessage... messages) {
+                chatting.countDown();
+                try {
+                    // Stands in for a slow model HTTP call
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException("Chat call aborted", e);
+                }
+                throw new IllegalStateException("Chat call was not aborted");
+            }
+        }, meterRegistry, llmCallExecutor);
+        PromptAssembler.Prompt prompt = new PromptAssembler.Prompt(PromptAssembler.Task.SUMMARIZATION, "system", "user");
+
+        Map<String, NodeAction<ResearchState>> nodes = new LinkedHashMap<>();
+        nodes.put("web_search", state -> Map.of("sources_gathered", List.of("https://a.example")));
+        nodes.put("summarize", state -> {
+            try {
+                chatModelInvoker.chat(prompt, Optional.empty());
+            } finally {
+                graphThreadInterrupted.set(Thread.currentThread().isInterrupted());
+            }
+            return Map.of();
+        });
+        DeepResearchService service = service(nodes, System::nanoTime);
+        ResearchRequest request = request("topic");
+
+        try {
+            StepVerifier.create(service.streamResearch(request))
+                    .thenConsumeWhile(event -> !"web_search".equals(event.getNode()))
+                    .assertNext(event -> assertThat(event.getNode()).isEqualTo("web_search"))
+                    .then(() -> {
+                        try {
+                            assertThat(chatting.await(5, TimeUnit.SECONDS)).isTrue();
+                        } catch (InterruptedException e) {
+                            throw new IllegalStateException(e);
+                        }
+                        // Held before the client disconnects, to read the response nobody waits for any more
+                        run.set(service.inFlightRun(request).orElseThrow());
+                    })
+                    .thenCancel()
+                    .verify();
+
+            ResearchResponse response = run.get().response().get(5, TimeUnit.SECONDS);
+            assertThat(response.getStatus()).isEqualTo(ResearchResponse.ResearchStatus.CANCELLED);
+            assertThat(response.getSourcesGathered()).containsExactly("https://a.example");
+            assertThat(graphThreadInterrupted).isFalse();
+            assertThat(meterRegistry.get("research.runs.cancelled").counter().count()).isEqualTo(1);
+        } finally {
+            llmCallExecutor.shutdown();
+        }
+    }
+
+    @Test
+    void refreshesStaleReportInBackgroundAndReplacesIt() throws Exception {
+        researchConfig.getReportCache().setTtlSeconds(60L);
+        researchConfig.getReportCache().setStaleSeconds(600L);
+        AtomicLong clock = new AtomicLong();
+        AtomicInteger reports = new AtomicInteger();
+        CountDownLatch refreshing = new CountDownLatch(1);
+        DeepResearchService service = service(Map.of("finalize", state -> {
+            int report = reports.incrementAndGet();
+            if (report > 1) {
+                // Hold the refresh in flight until the test has seen it
+                refreshing.await(5, TimeUnit.SECONDS);
+            }
+            return Map.of("running_summary", "Report " + report, "metadata", Map.of("final_report_generated", true));
+        }), clock::get);
+        ResearchRequest request = request("topic");
+
+        assertThat(service.submitResearch(request).block(TIMEOUT).getFinalSummary()).isEqualTo("Report 1");
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        ResearchResponse stale = service.submitResearch(request).block(TIMEOUT);
+        assertThat(stale.getFinalSummary()).isEqualTo("Report 1");
+        assertThat((Map<?, ?>) stale.getMetadata().get("cache")).containsEntry("status", "STALE");
+
+        ResearchRun refresh = service.inFlightRun(request).orElseThrow();
+        refreshing.countDown();
+        assertThat(refresh.response().get(5, TimeUnit.SECONDS).getFinalSummary()).isEqualTo("Report 2");
+
+        ResearchResponse fresh = service.submitResearch(request).block(TIMEOUT);
+        assertThat(fresh.getFinalSummary()).isEqualTo("Report 2");
+        assertThat((Map<?, ?>) fresh.getMetadata().get("cache"))
+                .containsEntry("status", "HIT")
+                .containsEntry("source_request_id", refresh.getRequestId());
+        assertThat(reports).hasValue(2);
+        assertThat(meterRegistry.get("research.report.cache.requests").tag("result", "stale").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void doesNotCacheDegradedReport() {
+        AtomicInteger reports = new AtomicInteger();
+        // Past the deadline, the finalizer falls back to the running summary
+        DeepResearchService service = service(Map.of("finalize", state -> Map.of(
+                "running_summary", "Summary " + reports.incrementAndGet(),
+                "metadata", Map.of("final_report_generated", false))), System::nanoTime);
+
+        ResearchResponse degraded = service.submitResearch(request("topic")).block(TIMEOUT);
+        assertThat(degraded.getStatus()).isEqualTo(ResearchResponse.ResearchStatus.COMPLETED);
+        assertThat(degraded.getMetadata()).containsEntry("degraded", true);
+
+        ResearchResponse next = service.submitResearch(request("topic")).block(TIMEOUT);
+        assertThat(next.getFinalSummary()).isEqualTo("Summary 2");
+        assertThat(next.getMetadata()).doesNotContainKey("cache");
+    }
+
+    @Test
+    void servesCachedReportWithoutAdmission() {
+        researchConfig.getScheduler().setRequestBurst(1);
+        researchConfig.getScheduler().setRequestsPerMinute(1);
+        DeepResearchService service = service(Map.of("finalize", state -> Map.of(
+                "running_summary", "Report", "metadata", Map.of("final_report_generated", true))), System::nanoTime);
+
+        assertThat(service.submitResearch(request("topic")).block(TIMEOUT).getMetadata()).containsEntry("degraded", false);
+
+        // The only token is spent, but the cached report costs no research
+        StepVerifier.create(service.streamResearch(request("topic")))
+                .assertNext(event -> assertThat((Map<?, ?>) event.getResponse().getMetadata().get("cache"))
+                        .containsEntry("status", "HIT"))
+                .verifyComplete();
+        StepVerifier.create(service.streamResearch(request("other topic")))
+                .expectError(RateLimitExceededException.class)
+                .verify();
+    }
+
+    /**
+     * Service running a linear graph of the given nodes
+     */
+    private DeepResearchService service(Map<String, NodeAction<ResearchState>> nodes, LongSupplier nanoClock) {
+        ResearchGraphBuilder graphBuilder = new ResearchGraphBuilder(null, null, null, null, null, null, null,
+                researchConfig) {
+            @Override
+            public StateGraph<ResearchState> createResearchGraph(
+                    BiFunction<String, NodeAction<ResearchState>, NodeAction<ResearchState>> nodeDecorator)
+                    throws GraphStateException {
+                StateGraph<ResearchState> graph = new StateGraph<>(ResearchState.SCHEMA, new ResearchStateSerializer());
+                String previous = START;
+                for (Map.Entry<String, NodeAction<ResearchState>> node : nodes.entrySet()) {
+                    graph.addNode(node.getKey(), node_async(nodeDecorator.apply(node.getKey(), node.getValue())))
+                            .addEdge(previous, node.getKey());
+                    previous = node.getKey();
+                }
+                return graph.addEdge(previous, END);
+            }
+        };
+        researchScheduler = new ResearchScheduler(researchConfig, meterRegistry);
+        return new DeepResearchService(graphBuilder, researchScheduler, new PassageRetriever(null),
+                new NodeLatencyTracker(researchConfig, researchScheduler, meterRegistry), researchConfig, meterRegistry,
+                nanoClock);
+    }
+
+    private DeepResearchService service() {
+        researchScheduler = new ResearchScheduler(researchConfig, meterRegistry);
+        return new DeepResearchService(null, researchScheduler, null, null, researchConfig, meterRegistry);
+    }
+
+    private static ResearchRequest request(String topic) {
+        return ResearchRequest.builder().researchTopic(topic).userId("tom").build();
+    }
+}
@@ -0,0 +1,78 @@
+package io.github.imfangs.ai.deepresearch.core.service;
+
+import io.github.imfangs.ai.deepresearch.api.dto.ResearchResponse;
+import io.github.imfangs.ai.deepresearch.config.ReportCacheConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Report cache test
+ */
+class ReportCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void servesFreshThenStaleThenExpires() {
+        ReportCache cache = new ReportCache(config(2), clock::get);
+        ResearchResponse response = response("request-1");
+        cache.put("topic", response);
+
+        assertThat(cache.get("topic")).hasValueSatisfying(hit -> {
+            assertThat(hit.response()).isSameAs(response);
+            assertThat(hit.stale()).isFalse();
+        });
+
+        advanceSeconds(61);
+        assertThat(cache.get("topic")).hasValueSatisfying(hit -> assertThat(hit.stale()).isTrue());
+
+        // A refreshed report is fresh again
+        cache.put("topic", response("request-2"));
+        assertThat(cache.get("topic")).hasValueSatisfying(hit -> {
+            assertThat(hit.response().getRequestId()).isEqualTo("request-2");
+            assertThat(hit.stale()).isFalse();
+        });
+
+        advanceSeconds(60 + 600 + 1);
+        assertThat(cache.get("topic")).isEmpty();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void evictsOldestReports() {
+        ReportCache cache = new ReportCache(config(2), clock::get);
+        cache.put("first", response("request-1"));
+        advanceSeconds(1);
+        cache.put("second", response("request-2"));
+        advanceSeconds(1);
+        cache.put("third", response("request-3"));
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("first")).isEmpty();
+        assertThat(cache.get("second")).isPresent();
+        assertThat(cache.get("third")).isPresent();
+    }
+
+    private void advanceSeconds(long seconds) {
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    private static ReportCacheConfig config(int maxEntries) {
+        ReportCacheConfig config = new ReportCacheConfig();
+        config.setTtlSeconds(60L);
+        config.setStaleSeconds(600L);
+        config.setMaxEntries(maxEntries);
+        return config;
+    }
+
+    private static ResearchResponse response(String requestId) {
+        return ResearchResponse.builder()
+                .requestId(requestId)
+                .status(ResearchResponse.ResearchStatus.COMPLETED)
+                .build();
+    }
+}
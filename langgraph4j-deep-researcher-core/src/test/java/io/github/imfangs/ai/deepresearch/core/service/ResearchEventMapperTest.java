@@ -0,0 +1,101 @@
+package io.github.imfangs.ai.deepresearch.core.service;
+
+import io.github.imfangs.ai.deepresearch.api.dto.ResearchEvent;
+import io.github.imfangs.ai.deepresearch.api.dto.ResearchEvent.PatchOperation;
+import io.github.imfangs.ai.deepresearch.api.dto.ResearchProgress;
+import io.github.imfangs.ai.deepresearch.api.dto.ResearchResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Research event mapper test
+ */
+class ResearchEventMapperTest {
+
+    private final ResearchEventMapper mapper = new ResearchEventMapper();
+
+    @Test
+    void sendsStepStartedWhenNodeStarts() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 12, 0);
+        List<ResearchEvent> started = mapper.map(ResearchProgress.builder()
+                .requestId("request-1")
+                .node("web_search")
+                .nodeStarted(true)
+                .researchLoopCount(0)
+                .timestamp(start)
+                .build());
+
+        assertThat(started).singleElement().satisfies(event -> {
+            assertThat(event.getType()).isEqualTo(ResearchEvent.Type.STEP_STARTED);
+            assertThat(event.getStepName()).isEqualTo("web_search");
+            assertThat(event.getTimestamp()).isEqualTo(start);
+        });
+        assertThat(mapper.map(progress("web_search", 0, List.of("https://a.example"), null)))
+                .extracting(ResearchEvent::getType)
+                .containsExactly(ResearchEvent.Type.STATE_DELTA, ResearchEvent.Type.STEP_FINISHED);
+    }
+
+    @Test
+    void wrapsStateDeltaInStepEventsWhenStartWasMissed() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 12, 0);
+        List<ResearchEvent> events = mapper.map(progress("web_search", 0, List.of("https://a.example"), null).toBuilder()
+                .nodeStartTime(start)
+                .build());
+
+        assertThat(events).extracting(ResearchEvent::getType).containsExactly(
+                ResearchEvent.Type.STEP_STARTED, ResearchEvent.Type.STATE_DELTA, ResearchEvent.Type.STEP_FINISHED);
+        assertThat(events.get(0).getStepName()).isEqualTo("web_search");
+        assertThat(events.get(0).getTimestamp()).isEqualTo(start);
+        assertThat(events.get(1).getDelta()).containsExactly(
+                new PatchOperation("add", "/research_loop_count", 0),
+                new PatchOperation("add", "/sources", List.of("https://a.example")));
+    }
+
+    @Test
+    void sendsOnlyChangesSincePreviousEvent() {
+        mapper.map(progress("web_search", 0, List.of("https://a.example"), null));
+
+        List<ResearchEvent> summarized = mapper.map(progress("summarize", 0, List.of("https://a.example"), "Summary"));
+        assertThat(summarized.get(1).getDelta()).containsExactly(new PatchOperation("add", "/running_summary", "Summary"));
+
+        List<ResearchEvent> searched = mapper.map(progress("web_search", 1,
+                List.of("https://a.example", "https://b.example", "https://c.example"), "Summary"));
+        assertThat(searched.get(1).getDelta()).containsExactly(
+                new PatchOperation("replace", "/research_loop_count", 1),
+                new PatchOperation("add", "/sources/-", "https://b.example"),
+                new PatchOperation("add", "/sources/-", "https://c.example"));
+
+        // Nothing changed: no delta event
+        assertThat(mapper.map(progress("reflect", 1,
+                List.of("https://a.example", "https://b.example", "https://c.example"), "Summary")))
+                .extracting(ResearchEvent::getType)
+                .containsExactly(ResearchEvent.Type.STEP_STARTED, ResearchEvent.Type.STEP_FINISHED);
+    }
+
+    @Test
+    void finishesRunWithResponse() {
+        ResearchResponse response = ResearchResponse.builder().requestId("request-1").build();
+
+        List<ResearchEvent> events = mapper.map(ResearchProgress.builder().requestId("request-1").response(response).build());
+
+        assertThat(events).singleElement().satisfies(event -> {
+            assertThat(event.getType()).isEqualTo(ResearchEvent.Type.RUN_FINISHED);
+            assertThat(event.getResponse()).isSameAs(response);
+        });
+    }
+
+    private static ResearchProgress progress(String node, int loop, List<String> sources, String summary) {
+        return ResearchProgress.builder()
+                .requestId("request-1")
+                .node(node)
+                .researchLoopCount(loop)
+                .sources(sources)
+                .runningSummary(summary)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+}
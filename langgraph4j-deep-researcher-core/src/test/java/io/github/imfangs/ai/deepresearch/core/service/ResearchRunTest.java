@@ -0,0 +1,117 @@
+package io.github.imfangs.ai.deepresearch.core.service;
+
+import io.github.imfangs.ai.deepresearch.api.dto.ResearchRequest;
+import io.github.imfangs.ai.deepresearch.api.dto.ResearchRequest.Priority;
+import io.github.imfangs.ai.deepresearch.core.scheduler.CallCancellation;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Research run test
+ */
+class ResearchRunTest {
+
+    @Test
+    void cancelsInFlightCallsWhenLastSubscriberDetaches() throws Exception {
+        ResearchRun run = new ResearchRun("key", "request-1", "topic", Priority.NORMAL);
+        // Stands in for a model call running on a call thread
+        CompletableFuture<String> call = new CompletableFuture<>();
+        run.calls().within(() -> {
+            CallCancellation.current().orElseThrow().register(call);
+            return null;
+        });
+        assertThat(CallCancellation.current()).isEmpty();
+
+        assertThat(run.attach(Priority.HIGH)).isTrue();
+        run.detach();
+        assertThat(run.isCancelled()).isFalse();
+        assertThat(call).isNotCancelled();
+
+        run.detach();
+
+        assertThat(run.isCancelled()).isTrue();
+        assertThat(call).isCancelled();
+        // The thread running the graph is left alone
+        assertThat(Thread.currentThread().isInterrupted()).isFalse();
+        assertThat(run.attach(Priority.NORMAL)).isFalse();
+
+        // Calls started after cancellation are aborted right away
+        CompletableFuture<String> late = new CompletableFuture<>();
+        run.calls().register(late);
+        assertThat(late).isCancelled();
+    }
+
+    @Test
+    void interruptsWaitForExecutionSlot() throws Exception {
+        ResearchRun run = new ResearchRun("key", "request-1", "topic", Priority.NORMAL);
+        CountDownLatch waiting = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        AtomicBoolean interruptCleared = new AtomicBoolean();
+        Thread executor = new Thread(() -> {
+            run.startWaiting();
+            waiting.countDown();
+            try {
+                // Stands in for waiting for a scheduler permit
+                Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            } finally {
+                run.stopWaiting();
+                interruptCleared.set(!Thread.currentThread().isInterrupted());
+            }
+        });
+        executor.start();
+        assertThat(waiting.await(5, TimeUnit.SECONDS)).isTrue();
+
+        run.detach();
+        executor.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertThat(interrupted).isTrue();
+        assertThat(interruptCleared).isTrue();
+    }
+
+    @Test
+    void cancelledBeforeWaitingInterruptsImmediately() {
+        ResearchRun run = new ResearchRun("key", "request-1", "topic", Priority.NORMAL);
+        run.detach();
+
+        run.startWaiting();
+        try {
+            assertThat(Thread.currentThread().isInterrupted()).isTrue();
+        } finally {
+            run.stopWaiting();
+        }
+        assertThat(Thread.currentThread().isInterrupted()).isFalse();
+    }
+
+    @Test
+    void keyResolvesOmittedParametersToDefaults() {
+        ResearchRequest omitted = new ResearchRequest();
+        omitted.setResearchTopic("  Solid-State   Batteries ");
+        omitted.setMaxResearchLoops(null);
+        omitted.setSearchEngine(null);
+        omitted.setMaxSearchResults(null);
+        omitted.setFetchFullPage(null);
+
+        ResearchRequest explicit = ResearchRequest.builder()
+                .researchTopic("solid-state batteries")
+                .maxResearchLoops(3)
+                .searchEngine("Tavily")
+                .maxSearchResults(3)
+                .fetchFullPage(true)
+                .userId("other-user")
+                .priority(Priority.HIGH)
+                .build();
+
+        assertThat(ResearchRun.keyOf(omitted)).isEqualTo(ResearchRun.keyOf(explicit));
+
+        explicit.setMaxResearchLoops(4);
+        assertThat(ResearchRun.keyOf(omitted)).isNotEqualTo(ResearchRun.keyOf(explicit));
+    }
+}
@@ -0,0 +1,184 @@
+package io.github.imfangs.ai.deepresearch.batch;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.imfangs.ai.deepresearch.api.dto.ResearchRequest;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * Batch input reader
+ *
+ * Streams research requests from a JSONL file (one ResearchRequest per line) or a CSV file
+ * (topic in the research_topic/topic column, or the first column without header).
+ * Requests without request_id get a stable line-based ID so interrupted batches can resume.
+ * Lines that cannot be parsed are returned as malformed entries, so the batch can record them and go on.
+ */
+@Slf4j
+public class BatchInputReader implements Iterator<BatchInputReader.Entry>, AutoCloseable {
+
+    private final BufferedReader reader;
+    private final ObjectMapper objectMapper;
+    private final boolean csv;
+    private int lineNumber;
+    private int topicColumn = 0;
+    private int requestIdColumn = -1;
+    private Entry next;
+
+    public BatchInputReader(Path input, ObjectMapper objectMapper) throws IOException {
+        this.reader = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+        this.objectMapper = objectMapper;
+        this.csv = input.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv");
+        if (csv) {
+            readCsvHeader();
+        }
+        this.next = readNext();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    @Override
+    public Entry next() {
+        if (next == null) {
+            throw new NoSuchElementException();
+        }
+        Entry current = next;
+        next = readNext();
+        return current;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Detect CSV header row, keeping the first line as data if it has no known column names
+     */
+    private void readCsvHeader() throws IOException {
+        reader.mark(64 * 1024);
+        String line = reader.readLine();
+        if (line == null) {
+            return;
+        }
+        List<String> columns = parseCsvLine(line);
+        int topic = -1;
+        for (int i = 0; i < columns.size(); i++) {
+            String name = columns.get(i).trim().toLowerCase(Locale.ROOT);
+            if (name.equals("research_topic") || name.equals("topic")) {
+                topic = i;
+            } else if (name.equals("request_id")) {
+                requestIdColumn = i;
+            }
+        }
+        if (topic >= 0) {
+            topicColumn = topic;
+            lineNumber++;
+        } else {
+            requestIdColumn = -1;
+            reader.reset();
+        }
+    }
+
+    private Entry readNext() {
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                ResearchRequest request;
+                try {
+                    request = csv ? fromCsv(line) : objectMapper.readValue(line, ResearchRequest.class);
+                } catch (JsonProcessingException e) {
+                    log.warn("Malformed batch input at line {}: {}", lineNumber, e.getOriginalMessage());
+                    ResearchRequest malformed = ResearchRequest.builder().requestId("line-" + lineNumber).build();
+                    return new Entry(malformed, "Malformed input at line " + lineNumber + ": " + e.getOriginalMessage());
+                }
+                if (request.getResearchTopic() == null || request.getResearchTopic().isBlank()) {
+                    continue;
+                }
+                if (request.getRequestId() == null || request.getRequestId().isBlank()) {
+                    request.setRequestId("line-" + lineNumber);
+                }
+                return new Entry(request, null);
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read batch input at line " + lineNumber, e);
+        }
+    }
+
+    private ResearchRequest fromCsv(String line) {
+        List<String> columns = parseCsvLine(line);
+        ResearchRequest request = ResearchRequest.builder()
+                .researchTopic(topicColumn < columns.size() ? columns.get(topicColumn).trim() : null)
+                .build();
+        if (requestIdColumn >= 0 && requestIdColumn < columns.size()) {
+            request.setRequestId(columns.get(requestIdColumn).trim());
+        }
+        return request;
+    }
+
+    /**
+     * Parse one CSV line with RFC 4180 quoting (quoted fields may contain commas and doubled quotes)
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> columns = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                columns.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        columns.add(field.toString());
+        return columns;
+    }
+
+    /**
+     * Batch input entry
+     *
+     * @param request Research request; only carries the line-based request ID if the line is malformed
+     * @param error Why the line could not be parsed, null for valid requests
+     */
+    public record Entry(ResearchRequest request, String error) {
+
+        /**
+         * Whether the line could not be parsed
+         */
+        public boolean malformed() {
+            return error != null;
+        }
+    }
+}
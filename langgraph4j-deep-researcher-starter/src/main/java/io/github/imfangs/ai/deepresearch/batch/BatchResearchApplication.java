@@ -0,0 +1,62 @@
+package io.github.imfangs.ai.deepresearch.batch;
+
+import io.github.imfangs.ai.deepresearch.DeepResearchApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import java.nio.file.Path;
+
+/**
+ * Headless batch research entry point
+ *
+ * Boots the research application without a web server and runs all topics of an input file, e.g.
+ * <pre>
+ * java -cp app.jar -Dloader.main=io.github.imfangs.ai.deepresearch.batch.BatchResearchApplication \
+ *      org.springframework.boot.loader.PropertiesLauncher \
+ *      --batch.input=topics.csv --batch.output=results.jsonl --batch.parallelism=4
+ * </pre>
+ * Options: batch.input (required, .csv or .jsonl), batch.output (default: input name + .results.jsonl),
+ * batch.progress (default: output name + .progress), batch.parallelism (default: 4),
+ * batch.retry-failed (default: false)
+ */
+@Slf4j
+public class BatchResearchApplication {
+
+    public static void main(String[] args) {
+        int exitCode = 0;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(DeepResearchApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args)) {
+
+            BatchResearchRunner.BatchOptions options = readOptions(context.getEnvironment());
+            BatchResearchRunner.BatchStats stats = context.getBean(BatchResearchRunner.class).run(options);
+            exitCode = stats.failed() > 0 ? 2 : 0;
+
+        } catch (Exception e) {
+            log.error("Batch research failed", e);
+            exitCode = 1;
+        }
+        System.exit(exitCode);
+    }
+
+    private static BatchResearchRunner.BatchOptions readOptions(Environment env) {
+        String input = env.getProperty("batch.input");
+        if (input == null || input.isBlank()) {
+            throw new IllegalArgumentException("Missing required option --batch.input=<topics.csv|topics.jsonl>");
+        }
+        String output = env.getProperty("batch.output", input + ".results.jsonl");
+        String progress = env.getProperty("batch.progress", output + ".progress");
+        int parallelism = env.getProperty("batch.parallelism", Integer.class, 4);
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Option batch.parallelism must be at least 1");
+        }
+
+        boolean retryFailed = env.getProperty("batch.retry-failed", Boolean.class, false);
+
+        return new BatchResearchRunner.BatchOptions(Path.of(input), Path.of(output), Path.of(progress), parallelism,
+                retryFailed);
+    }
+}
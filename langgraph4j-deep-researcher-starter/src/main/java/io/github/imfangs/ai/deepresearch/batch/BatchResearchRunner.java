@@ -0,0 +1,278 @@
+package io.github.imfangs.ai.deepresearch.batch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.imfangs.ai.deepresearch.api.dto.ResearchRequest;
+import io.github.imfangs.ai.deepresearch.api.dto.ResearchResponse;
+import io.github.imfangs.ai.deepresearch.core.scheduler.RateLimitExceededException;
+import io.github.imfangs.ai.deepresearch.core.service.DeepResearchService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Batch research runner
+ *
+ * Runs research requests from a topic file with bounded parallelism over the shared research service,
+ * appending each response to a JSONL output file as soon as it finishes. The ID of every request with an
+ * output line is appended to a progress file, failed ones marked as such, and requests already listed there
+ * are skipped, so an interrupted batch resumes where it stopped without duplicating output. Failed requests
+ * are only run again when retrying failures is requested. Only created for batch runs (batch.input set).
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+@ConditionalOnProperty(name = "batch.input")
+public class BatchResearchRunner {
+
+    /**
+     * Scheduler user for batch requests without user ID, so batches share fairly with interactive users
+     */
+    static final String BATCH_USER = "batch";
+
+    /**
+     * Progress file marker of failed requests, separated from the request ID by a tab
+     */
+    static final String FAILED_MARKER = "FAILED";
+
+    private final DeepResearchService deepResearchService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    /**
+     * Run a batch
+     *
+     * @param options Batch options
+     * @return Batch statistics
+     */
+    public BatchStats run(BatchOptions options) throws IOException, InterruptedException {
+        // Request ID -> whether it succeeded
+        Map<String, Boolean> completed = loadProgress(options.progress());
+        log.info("🚀 Starting batch research, input: {}, output: {}, parallelism: {}, already completed: {}",
+                options.input(), options.output(), options.parallelism(), completed.size());
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        int skipped = 0;
+
+        ExecutorService executor = Executors.newFixedThreadPool(options.parallelism());
+        // Bounds in-flight requests so large inputs are streamed rather than loaded up front
+        Semaphore inFlight = new Semaphore(options.parallelism());
+
+        try (BatchInputReader reader = new BatchInputReader(options.input(), objectMapper);
+             BufferedWriter output = open(options.output());
+             BufferedWriter progress = open(options.progress())) {
+
+            while (reader.hasNext()) {
+                BatchInputReader.Entry entry = reader.next();
+                ResearchRequest request = entry.request();
+                Boolean previous = completed.get(request.getRequestId());
+                if (previous != null && (previous || !options.retryFailed())) {
+                    skipped++;
+                    continue;
+                }
+
+                if (entry.malformed()) {
+                    record(request, failedResponse(request, entry.error()), output, progress, succeeded, failed);
+                    continue;
+                }
+
+                inFlight.acquire();
+                executor.execute(() -> {
+                    try {
+                        ResearchResponse response;
+                        try {
+                            response = execute(request);
+                        } catch (Exception e) {
+                            if (Thread.currentThread().isInterrupted()) {
+                                // Batch is shutting down, leave the request to the next run
+                                log.warn("Batch request interrupted, request ID: {}", request.getRequestId());
+                                failed.incrementAndGet();
+                                return;
+                            }
+                            log.error("Batch request failed, request ID: " + request.getRequestId(), e);
+                            response = failedResponse(request, e.getMessage());
+                        }
+                        record(request, response, output, progress, succeeded, failed);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+
+            executor.shutdown();
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.info("⏳ Batch in progress - succeeded: {}, failed: {}", succeeded.get(), failed.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        BatchStats stats = new BatchStats(succeeded.get(), failed.get(), skipped);
+        log.info("✅ Batch research completed - succeeded: {}, failed: {}, skipped: {}",
+                stats.succeeded(), stats.failed(), stats.skipped());
+        return stats;
+    }
+
+    /**
+     * Validate and execute one request
+     */
+    private ResearchResponse execute(ResearchRequest request) {
+        Set<ConstraintViolation<ResearchRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            String message = violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .collect(Collectors.joining("; "));
+            return failedResponse(request, "Invalid request: " + message);
+        }
+        if (request.getUserId() == null || request.getUserId().isBlank()) {
+            request.setUserId(BATCH_USER);
+        }
+        if (request.getPriority() == null) {
+            request.setPriority(ResearchRequest.Priority.LOW);
+        }
+        // Batch requests wait out rate limits instead of failing
+        while (true) {
+            try {
+                return deepResearchService.executeResearch(request);
+            } catch (RateLimitExceededException e) {
+                sleep(e.getRetryAfter());
+            }
+        }
+    }
+
+    /**
+     * Response of a request that could not be run
+     */
+    private ResearchResponse failedResponse(ResearchRequest request, String errorMessage) {
+        return ResearchResponse.builder()
+                .requestId(request.getRequestId())
+                .researchTopic(request.getResearchTopic())
+                .success(false)
+                .errorMessage(errorMessage)
+                .status(ResearchResponse.ResearchStatus.FAILED)
+                .sourcesGathered(List.of())
+                .actualLoops(0)
+                .startTime(LocalDateTime.now())
+                .endTime(LocalDateTime.now())
+                .durationMs(0L)
+                .build();
+    }
+
+    /**
+     * Append the response to the output file and the request ID to the progress file
+     */
+    private void record(ResearchRequest request, ResearchResponse response, BufferedWriter output,
+                        BufferedWriter progress, AtomicInteger succeeded, AtomicInteger failed) {
+        boolean success = Boolean.TRUE.equals(response.getSuccess());
+        try {
+            write(output, objectMapper.writeValueAsString(response));
+            write(progress, success ? request.getRequestId() : request.getRequestId() + "\t" + FAILED_MARKER);
+        } catch (Exception e) {
+            log.error("Failed to write batch result, request ID: " + request.getRequestId(), e);
+            failed.incrementAndGet();
+            return;
+        }
+        if (success) {
+            succeeded.incrementAndGet();
+        } else {
+            failed.incrementAndGet();
+        }
+    }
+
+    private void sleep(Duration duration) {
+        try {
+            Thread.sleep(Math.max(1, duration.toMillis()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for rate limit", e);
+        }
+    }
+
+    /**
+     * Load request IDs recorded by previous runs
+     *
+     * @return Request ID -> whether the request succeeded (a later entry of the same ID wins)
+     */
+    private Map<String, Boolean> loadProgress(Path progress) throws IOException {
+        Map<String, Boolean> completed = new HashMap<>();
+        if (!Files.exists(progress)) {
+            return completed;
+        }
+        try (var lines = Files.lines(progress, StandardCharsets.UTF_8)) {
+            lines.filter(line -> !line.isBlank()).forEach(line -> {
+                int tab = line.lastIndexOf('\t');
+                if (tab >= 0 && FAILED_MARKER.equals(line.substring(tab + 1).trim())) {
+                    completed.put(line.substring(0, tab).trim(), false);
+                } else {
+                    completed.put(line.trim(), true);
+                }
+            });
+        }
+        return completed;
+    }
+
+    private BufferedWriter open(Path path) throws IOException {
+        return Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Append one line and flush, so finished results survive an interruption
+     */
+    private void write(BufferedWriter writer, String line) {
+        synchronized (writer) {
+            try {
+                writer.write(line);
+                writer.newLine();
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Batch options
+     *
+     * @param input Topic file (.csv or .jsonl)
+     * @param output JSONL result file, appended to
+     * @param progress Progress file with IDs of completed and failed requests
+     * @param parallelism Maximum concurrent research runs
+     * @param retryFailed Whether requests that failed in a previous run are run again
+     */
+    public record BatchOptions(Path input, Path output, Path progress, int parallelism, boolean retryFailed) {
+    }
+
+    /**
+     * Batch statistics
+     *
+     * @param succeeded Requests completed successfully
+     * @param failed Requests that failed
+     * @param skipped Requests skipped because a previous run recorded them
+     */
+    public record BatchStats(int succeeded, int failed, int skipped) {
+    }
+}
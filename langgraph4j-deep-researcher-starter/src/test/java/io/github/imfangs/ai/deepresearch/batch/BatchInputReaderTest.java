@@ -0,0 +1,62 @@
+package io.github.imfangs.ai.deepresearch.batch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Batch input reader test
+ */
+class BatchInputReaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void returnsMalformedLineAndContinues() throws Exception {
+        Path input = dir.resolve("topics.jsonl");
+        Files.writeString(input, """
+                {"research_topic": "Solid-state batteries", "request_id": "a"}
+                {"research_topic": "Sodium-ion batteries"
+                
+                {"research_topic": "Battery recycling"}
+                """);
+
+        List<BatchInputReader.Entry> entries = new ArrayList<>();
+        try (BatchInputReader reader = new BatchInputReader(input, new ObjectMapper())) {
+            reader.forEachRemaining(entries::add);
+        }
+
+        assertThat(entries).hasSize(3);
+        assertThat(entries.get(0).malformed()).isFalse();
+        assertThat(entries.get(0).request().getRequestId()).isEqualTo("a");
+        assertThat(entries.get(1).malformed()).isTrue();
+        assertThat(entries.get(1).request().getRequestId()).isEqualTo("line-2");
+        assertThat(entries.get(1).error()).startsWith("Malformed input at line 2");
+        assertThat(entries.get(2).request().getResearchTopic()).isEqualTo("Battery recycling");
+        assertThat(entries.get(2).request().getRequestId()).isEqualTo("line-4");
+    }
+
+    @Test
+    void readsCsvWithHeader() throws Exception {
+        Path input = dir.resolve("topics.csv");
+        Files.writeString(input, """
+                request_id,research_topic
+                a,"Batteries, solid-state"
+                """);
+
+        try (BatchInputReader reader = new BatchInputReader(input, new ObjectMapper())) {
+            BatchInputReader.Entry entry = reader.next();
+            assertThat(entry.request().getRequestId()).isEqualTo("a");
+            assertThat(entry.request().getResearchTopic()).isEqualTo("Batteries, solid-state");
+            assertThat(reader.hasNext()).isFalse();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package io.github.imfangs.ai.deepresearch.batch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.imfangs.ai.deepresearch.api.dto.ResearchRequest;
+import io.github.imfangs.ai.deepresearch.api.dto.ResearchResponse;
+import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
+import io.github.imfangs.ai.deepresearch.core.service.DeepResearchService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Batch research runner test
+ */
+class BatchResearchRunnerTest {
+
+    @TempDir
+    Path dir;
+
+    private final List<String> executed = new CopyOnWriteArrayList<>();
+    private final BatchResearchRunner runner = new BatchResearchRunner(new StubResearchService(),
+            new ObjectMapper().findAndRegisterModules(), Validation.buildDefaultValidatorFactory().getValidator());
+
+    @Test
+    void recordsFailuresAndDoesNotRepeatThem() throws Exception {
+        Path input = dir.resolve("topics.jsonl");
+        Files.writeString(input, """
+                {"research_topic": "Solid-state batteries", "request_id": "ok"}
+                {"research_topic": "Sodium-ion
+                {"research_topic": "fail", "request_id": "failing"}
+                """);
+        BatchResearchRunner.BatchOptions options = options(input, false);
+
+        BatchResearchRunner.BatchStats first = runner.run(options);
+
+        assertThat(first).isEqualTo(new BatchResearchRunner.BatchStats(1, 2, 0));
+        assertThat(Files.readAllLines(options.output())).hasSize(3);
+        assertThat(Files.readAllLines(options.progress()))
+                .containsExactlyInAnyOrder("ok", "line-2\tFAILED", "failing\tFAILED");
+
+        BatchResearchRunner.BatchStats second = runner.run(options);
+
+        assertThat(second).isEqualTo(new BatchResearchRunner.BatchStats(0, 0, 3));
+        assertThat(Files.readAllLines(options.output())).hasSize(3);
+        assertThat(executed).containsExactlyInAnyOrder("ok", "failing");
+    }
+
+    @Test
+    void retriesFailuresOnRequest() throws Exception {
+        Path input = dir.resolve("topics.jsonl");
+        Files.writeString(input, """
+                {"research_topic": "Solid-state batteries", "request_id": "ok"}
+                {"research_topic": "fail", "request_id": "failing"}
+                """);
+        runner.run(options(input, false));
+
+        BatchResearchRunner.BatchStats retry = runner.run(options(input, true));
+
+        assertThat(retry).isEqualTo(new BatchResearchRunner.BatchStats(0, 1, 1));
+        assertThat(executed).containsExactlyInAnyOrder("ok", "failing", "failing");
+    }
+
+    private BatchResearchRunner.BatchOptions options(Path input, boolean retryFailed) {
+        return new BatchResearchRunner.BatchOptions(input, dir.resolve("results.jsonl"),
+                dir.resolve("results.jsonl.progress"), 2, retryFailed);
+    }
+
+    /**
+     * Research service failing topics named "fail"
+     */
+    private class StubResearchService extends DeepResearchService {
+
+        StubResearchService() {
+            super(null, null, null, null, new ResearchConfig(), new SimpleMeterRegistry());
+        }
+
+        @Override
+        public ResearchResponse executeResearch(ResearchRequest request) {
+            executed.add(request.getRequestId());
+            boolean success = !"fail".equals(request.getResearchTopic());
+            return ResearchResponse.builder()
+                    .requestId(request.getRequestId())
+                    .researchTopic(request.getResearchTopic())
+                    .success(success)
+                    .status(success ? ResearchResponse.ResearchStatus.COMPLETED : ResearchResponse.ResearchStatus.FAILED)
+                    .build();
+        }
+    }
+}
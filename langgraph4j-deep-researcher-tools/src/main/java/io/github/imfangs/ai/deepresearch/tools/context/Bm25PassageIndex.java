@@ -0,0 +1,164 @@
+package io.github.imfangs.ai.deepresearch.tools.context;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * In-memory BM25 passage index
+ *
+ * Passages are added incrementally and tokenized into the same terms as {@link TextShingles}. Postings are
+ * kept per term in growable primitive arrays of passage ids and term frequencies, so the index holds no
+ * boxed values beyond the term dictionary. Statistics are always current, so searches between additions
+ * score against everything indexed so far.
+ */
+public final class Bm25PassageIndex {
+
+    /**
+     * Term frequency saturation
+     */
+    private static final double K1 = 1.2;
+
+    /**
+     * Passage length normalization
+     */
+    private static final double B = 0.75;
+
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private int[][] postingIds = new int[256][];
+    private int[][] postingFreqs = new int[256][];
+    private int[] postingSizes = new int[256];
+
+    private int[] passageLengths = new int[64];
+    private int passageCount;
+    private long totalLength;
+
+    /**
+     * Index a passage
+     *
+     * @param text Passage text
+     * @return Passage id, assigned in insertion order from 0
+     */
+    public synchronized int add(String text) {
+        int passage = passageCount++;
+        if (passage == passageLengths.length) {
+            passageLengths = Arrays.copyOf(passageLengths, passage * 2);
+        }
+
+        List<String> terms = TextShingles.terms(text);
+        passageLengths[passage] = terms.size();
+        totalLength += terms.size();
+
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : terms) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        frequencies.forEach((term, frequency) -> addPosting(termId(term), passage, frequency));
+        return passage;
+    }
+
+    /**
+     * Find the passages best matching a query
+     *
+     * @param query Query text
+     * @param limit Maximum passages returned
+     * @return Matching passages by descending score
+     */
+    public synchronized List<ScoredPassage> search(String query, int limit) {
+        if (passageCount == 0 || limit <= 0) {
+            return List.of();
+        }
+
+        double averageLength = Math.max((double) totalLength / passageCount, 1.0);
+        double[] scores = new double[passageCount];
+        int[] matchedTerms = new int[passageCount];
+        boolean matched = false;
+        for (String term : TextShingles.terms(query).stream().distinct().toList()) {
+            Integer termId = termIds.get(term);
+            if (termId == null) {
+                continue;
+            }
+            int documentFrequency = postingSizes[termId];
+            double idf = Math.log(1.0 + (passageCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+            int[] ids = postingIds[termId];
+            int[] freqs = postingFreqs[termId];
+            for (int i = 0; i < documentFrequency; i++) {
+                int passage = ids[i];
+                double frequency = freqs[i];
+                double norm = K1 * (1.0 - B + B * passageLengths[passage] / averageLength);
+                scores[passage] += idf * frequency * (K1 + 1.0) / (frequency + norm);
+                matchedTerms[passage]++;
+            }
+            matched = true;
+        }
+        if (!matched) {
+            return List.of();
+        }
+
+        PriorityQueue<ScoredPassage> top = new PriorityQueue<>(limit + 1, Comparator.comparingDouble(ScoredPassage::score));
+        for (int passage = 0; passage < passageCount; passage++) {
+            if (scores[passage] <= 0.0) {
+                continue;
+            }
+            if (top.size() < limit) {
+                top.add(new ScoredPassage(passage, scores[passage], matchedTerms[passage]));
+            } else if (scores[passage] > top.peek().score()) {
+                top.poll();
+                top.add(new ScoredPassage(passage, scores[passage], matchedTerms[passage]));
+            }
+        }
+
+        List<ScoredPassage> ranked = new ArrayList<>(top);
+        ranked.sort(Comparator.comparingDouble(ScoredPassage::score).reversed());
+        return ranked;
+    }
+
+    /**
+     * Number of indexed passages
+     */
+    public synchronized int size() {
+        return passageCount;
+    }
+
+    private int termId(String term) {
+        Integer existing = termIds.get(term);
+        if (existing != null) {
+            return existing;
+        }
+        int termId = termIds.size();
+        termIds.put(term, termId);
+        if (termId == postingIds.length) {
+            postingIds = Arrays.copyOf(postingIds, termId * 2);
+            postingFreqs = Arrays.copyOf(postingFreqs, termId * 2);
+            postingSizes = Arrays.copyOf(postingSizes, termId * 2);
+        }
+        postingIds[termId] = new int[4];
+        postingFreqs[termId] = new int[4];
+        return termId;
+    }
+
+    private void addPosting(int termId, int passage, int frequency) {
+        int size = postingSizes[termId];
+        if (size == postingIds[termId].length) {
+            postingIds[termId] = Arrays.copyOf(postingIds[termId], size * 2);
+            postingFreqs[termId] = Arrays.copyOf(postingFreqs[termId], size * 2);
+        }
+        postingIds[termId][size] = passage;
+        postingFreqs[termId][size] = frequency;
+        postingSizes[termId] = size + 1;
+    }
+
+    /**
+     * Passage matching a query
+     *
+     * @param passage Passage id
+     * @param score BM25 score
+     * @param matchedTerms Distinct query terms found in the passage
+     */
+    public record ScoredPassage(int passage, double score, int matchedTerms) {
+    }
+}
@@ -0,0 +1,243 @@
+package io.github.imfangs.ai.deepresearch.tools.context;
+
+import io.github.imfangs.ai.deepresearch.api.dto.SearchResult;
+import io.github.imfangs.ai.deepresearch.tools.token.TokenizerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Context packer
+ *
+ * Splits search results into chunks, ranks them by relevance score and novelty against what is already known,
+ * and greedily fills a fixed token budget with the chunks carrying the most new information per token
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class ContextPacker {
+
+    /**
+     * Target tokens per raw content chunk
+     */
+    private static final int CHUNK_TOKENS = 256;
+
+    /**
+     * Terms per shingle used for novelty estimation
+     */
+    private static final int SHINGLE_SIZE = 3;
+
+    /**
+     * Relevance assumed for results without a score
+     */
+    private static final double DEFAULT_SCORE = 0.5;
+
+    /**
+     * Chunks with less novelty than this are not worth their tokens
+     */
+    private static final double MIN_NOVELTY = 0.1;
+
+    private final TokenizerService tokenizerService;
+
+    /**
+     * Pack search results into a prompt context
+     *
+     * @param searchResults Search results to pack
+     * @param knownContent Content already known to the model (e.g. the running summary), used to score novelty
+     * @param maxTokens Token budget of the packed context
+     * @param maxTokensPerSource Token budget per source
+     * @return Formatted context grouped by source
+     */
+    public String pack(List<SearchResult> searchResults, String knownContent, int maxTokens, int maxTokensPerSource) {
+        if (searchResults == null || searchResults.isEmpty()) {
+            return "No relevant search results found";
+        }
+
+        return pack(chunk(searchResults), knownContent, maxTokens, maxTokensPerSource);
+    }
+
+    /**
+     * Pack scored chunks into a prompt context
+     */
+    String pack(List<Chunk> candidates, String knownContent, int maxTokens, int maxTokensPerSource) {
+        List<Chunk> selected = select(candidates, knownContent, maxTokens, maxTokensPerSource);
+        if (selected.isEmpty()) {
+            return "No new information found in search results";
+        }
+        return format(selected);
+    }
+
+    /**
+     * Greedy knapsack selection with novelty re-evaluated against already selected chunks
+     */
+    List<Chunk> select(List<Chunk> candidates, String knownContent, int maxTokens, int maxTokensPerSource) {
+        Set<Long> seen = new HashSet<>(TextShingles.shingles(knownContent, SHINGLE_SIZE));
+        Map<String, Integer> sourceTokens = new LinkedHashMap<>();
+        List<Chunk> remaining = new ArrayList<>(candidates);
+        List<Chunk> selected = new ArrayList<>();
+        int usedTokens = 0;
+
+        while (!remaining.isEmpty()) {
+            int bestIndex = -1;
+            double bestDensity = 0.0;
+            for (int i = 0; i < remaining.size(); i++) {
+                Chunk chunk = remaining.get(i);
+                double novelty = TextShingles.novelty(chunk.shingles(), seen);
+                if (novelty < MIN_NOVELTY) {
+                    continue;
+                }
+                // New information per token, so long passages do not crowd out short, dense ones
+                double density = chunk.relevance() * novelty / Math.max(1, chunk.tokens());
+                if (density > bestDensity) {
+                    bestIndex = i;
+                    bestDensity = density;
+                }
+            }
+            if (bestIndex < 0) {
+                break;
+            }
+            Chunk best = remaining.remove(bestIndex);
+
+            int sourceUsed = sourceTokens.getOrDefault(best.result().getUrl(), 0);
+            if (usedTokens + best.tokens() > maxTokens || sourceUsed + best.tokens() > maxTokensPerSource) {
+                continue;
+            }
+            selected.add(best);
+            seen.addAll(best.shingles());
+            usedTokens += best.tokens();
+            sourceTokens.put(best.result().getUrl(), sourceUsed + best.tokens());
+        }
+
+        log.debug("Context packing selected {}/{} chunks, {} tokens", selected.size(), candidates.size(), usedTokens);
+        return selected;
+    }
+
+    /**
+     * Split search results into scored chunks (snippet first, then raw content passages)
+     */
+    List<Chunk> chunk(List<SearchResult> searchResults) {
+        Map<String, SearchResult> uniqueResults = new LinkedHashMap<>();
+        for (SearchResult result : searchResults) {
+            uniqueResults.putIfAbsent(result.getUrl(), result);
+        }
+
+        List<Chunk> chunks = new ArrayList<>();
+        int sourceRank = 0;
+        for (SearchResult result : uniqueResults.values()) {
+            double score = result.getScore() != null ? result.getScore() : DEFAULT_SCORE;
+            List<String> passages = new ArrayList<>();
+            if (result.getContent() != null && !result.getContent().isBlank()) {
+                passages.add(result.getContent().trim());
+            }
+            if (result.getRawContent() != null && !result.getRawContent().isBlank()) {
+                passages.addAll(splitPassages(result.getRawContent()));
+            }
+
+            for (int position = 0; position < passages.size(); position++) {
+                String text = passages.get(position);
+                // Content near the top of a page is usually the most relevant to the query that found it
+                double relevance = score / (1.0 + 0.1 * position);
+                chunks.add(new Chunk(result, sourceRank, position, text,
+                    tokenizerService.countTokens(text), relevance, TextShingles.shingles(text, SHINGLE_SIZE)));
+            }
+            sourceRank++;
+        }
+        return chunks;
+    }
+
+    /**
+     * Split raw content into passages of about CHUNK_TOKENS tokens along paragraph boundaries
+     */
+    private List<String> splitPassages(String rawContent) {
+        List<String> passages = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int currentTokens = 0;
+
+        for (String paragraph : rawContent.split("\\n\\s*\\n|\\r?\\n")) {
+            String text = paragraph.trim();
+            if (text.isEmpty()) {
+                continue;
+            }
+            // Oversized paragraphs are cut into token-bounded pieces
+            while (!tokenizerService.fits(text, CHUNK_TOKENS)) {
+                String head = tokenizerService.truncate(text, CHUNK_TOKENS);
+                if (head.isEmpty()) {
+                    break;
+                }
+                if (current.length() > 0) {
+                    passages.add(current.toString());
+                    current.setLength(0);
+                    currentTokens = 0;
+                }
+                passages.add(head);
+                text = text.substring(head.length()).trim();
+            }
+            if (text.isEmpty()) {
+                continue;
+            }
+
+            int tokens = tokenizerService.countTokens(text);
+            if (currentTokens + tokens > CHUNK_TOKENS && current.length() > 0) {
+                passages.add(current.toString());
+                current.setLength(0);
+                currentTokens = 0;
+            }
+            if (current.length() > 0) {
+                current.append("\n");
+            }
+            current.append(text);
+            currentTokens += tokens;
+        }
+        if (current.length() > 0) {
+            passages.add(current.toString());
+        }
+        return passages;
+    }
+
+    /**
+     * Format selected chunks grouped by source, in source rank and page order
+     */
+    private String format(List<Chunk> selected) {
+        Map<String, List<Chunk>> bySource = new LinkedHashMap<>();
+        selected.stream()
+            .sorted(Comparator.comparingInt(Chunk::sourceRank).thenComparingInt(Chunk::position))
+            .forEach(chunk -> bySource.computeIfAbsent(chunk.result().getUrl(), url -> new ArrayList<>()).add(chunk));
+
+        StringBuilder formatted = new StringBuilder();
+        formatted.append("Sources:\n\n");
+        for (Map.Entry<String, List<Chunk>> entry : bySource.entrySet()) {
+            SearchResult result = entry.getValue().get(0).result();
+            formatted.append(String.format("Source: %s\n===\n", result.getTitle()));
+            formatted.append(String.format("URL: %s\n===\n", result.getUrl()));
+            formatted.append("Most relevant content from source:\n");
+            for (Chunk chunk : entry.getValue()) {
+                formatted.append(chunk.text()).append("\n...\n");
+            }
+            formatted.append("\n");
+        }
+        return formatted.toString().trim();
+    }
+
+    /**
+     * Scored chunk of a search result
+     *
+     * @param result Source search result
+     * @param sourceRank Rank of the source in arrival order
+     * @param position Position of the chunk within the source
+     * @param text Chunk text
+     * @param tokens Chunk token count
+     * @param relevance Relevance estimate from the source score and chunk position
+     * @param shingles Chunk shingles for novelty estimation
+     */
+    record Chunk(SearchResult result, int sourceRank, int position, String text,
+                 int tokens, double relevance, Set<Long> shingles) {
+    }
+}
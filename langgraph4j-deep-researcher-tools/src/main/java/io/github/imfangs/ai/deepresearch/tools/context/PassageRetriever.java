@@ -0,0 +1,132 @@
+package io.github.imfangs.ai.deepresearch.tools.context;
+
+import io.github.imfangs.ai.deepresearch.api.dto.SearchResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Query-focused passage retriever
+ *
+ * Keeps a BM25 passage index per research run, built incrementally from every search result gathered
+ * by the run. Prompts retrieve the top passages for the current query and knowledge gaps, which are then
+ * packed into the token budget by relevance and novelty.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class PassageRetriever {
+
+    /**
+     * Run indexes kept at most; runs that end without releasing their index are evicted least recently used first
+     */
+    private static final int MAX_RUNS = 256;
+
+    private final ContextPacker contextPacker;
+
+    private final Map<String, RunIndex> runs = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, RunIndex> eldest) {
+                    return size() > MAX_RUNS;
+                }
+            });
+
+    /**
+     * Index search results of a run; sources already indexed are skipped
+     *
+     * @param runId Research run ID
+     * @param searchResults Search results gathered so far
+     * @return Number of passages added
+     */
+    public int index(String runId, List<SearchResult> searchResults) {
+        RunIndex run = runs.computeIfAbsent(runId, id -> new RunIndex());
+        synchronized (run) {
+            List<SearchResult> newResults = new ArrayList<>();
+            for (SearchResult result : searchResults) {
+                if (result.getUrl() != null && run.urls.add(result.getUrl())) {
+                    newResults.add(result);
+                }
+            }
+            if (newResults.isEmpty()) {
+                return 0;
+            }
+
+            int sourceOffset = run.urls.size() - newResults.size();
+            List<ContextPacker.Chunk> chunks = contextPacker.chunk(newResults);
+            for (ContextPacker.Chunk chunk : chunks) {
+                run.index.add(chunk.text());
+                run.chunks.add(new ContextPacker.Chunk(chunk.result(), sourceOffset + chunk.sourceRank(),
+                        chunk.position(), chunk.text(), chunk.tokens(), chunk.relevance(), chunk.shingles()));
+            }
+            log.debug("Indexed {} passages from {} sources for run {}, {} passages total",
+                    chunks.size(), newResults.size(), runId, run.index.size());
+            return chunks.size();
+        }
+    }
+
+    /**
+     * Retrieve the passages of a run most relevant to a query and pack them into a prompt context
+     *
+     * @param runId Research run ID
+     * @param query Retrieval query, e.g. the search query and open knowledge gaps
+     * @param knownContent Content already known to the model, used to skip redundant passages
+     * @param topK Passages retrieved before packing
+     * @param maxTokens Token budget of the packed context
+     * @param maxTokensPerSource Token budget per source
+     * @return Formatted context grouped by source
+     */
+    public String retrieve(String runId, String query, String knownContent, int topK, int maxTokens, int maxTokensPerSource) {
+        RunIndex run = runs.get(runId);
+        if (run == null) {
+            return "No relevant search results found";
+        }
+
+        List<ContextPacker.Chunk> candidates = new ArrayList<>();
+        synchronized (run) {
+            if (run.chunks.isEmpty()) {
+                return "No relevant search results found";
+            }
+            List<Bm25PassageIndex.ScoredPassage> hits = run.index.search(query, topK);
+            if (hits.isEmpty()) {
+                // Nothing matches the query terms: fall back to source relevance
+                candidates.addAll(run.chunks);
+            } else {
+                double topScore = hits.get(0).score();
+                for (Bm25PassageIndex.ScoredPassage hit : hits) {
+                    ContextPacker.Chunk chunk = run.chunks.get(hit.passage());
+                    candidates.add(new ContextPacker.Chunk(chunk.result(), chunk.sourceRank(), chunk.position(),
+                            chunk.text(), chunk.tokens(), hit.score() / topScore, chunk.shingles()));
+                }
+            }
+            log.debug("Retrieved {}/{} passages for run {}", candidates.size(), run.chunks.size(), runId);
+        }
+        return contextPacker.pack(candidates, knownContent, maxTokens, maxTokensPerSource);
+    }
+
+    /**
+     * Release the index of a finished run
+     *
+     * @param runId Research run ID
+     */
+    public void release(String runId) {
+        runs.remove(runId);
+    }
+
+    /**
+     * Passage index of one run
+     */
+    private static final class RunIndex {
+        private final Bm25PassageIndex index = new Bm25PassageIndex();
+        private final List<ContextPacker.Chunk> chunks = new ArrayList<>();
+        private final Set<String> urls = new HashSet<>();
+    }
+}
@@ -0,0 +1,84 @@
+package io.github.imfangs.ai.deepresearch.tools.context;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Word n-gram shingles for text overlap and novelty estimation
+ *
+ * Latin words are taken as whole terms, while CJK characters count as one term each since they are not space separated
+ */
+public final class TextShingles {
+
+    private static final Pattern TERM_PATTERN = Pattern.compile("\\p{IsHan}|\\p{IsHiragana}|\\p{IsKatakana}|\\p{IsHangul}|[\\p{L}\\p{N}]+");
+
+    private TextShingles() {
+    }
+
+    /**
+     * Split text into lower-cased terms
+     *
+     * @param text Text to split
+     * @return Terms in order of appearance
+     */
+    public static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        Matcher matcher = TERM_PATTERN.matcher(text);
+        while (matcher.find()) {
+            terms.add(matcher.group().toLowerCase(Locale.ROOT));
+        }
+        return terms;
+    }
+
+    /**
+     * Build hashed n-gram shingles of text
+     *
+     * @param text Text to shingle
+     * @param n Terms per shingle
+     * @return Shingle hashes (texts shorter than n terms yield a single shingle)
+     */
+    public static Set<Long> shingles(String text, int n) {
+        List<String> terms = terms(text);
+        Set<Long> shingles = new HashSet<>();
+        if (terms.isEmpty()) {
+            return shingles;
+        }
+        int last = Math.max(terms.size() - n, 0);
+        for (int i = 0; i <= last; i++) {
+            long hash = 1125899906842597L;
+            for (int j = i; j < Math.min(i + n, terms.size()); j++) {
+                hash = 31 * hash + terms.get(j).hashCode();
+            }
+            shingles.add(hash);
+        }
+        return shingles;
+    }
+
+    /**
+     * Fraction of shingles not contained in the seen set
+     *
+     * @param shingles Shingles of the candidate text
+     * @param seen Shingles already seen
+     * @return Novelty between 0 (nothing new) and 1 (entirely new)
+     */
+    public static double novelty(Set<Long> shingles, Set<Long> seen) {
+        if (shingles.isEmpty()) {
+            return 0.0;
+        }
+        int unseen = 0;
+        for (Long shingle : shingles) {
+            if (!seen.contains(shingle)) {
+                unseen++;
+            }
+        }
+        return (double) unseen / shingles.size();
+    }
+}
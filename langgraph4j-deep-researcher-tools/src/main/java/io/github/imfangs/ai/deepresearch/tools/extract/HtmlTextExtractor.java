@@ -0,0 +1,669 @@
+package io.github.imfangs.ai.deepresearch.tools.extract;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Streaming HTML to text extractor with boilerplate removal
+ *
+ * Markup is consumed in a single forward pass by a character state machine, without building a DOM or
+ * backtracking regular expressions. Script, style and similar elements are skipped, text is collected
+ * into blocks at block-level tags, and blocks are kept by content scoring: length in terms, link density,
+ * enclosing navigation or footer regions, and the classification of neighbouring blocks.
+ * Text of all blocks shares one buffer, so extraction allocates little beyond the result.
+ */
+public final class HtmlTextExtractor {
+
+    /**
+     * Terms a block needs to count as content on its own
+     */
+    private static final int CONTENT_TERMS = 10;
+
+    /**
+     * Link density up to which a block can be content
+     */
+    private static final double CONTENT_LINK_DENSITY = 0.33;
+
+    /**
+     * Link density above which a block is always dropped
+     */
+    private static final double MAX_LINK_DENSITY = 0.5;
+
+    /**
+     * Characters of the input inspected by {@link #looksLikeHtml(String)}
+     */
+    private static final int SNIFF_CHARS = 4096;
+
+    private static final String[] SKIPPED_ELEMENTS = {
+            "script", "style", "noscript", "template", "svg", "iframe", "object", "canvas",
+            "textarea", "select", "title"
+    };
+
+    private static final String[] BLOCK_ELEMENTS = {
+            "p", "div", "section", "article", "main", "header", "footer", "nav", "aside", "li", "ul", "ol",
+            "dl", "dt", "dd", "h1", "h2", "h3", "h4", "h5", "h6", "tr", "table", "blockquote", "pre", "br",
+            "hr", "form", "figure", "figcaption", "address", "center", "caption", "details", "summary",
+            "fieldset", "menu", "body"
+    };
+
+    /**
+     * Document structure elements recognized by {@link #looksLikeHtml(String)} besides block and skipped ones
+     */
+    private static final String[] DOCUMENT_ELEMENTS = {"html", "head"};
+
+    /**
+     * Containers whose nesting is tracked to find the end of boilerplate regions
+     */
+    private static final String[] CONTAINER_ELEMENTS = {
+            "div", "section", "ul", "ol", "aside", "nav", "footer", "header", "form", "table", "menu", "article", "main"
+    };
+
+    /**
+     * Containers that are boilerplate regardless of their attributes
+     */
+    private static final String[] BOILERPLATE_ELEMENTS = {"nav", "aside", "footer", "form", "menu"};
+
+    /**
+     * Class or id fragments marking a container as boilerplate
+     */
+    private static final String[] BOILERPLATE_HINTS = {
+            "nav", "menu", "footer", "sidebar", "breadcrumb", "cookie", "banner", "comment", "share", "social",
+            "advert", "promo", "related", "newsletter", "subscribe", "popup", "modal", "masthead"
+    };
+
+    private static final String[] ENTITY_NAMES = {
+            "amp", "lt", "gt", "quot", "apos", "nbsp", "ndash", "mdash", "hellip", "lsquo", "rsquo", "ldquo",
+            "rdquo", "copy", "reg", "trade", "middot", "bull", "laquo", "raquo", "times", "deg"
+    };
+
+    private static final char[] ENTITY_CHARS = {
+            '&', '<', '>', '"', '\'', ' ', '\u2013', '\u2014', '\u2026', '\u2018', '\u2019', '\u201c',
+            '\u201d', '\u00a9', '\u00ae', '\u2122', '\u00b7', '\u2022', '\u00ab', '\u00bb', '\u00d7', '\u00b0'
+    };
+
+    private HtmlTextExtractor() {
+    }
+
+    /**
+     * Extract the main text of an HTML document
+     *
+     * @param html HTML document or fragment
+     * @return Text of the content blocks, one block per line
+     */
+    public static String extract(CharSequence html) {
+        if (html == null || html.length() == 0) {
+            return "";
+        }
+        Parser parser = new Parser(html.length());
+        for (int i = 0; i < html.length(); i++) {
+            parser.accept(html.charAt(i));
+        }
+        return parser.finish();
+    }
+
+    /**
+     * Extract the main text of an HTML document read incrementally
+     *
+     * @param reader HTML source
+     * @return Text of the content blocks, one block per line
+     * @throws IOException if reading fails
+     */
+    public static String extract(Reader reader) throws IOException {
+        Parser parser = new Parser(8192);
+        char[] buffer = new char[8192];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                parser.accept(buffer[i]);
+            }
+        }
+        return parser.finish();
+    }
+
+    /**
+     * Whether text appears to be HTML markup rather than plain text or Markdown
+     *
+     * Only a doctype or the tag of a document, block-level or skipped element counts: inline tags,
+     * comparisons and generic types such as {@code List<String>} are common in Markdown and code.
+     *
+     * @param text Text to inspect
+     * @return true if a doctype or known element tag occurs near the start of the text
+     */
+    public static boolean looksLikeHtml(String text) {
+        if (text == null) {
+            return false;
+        }
+        int limit = Math.min(text.length(), SNIFF_CHARS);
+        for (int i = text.indexOf('<'); i >= 0 && i < limit; i = text.indexOf('<', i + 1)) {
+            if (text.regionMatches(true, i + 1, "!doctype", 0, 8) || isKnownTag(text, i + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether an opening or closing tag of a known element starts at a position: the name in a single
+     * case, followed by whitespace, '/' or '>', and the tag closed nearby
+     */
+    private static boolean isKnownTag(String text, int start) {
+        int nameStart = start < text.length() && text.charAt(start) == '/' ? start + 1 : start;
+        int nameEnd = nameStart;
+        while (nameEnd < text.length() && text.charAt(nameEnd) < 128 && Character.isLetterOrDigit(text.charAt(nameEnd))) {
+            nameEnd++;
+        }
+        if (nameEnd == nameStart || nameEnd == text.length()) {
+            return false;
+        }
+        char after = text.charAt(nameEnd);
+        if (after != '>' && after != '/' && !Character.isWhitespace(after)) {
+            return false;
+        }
+
+        String name = text.substring(nameStart, nameEnd);
+        String lowerName = name.toLowerCase(Locale.ROOT);
+        // Mixed case names are type parameters such as Optional<Object>
+        if (!name.equals(lowerName) && !name.equals(name.toUpperCase(Locale.ROOT))) {
+            return false;
+        }
+        if (indexOf(BLOCK_ELEMENTS, lowerName) < 0 && indexOf(SKIPPED_ELEMENTS, lowerName) < 0
+                && indexOf(DOCUMENT_ELEMENTS, lowerName) < 0) {
+            return false;
+        }
+        int close = text.indexOf('>', nameEnd);
+        return close > 0 && close - start < 1024;
+    }
+
+    private static int indexOf(String[] names, CharSequence name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].contentEquals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isIdeographic(char c) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(c);
+        return script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA || script == Character.UnicodeScript.HANGUL;
+    }
+
+    /**
+     * Parser state for one document
+     */
+    private static final class Parser {
+
+        private enum State {TEXT, TAG_OPEN, TAG_NAME, ATTRIBUTES, BANG, COMMENT, SKIP_TO_GT, RAW_TEXT, ENTITY}
+
+        private static final int HEADING = 1;
+        private static final int LIST_ITEM = 2;
+        private static final int BOILERPLATE = 4;
+
+        private static final int MAX_TAG_NAME = 16;
+        private static final int MAX_ATTRIBUTES = 1024;
+        private static final int MAX_ENTITY = 10;
+
+        private State state = State.TEXT;
+
+        // Current tag
+        private final StringBuilder tagName = new StringBuilder(MAX_TAG_NAME);
+        private final StringBuilder attributes = new StringBuilder(64);
+        private boolean closingTag;
+        private char quote;
+        private int dashes;
+
+        // Raw text element being skipped, and how much of its end tag has been matched
+        private String rawElement;
+        private int rawMatched;
+
+        private final StringBuilder entity = new StringBuilder(MAX_ENTITY);
+
+        // Text of all blocks, and the current block
+        private final StringBuilder text;
+        private int blockStart;
+        private int blockChars;
+        private int blockLinkChars;
+        private int blockTerms;
+        private int blockFlags;
+        private boolean pendingSpace;
+        private boolean inTerm;
+
+        // Completed blocks
+        private int[] starts = new int[64];
+        private int[] ends = new int[64];
+        private int[] chars = new int[64];
+        private int[] linkChars = new int[64];
+        private int[] terms = new int[64];
+        private int[] flags = new int[64];
+        private int blockCount;
+
+        // Element nesting
+        private int linkDepth;
+        private int contentDepth;
+        private final int[] containerDepth = new int[CONTAINER_ELEMENTS.length];
+        private int[] boilerplateElements = new int[8];
+        private int[] boilerplateDepths = new int[8];
+        private int boilerplateCount;
+
+        private Parser(int expectedLength) {
+            this.text = new StringBuilder(Math.min(expectedLength, 1 << 16));
+        }
+
+        private void accept(char c) {
+            switch (state) {
+                case TEXT -> {
+                    if (c == '<') {
+                        state = State.TAG_OPEN;
+                    } else if (c == '&') {
+                        entity.setLength(0);
+                        state = State.ENTITY;
+                    } else {
+                        emit(c);
+                    }
+                }
+                case TAG_OPEN -> {
+                    tagName.setLength(0);
+                    attributes.setLength(0);
+                    closingTag = false;
+                    if (c == '/') {
+                        closingTag = true;
+                        state = State.TAG_NAME;
+                    } else if (c == '!') {
+                        dashes = 0;
+                        state = State.BANG;
+                    } else if (c == '?') {
+                        state = State.SKIP_TO_GT;
+                    } else if (c < 128 && Character.isLetter(c)) {
+                        tagName.append(Character.toLowerCase(c));
+                        state = State.TAG_NAME;
+                    } else {
+                        // A bare '<' in text
+                        state = State.TEXT;
+                        emit('<');
+                        accept(c);
+                    }
+                }
+                case TAG_NAME -> {
+                    if (c == '>') {
+                        handleTag(false);
+                    } else if (Character.isWhitespace(c) || c == '/') {
+                        quote = 0;
+                        state = State.ATTRIBUTES;
+                        accept(c);
+                    } else if (tagName.length() < MAX_TAG_NAME) {
+                        tagName.append(Character.toLowerCase(c));
+                    }
+                }
+                case ATTRIBUTES -> {
+                    if (quote != 0) {
+                        if (c == quote) {
+                            quote = 0;
+                        }
+                    } else if (c == '"' || c == '\'') {
+                        quote = c;
+                    } else if (c == '>') {
+                        boolean selfClosing = attributes.length() > 0 && attributes.charAt(attributes.length() - 1) == '/';
+                        handleTag(selfClosing);
+                        return;
+                    }
+                    if (attributes.length() < MAX_ATTRIBUTES) {
+                        attributes.append(Character.toLowerCase(c));
+                    }
+                }
+                case BANG -> {
+                    if (c == '-' && ++dashes == 2) {
+                        dashes = 0;
+                        state = State.COMMENT;
+                    } else if (c == '>') {
+                        state = State.TEXT;
+                    } else if (c != '-') {
+                        // Doctype or other declaration
+                        state = State.SKIP_TO_GT;
+                    }
+                }
+                case COMMENT -> {
+                    if (c == '-') {
+                        dashes++;
+                    } else if (c == '>' && dashes >= 2) {
+                        state = State.TEXT;
+                    } else {
+                        dashes = 0;
+                    }
+                }
+                case SKIP_TO_GT -> {
+                    if (c == '>') {
+                        state = State.TEXT;
+                    }
+                }
+                case RAW_TEXT -> acceptRawText(c);
+                case ENTITY -> {
+                    if (c == ';') {
+                        state = State.TEXT;
+                        decodeEntity();
+                    } else if ((Character.isLetterOrDigit(c) || (c == '#' && entity.length() == 0))
+                            && entity.length() < MAX_ENTITY) {
+                        entity.append(c);
+                    } else {
+                        // Not an entity: keep the text as written
+                        state = State.TEXT;
+                        emit('&');
+                        for (int i = 0; i < entity.length(); i++) {
+                            emit(entity.charAt(i));
+                        }
+                        accept(c);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Match the end tag of a skipped element, e.g. "&lt;/script"
+         */
+        private void acceptRawText(char c) {
+            if (rawMatched == 0) {
+                rawMatched = c == '<' ? 1 : 0;
+            } else if (rawMatched == 1) {
+                rawMatched = c == '/' ? 2 : (c == '<' ? 1 : 0);
+            } else if (Character.toLowerCase(c) == rawElement.charAt(rawMatched - 2)) {
+                rawMatched++;
+                if (rawMatched - 2 == rawElement.length()) {
+                    rawMatched = 0;
+                    rawElement = null;
+                    state = State.SKIP_TO_GT;
+                }
+            } else {
+                rawMatched = c == '<' ? 1 : 0;
+            }
+        }
+
+        private void handleTag(boolean selfClosing) {
+            state = State.TEXT;
+            if (tagName.length() == 0) {
+                return;
+            }
+
+            if (!closingTag && !selfClosing) {
+                int skipped = indexOf(SKIPPED_ELEMENTS, tagName);
+                if (skipped >= 0) {
+                    rawElement = SKIPPED_ELEMENTS[skipped];
+                    rawMatched = 0;
+                    state = State.RAW_TEXT;
+                    return;
+                }
+            }
+
+            if (tagName.length() == 1 && tagName.charAt(0) == 'a') {
+                if (closingTag) {
+                    linkDepth = Math.max(linkDepth - 1, 0);
+                } else if (!selfClosing) {
+                    linkDepth++;
+                }
+                return;
+            }
+            if (("td".contentEquals(tagName) || "th".contentEquals(tagName)) && blockChars > 0) {
+                pendingSpace = true;
+                return;
+            }
+
+            if (indexOf(BLOCK_ELEMENTS, tagName) < 0) {
+                return;
+            }
+            breakBlock();
+
+            int container = indexOf(CONTAINER_ELEMENTS, tagName);
+            if (closingTag) {
+                if (container >= 0) {
+                    closeContainer(container);
+                }
+                return;
+            }
+            if (container >= 0 && !selfClosing) {
+                openContainer(container);
+            }
+            if (tagName.length() == 2 && tagName.charAt(0) == 'h' && tagName.charAt(1) >= '1' && tagName.charAt(1) <= '6') {
+                blockFlags |= HEADING;
+            } else if ("li".contentEquals(tagName) || "dt".contentEquals(tagName) || "dd".contentEquals(tagName)) {
+                blockFlags |= LIST_ITEM;
+            }
+        }
+
+        private void openContainer(int container) {
+            int depth = ++containerDepth[container];
+            if ("article".contentEquals(tagName) || "main".contentEquals(tagName)) {
+                contentDepth++;
+                return;
+            }
+            if (isBoilerplateContainer()) {
+                if (boilerplateCount == boilerplateElements.length) {
+                    boilerplateElements = Arrays.copyOf(boilerplateElements, boilerplateCount * 2);
+                    boilerplateDepths = Arrays.copyOf(boilerplateDepths, boilerplateCount * 2);
+                }
+                boilerplateElements[boilerplateCount] = container;
+                boilerplateDepths[boilerplateCount] = depth;
+                boilerplateCount++;
+            }
+        }
+
+        private void closeContainer(int container) {
+            int depth = containerDepth[container];
+            if (depth == 0) {
+                return;
+            }
+            if (boilerplateCount > 0 && boilerplateElements[boilerplateCount - 1] == container
+                    && boilerplateDepths[boilerplateCount - 1] == depth) {
+                boilerplateCount--;
+            }
+            if ("article".contentEquals(tagName) || "main".contentEquals(tagName)) {
+                contentDepth = Math.max(contentDepth - 1, 0);
+            }
+            containerDepth[container] = depth - 1;
+        }
+
+        private boolean isBoilerplateContainer() {
+            if (indexOf(BOILERPLATE_ELEMENTS, tagName) >= 0) {
+                return true;
+            }
+            // Page headers are boilerplate, article headers hold the title
+            if ("header".contentEquals(tagName)) {
+                return contentDepth == 0;
+            }
+            if (attributes.length() == 0) {
+                return false;
+            }
+            for (String hint : BOILERPLATE_HINTS) {
+                if (attributes.indexOf(hint) >= 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void decodeEntity() {
+            if (entity.length() > 1 && entity.charAt(0) == '#') {
+                try {
+                    int codePoint = entity.length() > 2 && (entity.charAt(1) == 'x' || entity.charAt(1) == 'X')
+                            ? Integer.parseInt(entity, 2, entity.length(), 16)
+                            : Integer.parseInt(entity, 1, entity.length(), 10);
+                    if (Character.isValidCodePoint(codePoint)) {
+                        if (Character.isBmpCodePoint(codePoint)) {
+                            emit((char) codePoint);
+                        } else {
+                            emit(Character.highSurrogate(codePoint));
+                            emit(Character.lowSurrogate(codePoint));
+                        }
+                        return;
+                    }
+                } catch (NumberFormatException e) {
+                    // Fall through and keep the text as written
+                }
+            } else {
+                int named = indexOf(ENTITY_NAMES, entity);
+                if (named >= 0) {
+                    emit(ENTITY_CHARS[named]);
+                    return;
+                }
+            }
+            emit('&');
+            for (int i = 0; i < entity.length(); i++) {
+                emit(entity.charAt(i));
+            }
+            emit(';');
+        }
+
+        private void emit(char c) {
+            if (Character.isWhitespace(c) || c == '\u00a0') {
+                pendingSpace = blockChars > 0;
+                inTerm = false;
+                return;
+            }
+            if (pendingSpace) {
+                text.append(' ');
+                pendingSpace = false;
+            }
+            text.append(c);
+            blockChars++;
+            if (linkDepth > 0) {
+                blockLinkChars++;
+            }
+            if (boilerplateCount > 0) {
+                blockFlags |= BOILERPLATE;
+            }
+
+            if (Character.isLetterOrDigit(c)) {
+                if (c >= 0x2E80 && isIdeographic(c)) {
+                    // CJK characters are not space separated, count each as a term
+                    blockTerms++;
+                    inTerm = false;
+                } else if (!inTerm) {
+                    blockTerms++;
+                    inTerm = true;
+                }
+            } else {
+                inTerm = false;
+            }
+        }
+
+        private void breakBlock() {
+            if (blockChars > 0) {
+                if (blockCount == starts.length) {
+                    int capacity = blockCount * 2;
+                    starts = Arrays.copyOf(starts, capacity);
+                    ends = Arrays.copyOf(ends, capacity);
+                    chars = Arrays.copyOf(chars, capacity);
+                    linkChars = Arrays.copyOf(linkChars, capacity);
+                    terms = Arrays.copyOf(terms, capacity);
+                    flags = Arrays.copyOf(flags, capacity);
+                }
+                starts[blockCount] = blockStart;
+                ends[blockCount] = text.length();
+                chars[blockCount] = blockChars;
+                linkChars[blockCount] = blockLinkChars;
+                terms[blockCount] = blockTerms;
+                flags[blockCount] = blockFlags;
+                blockCount++;
+            } else {
+                text.setLength(blockStart);
+            }
+            blockStart = text.length();
+            blockChars = 0;
+            blockLinkChars = 0;
+            blockTerms = 0;
+            blockFlags = 0;
+            pendingSpace = false;
+            inTerm = false;
+        }
+
+        private String finish() {
+            if (state == State.ENTITY) {
+                emit('&');
+                for (int i = 0; i < entity.length(); i++) {
+                    emit(entity.charAt(i));
+                }
+            }
+            breakBlock();
+
+            boolean[] keep = classify(true);
+            if (!any(keep)) {
+                // Everything looked like boilerplate, e.g. a page wrapped in a "has-sidebar" container
+                keep = classify(false);
+            }
+
+            StringBuilder result = new StringBuilder(text.length());
+            for (int i = 0; i < blockCount; i++) {
+                if (keep[i]) {
+                    if (result.length() > 0) {
+                        result.append('\n');
+                    }
+                    result.append(text, starts[i], ends[i]);
+                }
+            }
+            return result.toString();
+        }
+
+        /**
+         * Classify blocks as content
+         *
+         * Long blocks with few links are content. Short blocks are kept when they sit between content
+         * blocks, when they are headings followed by content, or when they belong to a list next to content.
+         */
+        private boolean[] classify(boolean dropBoilerplate) {
+            boolean[] content = new boolean[blockCount];
+            boolean[] candidate = new boolean[blockCount];
+            for (int i = 0; i < blockCount; i++) {
+                double density = (double) linkChars[i] / chars[i];
+                candidate[i] = density <= MAX_LINK_DENSITY && !(dropBoilerplate && (flags[i] & BOILERPLATE) != 0);
+                content[i] = candidate[i] && terms[i] >= CONTENT_TERMS && density <= CONTENT_LINK_DENSITY;
+            }
+
+            boolean[] keep = content.clone();
+            for (int i = 0; i < blockCount; i++) {
+                if (keep[i] || !candidate[i]) {
+                    continue;
+                }
+                boolean previous = i > 0 && content[i - 1];
+                boolean next = i + 1 < blockCount && content[i + 1];
+                double density = (double) linkChars[i] / chars[i];
+                if ((flags[i] & HEADING) != 0) {
+                    keep[i] = next;
+                } else {
+                    keep[i] = previous && next && density <= CONTENT_LINK_DENSITY;
+                }
+            }
+
+            // Spread through runs of list items adjacent to kept blocks, forwards then backwards
+            for (int i = 1; i < blockCount; i++) {
+                if (!keep[i] && isListCandidate(i, candidate) && keep[i - 1]) {
+                    keep[i] = true;
+                }
+            }
+            for (int i = blockCount - 2; i >= 0; i--) {
+                if (!keep[i] && isListCandidate(i, candidate) && keep[i + 1]) {
+                    keep[i] = true;
+                }
+            }
+
+            if (!any(keep)) {
+                // Short pages without any long block: keep everything that is not link lists or boilerplate
+                return candidate;
+            }
+            return keep;
+        }
+
+        private boolean isListCandidate(int block, boolean[] candidate) {
+            return candidate[block] && (flags[block] & LIST_ITEM) != 0
+                    && (double) linkChars[block] / chars[block] <= CONTENT_LINK_DENSITY;
+        }
+
+        private static boolean any(boolean[] values) {
+            for (boolean value : values) {
+                if (value) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.imfangs.ai.deepresearch.tools.fetch;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking permits
+ *
+ * Async counterpart of a fair semaphore: acquiring returns a future completed when a permit is granted,
+ * so waiting fetches hold no thread. Callers complete the future returned by {@link #release()} outside
+ * their own locks, since the next holder continues on the completing thread.
+ */
+final class AsyncPermits {
+
+    private final int permits;
+    private final Queue<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+    private int available;
+
+    AsyncPermits(int permits) {
+        this.permits = permits;
+        this.available = permits;
+    }
+
+    /**
+     * Acquire a permit
+     *
+     * @return Future completed once the permit is granted
+     */
+    synchronized CompletableFuture<Void> acquire() {
+        if (available > 0 && waiters.isEmpty()) {
+            available--;
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+        waiters.add(waiter);
+        return waiter;
+    }
+
+    /**
+     * Release a permit, handing it to the longest waiting acquirer
+     *
+     * @return Waiter now holding the permit, to be completed by the caller, or null
+     */
+    synchronized CompletableFuture<Void> release() {
+        CompletableFuture<Void> next = waiters.poll();
+        if (next == null) {
+            available++;
+        }
+        return next;
+    }
+
+    /**
+     * Whether no permit is held or awaited
+     */
+    synchronized boolean isIdle() {
+        return available == permits && waiters.isEmpty();
+    }
+}
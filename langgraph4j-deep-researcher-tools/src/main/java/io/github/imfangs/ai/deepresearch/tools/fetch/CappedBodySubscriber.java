@@ -0,0 +1,77 @@
+package io.github.imfangs.ai.deepresearch.tools.fetch;
+
+import java.io.ByteArrayOutputStream;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * Size-capped streaming body subscriber
+ *
+ * Reads the response body as it arrives and cancels the stream once the cap is reached,
+ * so oversized pages never download in full
+ */
+final class CappedBodySubscriber implements HttpResponse.BodySubscriber<CappedBodySubscriber.Body> {
+
+    private final int maxBytes;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private final CompletableFuture<Body> result = new CompletableFuture<>();
+    private Flow.Subscription subscription;
+
+    CappedBodySubscriber(int maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public CompletionStage<Body> getBody() {
+        return result;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> items) {
+        if (result.isDone()) {
+            return;
+        }
+        for (ByteBuffer item : items) {
+            int remaining = maxBytes - buffer.size();
+            int length = Math.min(item.remaining(), remaining);
+            byte[] bytes = new byte[length];
+            item.get(bytes);
+            buffer.write(bytes, 0, length);
+            if (item.hasRemaining() || buffer.size() >= maxBytes) {
+                subscription.cancel();
+                result.complete(new Body(buffer.toByteArray(), true));
+                return;
+            }
+        }
+        subscription.request(1);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        result.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        result.complete(new Body(buffer.toByteArray(), false));
+    }
+
+    /**
+     * Body bytes read
+     *
+     * @param bytes Bytes read
+     * @param truncated Whether the body was cut at the cap
+     */
+    record Body(byte[] bytes, boolean truncated) {
+    }
+}
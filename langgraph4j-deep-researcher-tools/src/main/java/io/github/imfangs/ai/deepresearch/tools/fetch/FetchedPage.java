@@ -0,0 +1,33 @@
+package io.github.imfangs.ai.deepresearch.tools.fetch;
+
+import io.github.imfangs.ai.deepresearch.tools.extract.HtmlTextExtractor;
+
+import java.util.Locale;
+
+/**
+ * Fetched page
+ *
+ * @param url Requested URL
+ * @param finalUrl URL after redirects
+ * @param statusCode HTTP status code
+ * @param contentType Response content type
+ * @param body Decoded response body
+ * @param truncated Whether the body was cut at the size cap
+ */
+public record FetchedPage(String url, String finalUrl, int statusCode, String contentType,
+                          String body, boolean truncated) {
+
+    /**
+     * Whether the page is HTML
+     */
+    public boolean isHtml() {
+        return contentType != null && contentType.toLowerCase(Locale.ROOT).contains("html");
+    }
+
+    /**
+     * Page text: main content of HTML pages with markup and boilerplate removed, one block per line
+     */
+    public String text() {
+        return isHtml() ? HtmlTextExtractor.extract(body) : body.strip();
+    }
+}
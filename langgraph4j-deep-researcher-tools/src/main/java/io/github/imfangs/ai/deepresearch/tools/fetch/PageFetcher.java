@@ -0,0 +1,433 @@
+package io.github.imfangs.ai.deepresearch.tools.fetch;
+
+import io.github.imfangs.ai.deepresearch.config.FetchConfig;
+import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Page fetcher
+ *
+ * Fetches full pages over the async HTTP client with bounded global and per-host concurrency,
+ * streaming body reads capped in size, and a timeout covering the whole exchange. Waiting fetches
+ * hold no thread; failures yield an empty result rather than an exception.
+ *
+ * Page URLs come from search results, so hosts resolving to loopback, private, link-local (such as
+ * cloud metadata endpoints) or other non-public addresses are refused. Redirects are followed here
+ * rather than by the HTTP client, so every target is checked the same way.
+ */
+@Slf4j
+@Component
+public class PageFetcher {
+
+    private static final Pattern CHARSET = Pattern.compile("(?i)charset\\s*=\\s*[\"']?([\\w.:-]+)");
+
+    /**
+     * Bytes of an HTML page searched for a meta charset declaration
+     */
+    private static final int CHARSET_SNIFF_BYTES = 2048;
+
+    private static final Set<Integer> REDIRECT_STATUSES = Set.of(301, 302, 303, 307, 308);
+
+    private final FetchConfig config;
+    private final HttpClient httpClient;
+    private final Predicate<InetAddress> addressFilter;
+    private final AsyncPermits globalPermits;
+    private final ConcurrentMap<String, AsyncPermits> hostPermits = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PageFetcher(ResearchConfig researchConfig, @Qualifier("pageFetchHttpClient") HttpClient pageFetchHttpClient) {
+        this(researchConfig.getSearch().getFetch(), pageFetchHttpClient);
+    }
+
+    /**
+     * @param config Fetch configuration
+     * @param httpClient HTTP client not following redirects
+     */
+    public PageFetcher(FetchConfig config, HttpClient httpClient) {
+        this(config, httpClient, Boolean.TRUE.equals(config.getAllowPrivateAddresses())
+                ? address -> true : PageFetcher::isPublicAddress);
+    }
+
+    PageFetcher(FetchConfig config, HttpClient httpClient, Predicate<InetAddress> addressFilter) {
+        this.config = config;
+        this.httpClient = httpClient;
+        this.addressFilter = addressFilter;
+        this.globalPermits = new AsyncPermits(config.getMaxConcurrentFetches());
+    }
+
+    /**
+     * Whether page fetching is enabled
+     */
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(config.getEnabled());
+    }
+
+    /**
+     * Fetch pages concurrently and wait for all of them
+     *
+     * @param urls Page URLs
+     * @return Fetched pages by requested URL, without pages that failed
+     */
+    public Map<String, FetchedPage> fetchAll(Collection<String> urls) {
+        return fetchAll(urls, null);
+    }
+
+    /**
+     * Fetch pages concurrently and wait for them at most the given time
+     *
+     * Pages still loading when the time is up are left out; their fetches finish in the background
+     * within the fetch timeout and release their permits as usual.
+     *
+     * @param urls Page URLs
+     * @param timeout Maximum time to wait, null to wait for all pages
+     * @return Fetched pages by requested URL, without pages that failed or did not arrive in time
+     */
+    public Map<String, FetchedPage> fetchAll(Collection<String> urls, Duration timeout) {
+        return fetchAll(urls, timeout, fetch -> { });
+    }
+
+    /**
+     * Fetch pages concurrently, handing each fetch to the caller so it can be cancelled
+     *
+     * Cancelling a fetch aborts its HTTP exchange and leaves the page out; once every fetch is done
+     * or cancelled the wait ends, so cancelling them all returns at once with the pages already in.
+     *
+     * @param urls Page URLs
+     * @param timeout Maximum time to wait, null to wait for all pages
+     * @param started Receives each fetch as it starts
+     * @return Fetched pages by requested URL, without pages that failed, were cancelled or did not
+     *         arrive in time
+     */
+    public Map<String, FetchedPage> fetchAll(Collection<String> urls, Duration timeout, Consumer<Future<?>> started) {
+        Map<String, CompletableFuture<Optional<FetchedPage>>> futures = new LinkedHashMap<>();
+        for (String url : urls) {
+            if (!futures.containsKey(url)) {
+                CompletableFuture<Optional<FetchedPage>> future = fetch(url);
+                futures.put(url, future);
+                started.accept(future);
+            }
+        }
+
+        CompletableFuture<Void> all = CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new));
+        try {
+            if (timeout != null) {
+                all.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            } else {
+                all.get();
+            }
+        } catch (TimeoutException e) {
+            log.info("Page fetches did not all complete within {}ms", timeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | CancellationException e) {
+            // Only cancelled fetches fail; the others complete with an empty page on failure
+        }
+
+        Map<String, FetchedPage> pages = new LinkedHashMap<>();
+        futures.forEach((url, future) -> {
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                future.join().ifPresent(fetched -> pages.put(url, fetched));
+            }
+        });
+        log.info("Fetched {}/{} pages", pages.size(), futures.size());
+        return pages;
+    }
+
+    /**
+     * Fetch a page
+     *
+     * @param url Page URL
+     * @return Future of the fetched page, empty if the page could not be fetched, is not text
+     *         or is on a non-public address
+     */
+    public CompletableFuture<Optional<FetchedPage>> fetch(String url) {
+        URI uri;
+        try {
+            uri = URI.create(url.trim());
+        } catch (IllegalArgumentException e) {
+            log.debug("Skipping invalid URL: {}", url);
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        if (!isHttp(uri)) {
+            log.debug("Skipping non-HTTP URL: {}", url);
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        String host = uri.getHost().toLowerCase(Locale.ROOT);
+        long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.getTimeoutSeconds());
+        InFlight inFlight = new InFlight();
+        CompletableFuture<Optional<FetchedPage>> page = acquireHost(host)
+                .thenCompose(ignored -> globalPermits.acquire())
+                .thenCompose(ignored -> follow(url, uri, config.getMaxRedirects(), deadlineNanos, inFlight)
+                        .handle((result, error) -> {
+                            complete(globalPermits.release());
+                            releaseHost(host);
+                            if (error != null) {
+                                log.debug("Page fetch failed: {} ({})", url, error.toString());
+                                return Optional.<FetchedPage>empty();
+                            }
+                            return result;
+                        }));
+        // Cancelling the page does not reach the chain above, so abort its exchange directly; the
+        // aborted exchange fails and releases the permits as usual
+        page.whenComplete((result, error) -> {
+            if (page.isCancelled()) {
+                inFlight.abort();
+            }
+        });
+        return page;
+    }
+
+    /**
+     * Fetch a URI after checking its address, following redirects until the deadline
+     */
+    private CompletableFuture<Optional<FetchedPage>> follow(String url, URI uri, int redirectsLeft, long deadlineNanos,
+                                                            InFlight inFlight) {
+        long remainingNanos = deadlineNanos - System.nanoTime();
+        if (remainingNanos <= 0) {
+            return CompletableFuture.failedFuture(new TimeoutException("Page fetch timed out"));
+        }
+        try {
+            checkAddress(uri);
+        } catch (UnknownHostException | IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return send(uri, remainingNanos, inFlight).thenCompose(response -> {
+            Optional<URI> location = redirectOf(response);
+            if (location.isEmpty()) {
+                return CompletableFuture.completedFuture(toPage(url, response));
+            }
+            if (redirectsLeft == 0) {
+                log.debug("Skipping page {}: too many redirects", url);
+                return CompletableFuture.completedFuture(Optional.empty());
+            }
+            return follow(url, location.get(), redirectsLeft - 1, deadlineNanos, inFlight);
+        });
+    }
+
+    /**
+     * Refuse hosts with any non-public address. Lookups are cached by the JDK, so the client's
+     * own resolution of the host reuses this one.
+     */
+    private void checkAddress(URI uri) throws UnknownHostException {
+        for (InetAddress address : InetAddress.getAllByName(uri.getHost())) {
+            if (!addressFilter.test(address)) {
+                log.warn("Refusing to fetch {}: {} is not a public address", uri, address.getHostAddress());
+                throw new IllegalArgumentException("Non-public address: " + address.getHostAddress());
+            }
+        }
+    }
+
+    /**
+     * Whether an address is publicly routable: not loopback, site-local, link-local, wildcard,
+     * multicast or IPv6 unique local
+     */
+    static boolean isPublicAddress(InetAddress address) {
+        return !(address.isLoopbackAddress()
+                || address.isSiteLocalAddress()
+                || address.isLinkLocalAddress()
+                || address.isAnyLocalAddress()
+                || address.isMulticastAddress()
+                || address instanceof Inet6Address && (address.getAddress()[0] & 0xfe) == 0xfc);
+    }
+
+    /**
+     * Target of a redirect response, empty if the response is not a redirect to an HTTP URL
+     */
+    private static Optional<URI> redirectOf(HttpResponse<?> response) {
+        if (!REDIRECT_STATUSES.contains(response.statusCode())) {
+            return Optional.empty();
+        }
+        return response.headers().firstValue("Location").flatMap(location -> {
+            try {
+                return Optional.of(response.uri().resolve(location.trim())).filter(PageFetcher::isHttp);
+            } catch (IllegalArgumentException e) {
+                return Optional.empty();
+            }
+        });
+    }
+
+    private static boolean isHttp(URI uri) {
+        String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase(Locale.ROOT) : "";
+        return uri.getHost() != null && (scheme.equals("http") || scheme.equals("https"));
+    }
+
+    /**
+     * Send one request, reading at most maxBodyBytes of textual 2xx responses
+     */
+    private CompletableFuture<HttpResponse<CappedBodySubscriber.Body>> send(URI uri, long timeoutNanos, InFlight inFlight) {
+        if (inFlight.isAborted()) {
+            return CompletableFuture.failedFuture(new CancellationException("Page fetch cancelled"));
+        }
+        CompletableFuture<HttpResponse<CappedBodySubscriber.Body>> exchange;
+        try {
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .timeout(Duration.ofNanos(timeoutNanos))
+                    .header("User-Agent", config.getUserAgent())
+                    .header("Accept", "text/html,application/xhtml+xml,text/plain;q=0.9,*/*;q=0.1")
+                    .GET()
+                    .build();
+            exchange = httpClient.sendAsync(request,
+                    info -> new CappedBodySubscriber(isAcceptable(info) ? config.getMaxBodyBytes() : 0));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        inFlight.start(exchange);
+
+        return exchange.copy()
+                .orTimeout(timeoutNanos, TimeUnit.NANOSECONDS)
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        // Abort the exchange so a slow body stops consuming the connection
+                        exchange.cancel(true);
+                    }
+                });
+    }
+
+    private Optional<FetchedPage> toPage(String url, HttpResponse<CappedBodySubscriber.Body> response) {
+        if (!isAcceptable(response)) {
+            log.debug("Skipping page {}: status {}, content type {}", url, response.statusCode(),
+                    contentType(response.headers()).orElse("unknown"));
+            return Optional.empty();
+        }
+        CappedBodySubscriber.Body body = response.body();
+        String contentType = contentType(response.headers()).orElse("text/html");
+        String text = new String(body.bytes(), charsetOf(contentType, body.bytes()));
+        return Optional.of(new FetchedPage(url, response.uri().toString(), response.statusCode(),
+                contentType, text, body.truncated()));
+    }
+
+    private static boolean isAcceptable(HttpResponse.ResponseInfo info) {
+        return isAcceptable(info.statusCode(), info.headers());
+    }
+
+    private static boolean isAcceptable(HttpResponse<?> response) {
+        return isAcceptable(response.statusCode(), response.headers());
+    }
+
+    private static boolean isAcceptable(int statusCode, java.net.http.HttpHeaders headers) {
+        if (statusCode / 100 != 2) {
+            return false;
+        }
+        // Servers omitting the content type usually serve HTML
+        return contentType(headers)
+                .map(type -> type.toLowerCase(Locale.ROOT))
+                .map(type -> type.startsWith("text/") || type.contains("html") || type.contains("xml"))
+                .orElse(true);
+    }
+
+    private static Optional<String> contentType(java.net.http.HttpHeaders headers) {
+        return headers.firstValue("Content-Type");
+    }
+
+    /**
+     * Charset from the content type, or from an HTML meta declaration, defaulting to UTF-8
+     */
+    private static Charset charsetOf(String contentType, byte[] bytes) {
+        Matcher matcher = CHARSET.matcher(contentType);
+        if (!matcher.find()) {
+            String head = new String(bytes, 0, Math.min(bytes.length, CHARSET_SNIFF_BYTES), StandardCharsets.ISO_8859_1);
+            matcher = CHARSET.matcher(head);
+            if (!matcher.find()) {
+                return StandardCharsets.UTF_8;
+            }
+        }
+        try {
+            return Charset.forName(matcher.group(1));
+        } catch (IllegalArgumentException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+
+    private CompletableFuture<Void> acquireHost(String host) {
+        @SuppressWarnings("unchecked")
+        CompletableFuture<Void>[] acquired = new CompletableFuture[1];
+        hostPermits.compute(host, (key, permits) -> {
+            AsyncPermits hostLimit = permits != null ? permits : new AsyncPermits(config.getMaxConcurrentFetchesPerHost());
+            acquired[0] = hostLimit.acquire();
+            return hostLimit;
+        });
+        return acquired[0];
+    }
+
+    private void releaseHost(String host) {
+        @SuppressWarnings("unchecked")
+        CompletableFuture<Void>[] next = new CompletableFuture[1];
+        hostPermits.computeIfPresent(host, (key, permits) -> {
+            next[0] = permits.release();
+            // Idle hosts are dropped so the map only tracks hosts being fetched
+            return permits.isIdle() ? null : permits;
+        });
+        complete(next[0]);
+    }
+
+    private static void complete(CompletableFuture<Void> waiter) {
+        if (waiter != null) {
+            waiter.complete(null);
+        }
+    }
+
+    /**
+     * Exchange in flight for one page fetch, aborted when the fetch is cancelled
+     *
+     * A fetch cancelled while waiting for permits sends nothing; one cancelled mid-exchange aborts
+     * that exchange.
+     */
+    private static final class InFlight {
+
+        private volatile boolean aborted;
+        private volatile CompletableFuture<?> exchange;
+
+        boolean isAborted() {
+            return aborted;
+        }
+
+        void start(CompletableFuture<?> exchange) {
+            this.exchange = exchange;
+            if (aborted) {
+                exchange.cancel(true);
+            }
+        }
+
+        void abort() {
+            aborted = true;
+            CompletableFuture<?> current = exchange;
+            if (current != null) {
+                current.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package io.github.imfangs.ai.deepresearch.tools.knowledge;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.imfangs.ai.deepresearch.api.dto.SearchResult;
+import io.github.imfangs.ai.deepresearch.config.KnowledgeConfig;
+import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
+import io.github.imfangs.ai.deepresearch.tools.context.Bm25PassageIndex;
+import io.github.imfangs.ai.deepresearch.tools.context.TextShingles;
+import io.github.imfangs.ai.deepresearch.tools.rerank.EmbeddingReranker;
+import io.github.imfangs.ai.deepresearch.tools.search.UrlCanonicalizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Page knowledge store
+ *
+ * Keeps the pages gathered by research runs across requests, persisted as an append-only JSON lines file
+ * that is compacted on startup. Pages are indexed by keyword (BM25 over the page text) and optionally by
+ * embedding vector, so a search can be answered locally when enough fresh stored pages cover its query.
+ */
+@Slf4j
+@Component
+public class PageKnowledgeStore {
+
+    /**
+     * Source engine name of results served from the store
+     */
+    public static final String ENGINE_NAME = "knowledge";
+
+    private static final String PAGES_FILE = "pages.jsonl";
+
+    /**
+     * BM25 candidates examined per requested result
+     */
+    private static final int CANDIDATES_PER_RESULT = 10;
+
+    private final KnowledgeConfig config;
+    private final EmbeddingReranker embeddings;
+    private final LongSupplier clock;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Path file;
+
+    // Guarded by this
+    private final Map<String, Page> pages = new LinkedHashMap<>();
+    private Bm25PassageIndex index = new Bm25PassageIndex();
+    private final List<Page> indexedPages = new ArrayList<>();
+    private BufferedWriter writer;
+
+    @Autowired
+    public PageKnowledgeStore(ResearchConfig researchConfig, EmbeddingReranker embeddings) {
+        this(researchConfig.getKnowledge(), embeddings, System::currentTimeMillis);
+    }
+
+    public PageKnowledgeStore(KnowledgeConfig config, EmbeddingReranker embeddings, LongSupplier clock) {
+        this.config = config;
+        this.embeddings = embeddings;
+        this.clock = clock;
+        this.file = Paths.get(config.getDirectory()).resolve(PAGES_FILE);
+        if (isEnabled()) {
+            load();
+        }
+    }
+
+    /**
+     * Whether the knowledge store is enabled
+     */
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(config.getEnabled());
+    }
+
+    /**
+     * Find stored pages covering a query
+     *
+     * A page covers the query when it is fresh, contains enough of the query terms and, with vector search,
+     * is similar enough to the query. Results are only returned when enough pages cover the query.
+     *
+     * @param query Search query
+     * @param maxResults Pages needed
+     * @param excludedUrls URLs already gathered by the run, never returned
+     * @param includeRawContent Whether to include page content
+     * @return Covering pages as search results, empty if local coverage is insufficient
+     */
+    public Optional<List<SearchResult>> lookup(String query, int maxResults, Collection<String> excludedUrls,
+                                               boolean includeRawContent) {
+        long queryTerms = TextShingles.terms(query).stream().distinct().count();
+        if (queryTerms == 0 || maxResults <= 0) {
+            return Optional.empty();
+        }
+        Set<String> excluded = excludedUrls.stream()
+                .map(UrlCanonicalizer::canonicalize)
+                .collect(Collectors.toSet());
+        float[] queryVector = Boolean.TRUE.equals(config.getVectorSearch()) ? embed(List.of(query)).get(0) : null;
+        long oldest = clock.getAsLong() - Duration.ofHours(config.getMaxAgeHours()).toMillis();
+
+        List<SearchResult> covering = new ArrayList<>();
+        synchronized (this) {
+            for (Bm25PassageIndex.ScoredPassage hit : index.search(query, maxResults * CANDIDATES_PER_RESULT)) {
+                Page page = indexedPages.get(hit.passage());
+                if (pages.get(page.key()) != page || page.storedAt() < oldest || excluded.contains(page.key())) {
+                    continue;
+                }
+                if ((double) hit.matchedTerms() / queryTerms < config.getMinTermCoverage()) {
+                    continue;
+                }
+                if (queryVector != null && page.vector() != null
+                        && EmbeddingReranker.cosine(queryVector, page.vector()) < config.getMinSimilarity()) {
+                    continue;
+                }
+                covering.add(page.toSearchResult(includeRawContent));
+                if (covering.size() == maxResults) {
+                    break;
+                }
+            }
+        }
+
+        if (covering.size() < maxResults) {
+            log.info("Knowledge store covers {}/{} results for query: {}", covering.size(), maxResults, query);
+            return Optional.empty();
+        }
+        log.info("Knowledge store serves {} results for query: {}", covering.size(), query);
+        return Optional.of(covering);
+    }
+
+    /**
+     * Store gathered pages, replacing earlier versions of the same canonical URL
+     *
+     * @param results Search results gathered from the web
+     */
+    public void store(List<SearchResult> results) {
+        long now = clock.getAsLong();
+        Map<String, SearchResult> incoming = new LinkedHashMap<>();
+        for (SearchResult result : results) {
+            if (result.getUrl() != null && !result.getUrl().isBlank() && !ENGINE_NAME.equals(result.getSourceEngine())) {
+                incoming.put(UrlCanonicalizer.canonicalize(result.getUrl()), result);
+            }
+        }
+        if (incoming.isEmpty()) {
+            return;
+        }
+
+        List<Page> newPages = new ArrayList<>();
+        synchronized (this) {
+            incoming.forEach((key, result) -> {
+                Page previous = pages.get(key);
+                // A snippet-only result does not replace page content gathered earlier
+                String rawContent = result.getRawContent() != null && !result.getRawContent().isBlank()
+                        ? truncate(result.getRawContent())
+                        : previous != null ? previous.rawContent() : null;
+                newPages.add(new Page(key, result.getUrl(), result.getTitle(), result.getContent(), rawContent,
+                        result.getSourceEngine(), now, null));
+            });
+        }
+
+        List<float[]> vectors = Boolean.TRUE.equals(config.getVectorSearch())
+                ? embed(newPages.stream().map(Page::embeddingText).toList())
+                : null;
+
+        synchronized (this) {
+            for (int i = 0; i < newPages.size(); i++) {
+                Page page = newPages.get(i);
+                if (vectors != null) {
+                    page = page.withVector(vectors.get(i));
+                }
+                put(page);
+                append(page);
+            }
+            evict();
+            flush();
+            log.debug("Stored {} pages, {} pages in knowledge store", newPages.size(), pages.size());
+        }
+    }
+
+    /**
+     * Number of stored pages
+     */
+    public synchronized int size() {
+        return pages.size();
+    }
+
+    private void put(Page page) {
+        pages.remove(page.key());
+        pages.put(page.key(), page);
+        index.add(page.indexText());
+        indexedPages.add(page);
+    }
+
+    /**
+     * Evict the oldest pages over capacity, and rebuild the index once most indexed pages are stale
+     */
+    private void evict() {
+        Iterator<Page> oldest = pages.values().iterator();
+        while (pages.size() > config.getMaxPages() && oldest.hasNext()) {
+            oldest.next();
+            oldest.remove();
+        }
+        if (indexedPages.size() > 2 * pages.size() + 100) {
+            index = new Bm25PassageIndex();
+            indexedPages.clear();
+            for (Page page : pages.values()) {
+                index.add(page.indexText());
+                indexedPages.add(page);
+            }
+        }
+    }
+
+    /**
+     * Embed texts with the local embedding model, without vectors if the model is unavailable
+     */
+    private List<float[]> embed(List<String> texts) {
+        try {
+            return embeddings.embed(texts.stream().map(text -> text.isBlank() ? "-" : text).toList());
+        } catch (RuntimeException | LinkageError e) {
+            log.warn("Knowledge store embedding failed, matching by keywords only: {}", e.toString());
+            List<float[]> none = new ArrayList<>(texts.size());
+            texts.forEach(text -> none.add(null));
+            return none;
+        }
+    }
+
+    private String truncate(String text) {
+        return text.length() > config.getMaxContentChars() ? text.substring(0, config.getMaxContentChars()) : text;
+    }
+
+    /**
+     * Load persisted pages, dropping expired and superseded entries and compacting the file
+     */
+    private synchronized void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        long oldest = clock.getAsLong() - Duration.ofHours(config.getMaxAgeHours()).toMillis();
+        Map<String, Page> loaded = new LinkedHashMap<>();
+        int lines = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                lines++;
+                try {
+                    Page page = Page.fromStored(objectMapper.readValue(line, StoredPage.class));
+                    loaded.remove(page.key());
+                    if (page.storedAt() >= oldest) {
+                        loaded.put(page.key(), page);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Skipping unreadable knowledge store entry: {}", e.toString());
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to load knowledge store from " + file, e);
+            return;
+        }
+
+        loaded.values().forEach(this::put);
+        evict();
+        log.info("Loaded {} pages into knowledge store from {}", pages.size(), file);
+
+        if (lines > pages.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Rewrite the file with the live pages only
+     */
+    private void compact() {
+        Path temporary = file.resolveSibling(PAGES_FILE + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            for (Page page : pages.values()) {
+                out.write(objectMapper.writeValueAsString(page.toStored()));
+                out.newLine();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to compact knowledge store: {}", e.toString());
+            return;
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to replace knowledge store file: {}", e.toString());
+        }
+    }
+
+    private void append(Page page) {
+        try {
+            if (writer == null) {
+                Files.createDirectories(file.getParent());
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            writer.write(objectMapper.writeValueAsString(page.toStored()));
+            writer.newLine();
+        } catch (IOException e) {
+            log.warn("Failed to persist page {}: {}", page.url(), e.toString());
+        }
+    }
+
+    private void flush() {
+        if (writer != null) {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                log.warn("Failed to flush knowledge store: {}", e.toString());
+            }
+        }
+    }
+
+    /**
+     * Stored page
+     *
+     * @param key Canonical URL
+     * @param url URL as found
+     * @param title Page title
+     * @param content Search snippet
+     * @param rawContent Page content, truncated to the configured length
+     * @param sourceEngine Engine that found the page
+     * @param storedAt Storage time (epoch milliseconds)
+     * @param vector Embedding of title and snippet, if vector search is enabled
+     */
+    private record Page(String key, String url, String title, String content, String rawContent,
+                        String sourceEngine, long storedAt, float[] vector) {
+
+        Page withVector(float[] vector) {
+            return new Page(key, url, title, content, rawContent, sourceEngine, storedAt, vector);
+        }
+
+        String embeddingText() {
+            return (title != null ? title + "\n" : "") + (content != null ? content : "");
+        }
+
+        String indexText() {
+            StringBuilder text = new StringBuilder();
+            for (String part : new String[]{title, content, rawContent}) {
+                if (part != null) {
+                    text.append(part).append('\n');
+                }
+            }
+            return text.toString();
+        }
+
+        SearchResult toSearchResult(boolean includeRawContent) {
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put("stored_at", storedAt);
+            if (sourceEngine != null) {
+                metadata.put("original_engine", sourceEngine);
+            }
+            return SearchResult.builder()
+                    .title(title)
+                    .url(url)
+                    .content(content)
+                    .rawContent(includeRawContent ? rawContent : null)
+                    .metadata(metadata)
+                    .sourceEngine(ENGINE_NAME)
+                    .build();
+        }
+
+        StoredPage toStored() {
+            String encodedVector = null;
+            if (vector != null) {
+                ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES);
+                buffer.asFloatBuffer().put(vector);
+                encodedVector = Base64.getEncoder().encodeToString(buffer.array());
+            }
+            return new StoredPage(url, title, content, rawContent, sourceEngine, storedAt, encodedVector);
+        }
+
+        static Page fromStored(StoredPage stored) {
+            float[] vector = null;
+            if (stored.vector() != null) {
+                ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(stored.vector()));
+                vector = new float[buffer.remaining() / Float.BYTES];
+                buffer.asFloatBuffer().get(vector);
+            }
+            return new Page(UrlCanonicalizer.canonicalize(stored.url()), stored.url(), stored.title(), stored.content(),
+                    stored.rawContent(), stored.sourceEngine(), stored.storedAt(), vector);
+        }
+    }
+
+    /**
+     * Persisted form of a page
+     */
+    record StoredPage(String url, String title, String content, String rawContent, String sourceEngine,
+                      long storedAt, String vector) {
+    }
+}
@@ -0,0 +1,235 @@
+package io.github.imfangs.ai.deepresearch.tools.rerank;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.embedding.onnx.allminilml6v2q.AllMiniLmL6V2QuantizedEmbeddingModel;
+import io.github.imfangs.ai.deepresearch.api.dto.SearchResult;
+import io.github.imfangs.ai.deepresearch.config.RerankConfig;
+import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Embedding reranker
+ *
+ * Reorders search results by cosine similarity between their text and the research query, computed with an
+ * in-process CPU embedding model, and drops results below a similarity threshold. Texts are embedded in
+ * batches, and embeddings are cached by content hash so results returned again in later loops or by
+ * identical requests are not embedded twice. The model is only loaded when reranking is first used.
+ */
+@Slf4j
+@Component
+public class EmbeddingReranker {
+
+    private final RerankConfig config;
+    private final Supplier<EmbeddingModel> modelFactory;
+    private volatile EmbeddingModel embeddingModel;
+    private final Map<String, float[]> cache;
+
+    @Autowired
+    public EmbeddingReranker(ResearchConfig researchConfig) {
+        this(researchConfig.getSearch().getRerank(), AllMiniLmL6V2QuantizedEmbeddingModel::new);
+    }
+
+    public EmbeddingReranker(RerankConfig config, Supplier<EmbeddingModel> modelFactory) {
+        this.config = config;
+        this.modelFactory = modelFactory;
+        int cacheSize = config.getCacheSize();
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Whether reranking is enabled
+     */
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(config.getEnabled());
+    }
+
+    /**
+     * Rerank search results by similarity to a query
+     *
+     * The similarity replaces the result score, the engine's score is kept as the "search_score" metadata.
+     * If the model cannot be used the results are returned unchanged.
+     *
+     * @param query Query the results should answer, e.g. the research topic and search query
+     * @param results Search results
+     * @return Results by descending similarity, without results below the minimum similarity
+     */
+    public List<SearchResult> rerank(String query, List<SearchResult> results) {
+        if (results.isEmpty()) {
+            return results;
+        }
+
+        long startNanos = System.nanoTime();
+        List<float[]> vectors;
+        try {
+            List<String> texts = new ArrayList<>(results.size() + 1);
+            texts.add(truncate(query));
+            for (SearchResult result : results) {
+                texts.add(textOf(result));
+            }
+            vectors = embed(texts);
+        } catch (RuntimeException | LinkageError e) {
+            log.warn("Search result rerank failed, keeping search engine order: {}", e.toString());
+            return results;
+        }
+
+        float[] queryVector = vectors.get(0);
+        List<Scored> scored = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            scored.add(new Scored(results.get(i), cosine(queryVector, vectors.get(i + 1))));
+        }
+        scored.sort(Comparator.comparingDouble(Scored::similarity).reversed());
+
+        List<SearchResult> reranked = new ArrayList<>(scored.size());
+        for (Scored candidate : scored) {
+            if (candidate.similarity() < config.getMinSimilarity() && reranked.size() >= config.getMinResults()) {
+                log.debug("Dropping search result below similarity {}: {} ({})",
+                        config.getMinSimilarity(), candidate.result().getUrl(), String.format("%.3f", candidate.similarity()));
+                continue;
+            }
+            reranked.add(withSimilarity(candidate.result(), candidate.similarity()));
+        }
+
+        log.info("Reranked {} search results, kept {}, in {}ms",
+                results.size(), reranked.size(), (System.nanoTime() - startNanos) / 1_000_000);
+        return reranked;
+    }
+
+    /**
+     * Embed texts, serving repeated texts from the cache and embedding the rest in batches
+     *
+     * @param texts Texts to embed (not blank)
+     * @return Embedding vectors in text order
+     */
+    public List<float[]> embed(List<String> texts) {
+        float[][] vectors = new float[texts.size()][];
+        Map<String, List<Integer>> missing = new LinkedHashMap<>();
+        Map<String, String> missingTexts = new HashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            String key = contentHash(texts.get(i));
+            float[] cached = cache.get(key);
+            if (cached != null) {
+                vectors[i] = cached;
+            } else {
+                missing.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+                missingTexts.putIfAbsent(key, texts.get(i));
+            }
+        }
+
+        List<String> keys = new ArrayList<>(missing.keySet());
+        for (int start = 0; start < keys.size(); start += config.getBatchSize()) {
+            List<String> batchKeys = keys.subList(start, Math.min(start + config.getBatchSize(), keys.size()));
+            List<TextSegment> segments = batchKeys.stream()
+                    .map(key -> TextSegment.from(missingTexts.get(key)))
+                    .toList();
+            List<Embedding> embeddings = model().embedAll(segments).content();
+            for (int i = 0; i < batchKeys.size(); i++) {
+                float[] vector = embeddings.get(i).vector();
+                cache.put(batchKeys.get(i), vector);
+                for (int index : missing.get(batchKeys.get(i))) {
+                    vectors[index] = vector;
+                }
+            }
+        }
+        log.debug("Embedded {} texts, {} from cache", texts.size(), texts.size() - missing.values().stream().mapToInt(List::size).sum());
+        return List.of(vectors);
+    }
+
+    private EmbeddingModel model() {
+        EmbeddingModel model = embeddingModel;
+        if (model == null) {
+            synchronized (this) {
+                model = embeddingModel;
+                if (model == null) {
+                    log.info("Loading rerank embedding model");
+                    model = modelFactory.get();
+                    embeddingModel = model;
+                }
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Text embedded for a result: title and snippet, or the start of the page when there is no snippet
+     */
+    private String textOf(SearchResult result) {
+        StringBuilder text = new StringBuilder();
+        if (result.getTitle() != null) {
+            text.append(result.getTitle()).append('\n');
+        }
+        if (result.getContent() != null && !result.getContent().isBlank()) {
+            text.append(result.getContent());
+        } else if (result.getRawContent() != null) {
+            text.append(result.getRawContent(), 0, Math.min(result.getRawContent().length(), config.getMaxTextChars()));
+        }
+        // The model rejects blank text
+        if (text.toString().isBlank()) {
+            return result.getUrl() != null && !result.getUrl().isBlank() ? result.getUrl() : "-";
+        }
+        return truncate(text.toString());
+    }
+
+    private String truncate(String text) {
+        return text.length() > config.getMaxTextChars() ? text.substring(0, config.getMaxTextChars()) : text;
+    }
+
+    private static SearchResult withSimilarity(SearchResult result, double similarity) {
+        Map<String, Object> metadata = result.getMetadata() != null ? new HashMap<>(result.getMetadata()) : new HashMap<>();
+        if (result.getScore() != null) {
+            metadata.putIfAbsent("search_score", result.getScore());
+        }
+        metadata.put("rerank_similarity", similarity);
+        result.setMetadata(metadata);
+        result.setScore(similarity);
+        return result;
+    }
+
+    /**
+     * Cosine similarity of two vectors
+     */
+    public static double cosine(float[] a, float[] b) {
+        double dot = 0.0;
+        double normA = 0.0;
+        double normB = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return normA == 0.0 || normB == 0.0 ? 0.0 : dot / Math.sqrt(normA * normB);
+    }
+
+    private static String contentHash(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record Scored(SearchResult result, double similarity) {
+    }
+}
@@ -3,6 +3,7 @@ package io.github.imfangs.ai.deepresearch.tools.search;
 import io.github.imfangs.ai.deepresearch.api.dto.SearchResult;
 import io.github.imfangs.ai.deepresearch.config.FlowConfig;
 import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
+import io.github.imfangs.ai.deepresearch.tools.token.TokenizerService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -21,11 +22,13 @@ import java.util.stream.Collectors;
 public class SearchEngineManager {
 
     private final ResearchConfig researchConfig;
+    private final TokenizerService tokenizerService;
     private final Map<String, SearchEngine> searchEngines;
 
     @Autowired
-    public SearchEngineManager(ResearchConfig researchConfig, List<SearchEngine> searchEngineList) {
+    public SearchEngineManager(ResearchConfig researchConfig, TokenizerService tokenizerService, List<SearchEngine> searchEngineList) {
         this.researchConfig = researchConfig;
+        this.tokenizerService = tokenizerService;
         this.searchEngines = searchEngineList.stream()
                 .collect(Collectors.toMap(
                     SearchEngine::getEngineName, 
@@ -167,8 +170,6 @@ public class SearchEngineManager {
         formatted.append("Sources:\n\n");
 
         int index = 1;
-        int charsPerToken = researchConfig.getFlow().getCharsPerToken();
-        int maxChars = maxTokensPerSource * charsPerToken;
 
         for (SearchResult result : uniqueResults.values()) {
             formatted.append(String.format("Source: %s\n===\n", result.getTitle()));
@@ -178,8 +179,9 @@ public class SearchEngineManager {
             // If raw content exists and exceeds limit, truncate it
             if (result.getRawContent() != null && !result.getRawContent().isEmpty()) {
                 String rawContent = result.getRawContent();
-                if (rawContent.length() > maxChars) {
-                    rawContent = rawContent.substring(0, maxChars) + "... [truncated]";
+                String truncated = tokenizerService.truncate(rawContent, maxTokensPerSource);
+                if (truncated.length() < rawContent.length()) {
+                    rawContent = truncated + "... [truncated]";
                 }
                 formatted.append(String.format("Full source content limited to %d tokens: %s\n\n", 
                         maxTokensPerSource, rawContent));
@@ -0,0 +1,82 @@
+package io.github.imfangs.ai.deepresearch.tools.search;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * URL canonicalizer
+ *
+ * Maps URL variants of the same page (scheme and host case, www prefix, default port, fragment,
+ * tracking parameters, trailing slash) to a single canonical form. The scheme is kept, since http and
+ * https URLs may serve different content
+ */
+public final class UrlCanonicalizer {
+
+    private UrlCanonicalizer() {
+    }
+
+    /**
+     * Canonicalize URL
+     *
+     * @param url URL to canonicalize
+     * @return Canonical URL, or the trimmed input if it cannot be parsed
+     */
+    public static String canonicalize(String url) {
+        if (url == null || url.isBlank()) {
+            return "";
+        }
+        try {
+            URI uri = new URI(url.trim());
+            if (uri.getHost() == null) {
+                return url.trim();
+            }
+
+            String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase(Locale.ROOT) : "http";
+            String host = uri.getHost().toLowerCase(Locale.ROOT);
+            if (host.startsWith("www.")) {
+                host = host.substring(4);
+            }
+
+            StringBuilder canonical = new StringBuilder(scheme).append("://").append(host);
+            int port = uri.getPort();
+            if (port != -1 && !(port == 80 && "http".equals(scheme)) && !(port == 443 && "https".equals(scheme))) {
+                canonical.append(':').append(port);
+            }
+
+            String path = uri.getRawPath() != null ? uri.getRawPath() : "";
+            while (path.endsWith("/")) {
+                path = path.substring(0, path.length() - 1);
+            }
+            canonical.append(path);
+
+            String query = canonicalQuery(uri.getRawQuery());
+            if (!query.isEmpty()) {
+                canonical.append('?').append(query);
+            }
+            return canonical.toString();
+        } catch (URISyntaxException e) {
+            return url.trim();
+        }
+    }
+
+    /**
+     * Drop tracking parameters and sort the remaining ones
+     */
+    private static String canonicalQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return "";
+        }
+        return Arrays.stream(rawQuery.split("&"))
+                .filter(param -> !param.isEmpty())
+                .filter(param -> {
+                    String name = param.split("=", 2)[0].toLowerCase(Locale.ROOT);
+                    return !name.startsWith("utm_") && !name.equals("gclid") && !name.equals("fbclid")
+                            && !name.equals("ref") && !name.equals("ref_src");
+                })
+                .sorted()
+                .collect(Collectors.joining("&"));
+    }
+}
@@ -0,0 +1,461 @@
+package io.github.imfangs.ai.deepresearch.tools.search.impl;
+
+import io.github.imfangs.ai.deepresearch.api.dto.CorpusDocument;
+import io.github.imfangs.ai.deepresearch.api.dto.SearchResult;
+import io.github.imfangs.ai.deepresearch.config.LuceneConfig;
+import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
+import io.github.imfangs.ai.deepresearch.tools.context.TextShingles;
+import io.github.imfangs.ai.deepresearch.tools.extract.HtmlTextExtractor;
+import io.github.imfangs.ai.deepresearch.tools.search.SearchEngine;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.MMapDirectory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Lucene search engine implementation
+ *
+ * Searches a local document corpus kept in an on-disk Lucene index, read through memory-mapped files, so
+ * searches make no external calls. Documents are added through the ingestion methods or loaded from the
+ * configured documents directory on startup, where unchanged files are skipped and documents of removed
+ * files are deleted. Results carry the best
+ * matching passage as content and the whole document as raw content.
+ */
+@Slf4j
+@Component("luceneSearchEngine")
+public class LuceneSearchEngine implements SearchEngine {
+
+    private static final String FIELD_URL = "url";
+    private static final String FIELD_TITLE = "title";
+    private static final String FIELD_CONTENT = "content";
+    private static final String FIELD_MODIFIED = "modified";
+
+    /**
+     * Title matches weigh twice as much as content matches
+     */
+    private static final Map<String, Float> FIELD_BOOSTS = Map.of(FIELD_TITLE, 2.0f, FIELD_CONTENT, 1.0f);
+
+    private final LuceneConfig config;
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private IndexWriter indexWriter;
+    private SearcherManager searcherManager;
+
+    @Autowired
+    public LuceneSearchEngine(ResearchConfig researchConfig) {
+        this(researchConfig.getSearch().getLucene());
+    }
+
+    public LuceneSearchEngine(LuceneConfig config) {
+        this.config = config;
+        initializeSearchEngine();
+    }
+
+    /**
+     * Open the index and ingest the documents directory
+     */
+    private void initializeSearchEngine() {
+        if (!Boolean.TRUE.equals(config.getEnabled())) {
+            log.info("Lucene search engine disabled");
+            return;
+        }
+        try {
+            Path indexDirectory = Paths.get(config.getIndexDirectory());
+            Files.createDirectories(indexDirectory);
+            IndexWriterConfig writerConfig = new IndexWriterConfig(analyzer)
+                    .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+            indexWriter = new IndexWriter(new MMapDirectory(indexDirectory), writerConfig);
+            searcherManager = new SearcherManager(indexWriter, null);
+            log.info("Lucene search engine initialized successfully, index: {}, documents: {}", indexDirectory, size());
+
+            if (StringUtils.hasText(config.getDocumentsDirectory())) {
+                ingestDirectory(Paths.get(config.getDocumentsDirectory()));
+            }
+        } catch (Exception e) {
+            log.error("Lucene search engine initialization failed", e);
+        }
+    }
+
+    @Override
+    public List<SearchResult> search(String query, int maxResults, boolean fetchFullPage) {
+        if (!isAvailable()) {
+            log.warn("Lucene search engine unavailable, returning empty results");
+            return Collections.emptyList();
+        }
+        if (!StringUtils.hasText(query) || maxResults <= 0) {
+            return Collections.emptyList();
+        }
+
+        long startNanos = System.nanoTime();
+        IndexSearcher searcher = null;
+        try {
+            Query luceneQuery = parse(query);
+            searcher = searcherManager.acquire();
+            TopDocs topDocs = searcher.search(luceneQuery, maxResults);
+            if (topDocs.scoreDocs.length == 0) {
+                log.info("Lucene search found no documents: query={}", query);
+                return Collections.emptyList();
+            }
+
+            Set<String> queryTerms = new HashSet<>(TextShingles.terms(query));
+            float topScore = topDocs.scoreDocs[0].score;
+            StoredFields storedFields = searcher.storedFields();
+            List<SearchResult> searchResults = new ArrayList<>(topDocs.scoreDocs.length);
+            for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                Document document = storedFields.document(scoreDoc.doc);
+                searchResults.add(convertToSearchResult(document, scoreDoc.score, topScore, queryTerms, fetchFullPage));
+            }
+
+            log.info("Lucene search completed, obtained {} results in {}ms",
+                    searchResults.size(), (System.nanoTime() - startNanos) / 1_000_000);
+            return searchResults;
+        } catch (Exception e) {
+            log.error("Lucene search failed: query=" + query, e);
+            return Collections.emptyList();
+        } finally {
+            if (searcher != null) {
+                try {
+                    searcherManager.release(searcher);
+                } catch (IOException e) {
+                    log.warn("Failed to release Lucene searcher: {}", e.toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * Add or replace documents in the corpus
+     *
+     * @param documents Documents, identified by URL
+     * @return Number of documents indexed
+     */
+    public synchronized int ingest(List<CorpusDocument> documents) {
+        requireAvailable();
+        int indexed = 0;
+        try {
+            for (CorpusDocument document : documents) {
+                if (!StringUtils.hasText(document.getUrl()) || !StringUtils.hasText(document.getContent())) {
+                    continue;
+                }
+                String text = HtmlTextExtractor.looksLikeHtml(document.getContent())
+                        ? HtmlTextExtractor.extract(document.getContent())
+                        : document.getContent().strip();
+                String title = StringUtils.hasText(document.getTitle()) ? document.getTitle() : titleOf(text, document.getUrl());
+                indexWriter.updateDocument(new Term(FIELD_URL, document.getUrl()), toDocument(document.getUrl(), title, text, 0L));
+                indexed++;
+            }
+            commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to ingest documents", e);
+        }
+        log.info("Ingested {} documents into Lucene index", indexed);
+        return indexed;
+    }
+
+    /**
+     * Ingest the files of a directory tree with the configured extensions, skipping unchanged files and
+     * deleting the documents of files no longer ingested from it
+     *
+     * @param directory Documents directory
+     * @return Number of files indexed
+     */
+    public synchronized int ingestDirectory(Path directory) {
+        requireAvailable();
+        if (!Files.isDirectory(directory)) {
+            log.warn("Lucene documents directory does not exist: {}", directory);
+            return 0;
+        }
+
+        long startNanos = System.nanoTime();
+        int indexed = 0;
+        int unchanged = 0;
+        int removed;
+        Set<String> present = new HashSet<>();
+        IndexSearcher searcher = null;
+        try (Stream<Path> files = Files.walk(directory)) {
+            searcher = searcherManager.acquire();
+            for (Path file : files.filter(this::isIngestible).toList()) {
+                String url = file.toAbsolutePath().normalize().toUri().toString();
+                present.add(url);
+                long modified = Files.getLastModifiedTime(file).toMillis();
+                if (modified == indexedModified(searcher, url)) {
+                    unchanged++;
+                    continue;
+                }
+                String content;
+                try {
+                    content = Files.readString(file, StandardCharsets.UTF_8);
+                } catch (IOException e) {
+                    log.warn("Skipping unreadable document {}: {}", file, e.toString());
+                    continue;
+                }
+                boolean html = HtmlTextExtractor.looksLikeHtml(content);
+                String text = html ? HtmlTextExtractor.extract(content) : content.strip();
+                if (text.isEmpty()) {
+                    continue;
+                }
+                String title = html ? file.getFileName().toString() : titleOf(text, file.getFileName().toString());
+                indexWriter.updateDocument(new Term(FIELD_URL, url), toDocument(url, title, text, modified));
+                indexed++;
+            }
+            removed = deleteMissing(searcher, directory, present);
+            commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to ingest documents from " + directory, e);
+        } finally {
+            if (searcher != null) {
+                try {
+                    searcherManager.release(searcher);
+                } catch (IOException e) {
+                    log.warn("Failed to release Lucene searcher: {}", e.toString());
+                }
+            }
+        }
+        log.info("Ingested {} files from {} into Lucene index ({} unchanged, {} removed) in {}ms",
+                indexed, directory, unchanged, removed, (System.nanoTime() - startNanos) / 1_000_000);
+        return indexed;
+    }
+
+    /**
+     * Delete the documents of a directory tree whose files were not found in it
+     *
+     * @return Number of documents deleted
+     */
+    private int deleteMissing(IndexSearcher searcher, Path directory, Set<String> present) throws IOException {
+        String prefix = directory.toAbsolutePath().normalize().toUri().toString();
+        if (!prefix.endsWith("/")) {
+            prefix += "/";
+        }
+        int maxDocs = Math.max(1, searcher.getIndexReader().maxDoc());
+        TopDocs hits = searcher.search(new PrefixQuery(new Term(FIELD_URL, prefix)), maxDocs);
+        StoredFields storedFields = searcher.storedFields();
+        int deleted = 0;
+        for (ScoreDoc hit : hits.scoreDocs) {
+            String url = storedFields.document(hit.doc).get(FIELD_URL);
+            if (!present.contains(url)) {
+                indexWriter.deleteDocuments(new Term(FIELD_URL, url));
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Re-ingest the configured documents directory
+     *
+     * @return Number of files indexed
+     */
+    public int reindex() {
+        if (!StringUtils.hasText(config.getDocumentsDirectory())) {
+            return 0;
+        }
+        return ingestDirectory(Paths.get(config.getDocumentsDirectory()));
+    }
+
+    /**
+     * Remove a document from the corpus
+     *
+     * @param url Document URL
+     */
+    public synchronized void delete(String url) {
+        requireAvailable();
+        try {
+            indexWriter.deleteDocuments(new Term(FIELD_URL, url));
+            commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete document " + url, e);
+        }
+    }
+
+    /**
+     * Number of documents in the corpus
+     */
+    public int size() {
+        if (searcherManager == null) {
+            return 0;
+        }
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                return searcher.getIndexReader().numDocs();
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        try {
+            if (searcherManager != null) {
+                searcherManager.close();
+            }
+            if (indexWriter != null) {
+                indexWriter.close();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to close Lucene index: {}", e.toString());
+        } finally {
+            searcherManager = null;
+            indexWriter = null;
+        }
+    }
+
+    @Override
+    public String getEngineName() {
+        return "lucene";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return searcherManager != null;
+    }
+
+    private void requireAvailable() {
+        if (!isAvailable()) {
+            throw new IllegalStateException("Lucene search engine is not enabled");
+        }
+    }
+
+    /**
+     * Parse free text into a query over title and content, any term matching
+     */
+    private Query parse(String query) throws ParseException {
+        // The parser is not thread-safe, so each search builds its own
+        QueryParser parser = new MultiFieldQueryParser(new String[]{FIELD_TITLE, FIELD_CONTENT}, analyzer, FIELD_BOOSTS);
+        parser.setDefaultOperator(QueryParser.Operator.OR);
+        return parser.parse(QueryParser.escape(query));
+    }
+
+    private void commit() throws IOException {
+        indexWriter.commit();
+        searcherManager.maybeRefreshBlocking();
+    }
+
+    private boolean isIngestible(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        if (dot < 0 || !config.getFileExtensions().contains(name.substring(dot + 1).toLowerCase(Locale.ROOT))) {
+            return false;
+        }
+        try {
+            return Files.size(file) <= config.getMaxDocumentBytes();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Modification time recorded for an indexed file, or -1 if it is not indexed
+     */
+    private long indexedModified(IndexSearcher searcher, String url) throws IOException {
+        TopDocs hits = searcher.search(new TermQuery(new Term(FIELD_URL, url)), 1);
+        if (hits.scoreDocs.length == 0) {
+            return -1L;
+        }
+        Document document = searcher.storedFields().document(hits.scoreDocs[0].doc);
+        return document.getField(FIELD_MODIFIED).numericValue().longValue();
+    }
+
+    private static Document toDocument(String url, String title, String text, long modified) {
+        Document document = new Document();
+        document.add(new StringField(FIELD_URL, url, Field.Store.YES));
+        document.add(new TextField(FIELD_TITLE, title, Field.Store.YES));
+        document.add(new TextField(FIELD_CONTENT, text, Field.Store.YES));
+        document.add(new StoredField(FIELD_MODIFIED, modified));
+        return document;
+    }
+
+    /**
+     * Title of a text document: its first line without Markdown heading marks, or the fallback
+     */
+    private static String titleOf(String text, String fallback) {
+        String firstLine = text.lines().map(String::strip).filter(line -> !line.isEmpty()).findFirst().orElse("");
+        firstLine = firstLine.replaceFirst("^#+\\s*", "");
+        return firstLine.isEmpty() || firstLine.length() > 200 ? fallback : firstLine;
+    }
+
+    private SearchResult convertToSearchResult(Document document, float score, float topScore,
+                                               Set<String> queryTerms, boolean fetchFullPage) {
+        String content = document.get(FIELD_CONTENT);
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("lucene_score", score);
+
+        return SearchResult.builder()
+                .title(document.get(FIELD_TITLE))
+                .url(document.get(FIELD_URL))
+                .content(bestPassage(content, queryTerms))
+                .rawContent(fetchFullPage ? content : null)
+                .score(topScore > 0 ? (double) score / topScore : 0.0)
+                .metadata(metadata)
+                .sourceEngine(getEngineName())
+                .build();
+    }
+
+    /**
+     * Paragraph containing the most distinct query terms, cut to the snippet length
+     */
+    private String bestPassage(String content, Set<String> queryTerms) {
+        String best = null;
+        long bestMatches = -1;
+        for (String paragraph : content.split("\\n\\s*\\n")) {
+            String candidate = paragraph.strip();
+            if (candidate.isEmpty()) {
+                continue;
+            }
+            long matches = TextShingles.terms(candidate).stream().distinct().filter(queryTerms::contains).count();
+            if (matches > bestMatches) {
+                best = candidate;
+                bestMatches = matches;
+            }
+        }
+        if (best == null) {
+            return "";
+        }
+        best = best.replaceAll("\\s+", " ");
+        return best.length() > config.getSnippetChars() ? best.substring(0, config.getSnippetChars()) + "..." : best;
+    }
+}
@@ -1,26 +1,31 @@
 package io.github.imfangs.ai.deepresearch.tools.search.impl;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.github.imfangs.ai.deepresearch.api.dto.SearchResult;
 import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
-import io.github.imfangs.ai.deepresearch.config.SearchConfig;
 import io.github.imfangs.ai.deepresearch.config.TavilyConfig;
+import io.github.imfangs.ai.deepresearch.config.http.HostConcurrencyLimiter;
 import io.github.imfangs.ai.deepresearch.tools.search.SearchEngine;
-import dev.langchain4j.web.search.WebSearchOrganicResult;
-import dev.langchain4j.web.search.WebSearchRequest;
-import dev.langchain4j.web.search.WebSearchResults;
-import dev.langchain4j.web.search.tavily.TavilyWebSearchEngine;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Tavily search engine implementation
- * 
+ *
+ * Calls the Tavily search REST API over the shared HTTP client
+ *
  * @author imfangs
  */
 @Slf4j
@@ -28,11 +33,18 @@ import java.util.stream.Collectors;
 public class TavilySearchEngine implements SearchEngine {
 
     private final ResearchConfig researchConfig;
-    private TavilyWebSearchEngine tavilyWebSearchEngine;
+    private final HttpClient httpClient;
+    private final HostConcurrencyLimiter hostConcurrencyLimiter;
+    private final ObjectMapper objectMapper;
+    private URI searchUri;
 
     @Autowired
-    public TavilySearchEngine(ResearchConfig researchConfig) {
+    public TavilySearchEngine(ResearchConfig researchConfig, HttpClient researchHttpClient,
+                              HostConcurrencyLimiter hostConcurrencyLimiter, ObjectMapper objectMapper) {
         this.researchConfig = researchConfig;
+        this.httpClient = researchHttpClient;
+        this.hostConcurrencyLimiter = hostConcurrencyLimiter;
+        this.objectMapper = objectMapper;
         initializeSearchEngine();
     }
 
@@ -43,20 +55,15 @@ public class TavilySearchEngine implements SearchEngine {
         try {
             TavilyConfig tavilyConfig =
                 researchConfig.getSearch().getTavily();
-            
+
             if (!StringUtils.hasText(tavilyConfig.getApiKey())) {
                 log.warn("Tavily API Key not configured, Tavily search engine will be unavailable");
                 return;
             }
 
-            this.tavilyWebSearchEngine = TavilyWebSearchEngine.builder()
-                    .apiKey(tavilyConfig.getApiKey())
-                    .baseUrl(tavilyConfig.getBaseUrl())
-                    .timeout(Duration.ofSeconds(tavilyConfig.getTimeoutSeconds()))
-                    .searchDepth(tavilyConfig.getSearchDepth())
-                    .includeAnswer(tavilyConfig.getIncludeAnswer())
-                    .includeRawContent(tavilyConfig.getIncludeRawContent())
-                    .build();
+            String baseUrl = tavilyConfig.getBaseUrl().endsWith("/") ?
+                    tavilyConfig.getBaseUrl() : tavilyConfig.getBaseUrl() + "/";
+            this.searchUri = URI.create(baseUrl).resolve("search");
 
             log.info("Tavily search engine initialized successfully");
         } catch (Exception e) {
@@ -71,72 +78,80 @@ public class TavilySearchEngine implements SearchEngine {
             return Collections.emptyList();
         }
 
+        long startNanos = System.nanoTime();
+        String outcome = "error";
         try {
-            log.info("Using Tavily search: query={}, maxResults={}, fetchFullPage={}", 
+            log.info("Using Tavily search: query={}, maxResults={}, fetchFullPage={}",
                     query, maxResults, fetchFullPage);
 
-            WebSearchRequest request = WebSearchRequest.builder()
-                    .searchTerms(query)
-                    .maxResults(maxResults)
+            TavilyConfig tavilyConfig = researchConfig.getSearch().getTavily();
+            ObjectNode body = objectMapper.createObjectNode()
+                    .put("api_key", tavilyConfig.getApiKey())
+                    .put("query", query)
+                    .put("max_results", maxResults)
+                    .put("search_depth", tavilyConfig.getSearchDepth())
+                    .put("include_answer", Boolean.TRUE.equals(tavilyConfig.getIncludeAnswer()))
+                    .put("include_raw_content", fetchFullPage && Boolean.TRUE.equals(tavilyConfig.getIncludeRawContent()));
+
+            HttpRequest request = HttpRequest.newBuilder(searchUri)
+                    .timeout(Duration.ofSeconds(tavilyConfig.getTimeoutSeconds()))
+                    .header("Content-Type", "application/json")
+                    .header("Authorization", "Bearer " + tavilyConfig.getApiKey())
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body), StandardCharsets.UTF_8))
                     .build();
 
-            WebSearchResults results = tavilyWebSearchEngine.search(request);
-            
-            List<SearchResult> searchResults = results.results().stream()
-                    .map(this::convertToSearchResult)
-                    .collect(Collectors.toList());
+            HttpResponse<String> response;
+            try (HostConcurrencyLimiter.Permit permit = hostConcurrencyLimiter.acquire(searchUri)) {
+                response = httpClient.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            }
+            outcome = String.valueOf(response.statusCode());
+            if (response.statusCode() / 100 != 2) {
+                log.error("Tavily search failed: query={}, status={}, body={}", query, response.statusCode(), response.body());
+                return Collections.emptyList();
+            }
+
+            List<SearchResult> searchResults = new ArrayList<>();
+            for (JsonNode result : objectMapper.readTree(response.body()).path("results")) {
+                searchResults.add(convertToSearchResult(result));
+            }
 
             log.info("Tavily search completed, obtained {} results", searchResults.size());
             return searchResults;
 
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Tavily search interrupted: query={}", query);
+            return Collections.emptyList();
         } catch (Exception e) {
             log.error("Tavily search failed: query=" + query, e);
             return Collections.emptyList();
+        } finally {
+            hostConcurrencyLimiter.recordRequest(searchUri, System.nanoTime() - startNanos, outcome);
         }
     }
 
     /**
-     * Convert LangChain4j search results to internal format
+     * Convert Tavily API result to internal format
      */
-    private SearchResult convertToSearchResult(WebSearchOrganicResult result) {
+    private SearchResult convertToSearchResult(JsonNode result) {
+        Double score = result.hasNonNull("score") ? result.get("score").asDouble() : null;
+
         Map<String, Object> metadata = new HashMap<>();
-        
-        // Add additional metadata
-        if (result.metadata() != null) {
-            metadata.putAll(result.metadata());
+        if (score != null) {
+            metadata.put("score", String.valueOf(score));
         }
 
         return SearchResult.builder()
-                .title(result.title())
-                .url(result.url() != null ? result.url().toString() : "")
-                .content(result.snippet())
-                .rawContent(result.content())
-                .score(extractScore(result.metadata()))
+                .title(result.path("title").asText(""))
+                .url(result.path("url").asText(""))
+                .content(result.path("content").asText(null))
+                .rawContent(result.hasNonNull("raw_content") ? result.get("raw_content").asText() : null)
+                .score(score)
                 .metadata(metadata)
                 .sourceEngine(getEngineName())
                 .build();
     }
 
-    /**
-     * Extract relevance score from metadata
-     */
-    private Double extractScore(Map<String, String> metadata) {
-        if (metadata == null) {
-            return null;
-        }
-        
-        String scoreStr = metadata.get("score");
-        if (StringUtils.hasText(scoreStr)) {
-            try {
-                return Double.parseDouble(scoreStr);
-            } catch (NumberFormatException e) {
-                log.debug("Unable to parse score: {}", scoreStr);
-            }
-        }
-        
-        return null;
-    }
-
     @Override
     public String getEngineName() {
         return "tavily";
@@ -144,7 +159,7 @@ public class TavilySearchEngine implements SearchEngine {
 
     @Override
     public boolean isAvailable() {
-        return tavilyWebSearchEngine != null && 
+        return searchUri != null &&
                StringUtils.hasText(researchConfig.getSearch().getTavily().getApiKey());
     }
 }
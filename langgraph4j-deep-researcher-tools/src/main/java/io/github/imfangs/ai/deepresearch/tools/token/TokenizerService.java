@@ -0,0 +1,95 @@
+package io.github.imfangs.ai.deepresearch.tools.token;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingRegistry;
+import com.knuddels.jtokkit.api.EncodingResult;
+import com.knuddels.jtokkit.api.EncodingType;
+import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Tokenizer service
+ *
+ * Counts and truncates text with the BPE encoding of the configured chat model, so prompt budgets
+ * hold for CJK and code-heavy content where a characters-per-token ratio does not
+ */
+@Slf4j
+@Component
+public class TokenizerService {
+
+    private final Encoding encoding;
+
+    @Autowired
+    public TokenizerService(ResearchConfig researchConfig) {
+        this(researchConfig.getModel().getModelName());
+    }
+
+    /**
+     * Create tokenizer for the given model, falling back to o200k_base for unknown models
+     *
+     * @param modelName Chat model name
+     */
+    public TokenizerService(String modelName) {
+        EncodingRegistry registry = Encodings.newDefaultEncodingRegistry();
+        this.encoding = (modelName != null ? registry.getEncodingForModel(modelName) : Optional.<Encoding>empty())
+                .orElseGet(() -> registry.getEncoding(EncodingType.O200K_BASE));
+
+        log.info("Tokenizer initialized, model: {}, encoding: {}", modelName, encoding.getName());
+    }
+
+    /**
+     * Count tokens in text
+     *
+     * @param text Text to count
+     * @return Token count
+     */
+    public int countTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return encoding.countTokensOrdinary(text);
+    }
+
+    /**
+     * Truncate text to at most the given number of tokens
+     *
+     * Encoding stops once the limit is reached, so truncating a large page only pays for the kept prefix
+     *
+     * @param text Text to truncate
+     * @param maxTokens Maximum tokens to keep
+     * @return Original text if it fits, otherwise its longest prefix within the limit
+     */
+    public String truncate(String text, int maxTokens) {
+        if (text == null || text.isEmpty()) {
+            return text;
+        }
+        if (maxTokens <= 0) {
+            return "";
+        }
+
+        EncodingResult result = encoding.encodeOrdinary(text, maxTokens);
+        if (!result.isTruncated()) {
+            return text;
+        }
+        return encoding.decode(result.getTokens());
+    }
+
+    /**
+     * Check whether text fits within the given number of tokens
+     *
+     * @param text Text to check
+     * @param maxTokens Maximum tokens
+     * @return Whether text fits
+     */
+    public boolean fits(String text, int maxTokens) {
+        if (text == null || text.isEmpty()) {
+            return true;
+        }
+        return !encoding.encodeOrdinary(text, maxTokens).isTruncated();
+    }
+}
@@ -0,0 +1,61 @@
+package io.github.imfangs.ai.deepresearch.tools.context;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * BM25 passage index test
+ */
+class Bm25PassageIndexTest {
+
+    @Test
+    void ranksPassagesByQueryTerms() {
+        Bm25PassageIndex index = new Bm25PassageIndex();
+        int battery = index.add("Solid-state battery prototypes reach 500 Wh/kg energy density in lab tests");
+        int charging = index.add("Fast charging networks expand across Europe with new 350 kW stations");
+        int recycling = index.add("Battery recycling recovers lithium and cobalt from spent battery cells");
+
+        List<Bm25PassageIndex.ScoredPassage> hits = index.search("battery recycling lithium", 10);
+
+        assertThat(hits).extracting(Bm25PassageIndex.ScoredPassage::passage).containsExactly(recycling, battery);
+        assertThat(hits.get(0).score()).isGreaterThan(hits.get(1).score());
+        assertThat(hits).extracting(Bm25PassageIndex.ScoredPassage::passage).doesNotContain(charging);
+    }
+
+    @Test
+    void limitsResultsAndScoresIncrementally() {
+        Bm25PassageIndex index = new Bm25PassageIndex();
+        for (int i = 0; i < 50; i++) {
+            index.add("quantum sensing passage number " + i);
+        }
+        assertThat(index.search("quantum", 5)).hasSize(5);
+
+        // Rare terms outweigh common ones once the index grows
+        int rare = index.add("quantum magnetometer for brain imaging");
+        assertThat(index.search("quantum magnetometer", 3).get(0).passage()).isEqualTo(rare);
+        assertThat(index.size()).isEqualTo(51);
+    }
+
+    @Test
+    void matchesCjkTextByCharacter() {
+        Bm25PassageIndex index = new Bm25PassageIndex();
+        index.add("固态电池的能量密度持续提升");
+        int medical = index.add("人工智能在医疗影像诊断中的应用");
+
+        assertThat(index.search("医疗人工智能", 1)).extracting(Bm25PassageIndex.ScoredPassage::passage)
+                .containsExactly(medical);
+    }
+
+    @Test
+    void returnsNothingWithoutMatches() {
+        Bm25PassageIndex index = new Bm25PassageIndex();
+        assertThat(index.search("anything", 5)).isEmpty();
+
+        index.add("some text");
+        assertThat(index.search("unrelated", 5)).isEmpty();
+        assertThat(index.search("text", 0)).isEmpty();
+    }
+}
@@ -0,0 +1,58 @@
+package io.github.imfangs.ai.deepresearch.tools.context;
+
+import io.github.imfangs.ai.deepresearch.api.dto.SearchResult;
+import io.github.imfangs.ai.deepresearch.tools.token.TokenizerService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Context packer test
+ */
+class ContextPackerTest {
+
+    private final ContextPacker contextPacker = new ContextPacker(new TokenizerService("gpt-4o-mini"));
+
+    @Test
+    void prefersMostNewInformationPerToken() {
+        ContextPacker.Chunk longPassage = chunk("https://a.example", 0,
+                "solid state batteries reach higher energy density than lithium ion cells", 50, 0.9);
+        ContextPacker.Chunk firstShort = chunk("https://b.example", 1,
+                "sulfide electrolytes conduct lithium ions at room temperature", 25, 0.8);
+        ContextPacker.Chunk secondShort = chunk("https://c.example", 2,
+                "anode free designs remove excess lithium metal from the cell", 25, 0.8);
+
+        List<ContextPacker.Chunk> selected = contextPacker.select(
+                List.of(longPassage, firstShort, secondShort), "", 60, 1000);
+
+        assertThat(selected).containsExactlyInAnyOrder(firstShort, secondShort);
+    }
+
+    @Test
+    void skipsChunksAlreadyKnown() {
+        String known = "sulfide electrolytes conduct lithium ions at room temperature";
+        ContextPacker.Chunk repeated = chunk("https://a.example", 0, known, 20, 0.9);
+        ContextPacker.Chunk fresh = chunk("https://b.example", 1,
+                "anode free designs remove excess lithium metal from the cell", 20, 0.5);
+
+        assertThat(contextPacker.select(List.of(repeated, fresh), known, 1000, 1000)).containsExactly(fresh);
+    }
+
+    @Test
+    void keepsPerSourceBudget() {
+        ContextPacker.Chunk first = chunk("https://a.example", 0,
+                "solid state batteries reach higher energy density than lithium ion cells", 30, 0.9);
+        ContextPacker.Chunk second = chunk("https://a.example", 1,
+                "anode free designs remove excess lithium metal from the cell", 30, 0.8);
+
+        assertThat(contextPacker.select(List.of(first, second), "", 1000, 40)).containsExactly(first);
+    }
+
+    private static ContextPacker.Chunk chunk(String url, int position, String text, int tokens, double relevance) {
+        SearchResult result = SearchResult.builder().title("Title").url(url).build();
+        return new ContextPacker.Chunk(result, position, position, text, tokens, relevance,
+                TextShingles.shingles(text, 3));
+    }
+}
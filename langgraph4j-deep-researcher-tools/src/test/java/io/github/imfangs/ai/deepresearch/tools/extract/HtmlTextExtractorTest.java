@@ -0,0 +1,124 @@
+package io.github.imfangs.ai.deepresearch.tools.extract;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * HTML text extractor test
+ */
+class HtmlTextExtractorTest {
+
+    private static final String ARTICLE_PAGE = """
+            <!DOCTYPE html>
+            <html>
+            <head>
+              <title>Quantum sensing - Example News</title>
+              <style>body { font-family: sans-serif; }</style>
+              <script>window.dataLayer = [];</script>
+            </head>
+            <body class="has-sidebar">
+              <header class="site-header"><a href="/">Example News</a></header>
+              <nav><ul>
+                <li><a href="/world">World</a></li>
+                <li><a href="/science">Science</a></li>
+                <li><a href="/tech">Technology</a></li>
+              </ul></nav>
+              <div id="cookie-banner">We use cookies to improve your experience. Accept all cookies to continue reading.</div>
+              <main>
+                <article>
+                  <header><h1>Quantum sensors reach clinical trials</h1></header>
+                  <p>Researchers have started the first clinical trials of quantum magnetometers that map brain
+                     activity without the bulky shielding required by existing scanners.</p>
+                  <p>Key results:</p>
+                  <ul>
+                    <li>Sensitivity comparable to SQUID systems</li>
+                    <li>Operation at room temperature</li>
+                  </ul>
+                  <p>The team expects the devices to cost a fraction of current equipment &amp; to fit in a
+                     standard examination room, according to the <a href="/paper">published paper</a>.</p>
+                  <!-- <p>Hidden draft paragraph that should never appear in the output.</p> -->
+                </article>
+              </main>
+              <aside class="related"><h2>Related</h2><p>Another story about sensors that readers also enjoyed a lot.</p></aside>
+              <footer><p>Copyright 2024 Example News. All rights reserved. Contact us for licensing questions.</p></footer>
+              <script type="text/javascript">if (a < b && c > d) { track("</p>"); }</script>
+            </body>
+            </html>
+            """;
+
+    @Test
+    void keepsArticleTextAndDropsBoilerplate() {
+        String text = HtmlTextExtractor.extract(ARTICLE_PAGE);
+
+        assertThat(text).contains(
+                "Quantum sensors reach clinical trials",
+                "Researchers have started the first clinical trials of quantum magnetometers",
+                "Sensitivity comparable to SQUID systems",
+                "Operation at room temperature",
+                "equipment & to fit in a standard examination room, according to the published paper.");
+        assertThat(text).doesNotContain(
+                "font-family", "dataLayer", "track(", "Hidden draft", "Technology", "cookies",
+                "Another story", "Copyright", "Example News");
+        assertThat(text).doesNotContain("<", ">");
+    }
+
+    @Test
+    void keepsBlocksOnSeparateLines() {
+        String text = HtmlTextExtractor.extract(ARTICLE_PAGE);
+
+        assertThat(text.lines()).contains(
+                "Quantum sensors reach clinical trials",
+                "Sensitivity comparable to SQUID systems");
+    }
+
+    @Test
+    void readsIncrementallyWithTheSameResult() throws IOException {
+        assertThat(HtmlTextExtractor.extract(new StringReader(ARTICLE_PAGE)))
+                .isEqualTo(HtmlTextExtractor.extract(ARTICLE_PAGE));
+    }
+
+    @Test
+    void keepsShortPagesAndCjkText() {
+        String text = HtmlTextExtractor.extract("<html><body><h1>标题</h1><p>人工智能在医疗领域的最新应用与发展趋势分析</p></body></html>");
+
+        assertThat(text).isEqualTo("标题\n人工智能在医疗领域的最新应用与发展趋势分析");
+    }
+
+    @Test
+    void decodesEntitiesAndKeepsLiteralText() {
+        String text = HtmlTextExtractor.extract("<p>5 &lt; 7 &#38; 9 &#x3E; 3 &unknown; AT&T a < b&nbsp;c</p>");
+
+        assertThat(text).isEqualTo("5 < 7 & 9 > 3 &unknown; AT&T a < b c");
+    }
+
+    @Test
+    void detectsHtml() {
+        assertThat(HtmlTextExtractor.looksLikeHtml("<!DOCTYPE html><html></html>")).isTrue();
+        assertThat(HtmlTextExtractor.looksLikeHtml("<html lang=\"en\"><body>Text</body></html>")).isTrue();
+        assertThat(HtmlTextExtractor.looksLikeHtml("Intro <p>Some text with <b>bold</b> markup</p>")).isTrue();
+        assertThat(HtmlTextExtractor.looksLikeHtml("<DIV CLASS=\"main\">Legacy markup</DIV>")).isTrue();
+        assertThat(HtmlTextExtractor.looksLikeHtml("# Heading\n\nPlain markdown where a < b and c > d")).isFalse();
+        assertThat(HtmlTextExtractor.looksLikeHtml(null)).isFalse();
+    }
+
+    @Test
+    void keepsMarkdownAndCodeAsText() {
+        assertThat(HtmlTextExtractor.looksLikeHtml("""
+                ## Usage
+
+                Call `Map<String, List<Integer>> index = build();` and pass an `Optional<Object>`.
+                Inline <b>emphasis</b>, <kbd>Ctrl</kbd> and a link to <https://example.com>.
+
+                ```java
+                List<T> items = new ArrayList<>();
+                if (a<b && c>d) {
+                    return;
+                }
+                ```
+                """)).isFalse();
+    }
+}
@@ -0,0 +1,240 @@
+package io.github.imfangs.ai.deepresearch.tools.fetch;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.imfangs.ai.deepresearch.config.FetchConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Page fetcher test against a local HTTP server
+ */
+class PageFetcherTest {
+
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+    private final AtomicInteger pageRequests = new AtomicInteger();
+    private final CountDownLatch releaseHang = new CountDownLatch(1);
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private ExecutorService serverExecutor;
+    private HttpServer server;
+    private String baseUrl;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/page", exchange -> {
+            pageRequests.incrementAndGet();
+            respond(exchange, 200, "text/html; charset=UTF-8",
+                    "<html><head><title>T</title><script>var x = 1;</script></head>"
+                            + "<body><h1>Heading</h1><p>First &amp; second</p></body></html>");
+        });
+        server.createContext("/redirect", exchange -> redirect(exchange, "/page"));
+        server.createContext("/metadata", exchange -> redirect(exchange, "http://169.254.169.254/latest/meta-data/"));
+        server.createContext("/loop", exchange -> redirect(exchange, "/loop"));
+        server.createContext("/large", exchange -> respond(exchange, 200, "text/plain", "x".repeat(100_000)));
+        server.createContext("/image", exchange -> respond(exchange, 200, "image/png", "binary"));
+        server.createContext("/missing", exchange -> respond(exchange, 404, "text/html", "not found"));
+        server.createContext("/slow", exchange -> {
+            int now = concurrent.incrementAndGet();
+            maxConcurrent.accumulateAndGet(now, Math::max);
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            concurrent.decrementAndGet();
+            respond(exchange, 200, "text/plain", "slow");
+        });
+        server.createContext("/hang", exchange -> {
+            try {
+                releaseHang.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, "text/plain", "late");
+        });
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopServer() {
+        releaseHang.countDown();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void fetchesPageAndExtractsText() {
+        Optional<FetchedPage> page = new PageFetcher(config(), httpClient).fetch(baseUrl + "/page").join();
+
+        assertThat(page).isPresent();
+        assertThat(page.get().isHtml()).isTrue();
+        assertThat(page.get().truncated()).isFalse();
+        assertThat(page.get().text()).contains("Heading", "First & second").doesNotContain("var x", "<p>");
+    }
+
+    @Test
+    void truncatesBodyAtSizeCap() {
+        FetchConfig config = config();
+        config.setMaxBodyBytes(1024);
+
+        FetchedPage page = new PageFetcher(config, httpClient).fetch(baseUrl + "/large").join().orElseThrow();
+
+        assertThat(page.body()).hasSize(1024);
+        assertThat(page.truncated()).isTrue();
+    }
+
+    @Test
+    void skipsErrorsAndNonTextContent() {
+        PageFetcher fetcher = new PageFetcher(config(), httpClient);
+
+        assertThat(fetcher.fetch(baseUrl + "/image").join()).isEmpty();
+        assertThat(fetcher.fetch(baseUrl + "/missing").join()).isEmpty();
+        assertThat(fetcher.fetch("ftp://example.com/file").join()).isEmpty();
+        assertThat(fetcher.fetch("not a url").join()).isEmpty();
+    }
+
+    @Test
+    void boundsConcurrencyPerHost() {
+        FetchConfig config = config();
+        config.setMaxConcurrentFetchesPerHost(2);
+        PageFetcher fetcher = new PageFetcher(config, httpClient);
+
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            urls.add(baseUrl + "/slow?i=" + i);
+        }
+        Map<String, FetchedPage> pages = fetcher.fetchAll(urls);
+
+        assertThat(pages).hasSize(6);
+        assertThat(maxConcurrent.get()).isBetween(1, 2);
+    }
+
+    @Test
+    void timesOutSlowPages() {
+        FetchConfig config = config();
+        config.setTimeoutSeconds(1);
+        PageFetcher fetcher = new PageFetcher(config, httpClient);
+
+        // The server holds the response until released, so only the timeout can end the fetch
+        Optional<FetchedPage> page = fetcher.fetch(baseUrl + "/hang").join();
+
+        assertThat(page).isEmpty();
+        assertThat(releaseHang.getCount()).isEqualTo(1);
+    }
+
+    @Test
+    void returnsPagesThatArriveWithinTimeout() {
+        PageFetcher fetcher = new PageFetcher(config(), httpClient);
+
+        // The hanging page is still loading when the time is up and is left out
+        Map<String, FetchedPage> pages = fetcher.fetchAll(List.of(baseUrl + "/page", baseUrl + "/hang"),
+                Duration.ofMillis(500));
+
+        assertThat(pages).containsOnlyKeys(baseUrl + "/page");
+        assertThat(releaseHang.getCount()).isEqualTo(1);
+    }
+
+    @Test
+    void cancellingFetchesAbortsThemAndReturnsPagesAlreadyIn() throws Exception {
+        FetchConfig config = config();
+        config.setMaxConcurrentFetchesPerHost(1);
+        PageFetcher fetcher = new PageFetcher(config, httpClient);
+        List<Future<?>> fetches = new CopyOnWriteArrayList<>();
+        CompletableFuture.delayedExecutor(500, TimeUnit.MILLISECONDS)
+                .execute(() -> fetches.forEach(fetch -> fetch.cancel(true)));
+
+        // Without a timeout only the cancellation can end the wait for the hanging page
+        Map<String, FetchedPage> pages = fetcher.fetchAll(List.of(baseUrl + "/page", baseUrl + "/hang"), null,
+                fetches::add);
+
+        assertThat(pages).containsOnlyKeys(baseUrl + "/page");
+        assertThat(releaseHang.getCount()).isEqualTo(1);
+        // The aborted exchange gave back the host's only permit
+        assertThat(fetcher.fetch(baseUrl + "/page").get(5, TimeUnit.SECONDS)).isPresent();
+    }
+
+    @Test
+    void refusesNonPublicAddresses() {
+        PageFetcher fetcher = new PageFetcher(new FetchConfig(), httpClient);
+
+        assertThat(fetcher.fetch(baseUrl + "/page").join()).isEmpty();
+        assertThat(fetcher.fetch("http://localhost:" + server.getAddress().getPort() + "/page").join()).isEmpty();
+        assertThat(fetcher.fetch("http://169.254.169.254/latest/meta-data/").join()).isEmpty();
+        assertThat(pageRequests.get()).isZero();
+    }
+
+    @Test
+    void classifiesAddresses() throws Exception {
+        for (String address : List.of("127.0.0.1", "10.1.2.3", "172.16.0.1", "192.168.1.1", "169.254.169.254",
+                "0.0.0.0", "224.0.0.1", "::1", "fe80::1", "fd00::1", "::")) {
+            assertThat(PageFetcher.isPublicAddress(InetAddress.getByName(address))).as(address).isFalse();
+        }
+        for (String address : List.of("93.184.216.34", "8.8.8.8", "2606:4700::1111")) {
+            assertThat(PageFetcher.isPublicAddress(InetAddress.getByName(address))).as(address).isTrue();
+        }
+    }
+
+    @Test
+    void checksEveryRedirectTarget() {
+        // Only the local test server is allowed, standing in for a public host
+        PageFetcher fetcher = new PageFetcher(new FetchConfig(), httpClient, InetAddress::isLoopbackAddress);
+
+        FetchedPage page = fetcher.fetch(baseUrl + "/redirect").join().orElseThrow();
+        assertThat(page.url()).isEqualTo(baseUrl + "/redirect");
+        assertThat(page.finalUrl()).isEqualTo(baseUrl + "/page");
+
+        assertThat(fetcher.fetch(baseUrl + "/metadata").join()).isEmpty();
+        assertThat(fetcher.fetch(baseUrl + "/loop").join()).isEmpty();
+    }
+
+    private static FetchConfig config() {
+        FetchConfig config = new FetchConfig();
+        config.setAllowPrivateAddresses(true);
+        return config;
+    }
+
+    private static void redirect(HttpExchange exchange, String location) throws IOException {
+        exchange.getResponseHeaders().set("Location", location);
+        exchange.sendResponseHeaders(302, -1);
+        exchange.close();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        } catch (IOException e) {
+            // Client went away (cancelled or timed out)
+        }
+    }
+}
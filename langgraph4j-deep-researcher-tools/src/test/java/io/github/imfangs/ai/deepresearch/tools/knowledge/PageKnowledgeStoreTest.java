@@ -0,0 +1,95 @@
+package io.github.imfangs.ai.deepresearch.tools.knowledge;
+
+import io.github.imfangs.ai.deepresearch.api.dto.SearchResult;
+import io.github.imfangs.ai.deepresearch.config.KnowledgeConfig;
+import io.github.imfangs.ai.deepresearch.config.RerankConfig;
+import io.github.imfangs.ai.deepresearch.tools.rerank.EmbeddingReranker;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Page knowledge store test
+ */
+class PageKnowledgeStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+
+    private final EmbeddingReranker embeddings = new EmbeddingReranker(new RerankConfig(), () -> {
+        throw new IllegalStateException("model not used");
+    });
+
+    @Test
+    void servesQueriesCoveredByStoredPages() {
+        PageKnowledgeStore store = store();
+        store.store(List.of(
+                result("https://a.example/recycling", "Battery recycling", "Recycling recovers lithium from battery cells"),
+                result("https://b.example/solid-state", "Solid-state battery", "Solid-state lithium battery prototypes"),
+                result("https://c.example/football", "League table", "Football league standings")));
+
+        Optional<List<SearchResult>> hits = store.lookup("lithium battery", 2, List.of(), true);
+
+        assertThat(hits).isPresent();
+        assertThat(hits.get()).extracting(SearchResult::getUrl)
+                .containsExactlyInAnyOrder("https://a.example/recycling", "https://b.example/solid-state");
+        assertThat(hits.get()).allSatisfy(hit -> assertThat(hit.getSourceEngine()).isEqualTo(PageKnowledgeStore.ENGINE_NAME));
+    }
+
+    @Test
+    void missesWhenCoverageIsInsufficient() {
+        PageKnowledgeStore store = store();
+        store.store(List.of(
+                result("https://a.example/recycling", "Battery recycling", "Recycling recovers lithium from battery cells"),
+                result("https://b.example/solid-state", "Solid-state battery", "Solid-state lithium battery prototypes")));
+
+        assertThat(store.lookup("lithium battery", 3, List.of(), true)).isEmpty();
+        assertThat(store.lookup("lithium battery", 2, List.of("https://www.a.example/recycling"), true)).isEmpty();
+        assertThat(store.lookup("sodium ion grid storage", 1, List.of(), true)).isEmpty();
+    }
+
+    @Test
+    void reloadsFreshPagesFromDisk() throws Exception {
+        PageKnowledgeStore store = store();
+        store.store(List.of(result("https://a.example/recycling", "Battery recycling", "Recycling recovers lithium")));
+        now.addAndGet(Duration.ofHours(100).toMillis());
+        store.store(List.of(
+                result("https://b.example/solid-state", "Solid-state battery", "Solid-state lithium battery prototypes"),
+                result("https://a.example/recycling", "Battery recycling", "Updated: recycling recovers lithium")));
+        now.addAndGet(Duration.ofHours(100).toMillis());
+        store.store(List.of(result("https://c.example/sodium", "Sodium battery", "Sodium-ion battery cells")));
+
+        // Reloading keeps the latest version of each page and nothing older than the maximum age
+        PageKnowledgeStore reloaded = store();
+        assertThat(reloaded.size()).isEqualTo(3);
+        assertThat(reloaded.lookup("recycling lithium", 1, List.of(), false).orElseThrow().get(0).getContent())
+                .startsWith("Updated");
+
+        now.addAndGet(Duration.ofHours(100).toMillis());
+        PageKnowledgeStore expired = store();
+        assertThat(expired.size()).isEqualTo(1);
+        assertThat(Files.readAllLines(directory.resolve("pages.jsonl"))).hasSize(1);
+    }
+
+    private PageKnowledgeStore store() {
+        KnowledgeConfig config = new KnowledgeConfig();
+        config.setEnabled(true);
+        config.setDirectory(directory.toString());
+        config.setVectorSearch(false);
+        return new PageKnowledgeStore(config, embeddings, now::get);
+    }
+
+    private static SearchResult result(String url, String title, String content) {
+        return SearchResult.builder().url(url).title(title).content(content).sourceEngine("tavily").build();
+    }
+}
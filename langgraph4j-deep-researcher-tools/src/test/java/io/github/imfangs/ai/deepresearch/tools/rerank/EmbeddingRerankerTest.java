@@ -0,0 +1,101 @@
+package io.github.imfangs.ai.deepresearch.tools.rerank;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import io.github.imfangs.ai.deepresearch.api.dto.SearchResult;
+import io.github.imfangs.ai.deepresearch.config.RerankConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Embedding reranker test
+ */
+class EmbeddingRerankerTest {
+
+    private static final List<String> VOCABULARY = List.of("battery", "lithium", "recycling", "football", "league", "energy");
+
+    private final List<Integer> batchSizes = new ArrayList<>();
+
+    /**
+     * Bag-of-words embedding over a fixed vocabulary, recording batch sizes
+     */
+    private final EmbeddingModel model = segments -> {
+        batchSizes.add(segments.size());
+        List<Embedding> embeddings = new ArrayList<>();
+        for (TextSegment segment : segments) {
+            String text = segment.text().toLowerCase(Locale.ROOT);
+            float[] vector = new float[VOCABULARY.size()];
+            for (int i = 0; i < VOCABULARY.size(); i++) {
+                vector[i] = text.contains(VOCABULARY.get(i)) ? 1f : 0f;
+            }
+            embeddings.add(Embedding.from(vector));
+        }
+        return Response.from(embeddings);
+    };
+
+    @Test
+    void ordersBySimilarityAndDropsIrrelevantResults() {
+        RerankConfig config = new RerankConfig();
+        config.setMinSimilarity(0.3);
+        EmbeddingReranker reranker = new EmbeddingReranker(config, () -> model);
+
+        List<SearchResult> reranked = reranker.rerank("lithium battery recycling", List.of(
+                result("https://a.example/energy", "Energy outlook", "Energy demand grows with battery storage"),
+                result("https://b.example/football", "League table", "Football league standings"),
+                result("https://c.example/recycling", "Recycling lithium", "Battery recycling recovers lithium")));
+
+        assertThat(reranked).extracting(SearchResult::getUrl)
+                .containsExactly("https://c.example/recycling", "https://a.example/energy");
+        assertThat(reranked.get(0).getScore()).isGreaterThan(reranked.get(1).getScore());
+        assertThat(reranked.get(0).getMetadata()).containsEntry("search_score", 0.5).containsKey("rerank_similarity");
+    }
+
+    @Test
+    void keepsMinimumResultsWhenNothingIsRelevant() {
+        RerankConfig config = new RerankConfig();
+        config.setMinResults(1);
+        EmbeddingReranker reranker = new EmbeddingReranker(config, () -> model);
+
+        List<SearchResult> reranked = reranker.rerank("lithium battery", List.of(
+                result("https://b.example/football", "League table", "Football league standings")));
+
+        assertThat(reranked).hasSize(1);
+    }
+
+    @Test
+    void embedsInBatchesAndCachesByContent() {
+        RerankConfig config = new RerankConfig();
+        config.setBatchSize(2);
+        EmbeddingReranker reranker = new EmbeddingReranker(config, () -> model);
+
+        reranker.embed(List.of("battery", "lithium", "battery", "recycling"));
+        assertThat(batchSizes).containsExactly(2, 1);
+
+        batchSizes.clear();
+        reranker.embed(List.of("lithium", "recycling", "football"));
+        assertThat(batchSizes).containsExactly(1);
+    }
+
+    @Test
+    void keepsOrderWhenModelFails() {
+        EmbeddingReranker reranker = new EmbeddingReranker(new RerankConfig(), () -> {
+            throw new IllegalStateException("model unavailable");
+        });
+        List<SearchResult> results = List.of(
+                result("https://b.example/football", "League table", "Football league standings"),
+                result("https://c.example/recycling", "Recycling lithium", "Battery recycling recovers lithium"));
+
+        assertThat(reranker.rerank("lithium battery", results)).isSameAs(results);
+    }
+
+    private static SearchResult result(String url, String title, String content) {
+        return SearchResult.builder().url(url).title(title).content(content).score(0.5).build();
+    }
+}
@@ -0,0 +1,27 @@
+package io.github.imfangs.ai.deepresearch.tools.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * URL canonicalizer test
+ */
+class UrlCanonicalizerTest {
+
+    @Test
+    void mapsVariantsOfSamePage() {
+        assertThat(UrlCanonicalizer.canonicalize("HTTPS://www.Example.com:443/docs/?utm_source=x&b=2&a=1#intro"))
+                .isEqualTo("https://example.com/docs?a=1&b=2");
+        assertThat(UrlCanonicalizer.canonicalize("http://example.com:80/docs/"))
+                .isEqualTo("http://example.com/docs");
+    }
+
+    @Test
+    void keepsScheme() {
+        assertThat(UrlCanonicalizer.canonicalize("http://example.com/docs"))
+                .isNotEqualTo(UrlCanonicalizer.canonicalize("https://example.com/docs"));
+        assertThat(UrlCanonicalizer.canonicalize("https://example.com:8443/docs"))
+                .isEqualTo("https://example.com:8443/docs");
+    }
+}
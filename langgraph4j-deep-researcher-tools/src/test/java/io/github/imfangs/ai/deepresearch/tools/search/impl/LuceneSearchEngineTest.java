@@ -0,0 +1,110 @@
+package io.github.imfangs.ai.deepresearch.tools.search.impl;
+
+import io.github.imfangs.ai.deepresearch.api.dto.CorpusDocument;
+import io.github.imfangs.ai.deepresearch.api.dto.SearchResult;
+import io.github.imfangs.ai.deepresearch.config.LuceneConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lucene search engine test
+ */
+class LuceneSearchEngineTest {
+
+    @TempDir
+    Path directory;
+
+    private LuceneSearchEngine engine;
+
+    @AfterEach
+    void close() {
+        if (engine != null) {
+            engine.close();
+        }
+    }
+
+    @Test
+    void searchesIngestedDocuments() {
+        engine = new LuceneSearchEngine(config(""));
+        engine.ingest(List.of(
+                document("https://wiki.example/recycling", "Battery recycling",
+                        "Overview of the programme.\n\nHydrometallurgical recycling recovers lithium and cobalt from spent battery cells."),
+                document("https://wiki.example/football", "League table", "Football league standings for the season.")));
+
+        List<SearchResult> results = engine.search("lithium recycling", 5, true);
+
+        assertThat(results).extracting(SearchResult::getUrl).containsExactly("https://wiki.example/recycling");
+        assertThat(results.get(0).getContent()).startsWith("Hydrometallurgical recycling");
+        assertThat(results.get(0).getRawContent()).contains("Overview of the programme");
+        assertThat(results.get(0).getScore()).isEqualTo(1.0);
+        assertThat(results.get(0).getSourceEngine()).isEqualTo("lucene");
+        assertThat(engine.search("lithium recycling", 5, false).get(0).getRawContent()).isNull();
+    }
+
+    @Test
+    void replacesAndDeletesDocumentsByUrl() {
+        engine = new LuceneSearchEngine(config(""));
+        engine.ingest(List.of(document("https://wiki.example/a", "Draft", "Solid-state battery draft notes")));
+        engine.ingest(List.of(document("https://wiki.example/a", "Final", "Solid-state battery final report")));
+
+        assertThat(engine.size()).isEqualTo(1);
+        assertThat(engine.search("battery", 5, false)).extracting(SearchResult::getTitle).containsExactly("Final");
+
+        engine.delete("https://wiki.example/a");
+        assertThat(engine.search("battery", 5, false)).isEmpty();
+    }
+
+    @Test
+    void ingestsDocumentsDirectoryAndSkipsUnchangedFiles() throws Exception {
+        Path documents = Files.createDirectories(directory.resolve("documents"));
+        Files.writeString(documents.resolve("grid.md"), "# Grid storage\n\nSodium-ion batteries for grid storage.");
+        Files.writeString(documents.resolve("page.html"),
+                "<html><body><article><p>Perovskite solar cells reach record efficiency in tandem designs.</p></article></body></html>");
+        Files.writeString(documents.resolve("data.csv"), "sodium,grid");
+
+        engine = new LuceneSearchEngine(config(documents.toString()));
+
+        assertThat(engine.size()).isEqualTo(2);
+        assertThat(engine.search("sodium grid", 5, false)).extracting(SearchResult::getTitle).containsExactly("Grid storage");
+        assertThat(engine.search("perovskite", 5, true).get(0).getRawContent()).doesNotContain("<p>");
+        assertThat(engine.reindex()).isZero();
+    }
+
+    @Test
+    void reindexDeletesDocumentsOfRemovedFiles() throws Exception {
+        Path documents = Files.createDirectories(directory.resolve("documents"));
+        Files.writeString(documents.resolve("grid.md"), "# Grid storage\n\nSodium-ion batteries for grid storage.");
+        Files.writeString(documents.resolve("solar.md"), "# Solar\n\nPerovskite solar cells in tandem designs.");
+
+        engine = new LuceneSearchEngine(config(documents.toString()));
+        engine.ingest(List.of(document("https://wiki.example/solar", "Solar wiki", "Perovskite solar wiki notes")));
+        assertThat(engine.size()).isEqualTo(3);
+
+        Files.delete(documents.resolve("solar.md"));
+        engine.reindex();
+
+        // Documents ingested over the API are not part of the directory
+        assertThat(engine.size()).isEqualTo(2);
+        assertThat(engine.search("perovskite", 5, false)).extracting(SearchResult::getUrl)
+                .containsExactly("https://wiki.example/solar");
+    }
+
+    private LuceneConfig config(String documentsDirectory) {
+        LuceneConfig config = new LuceneConfig();
+        config.setEnabled(true);
+        config.setIndexDirectory(directory.resolve("index").toString());
+        config.setDocumentsDirectory(documentsDirectory);
+        return config;
+    }
+
+    private static CorpusDocument document(String url, String title, String content) {
+        return CorpusDocument.builder().url(url).title(title).content(content).build();
+    }
+}
@@ -0,0 +1,122 @@
+package io.github.imfangs.ai.deepresearch.tools.search.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.imfangs.ai.deepresearch.api.dto.SearchResult;
+import io.github.imfangs.ai.deepresearch.config.ResearchConfig;
+import io.github.imfangs.ai.deepresearch.config.http.HostConcurrencyLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tavily search engine test against a local HTTP server
+ */
+class TavilySearchEngineTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicReference<JsonNode> requestBody = new AtomicReference<>();
+    private final AtomicReference<String> authorization = new AtomicReference<>();
+    private final AtomicReference<String> responseBody = new AtomicReference<>();
+    private HttpServer server;
+    private TavilySearchEngine engine;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/search", this::search);
+        server.start();
+
+        ResearchConfig researchConfig = new ResearchConfig();
+        researchConfig.getSearch().getTavily().setApiKey("tvly-test");
+        researchConfig.getSearch().getTavily().setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        engine = new TavilySearchEngine(researchConfig, HttpClient.newHttpClient(),
+                new HostConcurrencyLimiter(4, meterRegistry), objectMapper);
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void mapsResultsAndSendsRequest() {
+        responseBody.set("""
+                {"query": "q", "results": [
+                  {"title": "First", "url": "https://a.example/1", "content": "Snippet",
+                   "raw_content": "Full page", "score": 0.87},
+                  {"title": "Second", "url": "https://b.example/2", "content": "Other",
+                   "raw_content": null}
+                ]}
+                """);
+
+        List<SearchResult> results = engine.search("quantum error correction", 2, true);
+
+        assertThat(results).hasSize(2);
+        SearchResult first = results.get(0);
+        assertThat(first.getTitle()).isEqualTo("First");
+        assertThat(first.getUrl()).isEqualTo("https://a.example/1");
+        assertThat(first.getContent()).isEqualTo("Snippet");
+        assertThat(first.getRawContent()).isEqualTo("Full page");
+        assertThat(first.getScore()).isEqualTo(0.87);
+        assertThat(first.getMetadata()).containsEntry("score", "0.87");
+        assertThat(first.getSourceEngine()).isEqualTo("tavily");
+
+        SearchResult second = results.get(1);
+        assertThat(second.getRawContent()).isNull();
+        assertThat(second.getScore()).isNull();
+        assertThat(second.getMetadata()).doesNotContainKey("score");
+
+        assertThat(authorization.get()).isEqualTo("Bearer tvly-test");
+        assertThat(requestBody.get().path("query").asText()).isEqualTo("quantum error correction");
+        assertThat(requestBody.get().path("max_results").asInt()).isEqualTo(2);
+        assertThat(requestBody.get().path("include_raw_content").asBoolean()).isTrue();
+        assertThat(meterRegistry.get("research.http.requests").tag("outcome", "200").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void omitsRawContentWithoutFullPage() {
+        responseBody.set("{\"results\": []}");
+
+        assertThat(engine.search("q", 3, false)).isEmpty();
+        assertThat(requestBody.get().path("include_raw_content").asBoolean()).isFalse();
+    }
+
+    @Test
+    void returnsNoResultsOnErrors() {
+        responseBody.set(null);
+        assertThat(engine.search("q", 3, true)).isEmpty();
+        assertThat(meterRegistry.get("research.http.requests").tag("outcome", "500").timer().count()).isEqualTo(1);
+
+        responseBody.set("not json");
+        assertThat(engine.search("q", 3, true)).isEmpty();
+    }
+
+    private void search(HttpExchange exchange) throws IOException {
+        requestBody.set(objectMapper.readTree(exchange.getRequestBody()));
+        authorization.set(exchange.getRequestHeaders().getFirst("Authorization"));
+
+        String body = responseBody.get();
+        int status = body != null ? 200 : 500;
+        byte[] bytes = (body != null ? body : "{\"error\": \"boom\"}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package io.github.imfangs.ai.deepresearch.tools.token;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tokenizer service test
+ */
+class TokenizerServiceTest {
+
+    private final TokenizerService tokenizerService = new TokenizerService("gpt-4o-mini");
+
+    @Test
+    void countsTokensForLatinAndCjkText() {
+        String english = "Latest applications of artificial intelligence in healthcare";
+        String chinese = "人工智能在医疗领域的最新应用";
+
+        assertThat(tokenizerService.countTokens(english)).isBetween(5, english.length());
+        // CJK text needs far more tokens per character than the 4 chars per token heuristic assumed
+        assertThat(tokenizerService.countTokens(chinese)).isGreaterThan(chinese.length() / 4);
+        assertThat(tokenizerService.countTokens("")).isZero();
+        assertThat(tokenizerService.countTokens(null)).isZero();
+    }
+
+    @Test
+    void truncatesAtTokenGranularity() {
+        String page = typicalPage();
+
+        String truncated = tokenizerService.truncate(page, 1000);
+
+        assertThat(page).startsWith(truncated);
+        assertThat(tokenizerService.countTokens(truncated)).isLessThanOrEqualTo(1000);
+        assertThat(tokenizerService.fits(truncated, 1000)).isTrue();
+        assertThat(tokenizerService.fits(page, 1000)).isFalse();
+    }
+
+    @Test
+    void keepsTextThatFits() {
+        String text = "Short snippet that fits easily";
+
+        assertThat(tokenizerService.truncate(text, 1000)).isSameAs(text);
+    }
+
+    /**
+     * Build a page of about 20KB mixing prose, code and CJK text
+     */
+    private String typicalPage() {
+        StringBuilder page = new StringBuilder();
+        while (page.length() < 20_000) {
+            page.append("Deep research systems iterate between searching, summarizing and reflecting on gaps. ");
+            page.append("for (int i = 0; i < results.size(); i++) { builder.append(results.get(i)); }\n");
+            page.append("深度研究系统在搜索、总结和反思之间迭代。\n");
+        }
+        return page.toString();
+    }
+}